@@ -0,0 +1,173 @@
+package ru.aritmos.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.aritmos.events.model.Event;
+import ru.aritmos.events.services.EventService;
+import ru.aritmos.model.Branch;
+import ru.aritmos.model.Queue;
+import ru.aritmos.model.ServicePoint;
+import ru.aritmos.model.User;
+import ru.aritmos.model.visit.Visit;
+import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
+import ru.aritmos.service.BranchService;
+import ru.aritmos.service.VisitService;
+
+/**
+ * Сравнение поиска и перемещения визита через индекс расположения визитов {@link Branch} с полным
+ * просмотром очередей, точек обслуживания и пулов, который выполнялся до появления индекса.
+ *
+ * <p>Запуск: {@code mvn -Pjmh test-compile exec:exec -Djmh.args="BranchVisitIndex"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BranchVisitIndexBenchmark {
+
+  /** Количество очередей отделения. */
+  @Param({"20"})
+  int queues;
+
+  /** Количество точек обслуживания отделения. */
+  @Param({"80"})
+  int servicePoints;
+
+  /** Количество ожидающих визитов. */
+  @Param({"2000"})
+  int visits;
+
+  private Branch branch;
+  private List<Visit> allVisits;
+  private final EventService eventService = new SilentEventService();
+  private final VisitService visitService = new SilentVisitService();
+  private int cursor;
+
+  /** Подготовка отделения с визитами, размещёнными через {@link Branch#updateVisit}. */
+  @Setup(Level.Trial)
+  public void setUp() {
+    branch = new Branch("bench", "Отделение");
+    for (int q = 0; q < queues; q++) {
+      Queue queue = new Queue("q" + q, "Очередь " + q, "Q", 1);
+      branch.getQueues().put(queue.getId(), queue);
+    }
+    for (int s = 0; s < servicePoints; s++) {
+      ServicePoint servicePoint = new ServicePoint("sp" + s, "Окно " + s);
+      servicePoint.setUser(new User("u" + s, "user" + s, null));
+      branch.getServicePoints().put(servicePoint.getId(), servicePoint);
+    }
+    allVisits = new ArrayList<>();
+    for (int v = 0; v < visits; v++) {
+      Visit visit =
+          Visit.builder()
+              .id("v" + v)
+              .branchId(branch.getId())
+              .queueId("q" + (v % queues))
+              .parameterMap(new HashMap<>())
+              .visitEvents(new ArrayList<>())
+              .events(new ArrayList<>())
+              .build();
+      branch.updateVisit(visit, eventService, VisitEvent.PLACED_IN_QUEUE, visitService, -1);
+      allVisits.add(visit);
+    }
+  }
+
+  private Visit nextVisit() {
+    cursor = (cursor + 7919) % allVisits.size();
+    return allVisits.get(cursor);
+  }
+
+  private String nextQueueId(Visit visit) {
+    int current = Integer.parseInt(visit.getQueueId().substring(1));
+    return "q" + ((current + 1) % queues);
+  }
+
+  /** Поиск визита через индекс. */
+  @Benchmark
+  public Visit findVisitIndexed() {
+    return branch.findVisit(nextVisit().getId()).orElseThrow();
+  }
+
+  /** Поиск визита прежним способом: дважды собирается перечень всех визитов отделения. */
+  @Benchmark
+  public Visit findVisitScan() {
+    String visitId = nextVisit().getId();
+    if (branch.getAllVisits().containsKey(visitId)) {
+      return branch.getAllVisits().get(visitId);
+    }
+    throw new IllegalStateException(visitId);
+  }
+
+  /** Перевод визита в другую очередь через индекс. */
+  @Benchmark
+  public Visit transferIndexed() {
+    Visit visit = nextVisit();
+    visit.setQueueId(nextQueueId(visit));
+    branch.updateVisit(visit, eventService, VisitEvent.TRANSFER_TO_QUEUE, visitService, -1);
+    return visit;
+  }
+
+  /** Перевод визита в другую очередь прежним способом: удаление из всех мест размещения. */
+  @Benchmark
+  public Visit transferScan() {
+    Visit visit = nextVisit();
+    visit.setQueueId(nextQueueId(visit));
+    for (Queue queue : branch.getQueues().values()) {
+      queue.getVisits().removeIf(f -> f.getId().equals(visit.getId()));
+      if (queue.getId().equals(visit.getQueueId())) {
+        queue.getVisits().add(visit);
+      }
+    }
+    for (ServicePoint servicePoint : branch.getServicePoints().values()) {
+      servicePoint.getVisits().removeIf(f -> f.getId().equals(visit.getId()));
+      if (servicePoint.getUser() != null) {
+        servicePoint.getUser().getVisits().removeIf(f -> f.getId().equals(visit.getId()));
+      }
+    }
+    return visit;
+  }
+
+  /** Сервис событий без отправки событий. */
+  static final class SilentEventService extends EventService {
+    @Override
+    public void send(String destinationServices, Boolean sendToOtherBus, Event event) {}
+  }
+
+  /** Сервис отделений без публикации изменений. */
+  static final class SilentBranchService extends BranchService {
+    @Override
+    public Branch add(String key, Branch value) {
+      return value;
+    }
+  }
+
+  /** Сервис визитов без журнала событий визита. */
+  static final class SilentVisitService extends VisitService {
+    private final BranchService branchService = new SilentBranchService();
+
+    @Override
+    public void addEvent(Visit visit, VisitTransition transition, EventService eventService) {}
+
+    @Override
+    public BranchService getBranchService() {
+      return branchService;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package ru.aritmos.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.aritmos.exceptions.BusinessExceptionLocalization;
+import ru.aritmos.exceptions.BusinessExceptionLocalizationProperties;
+
+/**
+ * Сравнение локализации сообщений одного исключения {@link
+ * ru.aritmos.exceptions.BusinessException} через скомпилированные словари с разрешением перевода
+ * по настройкам каналов (поиск в ресурсных словарях при каждом сообщении), которое выполнялось до
+ * появления словарей.
+ *
+ * <p>Запуск: {@code mvn -Pjmh test-compile exec:exec -Djmh.args="BusinessExceptionLocalization"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusinessExceptionLocalizationBenchmark {
+
+  private BusinessExceptionLocalizationProperties properties;
+  private BusinessExceptionLocalization localization;
+  private int cursor;
+
+  /** Подготовка настроек локализации по умолчанию. */
+  @Setup(Level.Trial)
+  public void setUp() {
+    properties = new BusinessExceptionLocalizationProperties();
+    localization = new BusinessExceptionLocalization(properties);
+  }
+
+  /**
+   * Разрешение перевода по настройкам каналов (прежний способ): тело ответа, сообщение клиента,
+   * лога и события.
+   *
+   * @return переводы сообщений
+   */
+  @Benchmark
+  public Object channelResolve() {
+    return new String[] {
+      properties.getHttp().resolve("branch_not_found"),
+      properties.getHttp().resolve("branch_not_found"),
+      properties.getLog().resolve("branch_not_found"),
+      properties.getEvent().resolve("branch_not_found")
+    };
+  }
+
+  /**
+   * Локализация повторяющегося сообщения (результат берётся из кеша).
+   *
+   * @return локализованные сообщения
+   */
+  @Benchmark
+  public Object localizeRepeated() {
+    return localization.localize(
+        null, "branch_not_found", "branch_not_found", "branch_not_found");
+  }
+
+  /**
+   * Локализация сообщений с разными идентификаторами (результат не кешируется).
+   *
+   * @return локализованные сообщения
+   */
+  @Benchmark
+  public Object localizeDistinct() {
+    String message = "Visit " + (cursor++ & 0xFFFF) + " not found";
+    return localization.localize(null, message, message, message);
+  }
+}
@@ -0,0 +1,160 @@
+package ru.aritmos.benchmark;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.aritmos.exceptions.SystemException;
+import ru.aritmos.model.Branch;
+import ru.aritmos.model.visit.Visit;
+import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
+import ru.aritmos.service.SyntheticBranchFixture;
+import ru.aritmos.service.VisitService;
+
+/**
+ * Микробенчмарки основных операций жизненного цикла визита на синтетическом отделении {@link
+ * SyntheticBranchFixture}.
+ *
+ * <p>Операции, меняющие состояние отделения, измеряются замкнутыми циклами (создание и удаление,
+ * создание, вызов и завершение, вызов и перевод), поэтому количество ожидающих визитов не
+ * меняется. История событий визитов растёт, поэтому отделение строится заново перед каждой
+ * итерацией.
+ *
+ * <p>Запуск: {@code mvn -Pjmh test-compile exec:exec -Djmh.args="VisitLifecycle"}; масштаб
+ * задаётся параметрами, например {@code -Djmh.args="VisitLifecycle -p visits=10000"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VisitLifecycleBenchmark {
+
+  /** Количество очередей отделения. */
+  @Param({"20"})
+  int queues;
+
+  /** Количество точек обслуживания отделения. */
+  @Param({"80"})
+  int servicePoints;
+
+  /** Количество ожидающих визитов. */
+  @Param({"2000"})
+  int visits;
+
+  private SyntheticBranchFixture fixture;
+  private VisitService visitService;
+  private Branch branch;
+  private List<String> servicePointIds;
+  private Visit segmentationProbe;
+  private int cursor;
+
+  /** Построение отделения с ожидающими визитами. */
+  @Setup(Level.Iteration)
+  public void setUp() {
+    fixture = new SyntheticBranchFixture(queues, servicePoints, visits);
+    visitService = fixture.getVisitService();
+    branch = fixture.getBranch();
+    servicePointIds = fixture.getServicePointIds();
+    int lastQueue = queues - 1;
+    HashMap<String, String> parameters = new HashMap<>();
+    parameters.put(SyntheticBranchFixture.SEGMENT, SyntheticBranchFixture.segment(lastQueue));
+    segmentationProbe =
+        Visit.builder()
+            .id("probe")
+            .branchId(branch.getId())
+            .currentService(branch.getServices().get("s" + lastQueue).clone())
+            .parameterMap(parameters)
+            .build();
+  }
+
+  private int next() {
+    cursor = (cursor + 1) % (queues * servicePoints);
+    return cursor;
+  }
+
+  private String nextServicePointId() {
+    return servicePointIds.get(next() % servicePointIds.size());
+  }
+
+  /** Создание визита через терминал и его удаление. */
+  @Benchmark
+  public Visit createVisitAndDelete() {
+    Visit visit = fixture.createVisit(next());
+    visitService.deleteVisit(visit);
+    return visit;
+  }
+
+  /** Создание визита, вызов визита с максимальным ожиданием и завершение обслуживания. */
+  @Benchmark
+  public Optional<Visit> createCallEnd() {
+    String servicePointId = nextServicePointId();
+    fixture.createVisit(cursor);
+    Optional<Visit> visit =
+        visitService.visitCallWithMaximalWaitingTime(branch.getId(), servicePointId);
+    if (visit.isPresent()) {
+      visitService.visitEnd(branch.getId(), servicePointId, false, "");
+    }
+    return visit;
+  }
+
+  /** Вызов визита с максимальным ожиданием и перевод его в следующую очередь. */
+  @Benchmark
+  public Optional<Visit> callAndTransfer() {
+    String servicePointId = nextServicePointId();
+    Optional<Visit> visit =
+        visitService.visitCallWithMaximalWaitingTime(branch.getId(), servicePointId);
+    visit.ifPresent(
+        called -> {
+          String queueId = called.getParameterMap().get("LastQueueId");
+          visitService.visitTransfer(
+              branch.getId(),
+              servicePointId,
+              fixture.queueId(fixture.queueNumber(queueId) + 1),
+              called,
+              -1,
+              0L);
+        });
+    return visit;
+  }
+
+  /** Перемещение ожидающего визита в следующую очередь через {@link Branch#updateVisit}. */
+  @Benchmark
+  public Visit branchUpdateVisit() {
+    Visit visit = branch.getQueues().get(fixture.queueId(next())).getVisits().get(0);
+    visit.setQueueId(fixture.queueId(fixture.queueNumber(visit.getQueueId()) + 1));
+    branch.updateVisit(
+        visit,
+        fixture.getEventService(),
+        VisitTransition.of(VisitEvent.TRANSFER_TO_QUEUE),
+        visitService,
+        -1);
+    return visit;
+  }
+
+  /** Перечень всех визитов отделения. */
+  @Benchmark
+  public int getAllVisits() {
+    return branch.getAllVisits().size();
+  }
+
+  /** Выбор очереди правилами сегментации. */
+  @Benchmark
+  public Optional<?> segmentationGetQueue() throws SystemException {
+    return fixture.getSegmentationRule().getQueue(segmentationProbe, branch);
+  }
+}
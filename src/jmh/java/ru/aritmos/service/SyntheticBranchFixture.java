@@ -0,0 +1,231 @@
+package ru.aritmos.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import lombok.Getter;
+import org.slf4j.LoggerFactory;
+import ru.aritmos.config.LocalNoDockerKeycloakStub;
+import ru.aritmos.events.model.Event;
+import ru.aritmos.events.services.DelayedEvents;
+import ru.aritmos.events.services.EventService;
+import ru.aritmos.exceptions.SystemException;
+import ru.aritmos.model.Branch;
+import ru.aritmos.model.Entity;
+import ru.aritmos.model.EntryPoint;
+import ru.aritmos.model.Queue;
+import ru.aritmos.model.SegmentationRuleData;
+import ru.aritmos.model.Service;
+import ru.aritmos.model.ServiceGroup;
+import ru.aritmos.model.ServicePoint;
+import ru.aritmos.model.User;
+import ru.aritmos.model.WorkProfile;
+import ru.aritmos.model.visit.Visit;
+import ru.aritmos.service.rules.MaxLifeTimeCallRule;
+import ru.aritmos.service.rules.MaxWaitingTimeCallRule;
+import ru.aritmos.service.rules.SegmentationRule;
+
+/**
+ * Синтетическое отделение для микробенчмарков жизненного цикла визита.
+ *
+ * <p>Отделение строится по образцу {@link Configuration#createDemoBranch()}, но масштабируется:
+ * каждой из N очередей соответствует услуга, услуги объединены в группы с правилами сегментации
+ * (заданными данными, без сценариев Groovy), каждая из M точек обслуживания занята сотрудником с
+ * рабочим профилем на три соседние очереди, а K ожидающих визитов создаются через {@link
+ * VisitService#createVisit2}.
+ *
+ * <p>Сервисы связаны вручную, без контекста Micronaut: отправка событий и отложенных событий
+ * отключена, Keycloak заменён {@link LocalNoDockerKeycloakStub}. Журналирование понижается до
+ * WARN, чтобы измерялась обработка визитов, а не вывод в консоль.
+ */
+@Getter
+public final class SyntheticBranchFixture {
+
+  /** Идентификатор отделения. */
+  public static final String BRANCH_ID = "bench-branch";
+
+  /** Идентификатор точки входа. */
+  public static final String ENTRY_POINT_ID = "bench-entry";
+
+  /** Параметр визита, по которому срабатывают правила сегментации. */
+  public static final String SEGMENT = "segment";
+
+  /** Количество групп услуг. */
+  private static final int SERVICE_GROUPS = 4;
+
+  /** Количество очередей рабочего профиля. */
+  private static final int PROFILE_QUEUES = 3;
+
+  private final int queues;
+  private final EventService eventService = new SilentEventService();
+  private final BranchService branchService = new BranchService();
+  private final VisitService visitService = new VisitService();
+  private final SegmentationRule segmentationRule = new SegmentationRule();
+  private final Branch branch;
+  private final List<String> servicePointIds = new ArrayList<>();
+
+  /**
+   * Построение отделения и создание ожидающих визитов.
+   *
+   * @param queues количество очередей (N)
+   * @param servicePoints количество точек обслуживания (M)
+   * @param visits количество ожидающих визитов (K)
+   */
+  public SyntheticBranchFixture(int queues, int servicePoints, int visits) {
+    quietLogging();
+    this.queues = queues;
+
+    BranchStateStore store = new BranchStateStore();
+    branchService.branches = store;
+    branchService.eventService = eventService;
+    branchService.keyCloackClient = new LocalNoDockerKeycloakStub();
+
+    visitService.branchStateStore = store;
+    visitService.branchService = branchService;
+    visitService.eventService = eventService;
+    visitService.keyCloackClient = branchService.keyCloackClient;
+    visitService.delayedEvents = new SilentDelayedEvents();
+    visitService.segmentationRule = segmentationRule;
+    visitService.setWaitingTimeCallRule(new MaxWaitingTimeCallRule());
+    visitService.setLifeTimeCallRule(new MaxLifeTimeCallRule());
+
+    this.branch = branchService.add(BRANCH_ID, buildBranch(queues, servicePoints));
+    for (int v = 0; v < visits; v++) {
+      createVisit(v % queues);
+    }
+  }
+
+  /**
+   * Создание визита в очередь с заданным номером через {@link VisitService#createVisit2}.
+   *
+   * @param queue номер очереди
+   * @return созданный визит
+   */
+  public Visit createVisit(int queue) {
+    ArrayList<Service> services = new ArrayList<>();
+    services.add(branch.getServices().get(serviceId(queue)));
+    HashMap<String, String> parameters = new HashMap<>();
+    parameters.put(SEGMENT, segment(queue));
+    try {
+      return visitService.createVisit2(BRANCH_ID, ENTRY_POINT_ID, services, parameters, false);
+    } catch (SystemException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Идентификатор очереди по номеру (номер берётся по модулю количества очередей).
+   *
+   * @param queue номер очереди
+   * @return идентификатор очереди
+   */
+  public String queueId(int queue) {
+    return "q" + Math.floorMod(queue, queues);
+  }
+
+  /**
+   * Номер очереди по идентификатору.
+   *
+   * @param queueId идентификатор очереди
+   * @return номер очереди
+   */
+  public int queueNumber(String queueId) {
+    return Integer.parseInt(queueId.substring(1));
+  }
+
+  /**
+   * Значение параметра сегментации для очереди.
+   *
+   * @param queue номер очереди
+   * @return значение параметра {@link #SEGMENT}
+   */
+  public static String segment(int queue) {
+    return "seg" + queue;
+  }
+
+  private static String serviceId(int queue) {
+    return "s" + queue;
+  }
+
+  private Branch buildBranch(int queues, int servicePoints) {
+    Branch result = new Branch(BRANCH_ID, "Синтетическое отделение");
+    result.setPrefix("BNC");
+    result.getParameterMap().put("autoCallMode", false);
+
+    EntryPoint entryPoint = new EntryPoint();
+    entryPoint.setId(ENTRY_POINT_ID);
+    entryPoint.setPrinter(Entity.builder().id("bench-printer").name("Intro").build());
+    result.getEntryPoints().put(entryPoint.getId(), entryPoint);
+
+    for (int g = 0; g < SERVICE_GROUPS; g++) {
+      ServiceGroup group = new ServiceGroup("g" + g, "Группа " + g, new ArrayList<>(), BRANCH_ID);
+      result.getServiceGroups().put(group.getId(), group);
+    }
+    for (int q = 0; q < queues; q++) {
+      Queue queue = new Queue(queueId(q), "Очередь " + q, "Q" + q + "-", 9000);
+      result.getQueues().put(queue.getId(), queue);
+
+      String groupId = "g" + (q % SERVICE_GROUPS);
+      Service service = new Service(serviceId(q), "Услуга " + q, 9000, queue.getId());
+      service.setServiceGroupId(groupId);
+      result.getServices().put(service.getId(), service);
+      result.getServiceGroups().get(groupId).getServiceIds().add(service.getId());
+
+      HashMap<String, String> visitProperty = new HashMap<>();
+      visitProperty.put(SEGMENT, segment(q));
+      SegmentationRuleData rule =
+          SegmentationRuleData.builder()
+              .id("r" + q)
+              .name("Сегмент " + q)
+              .serviceGroupId(groupId)
+              .visitProperty(visitProperty)
+              .queueId(queue.getId())
+              .build();
+      result.getSegmentationRules().put(rule.getId(), rule);
+
+      WorkProfile workProfile = new WorkProfile("wp" + q, "Профиль " + q);
+      for (int p = 0; p < Math.min(PROFILE_QUEUES, queues); p++) {
+        workProfile.getQueueIds().add(queueId(q + p));
+      }
+      result.getWorkProfiles().put(workProfile.getId(), workProfile);
+    }
+    for (int s = 0; s < servicePoints; s++) {
+      ServicePoint servicePoint = new ServicePoint("sp" + s, "Окно " + s);
+      servicePoint.setIsConfirmRequired(false);
+      User user = new User("u" + s, "user" + s, null);
+      user.setCurrentWorkProfileId("wp" + (s % queues));
+      user.setServicePointId(servicePoint.getId());
+      servicePoint.setUser(user);
+      result.getServicePoints().put(servicePoint.getId(), servicePoint);
+      servicePointIds.add(servicePoint.getId());
+    }
+    return result;
+  }
+
+  private static void quietLogging() {
+    ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+  }
+
+  /** Сервис событий без отправки событий на шину данных. */
+  public static final class SilentEventService extends EventService {
+    @Override
+    public void send(String destinationServices, Boolean sendToOtherBus, Event event) {}
+  }
+
+  /** Отложенные события без планировщика: события не отправляются. */
+  static final class SilentDelayedEvents extends DelayedEvents {
+    SilentDelayedEvents() {
+      super(null);
+    }
+
+    @Override
+    public void delayedEventService(
+        String destinationService,
+        Boolean sendToOtherBus,
+        Event event,
+        Long delayInSeconds,
+        EventService eventService) {}
+  }
+}
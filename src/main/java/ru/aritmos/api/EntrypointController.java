@@ -3,7 +3,6 @@ package ru.aritmos.api;
 import io.micronaut.core.annotation.Nullable;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.annotation.*;
-import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.ExecuteOn;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,6 +12,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.inject.Inject;
 import java.util.*;
+import ru.aritmos.config.VisitManagerExecutors;
 import ru.aritmos.events.services.EventService;
 import ru.aritmos.exceptions.BusinessException;
 import ru.aritmos.exceptions.SystemException;
@@ -73,7 +73,7 @@ public class EntrypointController {
       uri = "/branches/{branchId}/servicePoint/{servicePointId}/virtualVisit",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   @Operation(
       summary = "Создание виртуального визита",
       description = "Создаёт визит без печати талона для указанной точки обслуживания",
@@ -147,7 +147,7 @@ public class EntrypointController {
       uri = "/branches/{branchId}/entryPoints/{entryPointId}/visit",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   @Operation(
       summary = "Создание визита",
       description = "Создаёт визит в отделении и при необходимости печатает талон",
@@ -226,7 +226,7 @@ public class EntrypointController {
       uri = "/branches/{branchId}/entryPoints/{entryPointId}/visitWithParameters",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   @Operation(
       summary = "Создание визита с параметрами",
       description = "Создаёт визит с дополнительными параметрами и перечнем услуг",
@@ -306,7 +306,7 @@ public class EntrypointController {
       uri = "/branches/{branchId}/printer/{printerId}/visitWithParameters",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   @Operation(
       summary = "Создание визита из приёмной",
       description = "Создаёт визит с дополнительными параметрами из зоны ресепшен",
@@ -381,7 +381,7 @@ public class EntrypointController {
       uri = "/branches/{branchId}/visits/{visitId}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   @Operation(
       summary = "Обновление параметров визита",
       description = "Назначает или обновляет дополнительные параметры визита",
@@ -414,7 +414,7 @@ public class EntrypointController {
    * @return список доступных услуг
    */
   @Get(uri = "/branches/{branchId}/services", produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   @Operation(
       summary = "Доступные услуги",
       description = "Возвращает список услуг, доступных для обслуживания в отделении",
@@ -436,7 +436,7 @@ public class EntrypointController {
    * @return список всех услуг
    */
   @Get(uri = "/branches/{branchId}/services/all", produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   @Operation(
       summary = "Все услуги отделения",
       description = "Возвращает полный список услуг отделения",
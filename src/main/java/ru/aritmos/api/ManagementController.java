@@ -1,8 +1,9 @@
 package ru.aritmos.api;
 
 import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.MediaType;
 import io.micronaut.http.annotation.*;
-import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.http.sse.Event;
 import io.micronaut.scheduling.annotation.ExecuteOn;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -14,11 +15,15 @@ import jakarta.inject.Inject;
 import java.util.*;
 import java.util.stream.Collectors;
 import org.keycloak.representations.idm.UserRepresentation;
+import org.reactivestreams.Publisher;
+import ru.aritmos.config.VisitManagerExecutors;
 import ru.aritmos.keycloack.service.KeyCloackClient;
 import ru.aritmos.model.Branch;
 import ru.aritmos.model.User;
 import ru.aritmos.model.tiny.TinyClass;
+import ru.aritmos.model.visit.VisitDelta;
 import ru.aritmos.service.BranchService;
+import ru.aritmos.service.VisitDeltaStream;
 
 /**
  * REST API для информационных запросов по отделениям.
@@ -46,6 +51,9 @@ public class ManagementController {
   /** Клиент Keycloak для получения данных о пользователях. */
   @Inject KeyCloackClient keyCloakClient;
 
+  /** Поток изменений визитов отделений. */
+  @Inject VisitDeltaStream visitDeltaStream;
+
   /**
    * Возвращает информацию об отделении по идентификатору.
    *
@@ -69,7 +77,7 @@ public class ManagementController {
         @ApiResponse(responseCode = "500", description = "Ошибка сервера")
       })
   @Get(uri = "/branches/{id}")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public Branch getBranch(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String id) {
     return branchService.getBranch(id);
@@ -102,7 +110,7 @@ public class ManagementController {
         @ApiResponse(responseCode = "500", description = "Ошибка сервера")
       })
   @Get(uri = "/branches")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public Map<String, Branch> getBranches(@Nullable String userName) {
     if (userName != null) {
       Optional<UserRepresentation> userInfo = keyCloakClient.getUserInfo(userName);
@@ -155,10 +163,77 @@ public class ManagementController {
         @ApiResponse(responseCode = "500", description = "Ошибка сервера")
       })
   @Get(uri = "/branches/tiny")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public List<TinyClass> getTinyBranches() {
     return branchService.getBranches().values().stream()
         .map(m -> new TinyClass(m.getId(), m.getName()))
         .toList();
   }
+
+  /**
+   * Поток изменений визитов отделения (Server-Sent Events).
+   *
+   * <p>Каждое событие потока содержит изменение {@link VisitDelta}, его номер передаётся в поле
+   * {@code id}, тип изменения - в поле {@code event}. После переподключения браузер передаёт номер
+   * последнего полученного изменения в заголовке {@code Last-Event-ID}, и поток продолжается с
+   * него; тот же номер можно передать параметром {@code fromSequence}.
+   *
+   * @param branchId идентификатор отделения
+   * @param queueIds (опционально) очереди, изменения которых нужны клиенту
+   * @param servicePointIds (опционально) точки обслуживания, изменения которых нужны клиенту
+   * @param fromSequence (опционально) номер последнего полученного изменения
+   * @param lastEventId номер последнего полученного изменения из заголовка {@code Last-Event-ID}
+   * @return поток изменений
+   */
+  @Operation(
+      operationId = "streamBranchVisitChanges",
+      summary = "Поток изменений визитов отделения",
+      description =
+          "Передаёт изменения визитов отделения (появление, перемещение, смена статуса, уход) в"
+              + " виде Server-Sent Events с последовательными номерами и возобновлением после"
+              + " переподключения",
+      tags = {TAG_BRANCH_MONITORING},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Поток изменений",
+            content =
+                @Content(
+                    mediaType = MediaType.TEXT_EVENT_STREAM,
+                    schema = @Schema(implementation = VisitDelta.class))),
+        @ApiResponse(responseCode = "404", description = "Отделение не найдено"),
+        @ApiResponse(responseCode = "500", description = "Ошибка сервера")
+      })
+  @Get(uri = "/branches/{branchId}/stream", produces = MediaType.TEXT_EVENT_STREAM)
+  public Publisher<Event<VisitDelta>> streamBranchVisitChanges(
+      @PathVariable String branchId,
+      @Nullable @QueryValue List<String> queueIds,
+      @Nullable @QueryValue List<String> servicePointIds,
+      @Nullable @QueryValue Long fromSequence,
+      @Nullable @Header("Last-Event-ID") String lastEventId) {
+    branchService.getBranch(branchId);
+    Long from = fromSequence != null ? fromSequence : parseSequence(lastEventId);
+    return visitDeltaStream
+        .subscribe(branchId, from, queueIds, servicePointIds)
+        .map(
+            delta ->
+                Event.of(delta).id(String.valueOf(delta.sequence())).name(delta.type().name()));
+  }
+
+  /**
+   * Разбор номера изменения из заголовка {@code Last-Event-ID}.
+   *
+   * @param lastEventId значение заголовка
+   * @return номер изменения либо {@code null}
+   */
+  static Long parseSequence(String lastEventId) {
+    if (lastEventId == null || lastEventId.isBlank()) {
+      return null;
+    }
+    try {
+      return Long.parseLong(lastEventId.trim());
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
 }
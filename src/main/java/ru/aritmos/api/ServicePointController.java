@@ -4,7 +4,6 @@ import io.micronaut.context.annotation.Value;
 import io.micronaut.core.annotation.Nullable;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.annotation.*;
-import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.ExecuteOn;
 import io.micronaut.serde.annotation.SerdeImport;
 import io.swagger.v3.oas.annotations.Operation;
@@ -20,6 +19,7 @@ import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 import org.keycloak.representations.idm.GroupRepresentation;
+import ru.aritmos.config.VisitManagerExecutors;
 import ru.aritmos.events.services.EventService;
 import ru.aritmos.exceptions.BusinessException;
 import ru.aritmos.keycloack.service.KeyCloackClient;
@@ -28,6 +28,7 @@ import ru.aritmos.model.Queue;
 import ru.aritmos.model.tiny.TinyClass;
 import ru.aritmos.model.tiny.TinyServicePoint;
 import ru.aritmos.model.tiny.TinyVisit;
+import ru.aritmos.model.tiny.VisitPage;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.service.BranchService;
 import ru.aritmos.service.Services;
@@ -115,7 +116,7 @@ public class ServicePointController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
       })
   @Get("/branches/{branchId}/servicePoints/getFree")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public HashMap<String, ServicePoint> getFreeServicePoints(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId) {
     return visitService.getStringServicePointHashMap(branchId);
@@ -141,7 +142,7 @@ public class ServicePointController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
       })
   @Get("/branches/{branchId}/printers")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public List<Entity> getPrinters(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId) {
     return visitService.getPrinters(branchId);
@@ -166,7 +167,7 @@ public class ServicePointController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
       })
   @Get("/branches/{branchId}/queues")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public List<Entity> getQueues(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId) {
     return visitService.getQueus(branchId);
@@ -192,7 +193,7 @@ public class ServicePointController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
       })
   @Get("/branches/{branchId}/queues/full")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public List<Queue> getFullQueues(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId) {
     return visitService.getFullQueus(branchId);
@@ -218,7 +219,7 @@ public class ServicePointController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
       })
   @Get("/branches/{branchId}/servicePoints")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public List<TinyServicePoint> getServicePoints(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId) {
     return visitService.getServicePointHashMap(branchId).values().stream()
@@ -243,7 +244,7 @@ public class ServicePointController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
       })
   @Get("/branches/{branchId}/servicePoints/detailed")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public List<ServicePoint> getDetailedServicePoints(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId) {
     return visitService.getServicePointHashMap(branchId).values().stream().toList();
@@ -258,7 +259,7 @@ public class ServicePointController {
    *     перерыв.
    */
   @Get("/branches/{branchId}/servicePoints/user/{userName}")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   @Operation(
       operationId = "getServicePointByUserName",
       summary = "Точка обслуживания по логину",
@@ -316,7 +317,7 @@ public class ServicePointController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
       })
   @Get("/branches/{branchId}/users")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public List<User> getUsersOfBranch(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId) {
     return branchService.getUsers(branchId).values().stream().toList();
@@ -339,7 +340,7 @@ public class ServicePointController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
       })
   @Get("/branches/{branchId}/workingusers")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public List<User> getAllWorkingUsersOfBranch(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId) {
     return visitService.getAllWorkingUsers(branchId).values().stream().toList();
@@ -352,7 +353,7 @@ public class ServicePointController {
    * @return точка обслуживания, где сотрудник числится активным.
    */
   @Get("/servicePoints/user/{userName}")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   @Operation(
       operationId = "getServicePointByUserNameGlobal",
       summary = "Поиск точки обслуживания по логину",
@@ -367,12 +368,7 @@ public class ServicePointController {
       })
   public Optional<ServicePoint> getServicePointsByUserName(@PathVariable String userName) {
 
-    return branchService.getDetailedBranches().values().stream()
-        .flatMap(
-            fm ->
-                fm.getServicePoints().values().stream()
-                    .filter(f -> f.getUser() != null && f.getUser().getName().equals(userName)))
-        .findFirst();
+    return branchService.findUserServicePoint(userName);
   }
 
   /**
@@ -395,7 +391,7 @@ public class ServicePointController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
       })
   @Get("/branches/{branchId}/users/user/{userName}")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public Optional<User> getUserByUserName(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable String userName) {
@@ -424,7 +420,7 @@ public class ServicePointController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
       })
   @Get("/branches/{branchId}/workProfiles")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public List<TinyClass> getWorkProfiles(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId) {
     return visitService.getWorkProfiles(branchId);
@@ -456,7 +452,7 @@ public class ServicePointController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
       })
   @Put("/branches/{branchId}/servicePoints/{servicePointId}/workProfiles/{workProfileId}")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public User changeUserWorkprofile(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -526,7 +522,7 @@ public class ServicePointController {
       })
   @Post(
       "/branches/{branchId}/servicePoints/{servicePointId}/workProfiles/{workProfileId}/users/{userName}/open")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public User openServicePoint(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable String userName,
@@ -568,7 +564,7 @@ public class ServicePointController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
       })
   @Post("/branches/{branchId}/servicePoints/{servicePointId}/close")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public void closeServicePoint(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -612,7 +608,7 @@ public class ServicePointController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
       })
   @Post("/branches/{branchId}/servicePoints/{servicePointId}/logout")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public void logoutUser(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -651,7 +647,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/queues/{queueId}/visits/limit/{limit}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public List<TinyVisit> getVisits(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "c211ae6b-de7b-4350-8a4c-cff7ff98104e") String queueId,
@@ -700,7 +696,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/queues/{queueId}/visits/",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public List<Visit> getVisits(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "c211ae6b-de7b-4350-8a4c-cff7ff98104e") String queueId) {
@@ -732,7 +728,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/visits/all",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public HashMap<String, Visit> getAllVisits(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId) {
 
@@ -760,7 +756,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/visits/{visitId}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public Visit getVisit(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable String visitId) {
@@ -805,7 +801,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/visits/statuses",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public HashMap<String, Visit> getVisitsByStatuses(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @Body List<String> statuses) {
@@ -813,6 +809,91 @@ public class ServicePointController {
     return visitService.getVisitsByStatuses(branchId, statuses);
   }
 
+  /**
+   * Возвращает страницу визитов отделения в виде проекций с выбранными полями.
+   *
+   * <p>Визиты упорядочены по убыванию времени ожидания; следующая страница запрашивается по
+   * курсору из предыдущего ответа.
+   *
+   * @param branchId идентификатор отделения.
+   * @param statuses (опционально) статусы визитов.
+   * @param fields (опционально) поля проекции через запятую.
+   * @param limit (опционально) размер страницы.
+   * @param cursor (опционально) курсор страницы.
+   * @return страница визитов.
+   */
+  @Operation(
+      operationId = "getVisitPage",
+      summary = "Страница визитов отделения",
+      description =
+          "Возвращает визиты отделения постранично, каждый визит содержит только поля из параметра"
+              + " fields (например, id,ticket,waitingTime,queueId).",
+      tags = {TAG_VISIT_MONITORING},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Страница визитов",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = VisitPage.class))),
+        @ApiResponse(responseCode = "400", description = "Некорректное поле или курсор"),
+        @ApiResponse(responseCode = "404", description = "Отделение не найдено"),
+        @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+      })
+  @Get(uri = "/branches/{branchId}/visits/page", produces = "application/json")
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
+  public VisitPage getVisitPage(
+      @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
+      @Nullable @QueryValue List<String> statuses,
+      @Nullable @QueryValue String fields,
+      @Nullable @QueryValue Integer limit,
+      @Nullable @QueryValue String cursor) {
+
+    return visitService.getVisitPage(branchId, null, statuses, fields, limit, cursor);
+  }
+
+  /**
+   * Возвращает страницу визитов очереди в виде проекций с выбранными полями.
+   *
+   * @param branchId идентификатор отделения.
+   * @param queueId идентификатор очереди.
+   * @param fields (опционально) поля проекции через запятую.
+   * @param limit (опционально) размер страницы.
+   * @param cursor (опционально) курсор страницы.
+   * @return страница визитов.
+   */
+  @Operation(
+      operationId = "getQueueVisitPage",
+      summary = "Страница визитов очереди",
+      description =
+          "Возвращает визиты очереди постранично по убыванию времени ожидания, каждый визит"
+              + " содержит только поля из параметра fields.",
+      tags = {TAG_VISIT_MONITORING},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Страница визитов",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = VisitPage.class))),
+        @ApiResponse(responseCode = "400", description = "Некорректное поле или курсор"),
+        @ApiResponse(responseCode = "404", description = "Отделение или очередь не найдены"),
+        @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+      })
+  @Get(uri = "/branches/{branchId}/queues/{queueId}/visits/page", produces = "application/json")
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
+  public VisitPage getQueueVisitPage(
+      @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
+      @PathVariable(defaultValue = "c211ae6b-de7b-4350-8a4c-cff7ff98104e") String queueId,
+      @Nullable @QueryValue String fields,
+      @Nullable @QueryValue Integer limit,
+      @Nullable @QueryValue String cursor) {
+
+    return visitService.getVisitPage(branchId, queueId, null, fields, limit, cursor);
+  }
+
   /**
    * Возвращает визит по идентификатору в контексте очереди отделения.
    *
@@ -837,7 +918,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/queues/{queueId}/visits/{visitId}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public Visit getVisit(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "55da9b66-c928-4d47-9811-dbbab20d3780") String queueId,
@@ -875,7 +956,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/visits/servicePoints/{servicePointId}/visits/{visitId}/call",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Optional<Visit> callVisit(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -927,7 +1008,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/servicePoints/{servicePointId}/confirmed/call/visit",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Optional<Visit> visitCallForConfirm(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -962,7 +1043,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/visits/servicePoints/{servicePointId}/confirmed/call/{visitId}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Optional<Visit> visitCallForConfirmByVisitId(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -1001,7 +1082,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/servicePoints/{servicePointId}/call",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Optional<Visit> visitCallWithMaximalWaitingTime(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId) {
@@ -1038,7 +1119,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/servicePoints/{servicePointId}/confirmed/visits/call",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Optional<Visit> visitCallForConfirmMaxWaitingTime(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId) {
@@ -1094,7 +1175,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/servicePoints/{servicePointId}/callfromQueues",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Optional<Visit> visitCall(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -1151,7 +1232,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/servicePoints/{servicePointId}/confirmed/visits/callfromQueues",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Optional<Visit> visitCallForConfirmMaxWaitingTime(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -1188,7 +1269,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/servicePoints/{servicePointId}/call/maxLifeTime",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Optional<Visit> visitCallMaxLifeTime(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId) {
@@ -1243,7 +1324,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/servicePoints/{servicePointId}/callfromQueues/maxLifeTime",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Optional<Visit> visitCallMaxLifeTime(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -1280,7 +1361,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/servicePoints/{servicePointId}/confirmed/visits/call/maxLifeTime",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Optional<Visit> visitCallForConfirmMaxLifeTime(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId) {
@@ -1336,7 +1417,7 @@ public class ServicePointController {
           "/branches/{branchId}/servicePoints/{servicePointId}/confirmed/visits/callfromQueues/maxLifeTime",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Optional<Visit> visitCallForConfirmMaxLifeTime(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -1372,7 +1453,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/visits/servicePoints/{servicePointId}/confirmed/noshow",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Optional<Visit> visitNoShow(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -1408,7 +1489,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/visits/servicePoints/{servicePointId}/confirmed/noshow/{visitId}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Optional<Visit> visitCallNoShow(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -1463,7 +1544,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/visits/servicePoints/{servicePointId}/confirmed/recall",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitReCallForConfirm(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -1500,7 +1581,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/visits/servicePoints/{servicePointId}/confirmed/recall/{visitId}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitReCallForConfirm(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -1554,7 +1635,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/visits/servicePoints/{servicePointId}/confirmed/confirm",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitConfirm(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -1592,7 +1673,7 @@ public class ServicePointController {
           "/branches/{branchId}/visits/servicePoints/{servicePointId}/confirmed/confirm/{visitId}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitConfirm(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -1674,7 +1755,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/services/{serviceId}/deliveredServices",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public Map<String, DeliveredService> getDeliveredService(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "c3916e7f-7bea-4490-b9d1-0d4064adbe8b") String serviceId) {
@@ -1718,7 +1799,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/servicePoins/{servicePointId}/deliveredServices",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public Map<String, DeliveredService> getDeliveredServiceOfCurrentService(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId) {
@@ -1747,7 +1828,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/workProfile/{workProfileId}/services",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public List<Service> getServicesByWorkProfileId(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "d5a84e60-e605-4527-b065-f4bd7a385790") String workProfileId) {
@@ -1776,7 +1857,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/queue/{queueId}/services",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public List<Service> getServicesByQueueId(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "55da9b66-c928-4d47-9811-dbbab20d3780") String queueId) {
@@ -1803,7 +1884,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/possibleDeliveredServices",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public List<DeliveredService> getDeliveredServicesByBranchId(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId) {
 
@@ -1831,7 +1912,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/services/{serviceId}/outcomes",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public HashMap<String, Outcome> getOutcomes(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "c3916e7f-7bea-4490-b9d1-0d4064adbe8b") String serviceId) {
@@ -1876,7 +1957,7 @@ public class ServicePointController {
           "/branches/{branchId}/visits/servicePoints/{servicePointId}/deliveredservice/{deliveredServiceId}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit addDeliveredService(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -1904,7 +1985,7 @@ public class ServicePointController {
         @ApiResponse(responseCode = "500", description = "Ошибка сервера")
       })
   @Get(uri = "/branches/{branchId}/visits/{visitId}/marks", produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public List<Mark> getMarks(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable String visitId) {
@@ -1934,7 +2015,7 @@ public class ServicePointController {
   @Delete(
       uri = "/branches/{branchId}/visits/servicePoints/{servicePointId}/mark/{markId}",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit deleteMark(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -1959,7 +2040,7 @@ public class ServicePointController {
         @ApiResponse(responseCode = "500", description = "Ошибка сервера")
       })
   @Get(uri = "/branches/{branchId}/marks/", produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public HashMap<String, Mark> deleteMark(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId) {
 
@@ -1990,7 +2071,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/visits/servicePoints/{servicePointId}/mark/{markId}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit addMark(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2021,7 +2102,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/visits/servicePoints/{servicePointId}/notes",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit addNoteAsText(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2048,7 +2129,7 @@ public class ServicePointController {
         @ApiResponse(responseCode = "500", description = "Ошибка сервера")
       })
   @Get(uri = "/branches/{branchId}/visits/{visitId}/notes", produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public List<Mark> getNotes(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable String visitId) {
@@ -2082,7 +2163,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/visits/servicePoints/{servicePointId}/outcome/{outcomeId}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit addOutcomeService(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2115,7 +2196,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/visits/servicePoints/{servicePointId}/services/{serviceId}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit addService(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2147,7 +2228,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/visits/servicePoints/{servicePointId}/services",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit addServices(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2189,7 +2270,7 @@ public class ServicePointController {
           "/branches/{branchId}/visits/servicePoints/{servicePointId}/deliveredService/{deliveredServiceId}/outcome/{outcomeId}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit addOutcomeOfDeliveredService(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2228,7 +2309,7 @@ public class ServicePointController {
           "/branches/{branchId}/visits/servicePoints/{servicePointId}/deliveredServices/{deliveredServiceId}/outcome",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit deleteOutcomeDeliveredService(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2262,7 +2343,7 @@ public class ServicePointController {
           "/branches/{branchId}/visits/servicePoints/{servicePointId}/service/{serviceId}/outcome",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitDeleteOutcomeService(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2294,7 +2375,7 @@ public class ServicePointController {
           "/branches/{branchId}/visits/servicePoints/{servicePointId}/deliveredServices/{deliveredServiceId}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit deleteDeliveredService(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2327,7 +2408,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/servicePoints/{servicePointId}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public Optional<ServicePoint> getServicePoint(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId) {
@@ -2373,7 +2454,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/servicePoints/{servicePointId}/queues",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public Optional<List<Queue>> getQueues(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId) {
@@ -2403,7 +2484,7 @@ public class ServicePointController {
       consumes = "application/json",
       produces = "application/json")
   @Status(HttpStatus.NO_CONTENT)
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public void deleteVisit(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2433,7 +2514,7 @@ public class ServicePointController {
       consumes = "application/json",
       produces = "application/json")
   @Status(HttpStatus.NO_CONTENT)
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public void deleteVisit(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable String visitId) {
@@ -2475,7 +2556,7 @@ public class ServicePointController {
           "/branches/{branchId}/visits/servicePoints/{servicePointId}/queue/{queueId}/visit/transferFromServicePoint",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitTransfer(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2521,7 +2602,7 @@ public class ServicePointController {
           "/branches/{branchId}/visits/servicePoints/{servicePointId}/poolServicePoint/{poolServicePointId}/visit/put_back",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitBackToServicePointPool(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2568,7 +2649,7 @@ public class ServicePointController {
           "/branches/{branchId}/visits/servicePoints/{servicePointId}/poolServicePoint/{poolServicePointId}/visit/transfer",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitTransferToServicePointPool(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2606,7 +2687,7 @@ public class ServicePointController {
   // "/branches/{branchId}/visits/servicePoints/{servicePointId}/poolServicePoint/{poolServicePointId}/visit/service/transfer",
   //      consumes = "application/json",
   //      produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitTransferToServicePointPool(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2651,7 +2732,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/visits/servicePoints/{servicePointId}/visit/put_back",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit returnVisit(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2688,7 +2769,7 @@ public class ServicePointController {
           "/branches/{branchId}/visits/servicePoints/{servicePointId}/queue/{queueId}/visit/transferFromQueue/{visitId}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitTransferFromQueue(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2741,7 +2822,7 @@ public class ServicePointController {
           "/branches/{branchId}/visits/servicePoints/{servicePointId}/queue/{queueId}/visit/transferFromQueueToStartOrToEnd/{visitId}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitTransferFromQueue(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2793,7 +2874,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/queue/{queueId}/visits/{visitId}/externalService/transfer",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitTransferFromQueue(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "c211ae6b-de7b-4350-8a4c-cff7ff98104e") String queueId,
@@ -2846,7 +2927,7 @@ public class ServicePointController {
           "/branches/{branchId}/visits/servicePoints/{servicePointId}/queue/{queueId}/visit/transferFromQueue",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitTransferFromQueue(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2897,7 +2978,7 @@ public class ServicePointController {
           "/branches/{branchId}/visits/servicePoints/{servicePointId}/queue/{queueId}/visit/transferFromQueue/position/{index}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitTransferFromQueue(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2946,7 +3027,7 @@ public class ServicePointController {
           "/branches/{branchId}/visits/servicePoints/{servicePointId}/poolServicePoint/{poolServicePointId}/visit/transferFromQueue/position/{index}",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitTransferFromQueueToServicePointPool(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -2996,7 +3077,7 @@ public class ServicePointController {
           "/branches/{branchId}/visits/servicePoints/{servicePointId}/poolServicePoint/{poolServicePointId}/visit/transferFromQueue",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitTransferFromQueueToServicePointPool(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -3050,7 +3131,7 @@ public class ServicePointController {
           "/branches/{branchId}/servicePoint/{servicePointId}/pool/visits/{visitId}/externalService/transfer",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitTransferFromQueueToServicePointPool(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -3102,7 +3183,7 @@ public class ServicePointController {
           "/branches/{branchId}/visits/servicePoints/{servicePointId}/poolServicePoint/{poolServicePointId}/visits/{visitId}/transferFromQueue",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitTransferFromQueueToServicePointPool(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -3146,7 +3227,7 @@ public class ServicePointController {
           "/branches/{branchId}/visits/servicePoints/{servicePointId}/poolServicePoint/{poolServicePointId}/visits/{visitId}/transferFromQueueWithIndex",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitTransferFromQueueToServicePointPool(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
@@ -3185,7 +3266,7 @@ public class ServicePointController {
       uri = "/branches/{branchId}/visits/servicePoints/{servicePointId}/visit/end",
       consumes = "application/json",
       produces = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.BRANCH_MUTATION)
   public Visit visitEnd(
       @PathVariable(defaultValue = "37493d1c-8282-4417-a729-dceac1f3e2b4") String branchId,
       @PathVariable(defaultValue = "a66ff6f4-4f4a-4009-8602-0dc278024cf2") String servicePointId,
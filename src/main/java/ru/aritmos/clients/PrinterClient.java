@@ -6,9 +6,9 @@ import io.micronaut.http.annotation.Post;
 import io.micronaut.http.annotation.QueryValue;
 import io.micronaut.http.client.annotation.Client;
 import io.micronaut.retry.annotation.Retryable;
-import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.ExecuteOn;
 import org.reactivestreams.Publisher;
+import ru.aritmos.config.VisitManagerExecutors;
 import ru.aritmos.model.visit.Visit;
 
 /** HTTP‑клиент печати талонов. */
@@ -27,7 +27,7 @@ public interface PrinterClient {
       maxDelay = "${micronaut.application.printerRetryMaxPeriod:45m}",
       attempts = "${micronaut.application.printerUrlRetryRepeat:30}")
   @Post(uri = "/printer/visit", produces = "application/json", consumes = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.OUTBOUND_IO)
   Publisher<HttpResponse<?>> print(
       @QueryValue(defaultValue = "UTF-8") String charset,
       @QueryValue Boolean responseRequired,
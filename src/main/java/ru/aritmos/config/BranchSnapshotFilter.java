@@ -0,0 +1,263 @@
+package ru.aritmos.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpMethod;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.HttpServerFilter;
+import io.micronaut.http.filter.ServerFilterChain;
+import io.micronaut.serde.ObjectMapper;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import ru.aritmos.service.BranchStateStore;
+
+/**
+ * Кэш сериализованных снимков ответов мониторинга отделения с поддержкой ETag.
+ *
+ * <p>Ответы на запросы состояния отделения (отделение целиком, полные очереди, все визиты,
+ * подробные точки обслуживания) сериализуются в JSON один раз на версию отделения (см. {@link
+ * BranchStateStore#version}) и затем отдаются готовыми байтами всем опрашивающим клиентам. Ответ
+ * содержит заголовок {@code ETag}; при совпадении его с заголовком запроса {@code If-None-Match}
+ * возвращается {@code 304 Not Modified} без тела.
+ *
+ * <p>Вычисляемые по текущему времени поля (например, время ожидания визита) рассчитываются в момент
+ * сериализации снимка, поэтому отстают от текущего времени не более чем на максимальный возраст
+ * снимка {@code micronaut.application.branchSnapshotMaxAge}. По истечении этого возраста снимок
+ * сериализуется заново даже без изменения отделения; нулевое значение отключает кэш.
+ *
+ * <p>Ключом снимка служит путь запроса без строки запроса: кэшируемые методы не принимают
+ * параметров запроса, поэтому произвольные параметры не порождают новых записей. Количество снимков
+ * ограничено параметром {@code micronaut.application.branchSnapshotMaxEntries}, а снимки старше
+ * максимального возраста удаляются; снимки удалённого отделения сбрасываются при первом обращении
+ * к нему.
+ */
+@Slf4j
+@Filter({
+  "/managementinformation/branches/*",
+  "/servicepoint/branches/*/queues/full",
+  "/servicepoint/branches/*/visits/all",
+  "/servicepoint/branches/*/servicePoints/detailed"
+})
+public class BranchSnapshotFilter implements HttpServerFilter {
+
+  /** Сегмент пути, за которым следует идентификатор отделения. */
+  private static final String BRANCHES_SEGMENT = "/branches/";
+
+  /** Максимальный возраст снимка (граница устаревания вычисляемых по времени полей). */
+  @Value("${micronaut.application.branchSnapshotMaxAge:1s}")
+  Duration maxAge = Duration.ofSeconds(1);
+
+  /** Максимальное количество хранимых снимков. */
+  @Value("${micronaut.application.branchSnapshotMaxEntries:1024}")
+  long maxEntries = 1024;
+
+  /** Хранилище состояния отделений, задающее версии и блокировки отделений. */
+  @Inject BranchStateStore branchStateStore = new BranchStateStore();
+
+  /** Сериализатор ответов (может отсутствовать). */
+  @Inject @Nullable ObjectMapper objectMapper;
+
+  /** Снимки ответов (путь запроса -> снимок); создаются при первом обращении. */
+  private volatile Cache<String, Snapshot> snapshots;
+
+  /**
+   * Снимок ответа.
+   *
+   * @param version версия отделения, по состоянию которой сериализован ответ
+   * @param createdAt момент сериализации в миллисекундах
+   * @param etag значение заголовка {@code ETag}
+   * @param body сериализованное тело ответа
+   */
+  record Snapshot(long version, long createdAt, String etag, byte[] body) {}
+
+  @Override
+  public Publisher<MutableHttpResponse<?>> doFilter(
+      HttpRequest<?> request, ServerFilterChain chain) {
+    String branchId = branchIdOf(request.getPath());
+    if (!HttpMethod.GET.equals(request.getMethod())
+        || objectMapper == null
+        || maxAge == null
+        || maxAge.isZero()
+        || maxAge.isNegative()
+        || branchId == null) {
+      return chain.proceed(request);
+    }
+    String key = request.getPath();
+    if (branchStateStore.get(branchId) == null) {
+      evict(branchId);
+      return chain.proceed(request);
+    }
+    long version = branchStateStore.version(branchId);
+    Snapshot snapshot = fresh(key, version, System.currentTimeMillis());
+    if (snapshot != null) {
+      return Publishers.just(respond(request, snapshot));
+    }
+    return Publishers.map(
+        chain.proceed(request), response -> store(request, key, branchId, version, response));
+  }
+
+  /**
+   * Сериализация ответа контроллера в снимок.
+   *
+   * <p>Сериализация выполняется под блокировкой отделения, чтобы граф объектов не изменялся во
+   * время записи. Если за время ожидания блокировки снимок той же версии уже сохранён другим
+   * запросом, используется он.
+   *
+   * @param request запрос
+   * @param key ключ снимка
+   * @param branchId идентификатор отделения
+   * @param version версия отделения на момент обработки запроса
+   * @param response ответ контроллера
+   * @return ответ с сериализованным телом либо исходный ответ
+   */
+  private MutableHttpResponse<?> store(
+      HttpRequest<?> request,
+      String key,
+      String branchId,
+      long version,
+      MutableHttpResponse<?> response) {
+    Object body = response.getBody().orElse(null);
+    if (response.getStatus() != HttpStatus.OK || body == null || body instanceof byte[]) {
+      return response;
+    }
+    Snapshot snapshot;
+    ReentrantLock lock = branchStateStore.lockOf(branchId);
+    lock.lock();
+    try {
+      long now = System.currentTimeMillis();
+      snapshot = fresh(key, version, now);
+      if (snapshot == null) {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        snapshot = new Snapshot(version, now, etagOf(version, bytes), bytes);
+        snapshots().put(key, snapshot);
+      }
+    } catch (IOException | RuntimeException e) {
+      log.warn("Branch {} snapshot of {} is not serialized: {}", branchId, key, e.getMessage());
+      return response;
+    } finally {
+      lock.unlock();
+    }
+    return respond(request, snapshot);
+  }
+
+  /**
+   * Снимок, соответствующий версии отделения и не превысивший максимальный возраст.
+   *
+   * @param key ключ снимка
+   * @param version версия отделения
+   * @param now текущий момент в миллисекундах
+   * @return снимок либо {@code null}
+   */
+  private Snapshot fresh(String key, long version, long now) {
+    Snapshot snapshot = snapshots().getIfPresent(key);
+    if (snapshot == null
+        || snapshot.version() != version
+        || now - snapshot.createdAt() >= maxAge.toMillis()) {
+      return null;
+    }
+    return snapshot;
+  }
+
+  /**
+   * Удаление снимков отделения.
+   *
+   * @param branchId идентификатор отделения
+   */
+  void evict(String branchId) {
+    snapshots().asMap().keySet().removeIf(key -> branchId.equals(branchIdOf(key)));
+  }
+
+  /**
+   * Кэш снимков, ограниченный по количеству записей и максимальному возрасту снимка.
+   *
+   * @return кэш снимков
+   */
+  private Cache<String, Snapshot> snapshots() {
+    Cache<String, Snapshot> current = snapshots;
+    if (current == null) {
+      synchronized (this) {
+        current = snapshots;
+        if (current == null) {
+          current = Caffeine.newBuilder().expireAfterWrite(maxAge).maximumSize(maxEntries).build();
+          snapshots = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  private MutableHttpResponse<?> respond(HttpRequest<?> request, Snapshot snapshot) {
+    if (matches(request.getHeaders().get(HttpHeaders.IF_NONE_MATCH), snapshot.etag())) {
+      return HttpResponse.notModified().header(HttpHeaders.ETAG, snapshot.etag());
+    }
+    return HttpResponse.ok(snapshot.body())
+        .contentType(MediaType.APPLICATION_JSON_TYPE)
+        .header(HttpHeaders.ETAG, snapshot.etag())
+        .header(HttpHeaders.CACHE_CONTROL, "no-cache");
+  }
+
+  /**
+   * Проверка заголовка {@code If-None-Match}.
+   *
+   * @param ifNoneMatch значение заголовка (список тегов через запятую либо {@code *})
+   * @param etag тег снимка
+   * @return {@code true}, если у клиента актуальная версия ответа
+   */
+  static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.equals("*") || tag.equals(etag) || ("W/" + tag).equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Слабый тег снимка: версия отделения и контрольная сумма тела, так как вычисляемые по времени
+   * поля меняют тело и без изменения версии.
+   *
+   * @param version версия отделения
+   * @param body сериализованное тело
+   * @return значение заголовка {@code ETag}
+   */
+  static String etagOf(long version, byte[] body) {
+    CRC32 crc = new CRC32();
+    crc.update(body);
+    return "W/\"" + version + "-" + Long.toHexString(crc.getValue()) + "\"";
+  }
+
+  /**
+   * Идентификатор отделения из пути запроса.
+   *
+   * @param path путь запроса
+   * @return идентификатор отделения либо {@code null}
+   */
+  static String branchIdOf(String path) {
+    int start = path == null ? -1 : path.indexOf(BRANCHES_SEGMENT);
+    if (start < 0) {
+      return null;
+    }
+    start += BRANCHES_SEGMENT.length();
+    int end = path.indexOf('/', start);
+    String branchId = end < 0 ? path.substring(start) : path.substring(start, end);
+    return branchId.isEmpty() ? null : branchId;
+  }
+}
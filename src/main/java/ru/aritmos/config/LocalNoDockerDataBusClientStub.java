@@ -9,6 +9,7 @@ import java.util.Map;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Mono;
 import ru.aritmos.events.clients.DataBusClient;
+import ru.aritmos.events.model.Event;
 
 /** Стаб HTTP‑клиента шины данных для профиля local-no-docker. */
 @Singleton
@@ -45,6 +46,36 @@ public class LocalNoDockerDataBusClientStub implements DataBusClient {
     return Mono.just(Map.of("status", "stubbed", "type", type));
   }
 
+  /**
+   * Эмулирует пакетную отправку: каждое событие пачки записывается как отдельный вызов.
+   *
+   * @param destinationServices целевые сервисы
+   * @param sendToOtherBus пересылать ли в дополнительные шины
+   * @param sendDate метка времени отправки
+   * @param senderService имя сервиса-отправителя
+   * @param events события пачки
+   * @return реактивный ответ с информацией о заглушке
+   */
+  @Override
+  public Publisher<Map<String, String>> sendBatch(
+      String destinationServices,
+      Boolean sendToOtherBus,
+      String sendDate,
+      String senderService,
+      List<Event> events) {
+    events.forEach(
+        event ->
+            invocations.add(
+                new InvocationRecord(
+                    destinationServices,
+                    sendToOtherBus,
+                    sendDate,
+                    senderService,
+                    event.getEventType(),
+                    event.getBody())));
+    return Mono.just(Map.of("status", "stubbed", "count", String.valueOf(events.size())));
+  }
+
   /** Возвращает копию записанных вызовов. */
   public List<InvocationRecord> getInvocations() {
     return List.copyOf(invocations);
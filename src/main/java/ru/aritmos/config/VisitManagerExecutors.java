@@ -0,0 +1,29 @@
+package ru.aritmos.config;
+
+/**
+ * Имена пулов потоков сервиса (настраиваются в {@code micronaut.executors}).
+ *
+ * <p>Изменения состояния отделений, запросы чтения, исходящие вызовы внешних сервисов и обработка
+ * сообщений Kafka выполняются в отдельных пулах ограниченного размера, поэтому недоступность шины
+ * данных (повторные попытки вызовов до 45 минут) не занимает потоки запросов операторов. Запросы к
+ * Keycloak, результат которых нужен вызывающему, выполняются в его потоке и кэшируются; в пул
+ * исходящих вызовов выносится только выход сотрудника при закрытии точки обслуживания. Для каждого
+ * пула публикуются метрики Micrometer {@code executor.*} с тегом {@code name}: размер пула,
+ * активные потоки и длина очереди задач.
+ */
+public final class VisitManagerExecutors {
+
+  /** Изменения визитов, точек обслуживания и конфигурации отделений. */
+  public static final String BRANCH_MUTATION = "branch-mutation";
+
+  /** Запросы чтения состояния отделений. */
+  public static final String READ_QUERY = "read-query";
+
+  /** Исходящие вызовы шины данных, сервиса печати и выход сотрудников из Keycloak. */
+  public static final String OUTBOUND_IO = "outbound-io";
+
+  /** Обработка сообщений Kafka. */
+  public static final String KAFKA_CONSUMER = "kafka-consumer";
+
+  private VisitManagerExecutors() {}
+}
@@ -8,11 +8,13 @@ import io.micronaut.http.annotation.PathVariable;
 import io.micronaut.http.annotation.Post;
 import io.micronaut.http.client.annotation.Client;
 import io.micronaut.retry.annotation.Retryable;
-import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.Async;
 import io.micronaut.scheduling.annotation.ExecuteOn;
 import io.swagger.v3.oas.annotations.Parameter;
+import java.util.List;
 import java.util.Map;
+import ru.aritmos.config.VisitManagerExecutors;
+import ru.aritmos.events.model.Event;
 import org.reactivestreams.Publisher;
 
 /** HTTP‑клиент для отправки событий на DataBus. */
@@ -39,7 +41,7 @@ public interface DataBusClient {
       uri = "/databus/events/types/{type}",
       produces = "application/json",
       consumes = "application/json")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.OUTBOUND_IO)
   @Async
   Publisher<Map<String, String>> send(
       @Header("Service-Destination") String destinationServices,
@@ -48,4 +50,29 @@ public interface DataBusClient {
       @Header("Service-Sender") String senderService,
       @PathVariable String type,
       @Body Object body);
+
+  /**
+   * Отправить пачку событий на DataBus одним запросом.
+   *
+   * @param destinationServices получатели (через запятую)
+   * @param sendToOtherBus отправлять на общий bus
+   * @param sendDate дата отправки в формате RFC‑1123
+   * @param senderService имя отправителя
+   * @param events события в порядке их возникновения
+   * @return карта с результатом публикации
+   */
+  @Retryable(
+      delay = "${micronaut.application.dataBusUrlRetryPeriod:30s}",
+      maxDelay = "${micronaut.application.dataBusUrlRetryMaxPeriod:45m}",
+      attempts = "${micronaut.application.dataBusUrlRetryRepeat:30}")
+  @SingleResult
+  @Post(uri = "/databus/events/batch", produces = "application/json", consumes = "application/json")
+  @ExecuteOn(VisitManagerExecutors.OUTBOUND_IO)
+  @Async
+  Publisher<Map<String, String>> sendBatch(
+      @Header("Service-Destination") String destinationServices,
+      @Header("Send-To-OtherBus") Boolean sendToOtherBus,
+      @Header("Send-Date") @Parameter(example = "Wed, 09 Apr 2008 23:55:38 GMT") String sendDate,
+      @Header("Service-Sender") String senderService,
+      @Body List<Event> events);
 }
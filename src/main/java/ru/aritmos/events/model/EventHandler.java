@@ -1,8 +1,8 @@
 package ru.aritmos.events.model;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.ExecuteOn;
+import ru.aritmos.config.VisitManagerExecutors;
 import ru.aritmos.exceptions.SystemException;
 
 /** Обработчик событий шины данных. */
@@ -15,6 +15,18 @@ public interface EventHandler {
    * @throws SystemException системная ошибка обработки
    * @throws IllegalAccessException ошибка доступа при рефлексии
    */
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.KAFKA_CONSUMER)
   void Handle(Event event) throws JsonProcessingException, SystemException, IllegalAccessException;
+
+  /**
+   * Тип тела события, ожидаемый обработчиком.
+   *
+   * <p>Если тип указан, подписчик Kafka приводит тело события к нему до вызова {@link
+   * #Handle(Event)}, и обработчику не требуется повторная сериализация тела.
+   *
+   * @return тип тела либо {@code null}, если тело передаётся без преобразования
+   */
+  default Class<?> bodyType() {
+    return null;
+  }
 }
@@ -0,0 +1,81 @@
+package ru.aritmos.events.model;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.json.tree.JsonNode;
+import io.micronaut.serde.ObjectMapper;
+import java.io.IOException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Неизменяемые тела событий.
+ *
+ * <p>Объект (например, визит) сериализуется в дерево JSON один раз в момент формирования события.
+ * Дерево не изменяется, поэтому одно событие можно передать нескольким адресатам и в буфер
+ * отправки: асинхронная отправка не видит последующих изменений объекта и не требует отдельной
+ * копии объекта для каждого адресата.
+ *
+ * <p>Снимок строится сериализатором приложения, который передаётся вызывающим (см. {@link
+ * ru.aritmos.events.services.EventService#getObjectMapper()}); сериализатор по умолчанию
+ * используется только вне контекста приложения, когда сериализатор не передан.
+ */
+@Slf4j
+public final class EventPayload {
+
+  /** Сериализатор по умолчанию для вызовов вне контекста приложения (создаётся при обращении). */
+  private static volatile ObjectMapper defaultMapper;
+
+  private EventPayload() {}
+
+  /**
+   * Снимок объекта для тела события.
+   *
+   * @param objectMapper сериализатор приложения (при отсутствии - сериализатор по умолчанию)
+   * @param body объект
+   * @return дерево JSON объекта либо сам объект, если его не удалось сериализовать
+   */
+  public static Object of(@Nullable ObjectMapper objectMapper, Object body) {
+    if (body == null) {
+      return null;
+    }
+    try {
+      return (objectMapper != null ? objectMapper : defaultMapper()).writeValueToTree(body);
+    } catch (IOException | RuntimeException e) {
+      log.warn("Event body {} is not serialized: {}", body.getClass().getName(), e.getMessage());
+      return body;
+    }
+  }
+
+  /**
+   * Чтение строкового поля верхнего уровня из тела события.
+   *
+   * @param body тело события
+   * @param field имя поля
+   * @return значение поля либо {@code null}, если тело не является деревом JSON или поля нет
+   */
+  public static String stringField(Object body, String field) {
+    if (body instanceof JsonNode node && node.isObject()) {
+      JsonNode value = node.get(field);
+      return value != null && value.isString() ? value.getStringValue() : null;
+    }
+    return null;
+  }
+
+  /**
+   * Получение сериализатора по умолчанию.
+   *
+   * @return сериализатор
+   */
+  private static ObjectMapper defaultMapper() {
+    ObjectMapper mapper = defaultMapper;
+    if (mapper == null) {
+      synchronized (EventPayload.class) {
+        mapper = defaultMapper;
+        if (mapper == null) {
+          mapper = ObjectMapper.getDefault();
+          defaultMapper = mapper;
+        }
+      }
+    }
+    return mapper;
+  }
+}
@@ -0,0 +1,13 @@
+package ru.aritmos.events.model;
+
+/** Профиль тела события для адресата. */
+public enum EventPayloadProfile {
+  /** Полное представление объекта. */
+  FULL,
+
+  /**
+   * Сокращённое представление объекта (для точки обслуживания - без визитов пула и групп Keycloak
+   * сотрудника).
+   */
+  SLIM
+}
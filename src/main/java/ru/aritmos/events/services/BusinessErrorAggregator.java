@@ -0,0 +1,193 @@
+package ru.aritmos.events.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.scheduling.annotation.Scheduled;
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.extern.slf4j.Slf4j;
+import ru.aritmos.events.model.Event;
+
+/**
+ * Агрегация событий бизнес-ошибок.
+ *
+ * <p>Одинаковые ошибки (одинаковый ключ {@value #KEY_PARAM} события и адресат) подсчитываются в
+ * скользящем окне {@code business-error-events.window}: окно приближается двумя соседними
+ * интервалами, количество ошибок предыдущего интервала учитывается пропорционально его части,
+ * попадающей в окно. Первые {@code sample-size} ошибок окна отправляются полными событиями {@code
+ * BUSINESS_ERROR}, остальные подавляются и периодически отправляются одним событием {@value
+ * #SUMMARY_EVENT_TYPE} на каждый ключ с количеством подавленных ошибок.
+ */
+@Slf4j
+@Singleton
+public class BusinessErrorAggregator {
+
+  /** Тип агрегируемых событий. */
+  public static final String EVENT_TYPE = "BUSINESS_ERROR";
+
+  /** Тип сводного события. */
+  public static final String SUMMARY_EVENT_TYPE = "BUSINESS_ERROR_SUMMARY";
+
+  /** Параметр события с ключом ошибки. */
+  public static final String KEY_PARAM = "key";
+
+  /** Настройки агрегации. */
+  @Inject BusinessErrorEventsProperties properties = new BusinessErrorEventsProperties();
+
+  /** Сервис отправки сводных событий. */
+  @Inject Provider<EventService> eventService;
+
+  /** Реестр метрик (может отсутствовать). */
+  @Inject @Nullable MeterRegistry meterRegistry;
+
+  /** Часы (заменяются в тестах). */
+  Clock clock = Clock.systemDefaultZone();
+
+  /**
+   * Счётчики ошибок по ключам (адресат и ключ ошибки). Счётчик читается и изменяется только внутри
+   * {@code compute} по его ключу.
+   */
+  private final ConcurrentMap<String, ErrorCounter> counters = new ConcurrentHashMap<>();
+
+  /** Счётчик одинаковых ошибок. */
+  private static final class ErrorCounter {
+    final String destination;
+    final String key;
+    long intervalStart;
+    int current;
+    int previous;
+    int suppressed;
+    long firstSuppressed;
+    Object lastBody;
+
+    ErrorCounter(String destination, String key, long intervalStart) {
+      this.destination = destination;
+      this.key = key;
+      this.intervalStart = intervalStart;
+    }
+  }
+
+  /**
+   * Учёт отправляемого события.
+   *
+   * @param destination служба-адресат
+   * @param event событие
+   * @return {@code true}, если событие нужно отправить, {@code false}, если оно подавлено и будет
+   *     учтено в сводном событии
+   */
+  public boolean admit(String destination, Event event) {
+    if (!properties.isEnabled() || !EVENT_TYPE.equals(event.getEventType())) {
+      return true;
+    }
+    String key =
+        event.getParams() != null && event.getParams().get(KEY_PARAM) != null
+            ? event.getParams().get(KEY_PARAM)
+            : String.valueOf(event.getBody());
+    long now = clock.millis();
+    long window = Math.max(1, properties.getWindow().toMillis());
+    boolean[] admitted = new boolean[1];
+    // Подсчёт выполняется внутри compute, атомарно с удалением простаивающего счётчика в flush:
+    // иначе ошибка может быть учтена в уже удалённом счётчике и не попасть в сводку.
+    counters.compute(
+        destination + '\n' + key,
+        (id, existing) -> {
+          ErrorCounter counter =
+              existing != null ? existing : new ErrorCounter(destination, key, now);
+          advance(counter, now, window);
+          double previousWeight = 1.0 - (double) (now - counter.intervalStart) / window;
+          double count = counter.current + counter.previous * Math.max(0, previousWeight);
+          admitted[0] = count < properties.getSampleSize();
+          counter.current++;
+          if (!admitted[0]) {
+            if (counter.suppressed == 0) {
+              counter.firstSuppressed = now;
+            }
+            counter.suppressed++;
+            counter.lastBody = event.getBody();
+          }
+          return counter;
+        });
+    if (!admitted[0] && meterRegistry != null) {
+      meterRegistry.counter("event.business_error.suppressed").increment();
+    }
+    return admitted[0];
+  }
+
+  /**
+   * Отправка сводных событий о подавленных ошибках и удаление устаревших счётчиков.
+   *
+   * <p>Период задаётся параметром {@code business-error-events.summary-interval}.
+   */
+  @Scheduled(
+      fixedDelay = "${business-error-events.summary-interval:30s}",
+      initialDelay = "${business-error-events.summary-interval:30s}")
+  public void flush() {
+    long now = clock.millis();
+    long window = Math.max(1, properties.getWindow().toMillis());
+    List<Event> summaries = new ArrayList<>();
+    List<String> destinations = new ArrayList<>();
+    for (String id : counters.keySet()) {
+      counters.computeIfPresent(
+          id,
+          (k, counter) -> {
+            advance(counter, now, window);
+            if (counter.suppressed > 0) {
+              Map<String, Object> body = new LinkedHashMap<>();
+              body.put("key", counter.key);
+              body.put("suppressed", counter.suppressed);
+              body.put(
+                  "since",
+                  ZonedDateTime.ofInstant(
+                      Instant.ofEpochMilli(counter.firstSuppressed), clock.getZone()));
+              body.put("lastError", counter.lastBody);
+              summaries.add(
+                  Event.builder()
+                      .eventDate(ZonedDateTime.now(clock))
+                      .eventType(SUMMARY_EVENT_TYPE)
+                      .params(new HashMap<>(Map.of(KEY_PARAM, counter.key)))
+                      .body(body)
+                      .build());
+              destinations.add(counter.destination);
+              counter.suppressed = 0;
+              counter.lastBody = null;
+              return counter;
+            }
+            return counter.current == 0 && counter.previous == 0 ? null : counter;
+          });
+    }
+    for (int i = 0; i < summaries.size(); i++) {
+      eventService.get().send(destinations.get(i), false, summaries.get(i));
+    }
+    if (!summaries.isEmpty()) {
+      log.warn("Sent {} business error summaries", summaries.size());
+    }
+  }
+
+  /**
+   * Сдвиг интервалов счётчика к текущему моменту.
+   *
+   * @param counter счётчик
+   * @param now текущее время (мс)
+   * @param window длительность окна (мс)
+   */
+  private static void advance(ErrorCounter counter, long now, long window) {
+    long elapsed = now - counter.intervalStart;
+    if (elapsed < window) {
+      return;
+    }
+    counter.previous = elapsed < 2 * window ? counter.current : 0;
+    counter.current = 0;
+    counter.intervalStart = now - elapsed % window;
+  }
+}
@@ -0,0 +1,22 @@
+package ru.aritmos.events.services;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+
+/** Настройки агрегации событий бизнес-ошибок {@link BusinessErrorAggregator}. */
+@Getter
+@Setter
+@ConfigurationProperties("business-error-events")
+public class BusinessErrorEventsProperties {
+
+  /** Включение агрегации; при выключенной агрегации отправляется каждое событие ошибки. */
+  private boolean enabled = true;
+
+  /** Скользящее окно подсчёта одинаковых ошибок. */
+  private Duration window = Duration.ofMinutes(1);
+
+  /** Количество одинаковых ошибок в окне, отправляемых полными событиями. */
+  private int sampleSize = 5;
+}
@@ -0,0 +1,206 @@
+package ru.aritmos.events.services;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.serde.ObjectMapper;
+import io.micronaut.serde.annotation.Serdeable;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import ru.aritmos.events.model.Event;
+
+/**
+ * Журнал отложенных событий для восстановления после перезапуска.
+ *
+ * <p>Журнал - текстовый файл, в который только дописываются строки JSON: запланированное событие
+ * ({@link Line#scheduled} заполнено) либо отметка об отправке события с тем же идентификатором.
+ * При восстановлении события без отметки об отправке считаются ожидающими, а файл переписывается
+ * только ими. Файл переписывается и после накопления заданного количества отметок об отправке
+ * ({@link #compact}). Повреждённые строки (например, недописанная при аварийной остановке
+ * последняя строка) пропускаются.
+ */
+@Slf4j
+public class DelayedEventJournal implements Closeable {
+
+  /** Путь к файлу журнала. */
+  private final Path path;
+
+  /** Сериализатор JSON. */
+  private final ObjectMapper objectMapper;
+
+  private BufferedWriter writer;
+
+  /** Отметки об отправке, записанные после последнего сжатия журнала. */
+  private long completed;
+
+  /**
+   * Отложенное событие.
+   *
+   * @param id идентификатор события в журнале
+   * @param dueAt момент отправки (миллисекунды эпохи)
+   * @param destinations адресаты события
+   * @param multiservice признак отправки списку адресатов одним вызовом
+   * @param sendToOtherBus признак отправки во внешнюю шину
+   * @param event событие
+   */
+  @Serdeable
+  public record Entry(
+      String id,
+      long dueAt,
+      List<String> destinations,
+      boolean multiservice,
+      Boolean sendToOtherBus,
+      Event event) {}
+
+  /**
+   * Строка журнала.
+   *
+   * @param id идентификатор события
+   * @param scheduled запланированное событие либо {@code null} для отметки об отправке
+   */
+  @Serdeable
+  public record Line(String id, @Nullable Entry scheduled) {}
+
+  /**
+   * Создание журнала.
+   *
+   * @param path путь к файлу журнала
+   * @param objectMapper сериализатор JSON
+   */
+  public DelayedEventJournal(Path path, ObjectMapper objectMapper) {
+    this.path = path;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Чтение ожидающих событий и подготовка журнала к дописыванию.
+   *
+   * @return ожидающие события в порядке планирования
+   * @throws IOException ошибка чтения или записи файла
+   */
+  public synchronized List<Entry> recover() throws IOException {
+    Map<String, Entry> pending = new LinkedHashMap<>();
+    if (Files.exists(path)) {
+      try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+        for (String text = reader.readLine(); text != null; text = reader.readLine()) {
+          if (text.isBlank()) {
+            continue;
+          }
+          try {
+            Line line = objectMapper.readValue(text, Line.class);
+            if (line.scheduled() != null) {
+              pending.put(line.id(), line.scheduled());
+            } else {
+              pending.remove(line.id());
+            }
+          } catch (IOException | RuntimeException e) {
+            log.warn("Delayed event journal line skipped: {}", e.getMessage());
+          }
+        }
+      }
+    }
+    List<Entry> result = new ArrayList<>(pending.values());
+    compact(result);
+    return result;
+  }
+
+  /**
+   * Запись запланированного события.
+   *
+   * @param entry событие
+   * @throws IOException ошибка сериализации или записи
+   */
+  public synchronized void scheduled(Entry entry) throws IOException {
+    append(new Line(entry.id(), entry));
+  }
+
+  /**
+   * Запись отметки об отправке события.
+   *
+   * @param id идентификатор события
+   * @throws IOException ошибка записи
+   */
+  public synchronized void completed(String id) throws IOException {
+    append(new Line(id, null));
+    completed++;
+  }
+
+  /**
+   * Количество отметок об отправке после последнего сжатия журнала.
+   *
+   * @return количество отметок
+   */
+  public synchronized long getCompleted() {
+    return completed;
+  }
+
+  /**
+   * Сжатие журнала: файл заменяется файлом только с ожидающими событиями.
+   *
+   * @param pending ожидающие события
+   * @throws IOException ошибка записи
+   */
+  public synchronized void compact(Collection<Entry> pending) throws IOException {
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    try (BufferedWriter out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+      for (Entry entry : pending) {
+        try {
+          out.write(objectMapper.writeValueAsString(new Line(entry.id(), entry)));
+          out.newLine();
+        } catch (IOException | RuntimeException e) {
+          log.warn("Delayed event {} is not journaled: {}", entry.id(), e.getMessage());
+        }
+      }
+    }
+    closeWriter();
+    try {
+      Files.move(
+          temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      completed = 0;
+    } finally {
+      // При неудачной замене дописывание продолжается в прежний файл
+      writer =
+          Files.newBufferedWriter(
+              path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    closeWriter();
+  }
+
+  private void append(Line line) throws IOException {
+    if (writer == null) {
+      throw new IOException("Delayed event journal " + path + " is not open");
+    }
+    writer.write(objectMapper.writeValueAsString(line));
+    writer.newLine();
+    writer.flush();
+  }
+
+  private void closeWriter() throws IOException {
+    if (writer != null) {
+      try {
+        writer.close();
+      } finally {
+        writer = null;
+      }
+    }
+  }
+}
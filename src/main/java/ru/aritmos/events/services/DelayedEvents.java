@@ -1,21 +1,67 @@
 package ru.aritmos.events.services;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.TaskScheduler;
 import io.micronaut.scheduling.annotation.ExecuteOn;
+import io.micronaut.serde.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+import ru.aritmos.config.VisitManagerExecutors;
 import ru.aritmos.events.model.Event;
 
-/** Планировщик отложенной отправки событий в шину. */
+/**
+ * Планировщик отложенной отправки событий в шину.
+ *
+ * <p>Если включено колесо таймеров ({@code delayed-events.enabled}), события хранятся в {@link
+ * TimerWheel}, которое продвигается одной периодической задачей планировщика, и записываются в
+ * {@link DelayedEventJournal} ({@code delayed-events.journal}): после перезапуска неотправленные
+ * события планируются заново, а просроченные отправляются на первом такте. Иначе каждое событие
+ * планируется отдельной задачей планировщика Micronaut и при перезапуске теряется.
+ */
+@Slf4j
 @Singleton
 public class DelayedEvents {
   /** Планировщик задач. */
   protected final TaskScheduler taskScheduler;
 
+  /** Настройки колеса таймеров. */
+  @Inject DelayedEventsProperties properties = new DelayedEventsProperties();
+
+  /** Сериализатор журнала (может отсутствовать). */
+  @Inject @Nullable ObjectMapper objectMapper;
+
+  /** Сервис отправки событий, восстановленных из журнала (может отсутствовать). */
+  @Inject @Nullable EventService recoveredEventService;
+
+  /** Реестр метрик (может отсутствовать). */
+  @Inject @Nullable MeterRegistry meterRegistry;
+
+  private volatile TimerWheel<Pending> wheel;
+  private DelayedEventJournal journal;
+  private ScheduledFuture<?> ticker;
+
+  /**
+   * Событие, ожидающее отправки.
+   *
+   * @param entry событие и его адресаты
+   * @param eventService сервис отправки события
+   */
+  record Pending(DelayedEventJournal.Entry entry, EventService eventService) {}
+
   /**
    * Конструктор.
    *
@@ -25,6 +71,45 @@ public class DelayedEvents {
     this.taskScheduler = taskScheduler;
   }
 
+  /** Запуск колеса таймеров и восстановление событий из журнала, если колесо включено. */
+  @PostConstruct
+  void start() {
+    if (properties == null || !properties.isEnabled() || taskScheduler == null) {
+      return;
+    }
+    TimerWheel<Pending> created =
+        new TimerWheel<>(
+            properties.getTick(), properties.getWheelSize(), System.currentTimeMillis());
+    openJournal(created);
+    wheel = created;
+    if (meterRegistry != null) {
+      Gauge.builder("delayed.events.pending", created, TimerWheel::size)
+          .description("Delayed events waiting in the timer wheel")
+          .register(meterRegistry);
+    }
+    ticker =
+        taskScheduler.scheduleAtFixedRate(properties.getTick(), properties.getTick(), this::tick);
+    log.info(
+        "Delayed events timer wheel started: tick {}, {} events recovered",
+        properties.getTick(),
+        created.size());
+  }
+
+  /** Остановка колеса таймеров; неотправленные события остаются в журнале. */
+  @PreDestroy
+  void stop() {
+    if (ticker != null) {
+      ticker.cancel(false);
+    }
+    if (journal != null) {
+      try {
+        journal.close();
+      } catch (IOException e) {
+        log.warn("Delayed event journal close failed", e);
+      }
+    }
+  }
+
   /**
    * Отправить событие через заданную задержку.
    *
@@ -34,7 +119,7 @@ public class DelayedEvents {
    * @param delayInSeconds задержка в секундах
    * @param eventService сервис отправки событий
    */
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.OUTBOUND_IO)
   public void delayedEventService(
       String destinationService,
       Boolean sendToOtherBus,
@@ -42,6 +127,11 @@ public class DelayedEvents {
       Long delayInSeconds,
       EventService eventService) {
     event.setEventDate(ZonedDateTime.now());
+    if (wheel != null) {
+      schedule(
+          List.of(destinationService), false, sendToOtherBus, event, delayInSeconds, eventService);
+      return;
+    }
     EventTask eventTask = new EventTask(destinationService, sendToOtherBus, event, eventService);
     taskScheduler.schedule(Duration.ofSeconds(delayInSeconds), eventTask);
   }
@@ -56,7 +146,7 @@ public class DelayedEvents {
    * @param eventService сервис отправки событий
    */
   @SuppressWarnings("unused")
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.OUTBOUND_IO)
   public void delayedEventService(
       List<String> destinationServices,
       Boolean sendToOtherBus,
@@ -64,8 +154,137 @@ public class DelayedEvents {
       Long delayInSeconds,
       EventService eventService) {
     event.setEventDate(ZonedDateTime.now());
+    if (wheel != null) {
+      schedule(destinationServices, true, sendToOtherBus, event, delayInSeconds, eventService);
+      return;
+    }
     MultiserviceEventTask eventTask =
         new MultiserviceEventTask(destinationServices, sendToOtherBus, event, eventService);
     taskScheduler.schedule(Duration.ofSeconds(delayInSeconds), eventTask);
   }
+
+  /**
+   * Количество событий, ожидающих отправки в колесе таймеров.
+   *
+   * @return количество событий либо 0, если колесо выключено
+   */
+  public int pendingCount() {
+    TimerWheel<Pending> current = wheel;
+    return current != null ? current.size() : 0;
+  }
+
+  /** Такт колеса: исключение не должно прерывать периодическую задачу. */
+  private void tick() {
+    try {
+      advance(System.currentTimeMillis());
+    } catch (RuntimeException e) {
+      log.error("Delayed events tick failed", e);
+    }
+  }
+
+  /**
+   * Отправка событий, срок которых наступил, и сжатие журнала.
+   *
+   * @param nowMillis текущий момент в миллисекундах
+   */
+  void advance(long nowMillis) {
+    TimerWheel<Pending> current = wheel;
+    if (current == null) {
+      return;
+    }
+    for (Pending pending : current.advance(nowMillis)) {
+      try {
+        send(pending);
+      } catch (RuntimeException e) {
+        log.error("Delayed event {} is not sent", pending.entry().id(), e);
+      }
+      if (journal != null) {
+        try {
+          journal.completed(pending.entry().id());
+        } catch (IOException e) {
+          log.warn("Delayed event {} completion is not journaled", pending.entry().id(), e);
+        }
+      }
+    }
+    compactJournal(current);
+  }
+
+  private void schedule(
+      List<String> destinations,
+      boolean multiservice,
+      Boolean sendToOtherBus,
+      Event event,
+      Long delayInSeconds,
+      EventService eventService) {
+    DelayedEventJournal.Entry entry =
+        new DelayedEventJournal.Entry(
+            UUID.randomUUID().toString(),
+            System.currentTimeMillis() + Duration.ofSeconds(delayInSeconds).toMillis(),
+            destinations,
+            multiservice,
+            sendToOtherBus,
+            event);
+    if (journal == null) {
+      wheel.schedule(new Pending(entry, eventService), entry.dueAt());
+      return;
+    }
+    // Запись в журнал и добавление в колесо не пересекаются со сжатием журнала
+    synchronized (journal) {
+      try {
+        journal.scheduled(entry);
+      } catch (IOException | RuntimeException e) {
+        log.warn("Delayed event {} is not journaled: {}", entry.id(), e.getMessage());
+      }
+      wheel.schedule(new Pending(entry, eventService), entry.dueAt());
+    }
+  }
+
+  private void send(Pending pending) {
+    DelayedEventJournal.Entry entry = pending.entry();
+    if (pending.eventService() == null) {
+      log.warn("Delayed event {} is dropped: no event service", entry.id());
+      return;
+    }
+    if (entry.multiservice()) {
+      new MultiserviceEventTask(
+              entry.destinations(), entry.sendToOtherBus(), entry.event(), pending.eventService())
+          .run();
+    } else {
+      new EventTask(
+              entry.destinations().get(0),
+              entry.sendToOtherBus(),
+              entry.event(),
+              pending.eventService())
+          .run();
+    }
+  }
+
+  private void openJournal(TimerWheel<Pending> target) {
+    String location = properties.getJournal();
+    if (location == null || location.isBlank() || objectMapper == null) {
+      return;
+    }
+    DelayedEventJournal opened = new DelayedEventJournal(Path.of(location), objectMapper);
+    try {
+      for (DelayedEventJournal.Entry entry : opened.recover()) {
+        target.schedule(new Pending(entry, recoveredEventService), entry.dueAt());
+      }
+      journal = opened;
+    } catch (IOException e) {
+      log.error("Delayed event journal {} is not available, events kept in memory", location, e);
+    }
+  }
+
+  private void compactJournal(TimerWheel<Pending> current) {
+    if (journal == null || journal.getCompleted() < properties.getCompactThreshold()) {
+      return;
+    }
+    synchronized (journal) {
+      try {
+        journal.compact(current.pending().stream().map(Pending::entry).toList());
+      } catch (IOException e) {
+        log.warn("Delayed event journal compaction failed", e);
+      }
+    }
+  }
 }
@@ -0,0 +1,31 @@
+package ru.aritmos.events.services;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+
+/** Настройки колеса таймеров отложенных событий {@link DelayedEvents}. */
+@Getter
+@Setter
+@ConfigurationProperties("delayed-events")
+public class DelayedEventsProperties {
+
+  /**
+   * Включение колеса таймеров; при выключенном колесе каждое событие планируется отдельной задачей
+   * планировщика Micronaut.
+   */
+  private boolean enabled = false;
+
+  /** Длительность такта колеса (точность срабатывания). */
+  private Duration tick = Duration.ofMillis(100);
+
+  /** Количество ячеек уровня колеса (степень двойки). */
+  private int wheelSize = 512;
+
+  /** Путь к журналу отложенных событий; пустое значение отключает журнал. */
+  private String journal = "";
+
+  /** Количество отметок об отправке, после которого журнал сжимается. */
+  private int compactThreshold = 10_000;
+}
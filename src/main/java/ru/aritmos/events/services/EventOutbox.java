@@ -0,0 +1,473 @@
+package ru.aritmos.events.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.aritmos.events.clients.DataBusClient;
+import ru.aritmos.events.model.Event;
+import ru.aritmos.events.model.EventPayload;
+import ru.aritmos.model.BranchEntity;
+import ru.aritmos.model.visit.Visit;
+
+/**
+ * Буфер исходящих событий шины данных.
+ *
+ * <p>События складываются в ограниченный кольцевой буфер и отправляются одним потоком пачками:
+ * пачка набирается до {@code batch-size} событий или до истечения {@code linger}. События пачки
+ * раскладываются по очередям отправки: при отправке на пакетную точку шины данных - по адресатам,
+ * иначе - по адресатам и отделениям. Из каждой очереди, по которой нет неподтверждённой отправки,
+ * события отправляются одним запросом на пакетную точку либо последовательно отдельными запросами,
+ * поэтому порядок событий одного отделения сохраняется.
+ *
+ * <p>Отправка не отменяется по истечении {@code flush-timeout}: поток буфера лишь перестаёт её
+ * ожидать, а новые события очереди ждут подтверждения. Неподтверждённые после всех повторных
+ * попыток клиента шины данных события возвращаются в начало своей очереди и отправляются повторно
+ * через {@code retry-delay} раньше более новых событий очереди.
+ *
+ * <p>Если буфер выключен или переполнен, {@link #offer} возвращает {@code false}, и {@link
+ * EventService} отправляет событие напрямую.
+ */
+@Slf4j
+@Singleton
+public class EventOutbox {
+
+  /** Формат даты заголовка Send-Date. */
+  private static final DateTimeFormatter SEND_DATE_FORMAT =
+      DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+
+  /** Настройки буфера. */
+  @Inject EventOutboxProperties properties;
+
+  /** Клиент шины данных. */
+  @Inject DataBusClient dataBusClient;
+
+  /** Реестр метрик (может отсутствовать). */
+  @Inject @Nullable MeterRegistry meterRegistry;
+
+  /** Имя текущего сервиса-источника событий. */
+  @Value("${micronaut.application.name}")
+  String applicationName;
+
+  /** Очереди отправки (доступ под блокировкой самой карты). */
+  private final Map<Lane, LaneState> lanes = new LinkedHashMap<>();
+
+  /** Количество событий в очередях отправки, ожидающих отправки или повтора. */
+  private int queued;
+
+  private volatile BlockingQueue<OutboxEntry> buffer;
+  private volatile boolean running;
+  private Thread flusher;
+
+  private Counter enqueued;
+  private Counter overflow;
+  private Counter sent;
+  private Counter failed;
+  private DistributionSummary batchSizes;
+  private Timer flushTimer;
+
+  /**
+   * Событие, ожидающее отправки.
+   *
+   * @param destination служба-адресат
+   * @param sendToOtherBus флаг переправки события в соседние шины данных
+   * @param event событие
+   */
+  record OutboxEntry(String destination, Boolean sendToOtherBus, Event event) {}
+
+  /**
+   * Адресат пачки.
+   *
+   * @param destination служба-адресат
+   * @param sendToOtherBus флаг переправки события в соседние шины данных
+   */
+  record Destination(String destination, Boolean sendToOtherBus) {}
+
+  /**
+   * Очередь отправки.
+   *
+   * @param destination адресат
+   * @param orderingKey ключ упорядочивания (пустой при отправке на пакетную точку)
+   */
+  record Lane(Destination destination, String orderingKey) {}
+
+  /** Состояние очереди отправки. */
+  private static final class LaneState {
+    /** События, ожидающие отправки, в порядке отправки. */
+    final Deque<OutboxEntry> pending = new ArrayDeque<>();
+
+    /** Признак неподтверждённой отправки. */
+    boolean inFlight;
+
+    /** Время (System.nanoTime), раньше которого повтор не выполняется. */
+    long retryAt;
+
+    /** Признак ожидания повтора. */
+    boolean retrying;
+  }
+
+  /** Запуск потока отправки, если буфер включён. */
+  @PostConstruct
+  void start() {
+    if (properties == null || !properties.isEnabled()) {
+      return;
+    }
+    buffer = new ArrayBlockingQueue<>(properties.getCapacity());
+    registerMetrics();
+    running = true;
+    flusher = new Thread(this::drainLoop, "event-outbox");
+    flusher.setDaemon(true);
+    flusher.start();
+    log.info(
+        "Event outbox started: capacity {}, batch size {}, linger {}",
+        properties.getCapacity(),
+        properties.getBatchSize(),
+        properties.getLinger());
+  }
+
+  /** Остановка потока отправки с отправкой оставшихся событий. */
+  @PreDestroy
+  void stop() {
+    running = false;
+    if (flusher != null) {
+      flusher.interrupt();
+      try {
+        flusher.join(properties.getFlushTimeout().toMillis());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    BlockingQueue<OutboxEntry> current = buffer;
+    List<OutboxEntry> rest = new ArrayList<>();
+    if (current != null) {
+      current.drainTo(rest);
+    }
+    if (!rest.isEmpty() || queued() > 0) {
+      flush(rest);
+    }
+  }
+
+  /**
+   * Признак включённого буфера.
+   *
+   * @return {@code true}, если события отправляются через буфер
+   */
+  public boolean isEnabled() {
+    return running && buffer != null;
+  }
+
+  /**
+   * Постановка события в буфер.
+   *
+   * @param destination служба-адресат
+   * @param sendToOtherBus флаг переправки события в соседние шины данных
+   * @param event событие
+   * @return {@code false}, если буфер выключен или переполнен и событие нужно отправить напрямую
+   */
+  public boolean offer(String destination, Boolean sendToOtherBus, Event event) {
+    BlockingQueue<OutboxEntry> current = buffer;
+    if (!running || current == null) {
+      return false;
+    }
+    if (queued() >= properties.getCapacity()) {
+      increment(overflow);
+      log.warn(
+          "Event outbox retry queue is full, sending {} to {} directly",
+          event.getEventType(),
+          destination);
+      return false;
+    }
+    try {
+      if (current.offer(
+          new OutboxEntry(destination, sendToOtherBus, event),
+          properties.getOfferTimeout().toNanos(),
+          TimeUnit.NANOSECONDS)) {
+        increment(enqueued);
+        return true;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    increment(overflow);
+    log.warn("Event outbox is full, sending {} to {} directly", event.getEventType(), destination);
+    return false;
+  }
+
+  /**
+   * Количество событий, ожидающих отправки.
+   *
+   * @return размер буфера
+   */
+  public int size() {
+    BlockingQueue<OutboxEntry> current = buffer;
+    return (current == null ? 0 : current.size()) + queued();
+  }
+
+  /**
+   * Количество событий в очередях отправки, ожидающих отправки или повтора.
+   *
+   * @return количество событий
+   */
+  private int queued() {
+    synchronized (lanes) {
+      return queued;
+    }
+  }
+
+  /** Цикл набора и отправки пачек. */
+  private void drainLoop() {
+    long lingerNanos = properties.getLinger().toNanos();
+    int batchSize = Math.max(1, properties.getBatchSize());
+    while (running) {
+      try {
+        OutboxEntry first = buffer.poll(lingerNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+          if (queued() > 0) {
+            flush(List.of());
+          }
+          continue;
+        }
+        List<OutboxEntry> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < batchSize) {
+          buffer.drainTo(batch, batchSize - batch.size());
+          long remaining = deadline - System.nanoTime();
+          if (batch.size() >= batchSize || remaining <= 0) {
+            break;
+          }
+          OutboxEntry next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        flush(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        log.error("Event outbox flush failed", e);
+      }
+    }
+  }
+
+  /**
+   * Раскладка пачки по очередям отправки и отправка из свободных очередей с ожиданием
+   * подтверждения (не дольше {@code flush-timeout}; отправка по истечении времени не отменяется).
+   *
+   * @param batch пачка событий
+   */
+  void flush(List<OutboxEntry> batch) {
+    long start = System.nanoTime();
+    int batchSize = Math.max(1, properties.getBatchSize());
+    List<Mono<Void>> sends = new ArrayList<>();
+    synchronized (lanes) {
+      for (OutboxEntry entry : batch) {
+        lanes.computeIfAbsent(laneOf(entry), key -> new LaneState()).pending.addLast(entry);
+      }
+      queued += batch.size();
+      String sendDate = SEND_DATE_FORMAT.format(ZonedDateTime.now());
+      Iterator<Map.Entry<Lane, LaneState>> iterator = lanes.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<Lane, LaneState> lane = iterator.next();
+        LaneState state = lane.getValue();
+        if (state.inFlight || state.retrying && start - state.retryAt < 0) {
+          continue;
+        }
+        if (state.pending.isEmpty()) {
+          iterator.remove();
+          continue;
+        }
+        List<OutboxEntry> entries = new ArrayList<>(Math.min(batchSize, state.pending.size()));
+        while (entries.size() < batchSize && !state.pending.isEmpty()) {
+          entries.add(state.pending.pollFirst());
+        }
+        queued -= entries.size();
+        state.inFlight = true;
+        state.retrying = false;
+        sends.add(send(lane.getKey(), state, entries, sendDate));
+      }
+    }
+    if (sends.isEmpty()) {
+      return;
+    }
+    CountDownLatch confirmed = new CountDownLatch(sends.size());
+    sends.forEach(request -> request.doFinally(signal -> confirmed.countDown()).subscribe());
+    try {
+      if (!confirmed.await(properties.getFlushTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+        log.warn(
+            "Event outbox sends are not confirmed in {}, waiting in background",
+            properties.getFlushTimeout());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (batchSizes != null) {
+      batchSizes.record(batch.size());
+      flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Очередь отправки события.
+   *
+   * @param entry событие
+   * @return очередь отправки
+   */
+  private Lane laneOf(OutboxEntry entry) {
+    Destination destination = new Destination(entry.destination(), entry.sendToOtherBus());
+    return new Lane(destination, properties.isBatchEndpoint() ? "" : orderingKey(entry.event()));
+  }
+
+  /**
+   * Отправка событий очереди: одним запросом на пакетную точку либо последовательно отдельными
+   * запросами.
+   *
+   * @param lane очередь отправки
+   * @param state состояние очереди
+   * @param entries события
+   * @param sendDate дата отправки
+   * @return завершение отправки (ошибка отправки не передаётся дальше)
+   */
+  private Mono<Void> send(Lane lane, LaneState state, List<OutboxEntry> entries, String sendDate) {
+    Destination destination = lane.destination();
+    AtomicInteger delivered = new AtomicInteger();
+    Mono<Void> request;
+    if (properties.isBatchEndpoint()) {
+      request =
+          Mono.from(
+                  dataBusClient.sendBatch(
+                      destination.destination(),
+                      destination.sendToOtherBus(),
+                      sendDate,
+                      applicationName,
+                      entries.stream().map(OutboxEntry::event).toList()))
+              .doOnSuccess(response -> delivered.set(entries.size()))
+              .then();
+    } else {
+      request =
+          Flux.fromIterable(entries)
+              .concatMap(
+                  entry ->
+                      Mono.from(
+                              dataBusClient.send(
+                                  destination.destination(),
+                                  destination.sendToOtherBus(),
+                                  sendDate,
+                                  applicationName,
+                                  entry.event().getEventType(),
+                                  entry.event().getBody()))
+                          .doOnSuccess(response -> delivered.incrementAndGet()))
+              .then();
+    }
+    return request
+        .doOnError(e -> log.error(e.getMessage()))
+        .onErrorResume(e -> Mono.empty())
+        .doFinally(signal -> completed(state, entries, delivered.get()));
+  }
+
+  /**
+   * Учёт результата отправки: неподтверждённые события возвращаются в начало очереди.
+   *
+   * @param state состояние очереди
+   * @param entries отправлявшиеся события
+   * @param delivered количество подтверждённых событий (с начала списка)
+   */
+  private void completed(LaneState state, List<OutboxEntry> entries, int delivered) {
+    int undelivered = entries.size() - delivered;
+    synchronized (lanes) {
+      for (int i = entries.size() - 1; i >= delivered; i--) {
+        state.pending.addFirst(entries.get(i));
+      }
+      queued += undelivered;
+      if (undelivered > 0) {
+        state.retrying = true;
+        state.retryAt = System.nanoTime() + properties.getRetryDelay().toNanos();
+      }
+      state.inFlight = false;
+    }
+    increment(sent, delivered);
+    if (undelivered > 0) {
+      increment(failed, undelivered);
+      log.warn("{} outbox events are not delivered and will be retried", undelivered);
+    }
+  }
+
+  /**
+   * Ключ упорядочивания события: идентификатор отделения из параметров или тела события.
+   *
+   * @param event событие
+   * @return идентификатор отделения либо пустая строка
+   */
+  static String orderingKey(Event event) {
+    if (event.getParams() != null && event.getParams().get("branchId") != null) {
+      return event.getParams().get("branchId");
+    }
+    if (event.getBody() instanceof Visit visit && visit.getBranchId() != null) {
+      return visit.getBranchId();
+    }
+    String branchId = EventPayload.stringField(event.getBody(), "branchId");
+    if (branchId != null) {
+      return branchId;
+    }
+    if (event.getBody() instanceof BranchEntity entity && entity.getBranchId() != null) {
+      return entity.getBranchId();
+    }
+    return "";
+  }
+
+  /** Регистрация метрик буфера. */
+  private void registerMetrics() {
+    if (meterRegistry == null) {
+      return;
+    }
+    Gauge.builder("event.outbox.size", this, EventOutbox::size)
+        .description("Events waiting in the outbox")
+        .register(meterRegistry);
+    Gauge.builder("event.outbox.remaining.capacity", this, o -> o.buffer.remainingCapacity())
+        .description("Free outbox slots")
+        .register(meterRegistry);
+    enqueued = meterRegistry.counter("event.outbox.enqueued");
+    overflow = meterRegistry.counter("event.outbox.overflow");
+    sent = meterRegistry.counter("event.outbox.sent");
+    failed = meterRegistry.counter("event.outbox.failed");
+    batchSizes = meterRegistry.summary("event.outbox.batch.size");
+    flushTimer = meterRegistry.timer("event.outbox.flush");
+  }
+
+  private static void increment(Counter counter) {
+    increment(counter, 1);
+  }
+
+  private static void increment(Counter counter, int count) {
+    if (counter != null) {
+      counter.increment(count);
+    }
+  }
+}
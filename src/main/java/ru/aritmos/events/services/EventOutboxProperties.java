@@ -0,0 +1,43 @@
+package ru.aritmos.events.services;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+
+/** Настройки буфера исходящих событий {@link EventOutbox}. */
+@Getter
+@Setter
+@ConfigurationProperties("event-outbox")
+public class EventOutboxProperties {
+
+  /** Включение буфера; при выключенном буфере каждое событие отправляется отдельным запросом. */
+  private boolean enabled = false;
+
+  /** Ёмкость кольцевого буфера событий. */
+  private int capacity = 10_000;
+
+  /** Максимальное количество событий в одной пачке. */
+  private int batchSize = 200;
+
+  /** Максимальное время ожидания наполнения пачки. */
+  private Duration linger = Duration.ofMillis(20);
+
+  /** Время ожидания места в заполненном буфере, после которого событие отправляется напрямую. */
+  private Duration offerTimeout = Duration.ofMillis(50);
+
+  /**
+   * Время ожидания подтверждения отправки пачки перед переходом к следующей (отправка при этом не
+   * отменяется).
+   */
+  private Duration flushTimeout = Duration.ofSeconds(10);
+
+  /** Пауза перед повторной отправкой событий, не подтверждённых шиной данных. */
+  private Duration retryDelay = Duration.ofSeconds(30);
+
+  /**
+   * Отправка пачки одним запросом на {@code /databus/events/batch}; если шина данных его не
+   * поддерживает, события пачки отправляются конвейером по отдельным запросам поверх HTTP/2.
+   */
+  private boolean batchEndpoint = false;
+}
@@ -0,0 +1,31 @@
+package ru.aritmos.events.services;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.Setter;
+import ru.aritmos.events.model.EventPayloadProfile;
+
+/** Настройки тел событий, рассылаемых {@link EventService#fanOut}. */
+@Getter
+@Setter
+@ConfigurationProperties("event-payload")
+public class EventPayloadProperties {
+
+  /** Профиль тела события для адресатов без отдельной настройки. */
+  private EventPayloadProfile defaultProfile = EventPayloadProfile.SLIM;
+
+  /** Профили тела события по адресатам (адресат -> профиль). */
+  private Map<String, EventPayloadProfile> profiles = new HashMap<>();
+
+  /**
+   * Профиль тела события для адресата.
+   *
+   * @param destination служба-адресат
+   * @return профиль тела события
+   */
+  public EventPayloadProfile profileOf(String destination) {
+    return profiles.getOrDefault(destination, defaultProfile);
+  }
+}
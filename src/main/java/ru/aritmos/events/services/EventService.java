@@ -1,20 +1,28 @@
 package ru.aritmos.events.services;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micronaut.context.annotation.Value;
-import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.scheduling.annotation.ExecuteOn;
+import io.micronaut.serde.ObjectMapper;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
+import ru.aritmos.config.VisitManagerExecutors;
 import ru.aritmos.events.clients.DataBusClient;
 import ru.aritmos.events.model.ChangedObject;
 import ru.aritmos.events.model.Event;
+import ru.aritmos.events.model.EventPayload;
+import ru.aritmos.events.model.EventPayloadProfile;
 
 /**
  * Сервис отправки событий в шину данных.
@@ -44,6 +52,21 @@ public class EventService {
   /** Клиент для отправки событий в шину данных. */
   @Inject DataBusClient dataBusClient;
 
+  /** Буфер пакетной отправки событий (включается параметром {@code event-outbox.enabled}). */
+  @Inject @Nullable EventOutbox outbox;
+
+  /** Реестр метрик (может отсутствовать). */
+  @Inject @Nullable MeterRegistry meterRegistry;
+
+  /** Агрегация событий бизнес-ошибок (может отсутствовать). */
+  @Inject @Nullable BusinessErrorAggregator businessErrors;
+
+  /** Сериализатор приложения для снимков тел событий ({@link EventPayload}). */
+  @Getter @Inject @Nullable ObjectMapper objectMapper;
+
+  /** Профили тел событий по адресатам для {@link #fanOut}. */
+  @Inject EventPayloadProperties payloadProperties = new EventPayloadProperties();
+
   /** Имя текущего сервиса-источника событий. */
   @Value("${micronaut.application.name}")
   String applicationName;
@@ -64,13 +87,22 @@ public class EventService {
   /**
    * Отправка события на шину данных.
    *
+   * <p>Повторяющиеся события {@code BUSINESS_ERROR} сверх выборки окна подавляются и отправляются
+   * сводными событиями (см. {@link BusinessErrorAggregator}).
+   *
    * @param destinationServices служба-адресат
    * @param sendToOtherBus флаг переправки события в соседние шины данных
    * @param event тело события
    */
-  @ExecuteOn(value = TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.OUTBOUND_IO)
   public void send(String destinationServices, Boolean sendToOtherBus, Event event) {
+    if (businessErrors != null && !businessErrors.admit(destinationServices, event)) {
+      return;
+    }
     event.setSenderService(applicationName);
+    if (outbox != null && outbox.offer(destinationServices, sendToOtherBus, event)) {
+      return;
+    }
     Mono.from(
             dataBusClient.send(
                 destinationServices,
@@ -79,7 +111,27 @@ public class EventService {
                 applicationName,
                 event.getEventType(),
                 event.getBody()))
-        .subscribe(s -> log.debug("Event {} sent!", s), e -> log.error(e.getMessage()));
+        .subscribe(
+            s -> {
+              log.debug("Event {} sent!", s);
+              increment("event.direct.sent");
+            },
+            e -> {
+              log.error(e.getMessage());
+              increment("event.direct.failed");
+            });
+  }
+
+  /**
+   * Учёт результата прямой отправки (ошибка учитывается после исчерпания повторных попыток
+   * клиента шины данных).
+   *
+   * @param counter имя счётчика
+   */
+  private void increment(String counter) {
+    if (meterRegistry != null) {
+      meterRegistry.counter(counter).increment();
+    }
   }
 
   /**
@@ -94,6 +146,46 @@ public class EventService {
     destinationServices.forEach(f -> send(f, sendToOtherBus, event));
   }
 
+  /**
+   * Отправка одного события нескольким адресатам.
+   *
+   * <p>Тело события сериализуется один раз для каждого используемого профиля (см. {@link
+   * EventPayloadProperties}), и всем адресатам с одним профилем отправляется одно и то же событие
+   * с неизменяемым снимком тела. Для профиля {@link EventPayloadProfile#SLIM} используется
+   * сокращённое тело; если оно не передано, отправляется полное.
+   *
+   * @param destinationServices службы-адресаты
+   * @param sendToOtherBus флаг переправки события в соседние шины данных
+   * @param event событие с полным телом
+   * @param slimBody сокращённое тело события (может быть {@code null})
+   */
+  public void fanOut(
+      Collection<String> destinationServices,
+      Boolean sendToOtherBus,
+      Event event,
+      @Nullable Object slimBody) {
+    Map<EventPayloadProfile, Event> events = new EnumMap<>(EventPayloadProfile.class);
+    for (String destination : destinationServices) {
+      EventPayloadProfile profile =
+          slimBody != null ? payloadProperties.profileOf(destination) : EventPayloadProfile.FULL;
+      Event payload =
+          events.computeIfAbsent(
+              profile,
+              p ->
+                  Event.builder()
+                      .senderService(applicationName)
+                      .eventDate(event.getEventDate())
+                      .eventType(event.getEventType())
+                      .params(event.getParams())
+                      .body(
+                          EventPayload.of(
+                              objectMapper,
+                              p == EventPayloadProfile.SLIM ? slimBody : event.getBody()))
+                      .build());
+      send(destination, sendToOtherBus, payload);
+    }
+  }
+
   /**
    * Отправка события изменения сущности.
    *
@@ -1,8 +1,8 @@
 package ru.aritmos.events.services;
 
-import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.ExecuteOn;
 import lombok.extern.slf4j.Slf4j;
+import ru.aritmos.config.VisitManagerExecutors;
 import ru.aritmos.events.model.Event;
 
 /** Асинхронная задача отправки события в шину. */
@@ -38,7 +38,7 @@ public class EventTask implements Runnable {
 
   /** Запускает отправку события в отдельном потоке. Логирует результат отправки. */
   @Override
-  @ExecuteOn(value = TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.OUTBOUND_IO)
   public void run() {
     eventService.send(destinationService, sendToOtherBus, event);
     log.info("Delayed event {} sent to {}", event, destinationService);
@@ -1,22 +1,50 @@
 package ru.aritmos.events.services;
 
-import io.micronaut.configuration.kafka.annotation.KafkaKey;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micronaut.configuration.kafka.annotation.OffsetReset;
 import io.micronaut.configuration.kafka.annotation.Topic;
-import io.micronaut.scheduling.TaskExecutors;
-import io.micronaut.scheduling.annotation.ExecuteOn;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.json.tree.JsonNode;
 import io.micronaut.serde.ObjectMapper;
 import jakarta.inject.Inject;
+import jakarta.inject.Named;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import ru.aritmos.config.VisitManagerExecutors;
 import ru.aritmos.events.model.Event;
 import ru.aritmos.events.model.EventHandler;
 import ru.aritmos.exceptions.SystemException;
 
-/** Подписчик Kafka для обработки событий шины данных. */
+/**
+ * Подписчик Kafka для обработки событий шины данных.
+ *
+ * <p>Сообщения читаются пачками. Тип события определяется потоковым чтением JSON до поля {@code
+ * eventType}, поэтому события без зарегистрированного обработчика пропускаются без полной
+ * десериализации. Сообщения пачки группируются по ключу (идентификатору отделения) и
+ * обрабатываются параллельно в пуле {@link VisitManagerExecutors#KAFKA_CONSUMER}; сообщения с
+ * одним ключом обрабатываются последовательно в порядке чтения.
+ *
+ * <p>Метрики: {@code kafka.event.lag} - задержка между записью сообщения в Kafka и началом его
+ * обработки, {@code kafka.event.handler} - время работы обработчика (теги {@code eventType} и
+ * {@code handler}), {@code kafka.event.skipped} - количество событий без обработчика.
+ */
 @Slf4j
-@io.micronaut.configuration.kafka.annotation.KafkaListener(offsetReset = OffsetReset.LATEST)
+@io.micronaut.configuration.kafka.annotation.KafkaListener(
+    offsetReset = OffsetReset.LATEST,
+    batch = true)
 public class KafkaListener {
   /** Обработчики общих событий (topic `events`). */
   private static final HashMap<String, EventHandler> allHandlers = new HashMap<>();
@@ -24,9 +52,21 @@ public class KafkaListener {
   /** Обработчики событий для сервиса (topic `event_${micronaut.application.name}`). */
   private static final HashMap<String, EventHandler> serviceHandlers = new HashMap<>();
 
+  /** Потоковый разборщик JSON для определения типа события. */
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
   /** Сериализатор/десериализатор JSON. */
   @Inject ObjectMapper objectMapper;
 
+  /** Пул обработки сообщений (при отсутствии пачка обрабатывается в потоке подписчика). */
+  @Inject
+  @Nullable
+  @Named(VisitManagerExecutors.KAFKA_CONSUMER)
+  ExecutorService executorService;
+
+  /** Реестр метрик (может отсутствовать). */
+  @Inject @Nullable MeterRegistry meterRegistry;
+
   /**
    * Регистрация обработчика для общих событий (topic `events`).
    *
@@ -48,43 +88,171 @@ public class KafkaListener {
   }
 
   /**
-   * Получает сообщения от шины данных, адресованные данной службе.
+   * Получает пачку сообщений от шины данных, адресованных данной службе.
    *
-   * @param key ключ сообщения Kafka
-   * @param event тело события класса {@link Event}
-   * @throws IOException ошибка десериализации события
-   * @throws SystemException системная ошибка обработчика
-   * @throws IllegalAccessException ошибка доступа при рефлексии в обработчике
+   * @param records сообщения Kafka
    */
   @Topic("event_${micronaut.application.name}")
-  @ExecuteOn(TaskExecutors.IO)
-  public void receive(@KafkaKey String key, String event)
-      throws IOException, SystemException, IllegalAccessException {
+  public void receiveBatch(List<ConsumerRecord<String, String>> records) {
+    dispatch(records, serviceHandlers);
+  }
+
+  /**
+   * Получает пачку сообщений от шины данных, адресованных всем службам.
+   *
+   * @param records сообщения Kafka
+   */
+  @Topic("events")
+  public void receiveAllBatch(List<ConsumerRecord<String, String>> records) {
+    dispatch(records, allHandlers);
+  }
+
+  /**
+   * Обработка пачки сообщений: группы сообщений с разными ключами - параллельно, сообщения одного
+   * ключа - последовательно.
+   *
+   * @param records сообщения Kafka
+   * @param handlers обработчики по типам событий
+   */
+  private void dispatch(
+      List<ConsumerRecord<String, String>> records, Map<String, EventHandler> handlers) {
+    Map<String, List<ConsumerRecord<String, String>>> byKey = new LinkedHashMap<>();
+    for (ConsumerRecord<String, String> record : records) {
+      String key = record.key() != null ? record.key() : "";
+      byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(record);
+    }
+    if (executorService == null || byKey.size() < 2) {
+      byKey.values().forEach(group -> process(group, handlers));
+      return;
+    }
+    CompletableFuture.allOf(
+            byKey.values().stream()
+                .map(
+                    group ->
+                        CompletableFuture.runAsync(() -> process(group, handlers), executorService))
+                .toArray(CompletableFuture[]::new))
+        .join();
+  }
 
-    log.debug("Receive key {} value {}", key, event);
-    Event event1 = objectMapper.readValue(event, Event.class);
-    if (serviceHandlers.containsKey(event1.getEventType())) {
-      serviceHandlers.get(event1.getEventType()).Handle(event1);
+  /**
+   * Последовательная обработка сообщений одного ключа.
+   *
+   * @param records сообщения Kafka
+   * @param handlers обработчики по типам событий
+   */
+  private void process(
+      List<ConsumerRecord<String, String>> records, Map<String, EventHandler> handlers) {
+    for (ConsumerRecord<String, String> record : records) {
+      if (meterRegistry != null && record.timestamp() > 0) {
+        long lag = Math.max(0, System.currentTimeMillis() - record.timestamp());
+        meterRegistry
+            .timer("kafka.event.lag", "topic", record.topic())
+            .record(Duration.ofMillis(lag));
+      }
+      try {
+        log.debug("Receive key {} value {}", record.key(), record.value());
+        handle(record.value(), handlers);
+      } catch (Exception e) {
+        log.error(
+            "Kafka message {}:{} with key {} is not handled",
+            record.topic(),
+            record.offset(),
+            record.key(),
+            e);
+      }
     }
   }
 
   /**
-   * Получает сообщения от шины данных, адресованные для всех служб.
+   * Обработка события: определение типа, десериализация и вызов обработчика.
    *
-   * @param key ключ сообщения Kafka
-   * @param event тело события класса {@link Event}
+   * @param json тело сообщения
+   * @param handlers обработчики по типам событий
    * @throws IOException ошибка десериализации события
    * @throws SystemException системная ошибка обработчика
    * @throws IllegalAccessException ошибка доступа при рефлексии в обработчике
    */
-  @Topic("events")
-  @ExecuteOn(TaskExecutors.IO)
-  public void receiveAll(@KafkaKey String key, String event)
+  private void handle(String json, Map<String, EventHandler> handlers)
       throws IOException, SystemException, IllegalAccessException {
-    log.debug("Receive broadcast message key {} value {}", key, event);
-    Event event1 = objectMapper.readValue(event, Event.class);
-    if (allHandlers.containsKey(event1.getEventType())) {
-      allHandlers.get(event1.getEventType()).Handle(event1);
+    String eventType = peekEventType(json);
+    EventHandler handler = eventType != null ? handlers.get(eventType) : null;
+    if (handler == null) {
+      if (meterRegistry != null) {
+        meterRegistry.counter("kafka.event.skipped").increment();
+      }
+      return;
+    }
+    Event event = readEvent(json, handler.bodyType());
+    long started = System.nanoTime();
+    try {
+      handler.Handle(event);
+    } finally {
+      if (meterRegistry != null) {
+        meterRegistry
+            .timer(
+                "kafka.event.handler",
+                "eventType",
+                eventType,
+                "handler",
+                handler.getClass().getSimpleName())
+            .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+
+  /**
+   * Десериализация события с телом объявленного обработчиком типа.
+   *
+   * <p>JSON разбирается в дерево один раз; тело события связывается с типом обработчика напрямую из
+   * узла дерева, остальные поля - с {@link Event}.
+   *
+   * @param json тело сообщения
+   * @param bodyType тип тела события, ожидаемый обработчиком (может быть {@code null})
+   * @return событие
+   * @throws IOException ошибка десериализации события
+   */
+  private Event readEvent(String json, @Nullable Class<?> bodyType) throws IOException {
+    JsonNode tree = objectMapper.readValue(json, JsonNode.class);
+    JsonNode body = tree.isObject() ? tree.get("body") : null;
+    if (bodyType == null || body == null || body.isNull()) {
+      return objectMapper.readValueFromTree(tree, Event.class);
+    }
+    Map<String, JsonNode> fields = new LinkedHashMap<>();
+    for (Map.Entry<String, JsonNode> field : tree.entries()) {
+      if (!"body".equals(field.getKey())) {
+        fields.put(field.getKey(), field.getValue());
+      }
+    }
+    Event event = objectMapper.readValueFromTree(JsonNode.createObjectNode(fields), Event.class);
+    event.setBody(objectMapper.readValueFromTree(body, bodyType));
+    return event;
+  }
+
+  /**
+   * Определение типа события без полной десериализации: читается только верхний уровень JSON до
+   * поля {@code eventType}, вложенные объекты пропускаются.
+   *
+   * @param json тело сообщения
+   * @return тип события либо {@code null}, если поле отсутствует
+   * @throws IOException ошибка разбора JSON
+   */
+  static String peekEventType(String json) throws IOException {
+    if (json == null) {
+      return null;
+    }
+    try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if ("eventType".equals(name)) {
+          return value == JsonToken.VALUE_STRING ? parser.getText() : null;
+        }
+        parser.skipChildren();
+      }
     }
+    return null;
   }
 }
@@ -1,9 +1,9 @@
 package ru.aritmos.events.services;
 
-import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.ExecuteOn;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import ru.aritmos.config.VisitManagerExecutors;
 import ru.aritmos.events.model.Event;
 
 /** Асинхронная задача отправки события нескольким адресатам. */
@@ -42,7 +42,7 @@ public class MultiserviceEventTask implements Runnable {
 
   /** Выполняет рассылку события нескольким адресатам в отдельном потоке. */
   @Override
-  @ExecuteOn(value = TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.OUTBOUND_IO)
   public void run() {
     eventService.send(destinationServices, sendToOtherBus, event);
     log.info("Delayed event {} sent to {}", event, destinationServices);
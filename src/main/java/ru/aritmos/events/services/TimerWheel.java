@@ -0,0 +1,268 @@
+package ru.aritmos.events.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Иерархическое колесо таймеров.
+ *
+ * <p>Время делится на такты длительностью {@code tick}. Колесо состоит из {@link #LEVELS} уровней
+ * по {@code wheelSize} ячеек: ячейка нулевого уровня охватывает один такт, ячейка уровня {@code l}
+ * - {@code wheelSize^l} тактов. Таймер помещается в ячейку самого нижнего уровня, диапазон которого
+ * покрывает оставшееся до срабатывания время, и при повороте старшего уровня переносится на
+ * младшие. Добавление и отмена таймера выполняются за O(1), продвижение на такт - за O(1) плюс
+ * количество сработавших и перенесённых таймеров.
+ *
+ * <p>Ячейка - двусвязный список, поэтому каждый ожидающий таймер занимает один небольшой объект
+ * {@link Timeout}.
+ *
+ * @param <T> тип данных таймера
+ */
+public final class TimerWheel<T> {
+
+  /** Количество уровней колеса. */
+  static final int LEVELS = 4;
+
+  /** Длительность такта в миллисекундах. */
+  private final long tickMillis;
+
+  /** Количество бит номера ячейки уровня. */
+  private final int bits;
+
+  /** Маска номера ячейки уровня. */
+  private final long mask;
+
+  /** Ячейки уровней. */
+  private final Bucket<T>[][] levels;
+
+  /** Последний обработанный такт. */
+  private long currentTick;
+
+  /** Количество ожидающих таймеров. */
+  private int size;
+
+  /**
+   * Создание колеса.
+   *
+   * @param tick длительность такта
+   * @param wheelSize количество ячеек уровня (округляется вверх до степени двойки)
+   * @param nowMillis текущий момент в миллисекундах
+   */
+  @SuppressWarnings("unchecked")
+  public TimerWheel(Duration tick, int wheelSize, long nowMillis) {
+    this.tickMillis = Math.max(1L, tick.toMillis());
+    this.bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(2, wheelSize) - 1));
+    this.mask = (1L << bits) - 1;
+    this.levels = new Bucket[LEVELS][1 << bits];
+    for (Bucket<T>[] level : levels) {
+      for (int slot = 0; slot < level.length; slot++) {
+        level[slot] = new Bucket<>();
+      }
+    }
+    this.currentTick = nowMillis / tickMillis;
+  }
+
+  /**
+   * Добавление таймера.
+   *
+   * @param payload данные таймера
+   * @param dueAtMillis момент срабатывания в миллисекундах; прошедший момент срабатывает на
+   *     следующем такте
+   * @return таймер (для отмены)
+   */
+  public synchronized Timeout<T> schedule(T payload, long dueAtMillis) {
+    Timeout<T> timeout = new Timeout<>(payload, dueAtMillis, ticks(dueAtMillis));
+    place(timeout);
+    size++;
+    return timeout;
+  }
+
+  /**
+   * Отмена таймера.
+   *
+   * @param timeout таймер
+   * @return {@code true}, если таймер ещё не сработал и отменён
+   */
+  public synchronized boolean cancel(Timeout<T> timeout) {
+    if (timeout == null || timeout.bucket == null) {
+      return false;
+    }
+    timeout.bucket.remove(timeout);
+    size--;
+    return true;
+  }
+
+  /**
+   * Продвижение колеса до текущего момента.
+   *
+   * @param nowMillis текущий момент в миллисекундах
+   * @return данные сработавших таймеров в порядке тактов срабатывания (в пределах такта - в
+   *     порядке добавления)
+   */
+  public synchronized List<T> advance(long nowMillis) {
+    List<T> expired = new ArrayList<>();
+    long target = nowMillis / tickMillis;
+    while (currentTick < target) {
+      currentTick++;
+      cascade(expired);
+      Bucket<T> bucket = levels[0][(int) (currentTick & mask)];
+      for (Timeout<T> timeout = bucket.poll(); timeout != null; timeout = bucket.poll()) {
+        expired.add(timeout.payload);
+        size--;
+      }
+    }
+    return expired;
+  }
+
+  /**
+   * Количество ожидающих таймеров.
+   *
+   * @return количество таймеров
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Данные всех ожидающих таймеров.
+   *
+   * @return данные таймеров
+   */
+  public synchronized List<T> pending() {
+    List<T> result = new ArrayList<>(size);
+    for (Bucket<T>[] level : levels) {
+      for (Bucket<T> bucket : level) {
+        for (Timeout<T> timeout = bucket.head; timeout != null; timeout = timeout.next) {
+          result.add(timeout.payload);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Перенос таймеров старших уровней, ячейки которых начинаются с текущего такта.
+   *
+   * @param expired сработавшие таймеры
+   */
+  private void cascade(List<T> expired) {
+    for (int level = 1; level < LEVELS; level++) {
+      if ((currentTick & ((1L << (bits * level)) - 1)) != 0) {
+        return;
+      }
+      Bucket<T> bucket = levels[level][(int) ((currentTick >>> (bits * level)) & mask)];
+      // Ячейка освобождается целиком: таймер за пределами старшего уровня возвращается в неё же
+      for (Timeout<T> timeout : bucket.drain()) {
+        if (timeout.tick <= currentTick) {
+          expired.add(timeout.payload);
+          size--;
+        } else {
+          place(timeout);
+        }
+      }
+    }
+  }
+
+  private void place(Timeout<T> timeout) {
+    long tick = Math.max(timeout.tick, currentTick + 1);
+    long delta = tick - currentTick;
+    int level = 0;
+    while (level < LEVELS - 1 && (delta >>> (bits * (level + 1))) != 0) {
+      level++;
+    }
+    levels[level][(int) ((tick >>> (bits * level)) & mask)].add(timeout);
+  }
+
+  private long ticks(long millis) {
+    return Math.floorDiv(millis + tickMillis - 1, tickMillis);
+  }
+
+  /**
+   * Таймер колеса.
+   *
+   * @param <T> тип данных таймера
+   */
+  public static final class Timeout<T> {
+    private final T payload;
+    private final long dueAtMillis;
+    private final long tick;
+    private Bucket<T> bucket;
+    private Timeout<T> previous;
+    private Timeout<T> next;
+
+    private Timeout(T payload, long dueAtMillis, long tick) {
+      this.payload = payload;
+      this.dueAtMillis = dueAtMillis;
+      this.tick = tick;
+    }
+
+    /**
+     * Данные таймера.
+     *
+     * @return данные
+     */
+    public T getPayload() {
+      return payload;
+    }
+
+    /**
+     * Момент срабатывания.
+     *
+     * @return момент срабатывания в миллисекундах
+     */
+    public long getDueAtMillis() {
+      return dueAtMillis;
+    }
+  }
+
+  /** Ячейка колеса: двусвязный список таймеров в порядке добавления. */
+  private static final class Bucket<T> {
+    private Timeout<T> head;
+    private Timeout<T> tail;
+
+    private void add(Timeout<T> timeout) {
+      timeout.bucket = this;
+      timeout.next = null;
+      timeout.previous = tail;
+      if (tail != null) {
+        tail.next = timeout;
+      } else {
+        head = timeout;
+      }
+      tail = timeout;
+    }
+
+    private void remove(Timeout<T> timeout) {
+      if (timeout.previous != null) {
+        timeout.previous.next = timeout.next;
+      } else {
+        head = timeout.next;
+      }
+      if (timeout.next != null) {
+        timeout.next.previous = timeout.previous;
+      } else {
+        tail = timeout.previous;
+      }
+      timeout.bucket = null;
+      timeout.previous = null;
+      timeout.next = null;
+    }
+
+    private Timeout<T> poll() {
+      Timeout<T> timeout = head;
+      if (timeout != null) {
+        remove(timeout);
+      }
+      return timeout;
+    }
+
+    private List<Timeout<T>> drain() {
+      List<Timeout<T>> result = new ArrayList<>();
+      for (Timeout<T> timeout = poll(); timeout != null; timeout = poll()) {
+        result.add(timeout);
+      }
+      return result;
+    }
+  }
+}
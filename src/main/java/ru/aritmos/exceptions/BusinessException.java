@@ -5,11 +5,14 @@ import io.micronaut.http.exceptions.HttpStatusException;
 import io.micronaut.serde.annotation.Serdeable;
 import java.io.IOException;
 import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import ru.aritmos.events.model.Event;
+import ru.aritmos.events.services.BusinessErrorAggregator;
 import ru.aritmos.events.services.EventService;
 
 /** Исключение уровня бизнес‑логики с публикацией события об ошибке. */
@@ -180,7 +183,9 @@ public class BusinessException extends RuntimeException {
           false,
           Event.builder()
               .eventDate(ZonedDateTime.now())
-              .eventType("BUSINESS_ERROR")
+              .eventType(BusinessErrorAggregator.EVENT_TYPE)
+              .params(
+                  new HashMap<>(Map.of(BusinessErrorAggregator.KEY_PARAM, effectiveEventMessage)))
               .body(businessError)
               .build());
     }
@@ -2,22 +2,55 @@ package ru.aritmos.exceptions;
 
 import io.micronaut.core.annotation.Nullable;
 import jakarta.inject.Singleton;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Сервис локализации сообщений {@link BusinessException} на основе настроек. */
+/**
+ * Сервис локализации сообщений {@link BusinessException} на основе настроек.
+ *
+ * <p>Словари каналов компилируются при создании сервиса (см. {@link
+ * BusinessExceptionMessageCatalog}); последние результаты локализации строковых сообщений
+ * хранятся в небольшом LRU-кеше, поэтому повторяющиеся ошибки локализуются без повторного
+ * разбора.
+ */
 @Singleton
 public class BusinessExceptionLocalization {
 
   private static final Logger LOG = LoggerFactory.getLogger(BusinessExceptionLocalization.class);
 
+  /** Количество кешируемых результатов локализации. */
+  private static final int RENDERED_CACHE_SIZE = 256;
+
   private final BusinessExceptionLocalizationProperties properties;
+  private final BusinessExceptionMessageCatalog httpCatalog;
+  private final BusinessExceptionMessageCatalog logCatalog;
+  private final BusinessExceptionMessageCatalog eventCatalog;
+  private final boolean fallbackToLogChannel;
+
+  /** Последние результаты локализации строковых сообщений. */
+  private final Map<RenderedKey, LocalizedMessages> rendered =
+      Collections.synchronizedMap(
+          new LinkedHashMap<>(RENDERED_CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RenderedKey, LocalizedMessages> eldest) {
+              return size() > RENDERED_CACHE_SIZE;
+            }
+          });
+
+  /** Ключ кеша результатов локализации. */
+  private record RenderedKey(
+      Object responseBody, String clientMessage, String logMessage, String eventMessage) {}
 
   public BusinessExceptionLocalization(BusinessExceptionLocalizationProperties properties) {
     this.properties = Objects.requireNonNull(properties, "Настройки локализации не заданы");
+    this.httpCatalog = BusinessExceptionMessageCatalog.compile(properties.getHttp());
+    this.logCatalog = BusinessExceptionMessageCatalog.compile(properties.getLog());
+    this.eventCatalog = BusinessExceptionMessageCatalog.compile(properties.getEvent());
+    this.fallbackToLogChannel = shouldFallbackToLogChannel();
   }
 
   /** Создать локализацию с настройками по умолчанию. */
@@ -49,7 +82,23 @@ public class BusinessExceptionLocalization {
       @Nullable String logMessage,
       @Nullable String eventMessage) {
 
-    boolean fallbackToLogChannel = shouldFallbackToLogChannel();
+    if (responseBody != null && !(responseBody instanceof String)) {
+      return render(responseBody, clientMessage, logMessage, eventMessage);
+    }
+    RenderedKey key = new RenderedKey(responseBody, clientMessage, logMessage, eventMessage);
+    LocalizedMessages messages = rendered.get(key);
+    if (messages == null) {
+      messages = render(responseBody, clientMessage, logMessage, eventMessage);
+      rendered.put(key, messages);
+    }
+    return messages;
+  }
+
+  private LocalizedMessages render(
+      @Nullable Object responseBody,
+      @Nullable String clientMessage,
+      @Nullable String logMessage,
+      @Nullable String eventMessage) {
     String localizedClient = localizeHttp(clientMessage);
     localizedClient =
         fallbackToLogChannel
@@ -112,12 +161,11 @@ public class BusinessExceptionLocalization {
   }
 
   private String localizeHttp(@Nullable String message) {
-    return properties.getHttp().resolve(message);
+    return httpCatalog.resolve(message);
   }
 
   private String localizeLog(@Nullable String message) {
-    BusinessExceptionLocalizationProperties.ChannelLocalization channel = properties.getLog();
-    String localized = channel.resolve(message);
+    String localized = logCatalog.resolve(message);
     if (localized == null && message != null) {
       LOG.warn("Не удалось локализовать сообщение лога '{}', используется исходный текст", message);
     }
@@ -125,8 +173,7 @@ public class BusinessExceptionLocalization {
   }
 
   private String localizeEvent(@Nullable String message) {
-    BusinessExceptionLocalizationProperties.ChannelLocalization channel = properties.getEvent();
-    String localized = channel.resolve(message);
+    String localized = eventCatalog.resolve(message);
     if (localized == null && message != null) {
       LOG.warn(
           "Не удалось локализовать сообщение события '{}', используется исходный текст", message);
@@ -9,12 +9,14 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.Objects;
 import java.util.ResourceBundle;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -425,6 +427,40 @@ public class BusinessExceptionLocalizationProperties {
       return fallback;
     }
 
+    /**
+     * Ключи сообщений, для которых задан перевод на язык канала или язык по умолчанию.
+     *
+     * @return ключи из настроек и ресурсных словарей
+     */
+    Set<String> messageKeys() {
+      Set<String> keys = new LinkedHashSet<>(messages.keySet());
+      ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+      for (String languageCode : new String[] {language, defaultLanguage}) {
+        Locale locale = toLocale(languageCode);
+        if (locale == null) {
+          continue;
+        }
+        for (String baseName : resources) {
+          if (baseName == null || baseName.isBlank()) {
+            continue;
+          }
+          try {
+            keys.addAll(
+                ResourceBundle.getBundle(
+                        baseName,
+                        locale,
+                        classLoader,
+                        ResourceBundle.Control.getNoFallbackControl(
+                            ResourceBundle.Control.FORMAT_PROPERTIES))
+                    .keySet());
+          } catch (MissingResourceException ignored) {
+            // ресурс не найден — пробуем следующий
+          }
+        }
+      }
+      return keys;
+    }
+
     private String resolveFromResources(String messageKey, String languageCode) {
       if (resources.isEmpty()) {
         return null;
@@ -0,0 +1,63 @@
+package ru.aritmos.exceptions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Скомпилированный словарь сообщений канала локализации.
+ *
+ * <p>При создании все известные ключи канала (из настроек и ресурсных словарей) один раз
+ * разрешаются по правилам {@link
+ * BusinessExceptionLocalizationProperties.ChannelLocalization#resolve} в интернированные переводы,
+ * поэтому перевод сообщения сводится к поиску в хеш-таблице без обращения к {@link
+ * java.util.ResourceBundle}. Сообщения без перевода возвращаются без изменений.
+ */
+final class BusinessExceptionMessageCatalog {
+
+  /** Переводы сообщений (ключ -> перевод). */
+  private final Map<String, String> translations;
+
+  private BusinessExceptionMessageCatalog(Map<String, String> translations) {
+    this.translations = translations;
+  }
+
+  /**
+   * Компиляция словаря канала.
+   *
+   * @param channel настройки канала
+   * @return словарь канала
+   */
+  static BusinessExceptionMessageCatalog compile(
+      BusinessExceptionLocalizationProperties.ChannelLocalization channel) {
+    Map<String, String> translations = new HashMap<>();
+    for (String key : channel.messageKeys()) {
+      String translation = channel.resolve(key);
+      if (translation != null && !translation.equals(key)) {
+        translations.put(key.intern(), translation.intern());
+      }
+    }
+    return new BusinessExceptionMessageCatalog(translations);
+  }
+
+  /**
+   * Перевод сообщения.
+   *
+   * @param message ключ или текст сообщения
+   * @return перевод либо исходное сообщение, если перевода нет
+   */
+  String resolve(String message) {
+    if (message == null) {
+      return null;
+    }
+    return translations.getOrDefault(message, message);
+  }
+
+  /**
+   * Количество переводов словаря.
+   *
+   * @return количество переводов
+   */
+  int size() {
+    return translations.size();
+  }
+}
@@ -4,7 +4,6 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micronaut.context.annotation.Context;
 import io.micronaut.context.annotation.Requires;
-import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.ExecuteOn;
 import jakarta.annotation.PostConstruct;
 import jakarta.inject.Inject;
@@ -15,6 +14,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
+import ru.aritmos.config.VisitManagerExecutors;
 import ru.aritmos.events.model.Event;
 import ru.aritmos.events.model.EventHandler;
 import ru.aritmos.events.services.EventService;
@@ -22,6 +22,7 @@ import ru.aritmos.events.services.KafkaListener;
 import ru.aritmos.model.Branch;
 import ru.aritmos.model.ServicePoint;
 import ru.aritmos.model.keycloak.UserSession;
+import ru.aritmos.service.BranchJournal;
 import ru.aritmos.service.BranchService;
 import ru.aritmos.service.Configuration;
 import ru.aritmos.service.VisitService;
@@ -31,6 +32,9 @@ import ru.aritmos.service.VisitService;
 @Requires(notEnv = "test")
 @Context
 public class EventHandlerContext {
+  /** Преобразователь тел событий, не приведённых подписчиком Kafka к ожидаемому типу. */
+  private static final ObjectMapper BODY_MAPPER = new ObjectMapper();
+
   /** Сервис конфигурации отделений. */
   @Inject Configuration configuration;
 
@@ -43,7 +47,13 @@ public class EventHandlerContext {
   /** Сервис управления отделениями. */
   @Inject BranchService branchService;
 
-  /** Регистрация обработчиков событий и публикация начальной конфигурации. */
+  /** Локальный журнал состояния отделений. */
+  @Inject BranchJournal branchJournal = new BranchJournal();
+
+  /**
+   * Регистрация обработчиков событий, публикация начальной конфигурации и восстановление состояния
+   * отделений из локального журнала.
+   */
   @Singleton
   @PostConstruct
   void AddHandlers() {
@@ -67,13 +77,42 @@ public class EventHandlerContext {
         "PROCESSING_USER_LOGOUT_NOT_FORCE", notForceUserLogoutHandler);
 
     configuration.createBranchConfiguration(configuration.createDemoBranch());
+    branchJournal.restore(branchService);
+  }
+
+  /**
+   * Получение сессии пользователя из тела события.
+   *
+   * <p>Подписчик Kafka приводит тело к {@link UserSession} (см. {@link EventHandler#bodyType()});
+   * тело другого типа преобразуется общим преобразователем без промежуточной строки JSON.
+   *
+   * @param event событие
+   * @return сессия пользователя
+   */
+  static UserSession userSessionOf(Event event) {
+    Object body = event.getBody();
+    return body instanceof UserSession userSession
+        ? userSession
+        : BODY_MAPPER.convertValue(body, UserSession.class);
+  }
+
+  /**
+   * Сброс кэша Keycloak для пользователя, завершившего сессию.
+   *
+   * @param visitService сервис визитов
+   * @param userSession сессия пользователя
+   */
+  static void invalidateUserCache(VisitService visitService, UserSession userSession) {
+    if (visitService.keyCloackClient != null) {
+      visitService.keyCloackClient.invalidateUser(userSession.getLogin(), userSession.getSid());
+    }
   }
 
   /** Обработчик бизнес-ошибок. */
   static class BusinesErrorHandler implements EventHandler {
 
     @Override
-    @ExecuteOn(TaskExecutors.IO)
+    @ExecuteOn(VisitManagerExecutors.KAFKA_CONSUMER)
     public void Handle(Event event) {
       log.info("Event {} of Business error handled!", event);
     }
@@ -83,7 +122,7 @@ public class EventHandlerContext {
   static class SystemErrorHandler implements EventHandler {
 
     @Override
-    @ExecuteOn(TaskExecutors.IO)
+    @ExecuteOn(VisitManagerExecutors.KAFKA_CONSUMER)
     public void Handle(Event event) {
       log.info("Event {} of System error handled!", event);
     }
@@ -93,7 +132,7 @@ public class EventHandlerContext {
   static class EntityChangedHandler implements EventHandler {
 
     @Override
-    @ExecuteOn(TaskExecutors.IO)
+    @ExecuteOn(VisitManagerExecutors.KAFKA_CONSUMER)
     public void Handle(Event event) {
       log.info("Event {} of  entity changed!", event);
     }
@@ -118,6 +157,16 @@ public class EventHandlerContext {
       this.eventService = eventService;
     }
 
+    /**
+     * Тело события - сессия пользователя.
+     *
+     * @return {@link UserSession}
+     */
+    @Override
+    public Class<?> bodyType() {
+      return UserSession.class;
+    }
+
     /**
      * Обработка события о мягком завершении сессии пользователя.
      *
@@ -125,56 +174,43 @@ public class EventHandlerContext {
      * @throws JsonProcessingException ошибка сериализации/десериализации
      */
     @Override
-    @ExecuteOn(TaskExecutors.IO)
+    @ExecuteOn(VisitManagerExecutors.KAFKA_CONSUMER)
     public void Handle(Event event) throws JsonProcessingException {
-      ObjectMapper objectMapper = new ObjectMapper();
-      String eventBody = objectMapper.writeValueAsString(event.getBody());
-      UserSession userSession = objectMapper.readValue(eventBody, UserSession.class);
+      UserSession userSession = userSessionOf(event);
       log.info("Not Force user logged out: {}", userSession);
-      visitService
-          .getBranchService()
-          .getDetailedBranches()
-          .values()
-          .forEach(
-              f -> {
-                Optional<ServicePoint> servicePoint =
-                    f.getServicePoints().values().stream()
-                        .filter(
-                            f2 ->
-                                f2.getUser() != null
-                                    && f2.getUser().getName().equals(userSession.getLogin()))
-                        .findFirst();
-                if (servicePoint.isPresent()) {
-                  if (servicePoint.get().getVisit() != null) {
-
-                    eventService.send(
-                        "frontend",
-                        false,
-                        Event.builder()
-                            .eventDate(ZonedDateTime.now())
-                            .eventType("PROCESSING_USER_LOGOUT_FORCE")
-                            .params(new HashMap<>())
-                            .body(userSession)
-                            .build());
-                    visitService.visitEnd(
-                        servicePoint.get().getBranchId(),
-                        servicePoint.get().getId(),
-                        true,
-                        "USER_SESSION_KILLED");
-                  }
-                  visitService
-                      .getBranchService()
-                      .closeServicePoint(
-                          servicePoint.get().getBranchId(),
-                          servicePoint.get().getId(),
-                          visitService,
-                          false,
-                          false,
-                          "",
-                          false,
-                          "");
-                }
-              });
+      invalidateUserCache(visitService, userSession);
+      Optional<ServicePoint> servicePoint =
+          visitService.getBranchService().findUserServicePoint(userSession.getLogin());
+      if (servicePoint.isPresent()) {
+        if (servicePoint.get().getVisit() != null) {
+
+          eventService.send(
+              "frontend",
+              false,
+              Event.builder()
+                  .eventDate(ZonedDateTime.now())
+                  .eventType("PROCESSING_USER_LOGOUT_FORCE")
+                  .params(new HashMap<>())
+                  .body(userSession)
+                  .build());
+          visitService.visitEnd(
+              servicePoint.get().getBranchId(),
+              servicePoint.get().getId(),
+              true,
+              "USER_SESSION_KILLED");
+        }
+        visitService
+            .getBranchService()
+            .closeServicePoint(
+                servicePoint.get().getBranchId(),
+                servicePoint.get().getId(),
+                visitService,
+                false,
+                false,
+                "",
+                false,
+                "");
+      }
     }
   }
 
@@ -197,6 +233,16 @@ public class EventHandlerContext {
       this.eventService = eventService;
     }
 
+    /**
+     * Тело события - сессия пользователя.
+     *
+     * @return {@link UserSession}
+     */
+    @Override
+    public Class<?> bodyType() {
+      return UserSession.class;
+    }
+
     /**
      * Обработка события о принудительном завершении сессии пользователя.
      *
@@ -204,40 +250,28 @@ public class EventHandlerContext {
      * @throws JsonProcessingException ошибка сериализации/десериализации
      */
     @Override
-    @ExecuteOn(TaskExecutors.IO)
+    @ExecuteOn(VisitManagerExecutors.KAFKA_CONSUMER)
     public void Handle(Event event) throws JsonProcessingException {
       if (!event.getSenderService().equals("visitmanager")) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        String eventBody = objectMapper.writeValueAsString(event.getBody());
-        UserSession userSession = objectMapper.readValue(eventBody, UserSession.class);
+        UserSession userSession = userSessionOf(event);
         log.info("Force user logged out: {}", userSession);
+        invalidateUserCache(visitService, userSession);
         visitService
             .getBranchService()
-            .getDetailedBranches()
-            .values()
-            .forEach(
-                f -> {
-                  Optional<ServicePoint> servicePoint =
-                      f.getServicePoints().values().stream()
-                          .filter(
-                              f2 ->
-                                  f2.getUser() != null
-                                      && f2.getUser().getName().equals(userSession.getLogin()))
-                          .findFirst();
-                  servicePoint.ifPresent(
-                      point ->
-                          visitService
-                              .getBranchService()
-                              .closeServicePoint(
-                                  point.getBranchId(),
-                                  point.getId(),
-                                  visitService,
-                                  false,
-                                  false,
-                                  "",
-                                  true,
-                                  "USER_SESSION_KILLED"));
-                });
+            .findUserServicePoint(userSession.getLogin())
+            .ifPresent(
+                point ->
+                    visitService
+                        .getBranchService()
+                        .closeServicePoint(
+                            point.getBranchId(),
+                            point.getId(),
+                            visitService,
+                            false,
+                            false,
+                            "",
+                            true,
+                            "USER_SESSION_KILLED"));
       }
     }
   }
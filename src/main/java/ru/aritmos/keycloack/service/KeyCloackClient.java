@@ -2,15 +2,18 @@ package ru.aritmos.keycloack.service;
 
 import io.micronaut.context.annotation.Property;
 import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.annotation.*;
 import jakarta.inject.Inject;
+import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.keycloak.admin.client.Keycloak;
@@ -20,15 +23,27 @@ import org.keycloak.authorization.client.AuthzClient;
 import org.keycloak.authorization.client.Configuration;
 import org.keycloak.representations.idm.*;
 import org.keycloak.representations.idm.authorization.AuthorizationResponse;
+import ru.aritmos.config.VisitManagerExecutors;
 import ru.aritmos.events.model.Event;
 import ru.aritmos.events.services.EventService;
 import ru.aritmos.exceptions.BusinessException;
 import ru.aritmos.keycloack.model.Credentials;
+import ru.aritmos.metrics.Measured;
 import ru.aritmos.model.UserInfo;
 import ru.aritmos.model.UserSession;
 import ru.aritmos.model.UserToken;
 
-/** Клиент для взаимодействия с Keycloak: пользователи, группы, сессии. */
+/**
+ * Клиент для взаимодействия с Keycloak: пользователи, группы, сессии.
+ *
+ * <p>Результаты поиска пользователей, проверки типа модуля, отделения пользователей и регионов, а
+ * также соответствие сессий пользователям кэшируются в {@link KeycloakLookupCache}; данные
+ * пользователя сбрасываются при его выходе.
+ *
+ * <p>Вызовы выполняются в потоке вызывающего. Выход сотрудника при закрытии точки обслуживания,
+ * результат которого не нужен вызывающему, выполняется в пуле {@link
+ * VisitManagerExecutors#OUTBOUND_IO} ({@link #userLogoutAsync}).
+ */
 @Slf4j
 @Singleton
 @Requires(notEnv = "local-no-docker")
@@ -37,6 +52,15 @@ public class KeyCloackClient {
   /** Сервис отправки событий. */
   @Inject EventService eventService;
 
+  /** Кэш результатов обращений к Keycloak. */
+  @Inject KeycloakLookupCache lookupCache = new KeycloakLookupCache();
+
+  /** Пул исходящих вызовов (при отсутствии вызовы выполняются в потоке вызывающего). */
+  @Inject
+  @Nullable
+  @Named(VisitManagerExecutors.OUTBOUND_IO)
+  ExecutorService outboundExecutor;
+
   /** Технический логин для доступа к Keycloak. */
   @Property(name = "micronaut.security.oauth2.clients.keycloak.techlogin")
   String techlogin;
@@ -98,28 +122,31 @@ public class KeyCloackClient {
   }
 
   /**
-   * Получить все отделения по имени региона.
+   * Получить все отделения по имени региона (идентификатор региона кэшируется).
    *
    * @param regionName имя региона
    * @param keycloak клиент Keycloak
    * @return список групп
    */
+  @Measured(value = "keycloak.call", operation = "getAllBranchesByRegionName")
   public List<GroupRepresentation> getAllBranchesByRegionName(
       String regionName, Keycloak keycloak) {
 
-    RealmResource resource = keycloak.realm(getRealm());
     String regionId =
-        resource.groups().groups(0, 1000000000).stream()
-            .filter(f -> f.getName().equals(regionName))
-            .findFirst()
-            .orElseThrow(
-                () ->
-                    new BusinessException(
-                        String.format("Region %s not found", regionName),
-                        String.format("Регион %s не найден", regionName),
-                        eventService,
-                        HttpStatus.NOT_FOUND))
-            .getId();
+        lookupCache.regionId(
+            regionName,
+            name ->
+                keycloak.realm(getRealm()).groups().groups(0, 1000000000).stream()
+                    .filter(f -> f.getName().equals(name))
+                    .findFirst()
+                    .orElseThrow(
+                        () ->
+                            new BusinessException(
+                                String.format("Region %s not found", name),
+                                String.format("Регион %s не найден", name),
+                                eventService,
+                                HttpStatus.NOT_FOUND))
+                    .getId());
     return getAllBranchesByRegionId(regionId, keycloak);
   }
 
@@ -130,6 +157,7 @@ public class KeyCloackClient {
    * @param prefix префикс отделения
    * @return путь группы
    */
+  @Measured(value = "keycloak.call", operation = "getBranchPathByBranchPrefix")
   public String getBranchPathByBranchPrefix(String regionName, String prefix) {
 
     String result =
@@ -148,12 +176,19 @@ public class KeyCloackClient {
   /**
    * Получить все отделения рекурсивно по идентификатору региона.
    *
+   * <p>Отделения кэшируются для каждого региона дерева групп, поэтому повторный обход выполняется
+   * только после истечения времени жизни записей.
+   *
    * @param regionId идентификатор региона
    * @param keycloak клиент Keycloak
-   * @return список групп
+   * @return неизменяемый список групп
    */
+  @Measured(value = "keycloak.call", operation = "getAllBranchesByRegionId")
   public List<GroupRepresentation> getAllBranchesByRegionId(String regionId, Keycloak keycloak) {
+    return lookupCache.regionBranches(regionId, id -> loadBranchesByRegionId(id, keycloak));
+  }
 
+  private List<GroupRepresentation> loadBranchesByRegionId(String regionId, Keycloak keycloak) {
     RealmResource resource = keycloak.realm(getRealm());
     List<GroupRepresentation> result = new ArrayList<>();
 
@@ -183,10 +218,14 @@ public class KeyCloackClient {
    * Получение всех отделений, к которым пользователь имеет доступ
    *
    * @param username имя пользователя
-   * @return список групп формате keycloak GroupRepresentation
+   * @return неизменяемый список групп формате keycloak GroupRepresentation
    */
+  @Measured(value = "keycloak.call", operation = "getAllBranchesOfUser")
   public List<GroupRepresentation> getAllBranchesOfUser(String username) {
+    return lookupCache.userBranches(username, this::loadBranchesOfUser);
+  }
 
+  private List<GroupRepresentation> loadBranchesOfUser(String username) {
     List<GroupRepresentation> result = new ArrayList<>();
     getUserInfo(username)
         .ifPresent(
@@ -205,32 +244,48 @@ public class KeyCloackClient {
   /**
    * Найти пользователя по идентификатору сессии.
    *
+   * <p>Сессии всех клиентов индексируются при первом промахе, поэтому следующие запросы по уже
+   * открытым сессиям обходятся без перебора клиентов.
+   *
    * @param sid идентификатор сессии
    * @return пользователь, если найден
    */
+  @Measured(value = "keycloak.call", operation = "getUserBySid")
   public Optional<UserRepresentation> getUserBySid(String sid) {
+    String userId = lookupCache.sessionUser(sid);
+    if (userId == null) {
+      userId = indexSessions(sid);
+    }
+    if (userId == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(
+        lookupCache.userById(
+            userId, id -> getKeycloak().realm(realm).users().get(id).toRepresentation()));
+  }
 
+  /**
+   * Индексация сессий всех клиентов.
+   *
+   * @param sid идентификатор искомой сессии
+   * @return идентификатор пользователя искомой сессии либо {@code null}
+   */
+  private String indexSessions(String sid) {
+    String userId = null;
     RealmResource realmResource = getKeycloak().realm(realm);
     for (ClientRepresentation f : realmResource.clients().findAll()) {
-
-      List<UserSessionRepresentation> t =
-          realmResource.clients().get(f.getId()).getUserSessions(0, 1000000000).stream().toList();
-
-      if (t.stream().filter(session -> session.getId().equals(sid)).count() > 0) {
-        UserRepresentation user =
-            realmResource
-                .users()
-                .get(
-                    t.stream()
-                        .filter(session -> session.getId().equals(sid))
-                        .toList()
-                        .get(0)
-                        .getUserId())
-                .toRepresentation();
-        return Optional.of(user);
+      for (UserSessionRepresentation session :
+          realmResource.clients().get(f.getId()).getUserSessions(0, 1000000000)) {
+        if (session.getId() == null || session.getUserId() == null) {
+          continue;
+        }
+        lookupCache.putSession(session.getId(), session.getUserId());
+        if (session.getId().equals(sid)) {
+          userId = session.getUserId();
+        }
       }
     }
-    return Optional.empty();
+    return userId;
   }
 
   /**
@@ -240,8 +295,14 @@ public class KeyCloackClient {
    * @param type тип модуля (например, admin)
    * @return признак принадлежности
    */
+  @Measured(value = "keycloak.call", operation = "isUserModuleTypeByUserName")
   public Boolean isUserModuleTypeByUserName(String userName, String type) {
+    return lookupCache.moduleType(
+        new KeycloakLookupCache.ModuleTypeKey(userName, type),
+        key -> loadUserModuleType(key.userName(), key.type()));
+  }
 
+  private Boolean loadUserModuleType(String userName, String type) {
     RealmResource realmResource = getKeycloak().realm(realm);
     for (UserRepresentation f : realmResource.users().searchByUsername(userName, true)) {
       if (realmResource.users().get(f.getId()).roles().getAll().getRealmMappings() != null) {
@@ -275,6 +336,7 @@ public class KeyCloackClient {
    * @param credentials логин и пароль пользователя
    * @return - данные авторизации (токен, токен обновления и т д)
    */
+  @Measured(value = "keycloak.call", operation = "Auth")
   public Optional<AuthorizationResponse> Auth(@Body Credentials credentials) {
 
     AuthzClient authzClient = getAuthzClient(secret, keycloakUrl, realm, clientId);
@@ -291,18 +353,22 @@ public class KeyCloackClient {
    * @param userName логин
    * @return пользователь, если найден
    */
+  @Measured(value = "keycloak.call", operation = "getUserInfo")
   public Optional<UserRepresentation> getUserInfo(String userName) {
+    return Optional.ofNullable(lookupCache.user(userName, this::loadUserInfo));
+  }
 
+  private UserRepresentation loadUserInfo(String userName) {
     List<UserRepresentation> userRepresentationList =
         getKeycloak().realm(realm).users().search(userName, true);
     if (!userRepresentationList.isEmpty()) {
 
       // keycloak.close();
-      return Optional.of(userRepresentationList.get(0));
+      return userRepresentationList.get(0);
     }
 
     // keycloak.close();
-    return Optional.empty();
+    return null;
   }
 
   /**
@@ -311,6 +377,7 @@ public class KeyCloackClient {
    * @param user пользователь Keycloak
    * @return сессия пользователя, если есть
    */
+  @Measured(value = "keycloak.call", operation = "getUserSessionByLogin")
   public Optional<UserSession> getUserSessionByLogin(UserRepresentation user) {
     RealmResource realmResource = getKeycloak().realm(realm);
     Optional<UserSessionRepresentation> userSessionRepresentation =
@@ -355,6 +422,7 @@ public class KeyCloackClient {
    * @param isForced принудительный выход
    * @param reason причина
    */
+  @Measured(value = "keycloak.call", operation = "userLogout")
   public void userLogout(@PathVariable String login, Boolean isForced, String reason) {
     AuthzClient authzClient = getAuthzClient(secret, keycloakUrl, realm, clientId);
 
@@ -392,6 +460,7 @@ public class KeyCloackClient {
                       .body(userSession)
                       .build());
               keycloak.realm(realm).users().get(f.getId()).logout();
+              lookupCache.invalidateUser(login, userSession.map(UserSession::getSid).orElse(null));
               log.info("{}", keycloak.serverInfo().getInfo());
             });
     /*if (keycloak.tokenManager() != null) {
@@ -400,6 +469,41 @@ public class KeyCloackClient {
     // keycloak.close();
   }
 
+  /**
+   * Выход сотрудника в пуле исходящих вызовов без ожидания результата.
+   *
+   * <p>Ошибки выхода записываются в журнал. При отсутствии пула выход выполняется в потоке
+   * вызывающего.
+   *
+   * @param login логин сотрудника
+   * @param isForced принудительный выход
+   * @param reason причина
+   */
+  public void userLogoutAsync(String login, Boolean isForced, String reason) {
+    if (outboundExecutor == null) {
+      userLogout(login, isForced, reason);
+      return;
+    }
+    outboundExecutor.execute(
+        () -> {
+          try {
+            userLogout(login, isForced, reason);
+          } catch (RuntimeException e) {
+            log.warn("User {} is not logged out from Keycloak", login, e);
+          }
+        });
+  }
+
+  /**
+   * Сброс кэшированных данных пользователя (при завершении его сессии).
+   *
+   * @param login логин пользователя
+   * @param sid идентификатор завершённой сессии (может отсутствовать)
+   */
+  public void invalidateUser(String login, String sid) {
+    lookupCache.invalidateUser(login, sid);
+  }
+
   /**
    * Получить/инициализировать клиент Keycloak.
    *
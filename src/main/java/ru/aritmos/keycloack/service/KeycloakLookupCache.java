@@ -0,0 +1,243 @@
+package ru.aritmos.keycloack.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micronaut.context.annotation.Value;
+import jakarta.inject.Singleton;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+
+/**
+ * Кэш результатов обращений к Keycloak: пользователи, признаки типа модуля, отделения
+ * пользователей и регионов, соответствие идентификатора сессии (sid) пользователю.
+ *
+ * <p>Записи живут не дольше {@code micronaut.application.keycloakCacheTtl} (значение {@code 0}
+ * отключает кэширование), количество записей каждого вида ограничено параметром {@code
+ * micronaut.application.keycloakCacheSize}. Данные пользователя сбрасываются при выходе
+ * пользователя ({@link #invalidateUser}).
+ *
+ * <p>Загрузка выполняется вне блокировок кэша: обращение к Keycloak не задерживает чтение других
+ * записей, а загрузка отделений региона может рекурсивно запрашивать вложенные регионы. Один и тот
+ * же ключ при одновременном промахе может быть загружен несколько раз.
+ */
+@Singleton
+public class KeycloakLookupCache {
+
+  /** Время жизни записей. */
+  @Value("${micronaut.application.keycloakCacheTtl:5m}")
+  Duration ttl = Duration.ofMinutes(5);
+
+  /** Максимальное количество записей каждого вида. */
+  @Value("${micronaut.application.keycloakCacheSize:10000}")
+  long maximumSize = 10000;
+
+  private volatile Caches caches;
+
+  /**
+   * Ключ признака принадлежности пользователя к типу модуля.
+   *
+   * @param userName логин пользователя
+   * @param type тип модуля
+   */
+  record ModuleTypeKey(String userName, String type) {}
+
+  /** Кэши записей разных видов. */
+  private static final class Caches {
+    /** Пользователи по логину. */
+    private final Cache<String, UserRepresentation> users;
+
+    /** Пользователи по идентификатору. */
+    private final Cache<String, UserRepresentation> usersById;
+
+    /** Признаки принадлежности пользователей к типу модуля. */
+    private final Cache<ModuleTypeKey, Boolean> moduleTypes;
+
+    /** Отделения, доступные пользователям. */
+    private final Cache<String, List<GroupRepresentation>> userBranches;
+
+    /** Отделения регионов (со всеми вложенными регионами) по идентификатору региона. */
+    private final Cache<String, List<GroupRepresentation>> regionBranches;
+
+    /** Идентификаторы регионов по имени. */
+    private final Cache<String, String> regionIds;
+
+    /** Идентификаторы пользователей по идентификатору сессии. */
+    private final Cache<String, String> sessionUsers;
+
+    private Caches(Duration ttl, long maximumSize) {
+      users = build(ttl, maximumSize);
+      usersById = build(ttl, maximumSize);
+      moduleTypes = build(ttl, maximumSize);
+      userBranches = build(ttl, maximumSize);
+      regionBranches = build(ttl, maximumSize);
+      regionIds = build(ttl, maximumSize);
+      sessionUsers = build(ttl, maximumSize);
+    }
+
+    private static <K, V> Cache<K, V> build(Duration ttl, long maximumSize) {
+      return Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maximumSize).build();
+    }
+  }
+
+  /**
+   * Пользователь по логину.
+   *
+   * @param userName логин пользователя
+   * @param loader загрузка пользователя из Keycloak (пустой результат не кэшируется)
+   * @return пользователь, если найден
+   */
+  UserRepresentation user(String userName, Function<String, UserRepresentation> loader) {
+    return get(caches().users, userName, loader);
+  }
+
+  /**
+   * Пользователь по идентификатору.
+   *
+   * @param userId идентификатор пользователя
+   * @param loader загрузка пользователя из Keycloak
+   * @return пользователь
+   */
+  UserRepresentation userById(String userId, Function<String, UserRepresentation> loader) {
+    return get(caches().usersById, userId, loader);
+  }
+
+  /**
+   * Признак принадлежности пользователя к типу модуля.
+   *
+   * @param key логин пользователя и тип модуля
+   * @param loader проверка по ролям Keycloak
+   * @return признак принадлежности
+   */
+  Boolean moduleType(ModuleTypeKey key, Function<ModuleTypeKey, Boolean> loader) {
+    return get(caches().moduleTypes, key, loader);
+  }
+
+  /**
+   * Отделения, доступные пользователю.
+   *
+   * @param userName логин пользователя
+   * @param loader загрузка отделений из Keycloak
+   * @return неизменяемый список отделений
+   */
+  List<GroupRepresentation> userBranches(
+      String userName, Function<String, List<GroupRepresentation>> loader) {
+    return get(caches().userBranches, userName, loader.andThen(List::copyOf));
+  }
+
+  /**
+   * Отделения региона со всеми вложенными регионами.
+   *
+   * @param regionId идентификатор региона
+   * @param loader обход групп региона в Keycloak
+   * @return неизменяемый список отделений
+   */
+  List<GroupRepresentation> regionBranches(
+      String regionId, Function<String, List<GroupRepresentation>> loader) {
+    return get(caches().regionBranches, regionId, loader.andThen(List::copyOf));
+  }
+
+  /**
+   * Идентификатор региона по имени.
+   *
+   * @param regionName имя региона
+   * @param loader поиск региона в Keycloak
+   * @return идентификатор региона
+   */
+  String regionId(String regionName, Function<String, String> loader) {
+    return get(caches().regionIds, regionName, loader);
+  }
+
+  /**
+   * Идентификатор пользователя сессии.
+   *
+   * @param sid идентификатор сессии
+   * @return идентификатор пользователя либо {@code null}, если сессия не проиндексирована
+   */
+  String sessionUser(String sid) {
+    return caches().sessionUsers.getIfPresent(sid);
+  }
+
+  /**
+   * Добавление сессии в индекс.
+   *
+   * @param sid идентификатор сессии
+   * @param userId идентификатор пользователя
+   */
+  void putSession(String sid, String userId) {
+    caches().sessionUsers.put(sid, userId);
+  }
+
+  /**
+   * Сброс данных пользователя: самого пользователя, его ролей, отделений и сессий.
+   *
+   * @param userName логин пользователя
+   * @param sid идентификатор завершённой сессии (может отсутствовать)
+   */
+  public void invalidateUser(String userName, String sid) {
+    Caches current = caches();
+    if (sid != null) {
+      current.sessionUsers.invalidate(sid);
+    }
+    if (userName == null) {
+      return;
+    }
+    Set<String> userIds = new HashSet<>();
+    UserRepresentation user = current.users.getIfPresent(userName);
+    if (user != null && user.getId() != null) {
+      userIds.add(user.getId());
+    }
+    current.usersById.asMap().forEach(
+        (userId, cached) -> {
+          if (userName.equals(cached.getUsername())) {
+            userIds.add(userId);
+          }
+        });
+    current.usersById.invalidateAll(userIds);
+    current.sessionUsers.asMap().values().removeIf(userIds::contains);
+    current.users.invalidate(userName);
+    current.userBranches.invalidate(userName);
+    current.moduleTypes.asMap().keySet().removeIf(key -> userName.equals(key.userName()));
+  }
+
+  /** Сброс всех записей. */
+  public void invalidateAll() {
+    Caches current = caches();
+    current.users.invalidateAll();
+    current.usersById.invalidateAll();
+    current.moduleTypes.invalidateAll();
+    current.userBranches.invalidateAll();
+    current.regionBranches.invalidateAll();
+    current.regionIds.invalidateAll();
+    current.sessionUsers.invalidateAll();
+  }
+
+  private static <K, V> V get(Cache<K, V> cache, K key, Function<K, V> loader) {
+    V value = cache.getIfPresent(key);
+    if (value == null) {
+      value = loader.apply(key);
+      if (value != null) {
+        cache.put(key, value);
+      }
+    }
+    return value;
+  }
+
+  private Caches caches() {
+    Caches current = caches;
+    if (current == null) {
+      synchronized (this) {
+        current = caches;
+        if (current == null) {
+          current = new Caches(ttl, maximumSize);
+          caches = current;
+        }
+      }
+    }
+    return current;
+  }
+}
@@ -0,0 +1,225 @@
+package ru.aritmos.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.scheduling.annotation.Scheduled;
+import io.micronaut.serde.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import lombok.extern.slf4j.Slf4j;
+import ru.aritmos.model.Branch;
+import ru.aritmos.model.Queue;
+import ru.aritmos.model.ServicePoint;
+import ru.aritmos.model.visit.Visit;
+import ru.aritmos.service.BranchStateStore;
+
+/**
+ * Метрики состояния отделений.
+ *
+ * <p>Значения собираются периодически (параметр {@code
+ * micronaut.application.branchMetricsInterval}) под блокировкой каждого отделения:
+ *
+ * <ul>
+ *   <li>{@code branch.queue.length} - количество визитов в очереди;
+ *   <li>{@code branch.queue.waiting.time} - время ожидания визитов очереди в секундах (медиана,
+ *       90-й процентиль и максимум, тег {@code quantile});
+ *   <li>{@code branch.service.points} - точки обслуживания по состоянию (тег {@code state}:
+ *       {@code serving}, {@code idle}, {@code closed});
+ *   <li>{@code branch.visits} - количество визитов отделения;
+ *   <li>{@code branch.size} - размер сериализованного отделения в байтах.
+ * </ul>
+ *
+ * <p>Метрика {@code branch.size} требует полной сериализации отделения под его блокировкой и
+ * поэтому собирается только при {@code micronaut.application.branchSizeMetric: true}.
+ */
+@Slf4j
+@Singleton
+public class BranchMetrics {
+
+  /** Процентили времени ожидания. */
+  static final double[] WAITING_QUANTILES = {0.5, 0.9, 1.0};
+
+  /** Реестр метрик (может отсутствовать). */
+  @Inject @Nullable MeterRegistry meterRegistry;
+
+  /** Хранилище состояния отделений. */
+  @Inject BranchStateStore branchStateStore = new BranchStateStore();
+
+  /** Сериализатор для оценки размера отделения (может отсутствовать). */
+  @Inject @Nullable ObjectMapper objectMapper;
+
+  /** Признак сбора метрики размера сериализованного отделения. */
+  @Value("${micronaut.application.branchSizeMetric:false}")
+  boolean branchSizeEnabled;
+
+  private MultiGauge queueLength;
+  private MultiGauge queueWaitingTime;
+  private MultiGauge servicePoints;
+  private MultiGauge visits;
+  private MultiGauge branchSize;
+
+  /** Значения метрик одного сбора. */
+  private static final class Rows {
+    private final List<MultiGauge.Row<?>> queueLength = new ArrayList<>();
+    private final List<MultiGauge.Row<?>> queueWaitingTime = new ArrayList<>();
+    private final List<MultiGauge.Row<?>> servicePoints = new ArrayList<>();
+    private final List<MultiGauge.Row<?>> visits = new ArrayList<>();
+    private final List<MultiGauge.Row<?>> branchSize = new ArrayList<>();
+  }
+
+  /** Регистрация метрик. */
+  @PostConstruct
+  void registerMetrics() {
+    if (meterRegistry == null) {
+      return;
+    }
+    queueLength =
+        MultiGauge.builder("branch.queue.length")
+            .description("Visits waiting in the queue")
+            .register(meterRegistry);
+    queueWaitingTime =
+        MultiGauge.builder("branch.queue.waiting.time")
+            .description("Waiting time of the queue visits")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    servicePoints =
+        MultiGauge.builder("branch.service.points")
+            .description("Service points by state")
+            .register(meterRegistry);
+    visits =
+        MultiGauge.builder("branch.visits")
+            .description("Visits of the branch")
+            .register(meterRegistry);
+    if (branchSizeEnabled && objectMapper != null) {
+      branchSize =
+          MultiGauge.builder("branch.size")
+              .description("Serialized branch size")
+              .baseUnit("bytes")
+              .register(meterRegistry);
+    }
+  }
+
+  /** Сбор значений метрик по всем отделениям. */
+  @Scheduled(
+      fixedDelay = "${micronaut.application.branchMetricsInterval:30s}",
+      initialDelay = "${micronaut.application.branchMetricsInterval:30s}")
+  public void refresh() {
+    if (queueLength == null) {
+      return;
+    }
+    Rows rows = new Rows();
+    Instant now = Instant.now();
+    for (String branchId : branchStateStore.keySet()) {
+      branchStateStore.runWithLock(
+          branchId,
+          () -> {
+            Branch branch = branchStateStore.get(branchId);
+            if (branch != null) {
+              collect(branch, now, rows);
+            }
+          });
+    }
+    queueLength.register(rows.queueLength, true);
+    queueWaitingTime.register(rows.queueWaitingTime, true);
+    servicePoints.register(rows.servicePoints, true);
+    visits.register(rows.visits, true);
+    if (branchSize != null) {
+      branchSize.register(rows.branchSize, true);
+    }
+  }
+
+  /**
+   * Сбор значений метрик отделения (вызывается под блокировкой отделения).
+   *
+   * @param branch отделение
+   * @param now текущий момент
+   * @param rows значения метрик
+   */
+  private void collect(Branch branch, Instant now, Rows rows) {
+    Tags branchTags = Tags.of("branch", branch.getId());
+    for (Queue queue : branch.getQueues().values()) {
+      Tags queueTags = branchTags.and("queue", queue.getId());
+      rows.queueLength.add(MultiGauge.Row.of(queueTags, queue.getVisits().size()));
+      long[] waiting = waitingSeconds(queue.getVisits(), now);
+      for (double quantile : WAITING_QUANTILES) {
+        rows.queueWaitingTime.add(
+            MultiGauge.Row.of(
+                queueTags.and("quantile", String.valueOf(quantile)), quantile(waiting, quantile)));
+      }
+    }
+    int serving = 0;
+    int idle = 0;
+    int closed = 0;
+    for (ServicePoint servicePoint : branch.getServicePoints().values()) {
+      if (servicePoint.getVisit() != null) {
+        serving++;
+      } else if (servicePoint.getUser() != null) {
+        idle++;
+      } else {
+        closed++;
+      }
+    }
+    rows.servicePoints.add(MultiGauge.Row.of(branchTags.and("state", "serving"), serving));
+    rows.servicePoints.add(MultiGauge.Row.of(branchTags.and("state", "idle"), idle));
+    rows.servicePoints.add(MultiGauge.Row.of(branchTags.and("state", "closed"), closed));
+    rows.visits.add(MultiGauge.Row.of(branchTags, branch.getAllVisitsList().size()));
+    if (branchSize != null) {
+      try {
+        rows.branchSize.add(
+            MultiGauge.Row.of(branchTags, objectMapper.writeValueAsBytes(branch).length));
+      } catch (IOException e) {
+        log.debug("Branch {} size is not measured: {}", branch.getId(), e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Время ожидания визитов в секундах, по возрастанию.
+   *
+   * @param queueVisits визиты очереди
+   * @param now текущий момент
+   * @return время ожидания визитов
+   */
+  static long[] waitingSeconds(List<Visit> queueVisits, Instant now) {
+    return queueVisits.stream()
+        .map(BranchMetrics::waitingSince)
+        .filter(Objects::nonNull)
+        .mapToLong(since -> Math.max(0L, now.getEpochSecond() - since.toEpochSecond()))
+        .sorted()
+        .toArray();
+  }
+
+  /**
+   * Процентиль отсортированных значений (ближайший ранг).
+   *
+   * @param sorted значения по возрастанию
+   * @param quantile процентиль от 0 до 1
+   * @return значение процентиля либо 0 для пустого набора
+   */
+  static long quantile(long[] sorted, double quantile) {
+    if (sorted.length == 0) {
+      return 0L;
+    }
+    int rank = (int) Math.ceil(quantile * sorted.length);
+    return sorted[Math.min(sorted.length, Math.max(rank, 1)) - 1];
+  }
+
+  private static ZonedDateTime waitingSince(Visit visit) {
+    if (visit.getReturnDateTime() != null) {
+      return visit.getReturnDateTime();
+    }
+    return visit.getTransferDateTime() != null
+        ? visit.getTransferDateTime()
+        : visit.getCreateDateTime();
+  }
+}
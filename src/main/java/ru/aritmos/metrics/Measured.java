@@ -0,0 +1,37 @@
+package ru.aritmos.metrics;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import io.micronaut.aop.Around;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Замер времени выполнения метода бина таймером Micrometer.
+ *
+ * <p>Таймер получает теги {@code operation} (операция), {@code branch} (отделение, определяемое по
+ * параметру {@code branchId}, отделению или визиту среди аргументов) и {@code outcome} (результат
+ * выполнения, см. {@link MeasuredInterceptor}). Вызовы метода внутри того же бина не замеряются.
+ */
+@Documented
+@Retention(RUNTIME)
+@Target(METHOD)
+@Around
+public @interface Measured {
+
+  /**
+   * Имя таймера.
+   *
+   * @return имя таймера
+   */
+  String value();
+
+  /**
+   * Операция (значение тега {@code operation}).
+   *
+   * @return операция
+   */
+  String operation();
+}
@@ -0,0 +1,87 @@
+package ru.aritmos.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.aop.InterceptorBean;
+import io.micronaut.aop.MethodInterceptor;
+import io.micronaut.aop.MethodInvocationContext;
+import io.micronaut.core.annotation.AnnotationValue;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.type.Argument;
+import io.micronaut.http.exceptions.HttpStatusException;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import ru.aritmos.exceptions.BusinessException;
+import ru.aritmos.model.Branch;
+import ru.aritmos.model.visit.Visit;
+
+/**
+ * Перехватчик методов, отмеченных {@link Measured}.
+ *
+ * <p>Результат выполнения (тег {@code outcome}): {@code success}, {@code empty} (возвращён пустой
+ * {@link Optional}, например, нет визита для вызова), {@code business_error} (отказ с
+ * HTTP-статусом, которым завершается {@link BusinessException}) или {@code error} (прочие
+ * исключения). Без реестра метрик метод выполняется без замера.
+ */
+@Singleton
+@InterceptorBean(Measured.class)
+public class MeasuredInterceptor implements MethodInterceptor<Object, Object> {
+
+  /** Значение тега {@code branch}, если отделение операции не определено. */
+  static final String NO_BRANCH = "none";
+
+  /** Реестр метрик (может отсутствовать). */
+  @Inject @Nullable MeterRegistry meterRegistry;
+
+  @Override
+  public Object intercept(MethodInvocationContext<Object, Object> context) {
+    AnnotationValue<Measured> measured = context.getAnnotation(Measured.class);
+    if (meterRegistry == null || measured == null) {
+      return context.proceed();
+    }
+    long start = System.nanoTime();
+    String outcome = "error";
+    try {
+      Object result = context.proceed();
+      outcome = result instanceof Optional<?> optional && optional.isEmpty() ? "empty" : "success";
+      return result;
+    } catch (HttpStatusException e) {
+      outcome = "business_error";
+      throw e;
+    } finally {
+      Timer.builder(measured.stringValue().orElse(context.getMethodName()))
+          .tag("operation", measured.stringValue("operation").orElse(context.getMethodName()))
+          .tag("branch", branchOf(context.getArguments(), context.getParameterValues()))
+          .tag("outcome", outcome)
+          .register(meterRegistry)
+          .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Отделение операции: значение параметра {@code branchId}, иначе отделение или визит среди
+   * аргументов.
+   *
+   * @param arguments параметры метода
+   * @param values значения аргументов
+   * @return идентификатор отделения либо {@link #NO_BRANCH}
+   */
+  static String branchOf(Argument<?>[] arguments, Object[] values) {
+    for (int i = 0; i < values.length && i < arguments.length; i++) {
+      if ("branchId".equals(arguments[i].getName()) && values[i] instanceof String branchId) {
+        return branchId;
+      }
+    }
+    for (Object value : values) {
+      if (value instanceof Branch branch && branch.getId() != null) {
+        return branch.getId();
+      }
+      if (value instanceof Visit visit && visit.getBranchId() != null) {
+        return visit.getBranchId();
+      }
+    }
+    return NO_BRANCH;
+  }
+}
@@ -0,0 +1,43 @@
+package ru.aritmos.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.aop.MethodInvocationContext;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.retry.event.RetryEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Счётчик повторных попыток вызовов клиентов с {@code @Retryable} (шина данных, сервис печати).
+ *
+ * <p>Счётчик {@code client.retries} получает теги {@code client} (интерфейс клиента) и {@code
+ * method} (метод клиента).
+ */
+@Singleton
+public class RetryMetrics {
+
+  /** Реестр метрик (может отсутствовать). */
+  @Inject @Nullable MeterRegistry meterRegistry;
+
+  /**
+   * Учёт повторной попытки.
+   *
+   * @param event событие повторной попытки
+   */
+  @EventListener
+  public void onRetry(RetryEvent event) {
+    if (meterRegistry == null) {
+      return;
+    }
+    MethodInvocationContext<?, ?> source = event.getSource();
+    meterRegistry
+        .counter(
+            "client.retries",
+            "client",
+            source.getDeclaringType().getSimpleName(),
+            "method",
+            source.getMethodName())
+        .increment();
+  }
+}
@@ -0,0 +1,2 @@
+/** Метрики Micrometer: время операций с визитами, размеры очередей и состояние отделений. */
+package ru.aritmos.metrics;
@@ -1,5 +1,6 @@
 package ru.aritmos.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import io.micronaut.core.annotation.Introspected;
@@ -12,12 +13,15 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import lombok.*;
 import ru.aritmos.events.model.Event;
+import ru.aritmos.events.model.EventPayload;
 import ru.aritmos.events.services.EventService;
 import ru.aritmos.exceptions.BusinessException;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.service.VisitService;
 import ru.aritmos.service.rules.Rule;
 
@@ -109,6 +113,12 @@ public class Branch extends BranchEntity {
   /** Список * */
   HashMap<String, String> breakReasons = new HashMap<>();
 
+  /** Индекс расположения визитов (не сериализуется, восстанавливается при обновлении визитов) */
+  @JsonIgnore
+  @Getter(AccessLevel.NONE)
+  @ToString.Exclude
+  private final transient VisitIndex visitIndex = new VisitIndex();
+
   /**
    * Конструктор отделения.
    *
@@ -210,6 +220,29 @@ public class Branch extends BranchEntity {
     return visits;
   }
 
+  /**
+   * Поиск визита отделения по идентификатору.
+   *
+   * <p>Использует индекс расположения визитов; если визит не проиндексирован или был перемещён в
+   * обход {@link #updateVisit}, выполняется полный просмотр отделения (только чтение, индекс не
+   * изменяется).
+   *
+   * @param visitId идентификатор визита
+   * @return визит, если он найден
+   */
+  public Optional<Visit> findVisit(String visitId) {
+    List<VisitIndex.Location> locations = visitIndex.get(visitId);
+    if (locations != null) {
+      for (VisitIndex.Location location : locations) {
+        Visit visit = locate(location, visitId);
+        if (visit != null) {
+          return Optional.of(visit);
+        }
+      }
+    }
+    return Optional.ofNullable(getAllVisits().get(visitId));
+  }
+
   /**
    * Открытие точки обслуживания.
    *
@@ -226,33 +259,16 @@ public class Branch extends BranchEntity {
             || servicePoint.getUser().getName().equals(user.getName())) {
           servicePoint.setUser(user);
           this.getUsers().put(user.getName(), user);
-          eventService.send(
-              "*",
-              false,
-              Event.builder()
-                  .eventDate(ZonedDateTime.now())
-                  .eventType("SERVICE_POINT_OPENED")
-                  .params(new HashMap<>())
-                  .body(servicePoint)
-                  .build());
-          eventService.send(
-              "stat",
-              false,
-              Event.builder()
-                  .eventDate(ZonedDateTime.now())
-                  .eventType("SERVICE_POINT_OPENED")
-                  .params(new HashMap<>())
-                  .body(servicePoint)
-                  .build());
-          eventService.send(
-              "frontend",
+          eventService.fanOut(
+              List.of("*", "stat", "frontend"),
               false,
               Event.builder()
                   .eventDate(ZonedDateTime.now())
                   .eventType("SERVICE_POINT_OPENED")
                   .params(new HashMap<>())
                   .body(servicePoint)
-                  .build());
+                  .build(),
+              servicePoint.toSlim());
 
         } else {
           String ticket = "";
@@ -324,34 +340,16 @@ public class Branch extends BranchEntity {
       if (servicePoint.getUser() != null) {
 
         User user = servicePoint.getUser();
-        eventService.send(
-            "*",
+        eventService.fanOut(
+            List.of("*", "stat", "frontend"),
             false,
             Event.builder()
                 .eventDate(ZonedDateTime.now())
                 .eventType("SERVICE_POINT_CLOSING")
                 .params(new HashMap<>())
                 .body(servicePoint)
-                .build());
-        eventService.send(
-            "frontend",
-            false,
-            Event.builder()
-                .eventDate(ZonedDateTime.now())
-                .eventType("SERVICE_POINT_CLOSING")
-                .params(new HashMap<>())
-                .body(servicePoint)
-                .build());
-
-        eventService.send(
-            "stat",
-            false,
-            Event.builder()
-                .eventDate(ZonedDateTime.now())
-                .eventType("SERVICE_POINT_CLOSING")
-                .params(new HashMap<>())
-                .body(servicePoint)
-                .build());
+                .build(),
+            servicePoint.toSlim());
         if (isBreak) {
           user.setLastBreakStartTime(ZonedDateTime.now());
           user.setLastBreakEndTime(null);
@@ -392,37 +390,20 @@ public class Branch extends BranchEntity {
 
         if (withLogout) {
 
-          visitService.keyCloackClient.userLogout(
+          visitService.keyCloackClient.userLogoutAsync(
               servicePoint.getUser().getName(), isForced, reason);
         }
         servicePoint.setUser(null);
-        eventService.send(
-            "*",
-            false,
-            Event.builder()
-                .eventDate(ZonedDateTime.now())
-                .eventType("SERVICE_POINT_CLOSED")
-                .params(new HashMap<>())
-                .body(servicePoint)
-                .build());
-        eventService.send(
-            "frontend",
+        eventService.fanOut(
+            List.of("*", "stat", "frontend"),
             false,
             Event.builder()
                 .eventDate(ZonedDateTime.now())
                 .eventType("SERVICE_POINT_CLOSED")
                 .params(new HashMap<>())
                 .body(servicePoint)
-                .build());
-        eventService.send(
-            "stat",
-            false,
-            Event.builder()
-                .eventDate(ZonedDateTime.now())
-                .eventType("SERVICE_POINT_CLOSED")
-                .params(new HashMap<>())
-                .body(servicePoint)
-                .build());
+                .build(),
+            servicePoint.toSlim());
 
       } else {
         throw new BusinessException(
@@ -465,64 +446,41 @@ public class Branch extends BranchEntity {
   public void updateVisit(
       Visit visit, EventService eventService, String action, VisitService visitService) {
 
-    this.servicePoints.forEach(
-        (key, value) -> {
-          value.setVisit(null);
-          value.getVisits().removeIf(f -> f.getId().equals(visit.getId()));
-          if (value.getUser() != null) {
-            value.getUser().visits.removeIf(r -> r.getId().equals(visit.getId()));
-          }
-          if (value.getId().equals(visit.getServicePointId())) {
-            if (value.getVisit() == null || value.getVisit().getId().equals(visit.getId())) {
-              value.setVisit(visit);
-            } else {
-              throw new BusinessException(
-                  String.format(
-                      "In ServicePoint %s already exists visit %s",
-                      value.getId(), value.getVisit().getId()),
-                  String.format(
-                      "В точке обслуживания %s уже закреплён визит %s",
-                      value.getId(), value.getVisit().getId()),
-                  eventService,
-                  HttpStatus.CONFLICT);
-            }
-          }
-          if (value.getId().equals(visit.getPoolServicePointId())) {
-
-            assert value.getUser() != null;
-            value.getUser().getVisits().add(visit);
-          }
-          if (value.getUser() != null && value.getUser().getId().equals(visit.getPoolUserId())) {
-
-            value.getUser().getVisits().add(visit);
-          }
-        });
-    this.queues.forEach(
-        (key, value) -> {
-          value.getVisits().removeIf(f -> f.getId().equals(visit.getId()));
-          if (value.getId().equals(visit.getQueueId())) {
-            value.getVisits().add(visit);
-          }
-        });
+    detachVisit(visit.getId());
+    List<VisitIndex.Location> locations = new ArrayList<>();
+    ServicePoint servicePoint = locateServicePoint(visit.getServicePointId());
+    if (servicePoint != null) {
+      servicePoint.setVisit(visit);
+      locations.add(new VisitIndex.Location(VisitIndex.Kind.SERVICE_POINT, servicePoint.getId()));
+    }
+    ServicePoint poolServicePoint = locateServicePoint(visit.getPoolServicePointId());
+    if (poolServicePoint != null && poolServicePoint.getUser() != null) {
+      appendVisit(poolServicePoint.getUser().getVisits(), visit);
+      locations.add(
+          new VisitIndex.Location(VisitIndex.Kind.USER_POOL, poolServicePoint.getId()));
+    }
+    ServicePoint userServicePoint = locateUserServicePoint(visit.getPoolUserId());
+    if (userServicePoint != null) {
+      appendVisit(userServicePoint.getUser().getVisits(), visit);
+      locations.add(
+          new VisitIndex.Location(VisitIndex.Kind.USER_POOL, userServicePoint.getId()));
+    }
+    Queue queue = visit.getQueueId() != null ? this.queues.get(visit.getQueueId()) : null;
+    if (queue != null) {
+      appendVisit(queue.getVisits(), visit);
+      locations.add(new VisitIndex.Location(VisitIndex.Kind.QUEUE, queue.getId()));
+    }
+    visitIndex.put(visit.getId(), locations);
     visitService.getBranchService().add(this.getId(), this);
-    eventService.send(
-        "*",
-        false,
+    Event event =
         Event.builder()
             .eventDate(ZonedDateTime.now())
             .eventType("VISIT_" + action)
             .params(new HashMap<>())
-            .body(visit.toBuilder().build())
-            .build());
-    eventService.send(
-        "stat",
-        false,
-        Event.builder()
-            .eventDate(ZonedDateTime.now())
-            .eventType("VISIT_" + action)
-            .params(new HashMap<>())
-            .body(visit.toBuilder().build())
-            .build());
+            .body(EventPayload.of(eventService.getObjectMapper(), visit))
+            .build();
+    eventService.send("*", false, event);
+    eventService.send("stat", false, event);
   }
 
   /**
@@ -530,20 +488,20 @@ public class Branch extends BranchEntity {
    *
    * @param visit визит
    * @param eventService сервис событий
-   * @param visitEvent событие визита
+   * @param transition переход визита
    * @param visitService сервис визитов
    * @param isToStart поместить визит в начало (true) или в конец (false)
    */
   public void updateVisit(
       Visit visit,
       EventService eventService,
-      VisitEvent visitEvent,
+      VisitTransition transition,
       VisitService visitService,
       Boolean isToStart) {
     if (isToStart) {
-      updateVisit(visit, eventService, visitEvent, visitService, 0);
+      updateVisit(visit, eventService, transition, visitService, 0);
     } else {
-      updateVisit(visit, eventService, visitEvent, visitService, -1);
+      updateVisit(visit, eventService, transition, visitService, -1);
     }
   }
 
@@ -552,6 +510,105 @@ public class Branch extends BranchEntity {
    *
    * @param visit визит
    * @param eventService сервис событий
+   * @param transition переход визита
+   * @param visitService сервис визитов
+   * @param index индекс вставки (или -1 для добавления в конец)
+   */
+  public void updateVisit(
+      Visit visit,
+      EventService eventService,
+      VisitTransition transition,
+      VisitService visitService,
+      Integer index) {
+    visitService.addEvent(visit, transition, eventService);
+    VisitEvent visitEvent = transition.event();
+    visit.setStatus(visitEvent.getState().name());
+
+    detachVisit(visit.getId());
+    List<VisitIndex.Location> locations = new ArrayList<>();
+    Queue queue = visit.getQueueId() != null ? this.queues.get(visit.getQueueId()) : null;
+    if (queue != null) {
+      insertVisit(queue.getVisits(), visit, index, eventService);
+      locations.add(new VisitIndex.Location(VisitIndex.Kind.QUEUE, queue.getId()));
+    }
+    ServicePoint servicePoint = locateServicePoint(visit.getServicePointId());
+    if (servicePoint != null) {
+      servicePoint.setVisit(visit);
+      registerUser(servicePoint);
+      locations.add(new VisitIndex.Location(VisitIndex.Kind.SERVICE_POINT, servicePoint.getId()));
+    }
+    ServicePoint poolServicePoint = locateServicePoint(visit.getPoolServicePointId());
+    if (poolServicePoint != null) {
+      insertVisit(poolServicePoint.getVisits(), visit, index, eventService);
+      registerUser(poolServicePoint);
+      locations.add(
+          new VisitIndex.Location(VisitIndex.Kind.SERVICE_POINT_POOL, poolServicePoint.getId()));
+    }
+    ServicePoint userServicePoint = locateUserServicePoint(visit.getPoolUserId());
+    if (userServicePoint != null) {
+      insertVisit(userServicePoint.getUser().getVisits(), visit, index, eventService);
+      registerUser(userServicePoint);
+      locations.add(
+          new VisitIndex.Location(VisitIndex.Kind.USER_POOL, userServicePoint.getId()));
+    }
+    visitIndex.put(visit.getId(), locations);
+
+    Event event =
+        Event.builder()
+            .eventDate(transition.dateTime())
+            .eventType("VISIT_" + visitEvent.name())
+            .params(new HashMap<>())
+            .body(EventPayload.of(eventService.getObjectMapper(), visit))
+            .build();
+    eventService.send("*", false, event);
+    if (!VisitEvent.isIgnoredInStat(visitEvent)) {
+      eventService.send("stat", false, event);
+    }
+    if (VisitEvent.isFrontEndEvent(visitEvent)) {
+      eventService.send("frontend", false, event);
+    }
+    visitService.getBranchService().add(this.getId(), this);
+  }
+
+  /**
+   * Обновление визита по событию (перегрузка без дополнительных параметров).
+   *
+   * @param visit визит
+   * @param eventService сервис событий
+   * @param transition переход визита
+   * @param visitService сервис визитов
+   */
+  public void updateVisit(
+      Visit visit,
+      EventService eventService,
+      VisitTransition transition,
+      VisitService visitService) {
+    updateVisit(visit, eventService, transition, visitService, true);
+  }
+
+  /**
+   * Обновление визита по событию без параметров с выбором позиции начала/конца.
+   *
+   * @param visit визит
+   * @param eventService сервис событий
+   * @param visitEvent событие визита
+   * @param visitService сервис визитов
+   * @param isToStart поместить визит в начало (true) или в конец (false)
+   */
+  public void updateVisit(
+      Visit visit,
+      EventService eventService,
+      VisitEvent visitEvent,
+      VisitService visitService,
+      Boolean isToStart) {
+    updateVisit(visit, eventService, VisitTransition.of(visitEvent), visitService, isToStart);
+  }
+
+  /**
+   * Обновление визита по событию без параметров с указанием позиции.
+   *
+   * @param visit визит
+   * @param eventService сервис событий
    * @param visitEvent событие визита
    * @param visitService сервис визитов
    * @param index индекс вставки (или -1 для добавления в конец)
@@ -562,152 +619,350 @@ public class Branch extends BranchEntity {
       VisitEvent visitEvent,
       VisitService visitService,
       Integer index) {
-    visitService.addEvent(visit, visitEvent, eventService);
-    visit.setStatus(visitEvent.getState().name());
+    updateVisit(visit, eventService, VisitTransition.of(visitEvent), visitService, index);
+  }
 
-    for (Map.Entry<String, Queue> entry : this.queues.entrySet()) {
+  /**
+   * Обновление визита по событию без параметров.
+   *
+   * @param visit визит
+   * @param eventService сервис событий
+   * @param visitEvent событие визита
+   * @param visitService сервис визитов
+   */
+  public void updateVisit(
+      Visit visit, EventService eventService, VisitEvent visitEvent, VisitService visitService) {
+    updateVisit(visit, eventService, VisitTransition.of(visitEvent), visitService, true);
+  }
 
-      Queue v = entry.getValue();
-      v.getVisits().removeIf(f -> f.getId().equals(visit.getId()));
-      if (v.getId().equals(visit.getQueueId())) {
+  /**
+   * Восстановление визита из журнала отделения без рассылки событий.
+   *
+   * <p>Визит размещается по текущим очереди, точке обслуживания и пулам; визит без размещения
+   * (завершённый или удалённый) удаляется из отделения.
+   *
+   * @param visit визит в состоянии на момент записи в журнал
+   */
+  public void restoreVisit(Visit visit) {
+    if (visit == null || visit.getId() == null) {
+      return;
+    }
+    detachVisit(visit.getId());
+    List<VisitIndex.Location> locations = new ArrayList<>();
+    Queue queue = visit.getQueueId() != null ? this.queues.get(visit.getQueueId()) : null;
+    if (queue != null) {
+      appendVisit(queue.getVisits(), visit);
+      locations.add(new VisitIndex.Location(VisitIndex.Kind.QUEUE, queue.getId()));
+    }
+    ServicePoint servicePoint = locateServicePoint(visit.getServicePointId());
+    if (servicePoint != null) {
+      servicePoint.setVisit(visit);
+      locations.add(new VisitIndex.Location(VisitIndex.Kind.SERVICE_POINT, servicePoint.getId()));
+    }
+    ServicePoint poolServicePoint = locateServicePoint(visit.getPoolServicePointId());
+    if (poolServicePoint != null) {
+      appendVisit(poolServicePoint.getVisits(), visit);
+      locations.add(
+          new VisitIndex.Location(VisitIndex.Kind.SERVICE_POINT_POOL, poolServicePoint.getId()));
+    }
+    ServicePoint userServicePoint = locateUserServicePoint(visit.getPoolUserId());
+    if (userServicePoint != null) {
+      appendVisit(userServicePoint.getUser().getVisits(), visit);
+      locations.add(
+          new VisitIndex.Location(VisitIndex.Kind.USER_POOL, userServicePoint.getId()));
+    }
+    if (!locations.isEmpty()) {
+      visitIndex.put(visit.getId(), locations);
+    }
+  }
 
-        try {
-          if (!index.equals(-1)) {
-            v.getVisits().add(index, visit);
-          } else {
-            v.getVisits().add(visit);
-          }
-        } catch (IndexOutOfBoundsException e) {
-          throw new BusinessException(
-              String.format(
-                  "Visit position %s is out of range for list size %s",
-                  index, v.getVisits().size()),
-              String.format(
-                  "Позиция визита %s выходит за пределы размера списка %s",
-                  index, v.getVisits().size()),
-              eventService,
-              HttpStatus.CONFLICT);
-        }
+  /**
+   * Перенос живого состояния из предыдущей версии отделения при публикации конфигурации.
+   *
+   * <p>Для очередей и точек обслуживания, присутствующих в обеих версиях, переносятся визиты,
+   * счётчики талонов, сотрудники и их пулы визитов; также переносятся перечень сотрудников и сеансы
+   * приёмной. Визиты очередей и точек обслуживания, отсутствующих в новой версии, не переносятся.
+   *
+   * @param previous опубликованная версия отделения
+   * @return количество визитов, не перенесённых из-за удаления их очередей и точек обслуживания
+   */
+  public int adoptState(Branch previous) {
+    int dropped = 0;
+    for (Queue queue : previous.getQueues().values()) {
+      Queue target = this.queues.get(queue.getId());
+      if (target == null) {
+        dropped += queue.getVisits().size();
+        continue;
+      }
+      target.setVisits(new ArrayList<>(queue.getVisits()));
+      target.setTicketCounter(queue.getTicketCounter());
+    }
+    for (ServicePoint servicePoint : previous.getServicePoints().values()) {
+      ServicePoint target = this.servicePoints.get(servicePoint.getId());
+      if (target == null) {
+        dropped += servicePoint.getVisits().size() + (servicePoint.getVisit() != null ? 1 : 0);
+        continue;
       }
-      entry.setValue(v);
+      target.setVisit(servicePoint.getVisit());
+      target.setVisits(new ArrayList<>(servicePoint.getVisits()));
+      target.setUser(servicePoint.getUser());
+      registerUser(target);
+    }
+    previous.getUsers().forEach(this.users::putIfAbsent);
+    if (previous.getReception() != null && this.reception != null) {
+      this.reception.setReceptionSessions(previous.getReception().getReceptionSessions());
     }
+    visitIndex.invalidate();
+    return dropped;
+  }
 
-    for (Map.Entry<String, ServicePoint> entry : this.getServicePoints().entrySet()) {
+  /**
+   * Поиск визита в указанном месте размещения.
+   *
+   * @param location место размещения
+   * @param visitId идентификатор визита
+   * @return визит либо {@code null}, если в указанном месте визита нет
+   */
+  private Visit locate(VisitIndex.Location location, String visitId) {
+    if (location.kind() == VisitIndex.Kind.QUEUE) {
+      Queue queue = this.queues.get(location.ownerId());
+      return queue != null ? locate(queue.getVisits(), visitId) : null;
+    }
+    ServicePoint servicePoint = this.servicePoints.get(location.ownerId());
+    if (servicePoint == null) {
+      return null;
+    }
+    return switch (location.kind()) {
+      case SERVICE_POINT ->
+          servicePoint.getVisit() != null && visitId.equals(servicePoint.getVisit().getId())
+              ? servicePoint.getVisit()
+              : null;
+      case SERVICE_POINT_POOL -> locate(servicePoint.getVisits(), visitId);
+      case USER_POOL ->
+          servicePoint.getUser() != null
+              ? locate(servicePoint.getUser().getVisits(), visitId)
+              : null;
+      default -> null;
+    };
+  }
 
-      ServicePoint value = entry.getValue();
-      value.setVisit(null);
-      value.getVisits().removeIf(f -> f.getId().equals(visit.getId()));
-      if (value.getUser() != null) {
-        value.getUser().visits.removeIf(r -> r.getId().equals(visit.getId()));
+  /**
+   * Поиск визита в списке визитов.
+   *
+   * @param visits список визитов
+   * @param visitId идентификатор визита
+   * @return визит либо {@code null}
+   */
+  private static Visit locate(List<Visit> visits, String visitId) {
+    if (visits == null) {
+      return null;
+    }
+    for (Visit visit : visits) {
+      if (visitId.equals(visit.getId())) {
+        return visit;
       }
-      if (value.getId().equals(visit.getServicePointId())) {
-        if (value.getVisit() == null) {
-          value.setVisit(visit);
-        } else {
-          throw new BusinessException(
-              String.format(
-                  "In ServicePoint %s already exists visit %s",
-                  value.getId(), value.getVisit().getId()),
-              String.format(
-                  "В точке обслуживания %s уже закреплён визит %s",
-                  value.getId(), value.getVisit().getId()),
-              eventService,
-              HttpStatus.CONFLICT);
-        }
+    }
+    return null;
+  }
+
+  /**
+   * Удаление визита из всех мест размещения.
+   *
+   * <p>Индекс является источником истины: визит удаляется только из известных индексу мест, а
+   * непроиндексированный (новый) визит нигде не ищется. Полный просмотр отделения выполняется лишь
+   * однажды, если индекс ещё не заполнен (см. {@link #rebuildVisitIndex()}).
+   *
+   * @param visitId идентификатор визита
+   */
+  private void detachVisit(String visitId) {
+    if (!visitIndex.isBuilt()) {
+      rebuildVisitIndex();
+    }
+    List<VisitIndex.Location> locations = visitIndex.remove(visitId);
+    if (locations == null) {
+      return;
+    }
+    for (VisitIndex.Location location : locations) {
+      detach(location, visitId);
+    }
+  }
+
+  /**
+   * Перестроение индекса расположения визитов полным просмотром очередей, точек обслуживания и
+   * пулов.
+   *
+   * <p>Вызывается автоматически при первом изменении визитов отделения, полученного без индекса, и
+   * явно — после изменения списков визитов в обход {@link #updateVisit}. Вызывать под блокировкой
+   * отделения.
+   */
+  public void rebuildVisitIndex() {
+    Map<String, List<VisitIndex.Location>> locations = new HashMap<>();
+    this.queues
+        .values()
+        .forEach(
+            queue ->
+                index(locations, queue.getVisits(), VisitIndex.Kind.QUEUE, queue.getId()));
+    this.servicePoints
+        .values()
+        .forEach(
+            servicePoint -> {
+              if (servicePoint.getVisit() != null) {
+                index(
+                    locations,
+                    List.of(servicePoint.getVisit()),
+                    VisitIndex.Kind.SERVICE_POINT,
+                    servicePoint.getId());
+              }
+              index(
+                  locations,
+                  servicePoint.getVisits(),
+                  VisitIndex.Kind.SERVICE_POINT_POOL,
+                  servicePoint.getId());
+              if (servicePoint.getUser() != null) {
+                index(
+                    locations,
+                    servicePoint.getUser().getVisits(),
+                    VisitIndex.Kind.USER_POOL,
+                    servicePoint.getId());
+              }
+            });
+    visitIndex.replaceAll(locations);
+  }
+
+  /**
+   * Добавление мест размещения визитов списка в перестраиваемый индекс.
+   *
+   * @param locations места размещения визитов (id визита -> места)
+   * @param visits список визитов
+   * @param kind тип места
+   * @param ownerId идентификатор очереди или точки обслуживания
+   */
+  private static void index(
+      Map<String, List<VisitIndex.Location>> locations,
+      List<Visit> visits,
+      VisitIndex.Kind kind,
+      String ownerId) {
+    if (visits == null) {
+      return;
+    }
+    for (Visit visit : visits) {
+      if (visit.getId() != null) {
+        locations
+            .computeIfAbsent(visit.getId(), id -> new ArrayList<>())
+            .add(new VisitIndex.Location(kind, ownerId));
       }
+    }
+  }
 
-      if (value.getId().equals(visit.getPoolServicePointId())) {
-        try {
-          value.getVisits().removeIf(f -> f.getId().equals(visit.getId()));
-          if (!index.equals(-1)) {
-            value.getVisits().add(index, visit);
-          } else {
-            value.getVisits().add(visit);
-          }
-        } catch (IndexOutOfBoundsException e) {
-          throw new BusinessException(
-              String.format(
-                  "Visit position %s is out of range for list size %s",
-                  index, value.getVisits().size()),
-              String.format(
-                  "Позиция визита %s выходит за пределы размера списка %s",
-                  index, value.getVisits().size()),
-              eventService,
-              HttpStatus.CONFLICT);
+  /**
+   * Удаление визита из указанного места размещения.
+   *
+   * @param location место размещения
+   * @param visitId идентификатор визита
+   * @return {@code true}, если визит находился в указанном месте
+   */
+  private boolean detach(VisitIndex.Location location, String visitId) {
+    if (location.kind() == VisitIndex.Kind.QUEUE) {
+      Queue queue = this.queues.get(location.ownerId());
+      return queue != null && queue.getVisits().removeIf(f -> f.getId().equals(visitId));
+    }
+    ServicePoint servicePoint = this.servicePoints.get(location.ownerId());
+    if (servicePoint == null) {
+      return false;
+    }
+    switch (location.kind()) {
+      case SERVICE_POINT:
+        if (servicePoint.getVisit() != null && visitId.equals(servicePoint.getVisit().getId())) {
+          servicePoint.setVisit(null);
+          return true;
         }
-      }
+        return false;
+      case SERVICE_POINT_POOL:
+        return servicePoint.getVisits().removeIf(f -> f.getId().equals(visitId));
+      case USER_POOL:
+        return servicePoint.getUser() != null
+            && servicePoint.getUser().getVisits().removeIf(f -> f.getId().equals(visitId));
+      default:
+        return false;
+    }
+  }
 
-      if (value.getUser() != null) {
-        value.getUser().getVisits().removeIf(f -> f.getId().equals(visit.getId()));
-        getUsers().put(value.getUser().getName(), value.getUser());
-        if (value.getUser().getId().equals(visit.getPoolUserId())) {
+  /**
+   * Получение точки обслуживания по идентификатору.
+   *
+   * @param servicePointId идентификатор точки обслуживания (может быть {@code null})
+   * @return точка обслуживания либо {@code null}
+   */
+  private ServicePoint locateServicePoint(String servicePointId) {
+    return servicePointId != null ? this.servicePoints.get(servicePointId) : null;
+  }
 
-          try {
-            if (!index.equals(-1)) {
-              value.getUser().getVisits().add(index, visit);
-            } else {
-              value.getUser().getVisits().add(visit);
-            }
-          } catch (IndexOutOfBoundsException e) {
-            throw new BusinessException(
-                String.format(
-                    "Visit position %s is out of range for list size %s",
-                    index, value.getUser().getVisits().size()),
-                String.format(
-                    "Позиция визита %s выходит за пределы размера списка %s",
-                    index, value.getUser().getVisits().size()),
-                eventService,
-                HttpStatus.CONFLICT);
-          }
-        }
-      }
-      entry.setValue(value);
+  /**
+   * Получение точки обслуживания, на которой работает сотрудник.
+   *
+   * @param userId идентификатор сотрудника (может быть {@code null})
+   * @return точка обслуживания либо {@code null}
+   */
+  private ServicePoint locateUserServicePoint(String userId) {
+    if (userId == null) {
+      return null;
     }
-    eventService.send(
-        "*",
-        false,
-        Event.builder()
-            .eventDate(ZonedDateTime.now())
-            .eventType("VISIT_" + visitEvent.name())
-            .params(new HashMap<>())
-            .body(visit.toBuilder().build())
-            .build());
-    if (!VisitEvent.isIgnoredInStat(visitEvent)) {
-      eventService.send(
-          "stat",
-          false,
-          Event.builder()
-              .eventDate(ZonedDateTime.now())
-              .eventType("VISIT_" + visitEvent.name())
-              .params(new HashMap<>())
-              .body(visit.toBuilder().build())
-              .build());
+    for (ServicePoint servicePoint : this.servicePoints.values()) {
+      if (servicePoint.getUser() != null && userId.equals(servicePoint.getUser().getId())) {
+        return servicePoint;
+      }
     }
-    if (VisitEvent.isFrontEndEvent(visitEvent)) {
-      eventService.send(
-          "frontend",
-          false,
-          Event.builder()
-              .eventDate(ZonedDateTime.now())
-              .eventType("VISIT_" + visitEvent.name())
-              .params(new HashMap<>())
-              .body(visit.toBuilder().build())
-              .build());
+    return null;
+  }
+
+  /**
+   * Регистрация сотрудника точки обслуживания в перечне сотрудников отделения.
+   *
+   * @param servicePoint точка обслуживания
+   */
+  private void registerUser(ServicePoint servicePoint) {
+    if (servicePoint.getUser() != null) {
+      getUsers().put(servicePoint.getUser().getName(), servicePoint.getUser());
     }
-    visitService.getBranchService().add(this.getId(), this);
   }
 
   /**
-   * Обновление визита по событию (перегрузка без дополнительных параметров).
+   * Добавление визита в конец списка без дублирования.
    *
+   * @param visits список визитов
    * @param visit визит
+   */
+  private static void appendVisit(List<Visit> visits, Visit visit) {
+    visits.removeIf(f -> f.getId().equals(visit.getId()));
+    visits.add(visit);
+  }
+
+  /**
+   * Вставка визита в список на указанную позицию без дублирования.
+   *
+   * @param visits список визитов
+   * @param visit визит
+   * @param index позиция вставки (или -1 для добавления в конец)
    * @param eventService сервис событий
-   * @param visitEvent событие визита
-   * @param visitService сервис визитов
    */
-  public void updateVisit(
-      Visit visit, EventService eventService, VisitEvent visitEvent, VisitService visitService) {
-    updateVisit(visit, eventService, visitEvent, visitService, true);
+  private static void insertVisit(
+      List<Visit> visits, Visit visit, Integer index, EventService eventService) {
+    visits.removeIf(f -> f.getId().equals(visit.getId()));
+    try {
+      if (!index.equals(-1)) {
+        visits.add(index, visit);
+      } else {
+        visits.add(visit);
+      }
+    } catch (IndexOutOfBoundsException e) {
+      throw new BusinessException(
+          String.format(
+              "Visit position %s is out of range for list size %s", index, visits.size()),
+          String.format(
+              "Позиция визита %s выходит за пределы размера списка %s", index, visits.size()),
+          eventService,
+          HttpStatus.CONFLICT);
+    }
   }
 
   /**
@@ -717,12 +972,14 @@ public class Branch extends BranchEntity {
    * @param eventService сервис событий
    * @param checkVisits учитывать активные визиты при изменении услуг
    * @param visitService сервис визитов
+   * @return визиты, обновлённые из-за изменения услуг
    */
-  public void addUpdateService(
+  public List<Visit> addUpdateService(
       HashMap<String, Service> serviceHashMap,
       EventService eventService,
       Boolean checkVisits,
       VisitService visitService) {
+    List<Visit> updated = new ArrayList<>();
     serviceHashMap.forEach(
         (k, v) -> {
           if (this.getServices().containsKey(k)) {
@@ -748,6 +1005,7 @@ public class Branch extends BranchEntity {
                         v2.setServedServices(servedServices);
 
                         this.updateVisit(v2, eventService, "UPDATE_SERVICE", visitService);
+                        updated.add(v2);
                       });
             } else {
               this.getAllVisits()
@@ -779,6 +1037,7 @@ public class Branch extends BranchEntity {
           }
           this.getServices().put(k, v);
         });
+    return updated;
   }
 
   /**
@@ -788,12 +1047,14 @@ public class Branch extends BranchEntity {
    * @param eventService сервис событий
    * @param checkVisits учитывать активные визиты при удалении услуг
    * @param visitService сервис визитов
+   * @return визиты, обновлённые из-за удаления услуг
    */
-  public void deleteServices(
+  public List<Visit> deleteServices(
       List<String> serviceIds,
       EventService eventService,
       Boolean checkVisits,
       VisitService visitService) {
+    List<Visit> updated = new ArrayList<>();
     serviceIds.forEach(
         id -> {
           if (this.getServices().containsKey(id)) {
@@ -827,6 +1088,7 @@ public class Branch extends BranchEntity {
                         v2.setServedServices(servedServices);
 
                         this.updateVisit(v2, eventService, "SERVICE_DELETED", visitService);
+                        updated.add(v2);
                       });
             } else {
               this.getAllVisits()
@@ -851,6 +1113,7 @@ public class Branch extends BranchEntity {
               "config", false, null, this.getServices().get(id), new HashMap<>(), "Delete service");
           this.getServices().remove(id);
         });
+    return updated;
   }
 
   /**
@@ -2,10 +2,19 @@ package ru.aritmos.model;
 
 import io.micronaut.core.annotation.Introspected;
 import io.micronaut.serde.annotation.Serdeable;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import ru.aritmos.model.visit.Visit;
 
-/** Очередь */
+/**
+ * Очередь
+ *
+ * <p>Визиты очереди хранятся в списке с индексом ожидающих визитов, по которому правила вызова
+ * выбирают визит без просмотра всей очереди (см. {@link #nextWaitingVisit}).
+ */
 @EqualsAndHashCode(callSuper = true)
 @Data
 @Serdeable
@@ -31,6 +40,7 @@ public final class Queue extends BranchEntityWithVisits {
     super(name);
     this.ticketPrefix = ticketPrefix;
     this.waitingSL = waitingSL;
+    this.visits = new WaitingVisitList();
   }
 
   /**
@@ -45,5 +55,48 @@ public final class Queue extends BranchEntityWithVisits {
     super(id, name);
     this.ticketPrefix = ticketPrefix;
     this.waitingSL = waitingSL;
+    this.visits = new WaitingVisitList();
+  }
+
+  /**
+   * Установка визитов очереди; переданный список копируется в список с индексом ожидающих визитов.
+   *
+   * @param visits визиты
+   */
+  @Override
+  public void setVisits(List<Visit> visits) {
+    super.setVisits(
+        visits == null || visits instanceof WaitingVisitList
+            ? visits
+            : new WaitingVisitList(visits));
+  }
+
+  /**
+   * Визит очереди, который следует вызвать первым: ожидающий вызова, с истёкшей задержкой возврата
+   * и перевода.
+   *
+   * @param order порядок выбора
+   * @return визит, если в очереди есть доступный для вызова визит
+   */
+  public Optional<Visit> nextWaitingVisit(WaitingOrder order) {
+    return nextWaitingVisit(order, Instant.now());
+  }
+
+  /**
+   * Визит очереди, который следует вызвать первым на заданный момент.
+   *
+   * @param order порядок выбора
+   * @param now текущий момент
+   * @return визит, если в очереди есть доступный для вызова визит
+   */
+  Optional<Visit> nextWaitingVisit(WaitingOrder order, Instant now) {
+    List<Visit> current = getVisits();
+    if (current == null) {
+      return Optional.empty();
+    }
+    if (current instanceof WaitingVisitList indexed) {
+      return Optional.ofNullable(indexed.first(order, now));
+    }
+    return order.scan(current, now);
   }
 }
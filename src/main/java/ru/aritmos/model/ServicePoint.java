@@ -45,4 +45,37 @@ public class ServicePoint extends BranchEntityWithVisits {
   public ServicePoint(String name) {
     super(name);
   }
+
+  /**
+   * Сокращённое представление точки обслуживания для событий.
+   *
+   * <p>Содержит текущий визит и сотрудника, но не содержит визитов пула точки обслуживания и групп
+   * отделений сотрудника из Keycloak.
+   *
+   * @return копия точки обслуживания без пула визитов
+   */
+  public ServicePoint toSlim() {
+    ServicePoint slim = new ServicePoint(getId(), getName());
+    slim.setBranchId(getBranchId());
+    slim.setVisit(visit);
+    slim.setAutoCallMode(autoCallMode);
+    slim.setIsConfirmRequired(isConfirmRequired);
+    if (user != null) {
+      User slimUser = new User(user.getId(), user.getName(), null);
+      slimUser.setIsAdmin(user.getIsAdmin());
+      slimUser.setFirstName(user.getFirstName());
+      slimUser.setLastName(user.getLastName());
+      slimUser.setEmail(user.getEmail());
+      slimUser.setCurrentWorkProfileId(user.getCurrentWorkProfileId());
+      slimUser.setServicePointId(user.getServicePointId());
+      slimUser.setBranchId(user.getBranchId());
+      slimUser.setLastBreakStartTime(user.getLastBreakStartTime());
+      slimUser.setLastBreakEndTime(user.getLastBreakEndTime());
+      slimUser.setLastBreakReason(user.getLastBreakReason());
+      slimUser.setLastServicePointId(user.getLastServicePointId());
+      slimUser.setLastBranchId(user.getLastBranchId());
+      slim.setUser(slimUser);
+    }
+    return slim;
+  }
 }
@@ -0,0 +1,116 @@
+package ru.aritmos.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс расположения визитов отделения (id визита -> места размещения).
+ *
+ * <p>Поддерживается методами {@link Branch#updateVisit} под блокировкой отделения и является
+ * источником истины при удалении визита из прежних мест размещения. Записи индекса хранят только
+ * тип и идентификатор места, поэтому замена очередей и точек обслуживания через конфигурацию не
+ * ломает индекс: при обращении место перепроверяется. Индекс заполняется полным просмотром
+ * отделения один раз — при первом обращении к отделению, полученному без индекса (десериализация,
+ * перенос состояния), либо явным вызовом {@link Branch#rebuildVisitIndex()}.
+ */
+final class VisitIndex {
+
+  /** Тип места размещения визита. */
+  enum Kind {
+    /** Очередь. */
+    QUEUE,
+    /** Текущий визит точки обслуживания. */
+    SERVICE_POINT,
+    /** Пул точки обслуживания. */
+    SERVICE_POINT_POOL,
+    /** Пул сотрудника, работающего на точке обслуживания. */
+    USER_POOL
+  }
+
+  /**
+   * Место размещения визита.
+   *
+   * @param kind тип места
+   * @param ownerId идентификатор очереди или точки обслуживания
+   */
+  record Location(Kind kind, String ownerId) {}
+
+  /** Места размещения визитов (id визита -> места). */
+  private final ConcurrentHashMap<String, List<Location>> locations = new ConcurrentHashMap<>();
+
+  /** Признак заполнения индекса полным просмотром отделения. */
+  private volatile boolean built;
+
+  /**
+   * Признак заполнения индекса полным просмотром отделения.
+   *
+   * @return {@code true}, если индекс заполнен
+   */
+  boolean isBuilt() {
+    return built;
+  }
+
+  /**
+   * Замена содержимого индекса результатом полного просмотра отделения.
+   *
+   * @param visitLocations места размещения визитов (id визита -> места)
+   */
+  void replaceAll(Map<String, List<Location>> visitLocations) {
+    locations.clear();
+    visitLocations.forEach(this::put);
+    built = true;
+  }
+
+  /** Сброс индекса: при следующем обращении он будет заполнен заново. */
+  void invalidate() {
+    built = false;
+    locations.clear();
+  }
+
+  /**
+   * Места размещения визита.
+   *
+   * @param visitId идентификатор визита
+   * @return места размещения либо {@code null}, если визит не проиндексирован
+   */
+  List<Location> get(String visitId) {
+    return visitId == null ? null : locations.get(visitId);
+  }
+
+  /**
+   * Сохранение мест размещения визита; пустой перечень удаляет визит из индекса.
+   *
+   * @param visitId идентификатор визита
+   * @param visitLocations места размещения
+   */
+  void put(String visitId, List<Location> visitLocations) {
+    if (visitId == null) {
+      return;
+    }
+    if (visitLocations.isEmpty()) {
+      locations.remove(visitId);
+    } else {
+      locations.put(visitId, List.copyOf(visitLocations));
+    }
+  }
+
+  /**
+   * Удаление визита из индекса.
+   *
+   * @param visitId идентификатор визита
+   * @return прежние места размещения либо {@code null}
+   */
+  List<Location> remove(String visitId) {
+    return visitId == null ? null : locations.remove(visitId);
+  }
+
+  /**
+   * Количество проиндексированных визитов.
+   *
+   * @return количество визитов
+   */
+  int size() {
+    return locations.size();
+  }
+}
@@ -0,0 +1,204 @@
+package ru.aritmos.model;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import ru.aritmos.model.visit.Visit;
+
+/**
+ * Порядок выбора ожидающего визита правилами вызова.
+ *
+ * <p>Визиты сравниваются по точным моментам времени, а не по длительностям в секундах, поэтому
+ * порядок не меняется с течением времени и может поддерживаться индексом очереди.
+ */
+public enum WaitingOrder {
+  /**
+   * Максимальное время ожидания: сначала визиты, перенесённые в начало очереди (раньше перенесённые
+   * первыми), затем по наиболее раннему началу ожидания (возврат, перевод либо создание визита).
+   */
+  MAX_WAITING_TIME,
+  /**
+   * Максимальное время жизни: сначала возвращённые визиты (раньше возвращённые первыми), затем по
+   * наиболее раннему времени создания.
+   */
+  MAX_LIFE_TIME;
+
+  /** Параметр визита с датой переноса в начало очереди. */
+  static final String TRANSFERRED_TO_START = "isTransferredToStart";
+
+  /** Формат даты переноса в начало очереди. */
+  private static final DateTimeFormatter TRANSFERRED_TO_START_FORMAT =
+      DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+
+  /**
+   * Ранг визита: чем меньше, тем раньше визит должен быть вызван.
+   *
+   * @param group группа визита (перенесённые или возвращённые визиты имеют меньшую группу)
+   * @param primary основной момент времени сравнения
+   * @param secondary дополнительный момент времени сравнения
+   */
+  record Rank(int group, Instant primary, Instant secondary) implements Comparable<Rank> {
+    @Override
+    public int compareTo(Rank other) {
+      int result = Integer.compare(group, other.group);
+      if (result == 0) {
+        result = primary.compareTo(other.primary);
+      }
+      return result == 0 ? secondary.compareTo(other.secondary) : result;
+    }
+  }
+
+  /**
+   * Компаратор визитов: первым идёт визит, который следует вызвать раньше.
+   *
+   * @return компаратор визитов
+   */
+  public Comparator<Visit> comparator() {
+    return Comparator.comparing(this::rank);
+  }
+
+  /**
+   * Визит, который следует вызвать первым из нескольких очередей; при равенстве выбирается визит
+   * очереди, идущей раньше в перечне.
+   *
+   * @param queues очереди
+   * @return визит, если в очередях есть доступный для вызова визит
+   */
+  public Optional<Visit> next(Collection<Queue> queues) {
+    Instant now = Instant.now();
+    return queues.stream()
+        .map(queue -> queue.nextWaitingVisit(this, now))
+        .flatMap(Optional::stream)
+        .min(comparator());
+  }
+
+  /**
+   * Выбор визита полным просмотром списка (для списков без индекса).
+   *
+   * @param visits визиты
+   * @param now текущий момент
+   * @return визит, если в списке есть доступный для вызова визит
+   */
+  Optional<Visit> scan(Collection<Visit> visits, Instant now) {
+    return visits.stream().filter(visit -> isCallable(visit, now)).min(comparator());
+  }
+
+  /**
+   * Ранг визита в данном порядке.
+   *
+   * @param visit визит
+   * @return ранг визита
+   */
+  Rank rank(Visit visit) {
+    if (this == MAX_LIFE_TIME) {
+      Instant created = instant(visit.getCreateDateTime());
+      return visit.getReturnDateTime() != null
+          ? new Rank(0, visit.getReturnDateTime().toInstant(), created)
+          : new Rank(1, created, created);
+    }
+    Map<String, String> parameters = visit.getParameterMap();
+    String transferredToStart = parameters != null ? parameters.get(TRANSFERRED_TO_START) : null;
+    if (transferredToStart != null) {
+      ZonedDateTime transferred = parseTransferredToStart(transferredToStart);
+      return new Rank(
+          0,
+          instant(
+              transferred != null
+                  ? transferred
+                  : firstNonNull(
+                      visit.getTransferDateTime(),
+                      visit.getReturnDateTime(),
+                      visit.getCreateDateTime())),
+          Instant.MAX);
+    }
+    return new Rank(
+        1,
+        instant(
+            firstNonNull(
+                visit.getReturnDateTime(), visit.getTransferDateTime(), visit.getCreateDateTime())),
+        Instant.MAX);
+  }
+
+  /**
+   * Разбор даты переноса визита в начало очереди.
+   *
+   * @param value значение параметра {@code isTransferredToStart}
+   * @return дата переноса либо {@code null}, если значение не является датой (например, "true")
+   */
+  public static ZonedDateTime parseTransferredToStart(String value) {
+    try {
+      return ZonedDateTime.parse(value, TRANSFERRED_TO_START_FORMAT);
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Признак визита, ожидающего вызова.
+   *
+   * @param visit визит
+   * @return истина, если статус визита - ожидание
+   */
+  static boolean isWaiting(Visit visit) {
+    return visit.getStatus() != null && visit.getStatus().contains("WAITING");
+  }
+
+  /**
+   * Момент, начиная с которого возвращённый или переведённый визит может быть вызван.
+   *
+   * @param visit визит
+   * @return момент окончания задержки либо {@code null}, если задержки нет
+   */
+  static Instant eligibleAt(Visit visit) {
+    Instant afterReturn = delayEnd(visit.getReturnDateTime(), visit.getReturnTimeDelay());
+    Instant afterTransfer = delayEnd(visit.getTransferDateTime(), visit.getTransferTimeDelay());
+    if (afterReturn == null) {
+      return afterTransfer;
+    }
+    return afterTransfer == null || afterReturn.isAfter(afterTransfer)
+        ? afterReturn
+        : afterTransfer;
+  }
+
+  /**
+   * Признак визита, доступного для вызова в данный момент.
+   *
+   * @param visit визит
+   * @param now текущий момент
+   * @return истина, если визит ожидает вызова и его задержка истекла
+   */
+  static boolean isCallable(Visit visit, Instant now) {
+    if (visit == null || !isWaiting(visit)) {
+      return false;
+    }
+    Instant eligibleAt = eligibleAt(visit);
+    return eligibleAt == null || !eligibleAt.isAfter(now);
+  }
+
+  private static Instant delayEnd(ZonedDateTime from, Long delay) {
+    if (from == null) {
+      return null;
+    }
+    return from.toInstant().plusSeconds(delay != null ? delay : 0L);
+  }
+
+  private static Instant instant(ZonedDateTime dateTime) {
+    // Визит без времени начала ожидания считается только что поставленным
+    return dateTime != null ? dateTime.toInstant() : Instant.MAX;
+  }
+
+  private static ZonedDateTime firstNonNull(ZonedDateTime... dateTimes) {
+    for (ZonedDateTime dateTime : dateTimes) {
+      if (dateTime != null) {
+        return dateTime;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,211 @@
+package ru.aritmos.model;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import ru.aritmos.model.visit.Visit;
+
+/**
+ * Индекс ожидающих визитов очереди для правил вызова.
+ *
+ * <p>Для каждого {@link WaitingOrder} визиты, доступные для вызова, хранятся в упорядоченном по
+ * рангу множестве; возвращённые и переведённые визиты с неистёкшей задержкой хранятся отдельно в
+ * порядке окончания задержки и переносятся в упорядоченные множества при обращении к индексу.
+ * Поиск первого визита, добавление и удаление выполняются за O(log n).
+ *
+ * <p>Ранг визита вычисляется при добавлении в очередь. Поля визита, от которых зависит ранг,
+ * перепроверяются, когда визит оказывается первым кандидатом: при расхождении визит заново
+ * размещается в индексе.
+ */
+final class WaitingVisitIndex {
+
+  /** Визиты индекса. */
+  private final Map<Visit, Entry> entries = new IdentityHashMap<>();
+
+  /** Визиты, доступные для вызова, в каждом порядке. */
+  private final Map<WaitingOrder, TreeSet<Entry>> ready = new EnumMap<>(WaitingOrder.class);
+
+  /** Визиты с неистёкшей задержкой возврата или перевода. */
+  private final TreeSet<Entry> delayed =
+      new TreeSet<>(
+          Comparator.comparing((Entry entry) -> entry.eligibleAt)
+              .thenComparingLong(entry -> entry.sequence));
+
+  /** Порядковый номер визита, добавленного в конец очереди. */
+  private long backSequence;
+
+  /** Порядковый номер визита, добавленного в начало очереди. */
+  private long frontSequence;
+
+  /** Создание пустого индекса. */
+  WaitingVisitIndex() {
+    for (WaitingOrder order : WaitingOrder.values()) {
+      ready.put(
+          order,
+          new TreeSet<>(
+              Comparator.comparing((Entry entry) -> entry.ranks.get(order))
+                  .thenComparingLong(entry -> entry.sequence)));
+    }
+  }
+
+  /**
+   * Добавление визита.
+   *
+   * @param visit визит
+   * @param toStart признак добавления в начало очереди (учитывается при равенстве рангов)
+   */
+  synchronized void add(Visit visit, boolean toStart) {
+    if (visit == null) {
+      return;
+    }
+    Entry entry = entries.get(visit);
+    if (entry != null) {
+      entry.count++;
+      return;
+    }
+    entry = new Entry(visit, toStart ? --frontSequence : ++backSequence);
+    entry.refresh();
+    entries.put(visit, entry);
+    place(entry);
+  }
+
+  /**
+   * Удаление визита.
+   *
+   * @param visit визит
+   */
+  synchronized void remove(Object visit) {
+    Entry entry = entries.get(visit);
+    if (entry == null || --entry.count > 0) {
+      return;
+    }
+    entries.remove(visit);
+    unplace(entry);
+  }
+
+  /**
+   * Визит, который следует вызвать первым.
+   *
+   * @param order порядок выбора
+   * @param now текущий момент
+   * @return визит либо {@code null}, если доступных для вызова визитов нет
+   */
+  synchronized Visit first(WaitingOrder order, Instant now) {
+    promote(now);
+    Entry stale;
+    do {
+      stale = null;
+      for (Entry entry : ready.get(order)) {
+        if (!entry.matches()) {
+          stale = entry;
+          break;
+        }
+        if (WaitingOrder.isWaiting(entry.visit)) {
+          return entry.visit;
+        }
+      }
+      if (stale != null) {
+        unplace(stale);
+        stale.refresh();
+        place(stale);
+        promote(now);
+      }
+    } while (stale != null);
+    return null;
+  }
+
+  /**
+   * Количество визитов индекса.
+   *
+   * @return количество визитов
+   */
+  synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Перенос визитов с истёкшей задержкой в упорядоченные множества.
+   *
+   * @param now текущий момент
+   */
+  private void promote(Instant now) {
+    while (!delayed.isEmpty() && !delayed.first().eligibleAt.isAfter(now)) {
+      Entry entry = delayed.pollFirst();
+      ready.values().forEach(set -> set.add(entry));
+    }
+  }
+
+  private void place(Entry entry) {
+    if (entry.eligibleAt != null) {
+      delayed.add(entry);
+    } else {
+      ready.values().forEach(set -> set.add(entry));
+    }
+  }
+
+  private void unplace(Entry entry) {
+    if (entry.eligibleAt != null) {
+      delayed.remove(entry);
+    }
+    ready.values().forEach(set -> set.remove(entry));
+  }
+
+  /** Запись индекса: визит и значения полей, по которым вычислен его ранг. */
+  private static final class Entry {
+    private final Visit visit;
+    private final long sequence;
+    private final Map<WaitingOrder, WaitingOrder.Rank> ranks = new EnumMap<>(WaitingOrder.class);
+    private int count = 1;
+    private Instant eligibleAt;
+    private ZonedDateTime createDateTime;
+    private ZonedDateTime returnDateTime;
+    private ZonedDateTime transferDateTime;
+    private Long returnTimeDelay;
+    private Long transferTimeDelay;
+    private String transferredToStart;
+
+    private Entry(Visit visit, long sequence) {
+      this.visit = visit;
+      this.sequence = sequence;
+    }
+
+    /** Пересчёт ранга по текущим полям визита. */
+    private void refresh() {
+      createDateTime = visit.getCreateDateTime();
+      returnDateTime = visit.getReturnDateTime();
+      transferDateTime = visit.getTransferDateTime();
+      returnTimeDelay = visit.getReturnTimeDelay();
+      transferTimeDelay = visit.getTransferTimeDelay();
+      transferredToStart = transferredToStart(visit);
+      eligibleAt = WaitingOrder.eligibleAt(visit);
+      for (WaitingOrder order : WaitingOrder.values()) {
+        ranks.put(order, order.rank(visit));
+      }
+    }
+
+    /**
+     * Проверка, что поля визита не менялись с момента вычисления ранга.
+     *
+     * @return истина, если ранг актуален
+     */
+    private boolean matches() {
+      return Objects.equals(createDateTime, visit.getCreateDateTime())
+          && Objects.equals(returnDateTime, visit.getReturnDateTime())
+          && Objects.equals(transferDateTime, visit.getTransferDateTime())
+          && Objects.equals(returnTimeDelay, visit.getReturnTimeDelay())
+          && Objects.equals(transferTimeDelay, visit.getTransferTimeDelay())
+          && Objects.equals(transferredToStart, transferredToStart(visit));
+    }
+
+    private static String transferredToStart(Visit visit) {
+      return visit.getParameterMap() != null
+          ? visit.getParameterMap().get(WaitingOrder.TRANSFERRED_TO_START)
+          : null;
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package ru.aritmos.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import ru.aritmos.model.visit.Visit;
+
+/**
+ * Список визитов очереди, поддерживающий {@link WaitingVisitIndex}.
+ *
+ * <p>Добавление и удаление отдельных визитов (в том числе через итератор и {@link #removeIf})
+ * обновляют индекс. После остальных изменений (сортировка, вставка пачки в середину, изменения
+ * через подсписок) индекс перестраивается при следующем обращении: расхождение обнаруживается по
+ * счётчику изменений списка.
+ */
+final class WaitingVisitList extends ArrayList<Visit> {
+
+  private static final long serialVersionUID = 1L;
+
+  /** Индекс визитов (создаётся при первом обращении). */
+  private transient WaitingVisitIndex index;
+
+  /** Значение счётчика изменений списка, которому соответствует индекс. */
+  private transient int indexedModCount;
+
+  /** Создание пустого списка. */
+  WaitingVisitList() {
+    super();
+  }
+
+  /**
+   * Создание списка с заданными визитами.
+   *
+   * @param visits визиты
+   */
+  WaitingVisitList(Collection<? extends Visit> visits) {
+    super(visits);
+  }
+
+  /**
+   * Визит, который следует вызвать первым.
+   *
+   * @param order порядок выбора
+   * @param now текущий момент
+   * @return визит либо {@code null}
+   */
+  Visit first(WaitingOrder order, Instant now) {
+    return index().first(order, now);
+  }
+
+  @Override
+  public boolean add(Visit visit) {
+    boolean synced = isSynced();
+    super.add(visit);
+    if (synced) {
+      index.add(visit, false);
+      indexedModCount = modCount;
+    }
+    return true;
+  }
+
+  @Override
+  public void add(int position, Visit visit) {
+    boolean synced = isSynced();
+    super.add(position, visit);
+    if (synced) {
+      index.add(visit, position == 0);
+      indexedModCount = modCount;
+    }
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends Visit> visits) {
+    boolean synced = isSynced();
+    boolean changed = super.addAll(visits);
+    if (synced) {
+      visits.forEach(visit -> index.add(visit, false));
+      indexedModCount = modCount;
+    }
+    return changed;
+  }
+
+  @Override
+  public Visit remove(int position) {
+    boolean synced = isSynced();
+    Visit removed = super.remove(position);
+    if (synced) {
+      index.remove(removed);
+      indexedModCount = modCount;
+    }
+    return removed;
+  }
+
+  @Override
+  public boolean remove(Object visit) {
+    // Удаляется найденный по equals элемент списка, поэтому из индекса удаляется именно он
+    int position = indexOf(visit);
+    if (position < 0) {
+      return false;
+    }
+    remove(position);
+    return true;
+  }
+
+  @Override
+  public boolean removeIf(Predicate<? super Visit> filter) {
+    boolean synced = isSynced();
+    ArrayList<Visit> removed = new ArrayList<>();
+    boolean changed =
+        super.removeIf(
+            visit -> {
+              if (filter.test(visit)) {
+                removed.add(visit);
+                return true;
+              }
+              return false;
+            });
+    if (synced) {
+      removed.forEach(index::remove);
+      indexedModCount = modCount;
+    }
+    return changed;
+  }
+
+  @Override
+  public Visit set(int position, Visit visit) {
+    boolean synced = isSynced();
+    Visit replaced = super.set(position, visit);
+    if (synced) {
+      index.remove(replaced);
+      index.add(visit, position == 0);
+    }
+    return replaced;
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    index = null;
+  }
+
+  @Override
+  public void replaceAll(UnaryOperator<Visit> operator) {
+    super.replaceAll(operator);
+    index = null;
+  }
+
+  @Override
+  public void sort(Comparator<? super Visit> comparator) {
+    super.sort(comparator);
+    index = null;
+  }
+
+  @Override
+  public WaitingVisitList clone() {
+    WaitingVisitList copy = (WaitingVisitList) super.clone();
+    copy.index = null;
+    return copy;
+  }
+
+  private boolean isSynced() {
+    return index != null && indexedModCount == modCount;
+  }
+
+  /**
+   * Индекс, соответствующий текущему содержимому списка.
+   *
+   * @return индекс визитов
+   */
+  private WaitingVisitIndex index() {
+    if (!isSynced()) {
+      WaitingVisitIndex rebuilt = new WaitingVisitIndex();
+      forEach(visit -> rebuilt.add(visit, false));
+      index = rebuilt;
+      indexedModCount = modCount;
+    }
+    return index;
+  }
+}
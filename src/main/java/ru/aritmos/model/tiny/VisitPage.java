@@ -0,0 +1,31 @@
+package ru.aritmos.model.tiny;
+
+import io.micronaut.core.annotation.Introspected;
+import io.micronaut.serde.annotation.Serdeable;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Страница списка визитов в виде проекций с выбранными полями */
+@Data
+@Introspected
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Serdeable
+public class VisitPage {
+  /** Проекции визитов страницы (имя поля -> значение) */
+  @Schema(description = "Визиты страницы, каждый содержит только запрошенные поля")
+  private List<Map<String, Object>> items;
+
+  /** Курсор следующей страницы ({@code null} - страница последняя) */
+  @Schema(nullable = true, description = "Курсор следующей страницы")
+  private String nextCursor;
+
+  /** Количество визитов, удовлетворяющих условиям выборки */
+  private Integer total;
+}
@@ -250,6 +250,20 @@ public class Visit {
     return servingTime >= 0 ? servingTime : 0;
   }
 
+  /**
+   * История событий визита с индексом последних значений параметров.
+   *
+   * <p>Если события визита хранятся в обычном списке (например, после десериализации), список
+   * заменяется историей {@link VisitEventHistory} с теми же событиями.
+   *
+   * @return история событий визита
+   */
+  public VisitEventHistory eventHistory() {
+    VisitEventHistory history = VisitEventHistory.of(events);
+    events = history;
+    return history;
+  }
+
   //  @JsonGetter
   //  public ArrayList<ArrayList<VisitEventInformation>> getEvents() {
   //
@@ -0,0 +1,61 @@
+package ru.aritmos.model.visit;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.serde.annotation.Serdeable;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.ZonedDateTime;
+
+/**
+ * Изменение размещения или статуса визита в потоке изменений отделения.
+ *
+ * <p>Изменения отделения нумеруются последовательно начиная с 1; по номеру последнего полученного
+ * изменения клиент возобновляет поток после переподключения. Запись {@link Type#RESYNC} означает,
+ * что часть изменений уже недоступна и состояние отделения нужно запросить заново.
+ *
+ * @param sequence номер изменения в пределах отделения
+ * @param branchId идентификатор отделения
+ * @param type тип изменения
+ * @param visitId идентификатор визита
+ * @param ticket номер талона
+ * @param status статус визита
+ * @param queueId очередь визита
+ * @param servicePointId точка обслуживания, обслуживающая визит
+ * @param poolServicePointId точка обслуживания, в пуле которой находится визит
+ * @param poolUserId сотрудник, в пуле которого находится визит
+ * @param previousQueueId очередь визита до изменения
+ * @param previousServicePointId точка обслуживания визита до изменения
+ * @param dateTime время изменения
+ */
+@Serdeable
+@Schema(description = "Изменение визита в потоке изменений отделения")
+public record VisitDelta(
+    long sequence,
+    String branchId,
+    Type type,
+    @Nullable String visitId,
+    @Nullable String ticket,
+    @Nullable String status,
+    @Nullable String queueId,
+    @Nullable String servicePointId,
+    @Nullable String poolServicePointId,
+    @Nullable String poolUserId,
+    @Nullable String previousQueueId,
+    @Nullable String previousServicePointId,
+    ZonedDateTime dateTime) {
+
+  /** Тип изменения визита. */
+  public enum Type {
+    /** Визит появился в отделении. */
+    ADDED,
+    /** Визит перемещён (очередь, точка обслуживания или пул). */
+    MOVED,
+    /** Изменился статус визита без перемещения. */
+    STATUS_CHANGED,
+    /** Изменились прочие данные визита. */
+    UPDATED,
+    /** Визит покинул отделение. */
+    REMOVED,
+    /** Запрошенные изменения недоступны: требуется заново получить состояние отделения. */
+    RESYNC
+  }
+}
@@ -2,19 +2,17 @@ package ru.aritmos.model.visit;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import io.micronaut.serde.annotation.Serdeable;
-import java.time.ZonedDateTime;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-import lombok.NoArgsConstructor;
 
-/** Перечень событий жизненного цикла визита. */
+/**
+ * Перечень событий жизненного цикла визита.
+ *
+ * <p>Константы не хранят параметров и времени конкретного перехода: они передаются в {@link
+ * VisitTransition}.
+ */
 @Serdeable
 @JsonFormat
-@AllArgsConstructor
-@NoArgsConstructor
 public enum VisitEvent {
   /** Визит создан */
   CREATED,
@@ -192,15 +190,6 @@ public enum VisitEvent {
           Map.entry(DELETED_DELIVERED_SERVICE_RESULT, VisitState.SERVING),
           Map.entry(DELETED_SERVICE_RESULT, VisitState.SERVING));
 
-  /** Дополнительные параметры события. */
-  @Getter final Map<String, String> parameters = new HashMap<>();
-
-  /** Время наступления события. */
-  @JsonFormat public ZonedDateTime dateTime;
-
-  /** Состояние визита, соответствующее данному событию. */
-  VisitState visitState;
-
   /**
    * Проверка: является ли событие началом новой транзакции.
    *
@@ -253,9 +242,10 @@ public enum VisitEvent {
    * @return истина, если событие допустимо
    */
   public boolean canBeNext(VisitEvent next) {
-    if (nextStates.containsKey(this.visitState)) {
-      return nextStates.get(this.getState()).stream().anyMatch(e -> e.equals(next.getState()))
-          || this.getState().equals(next.getState());
+    VisitState state = this.getState();
+    if (state != null && nextStates.containsKey(state)) {
+      return nextStates.get(state).stream().anyMatch(e -> e.equals(next.getState()))
+          || state.equals(next.getState());
     }
     return true;
   }
@@ -266,7 +256,6 @@ public enum VisitEvent {
    * @return состояние визита
    */
   public VisitState getState() {
-    visitState = visitStateMap.get(this);
-    return visitState;
+    return visitStateMap.get(this);
   }
 }
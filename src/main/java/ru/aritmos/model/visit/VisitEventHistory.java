@@ -0,0 +1,176 @@
+package ru.aritmos.model.visit;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * История событий визита с индексом последних значений параметров.
+ *
+ * <p>Список хранит события в порядке добавления, как и обычный список {@link Visit#getEvents()}, и
+ * сериализуется так же. Дополнительно поддерживается индекс «параметр -> последнее непустое
+ * значение» (время события хранится в секундах эпохи) и ссылка на последнее по времени событие,
+ * поэтому последний сотрудник, точка обслуживания или рабочий профиль визита определяются без
+ * обхода истории. При добавлении события методами {@link #add} индекс дополняется; при любых других
+ * изменениях списка индекс перестраивается при следующем обращении.
+ *
+ * <p>Старые события можно отбросить методом {@link #truncate(int)}: индекс при этом сохраняет
+ * значения параметров из отброшенных событий.
+ */
+public class VisitEventHistory extends ArrayList<VisitEventInformation> {
+
+  /** Последнее значение параметра. */
+  private record LastValue(String value, long epochSecond) {}
+
+  /** Последние непустые значения параметров (параметр -> значение). */
+  private final transient Map<String, LastValue> lastValues = new HashMap<>();
+
+  /** Последнее по времени событие. */
+  private transient VisitEventInformation lastEvent;
+
+  /** Значение {@code modCount}, соответствующее индексу. */
+  private transient int indexedModCount;
+
+  /** Создание пустой истории. */
+  public VisitEventHistory() {
+    super();
+  }
+
+  /**
+   * Создание истории из списка событий (например, после десериализации визита).
+   *
+   * <p>Ключи параметров событий интернируются, чтобы одинаковые ключи разных событий не хранились в
+   * памяти отдельными строками.
+   *
+   * @param events события визита
+   */
+  public VisitEventHistory(Collection<VisitEventInformation> events) {
+    super(events.size());
+    for (VisitEventInformation event : events) {
+      if (event.getParameters() != null && !event.getParameters().isEmpty()) {
+        Map<String, String> parameters = new HashMap<>(event.getParameters().size());
+        event.getParameters().forEach((key, value) -> parameters.put(key.intern(), value));
+        event.setParameters(parameters);
+      }
+      add(event);
+    }
+  }
+
+  /**
+   * Приведение списка событий визита к истории событий.
+   *
+   * @param events список событий (может быть {@code null})
+   * @return тот же список, если он уже является историей, иначе новая история с теми же событиями
+   */
+  public static VisitEventHistory of(Collection<VisitEventInformation> events) {
+    if (events instanceof VisitEventHistory history) {
+      return history;
+    }
+    return events != null ? new VisitEventHistory(events) : new VisitEventHistory();
+  }
+
+  @Override
+  public boolean add(VisitEventInformation event) {
+    boolean indexed = indexedModCount == modCount;
+    super.add(event);
+    if (indexed) {
+      index(event);
+      indexedModCount = modCount;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends VisitEventInformation> events) {
+    boolean changed = false;
+    for (VisitEventInformation event : events) {
+      changed |= add(event);
+    }
+    return changed;
+  }
+
+  /**
+   * Последнее по времени непустое значение параметра событий.
+   *
+   * <p>Если несколько событий с параметром зафиксированы в одну и ту же секунду, возвращается
+   * значение первого из них.
+   *
+   * @param key параметр события
+   * @return значение параметра либо пустое значение
+   */
+  public Optional<String> lastValue(String key) {
+    ensureIndexed();
+    LastValue value = lastValues.get(key);
+    return value != null ? Optional.of(value.value()) : Optional.empty();
+  }
+
+  /**
+   * Последнее по времени событие визита.
+   *
+   * @return событие либо пустое значение, если событий со временем нет
+   */
+  public Optional<VisitEventInformation> lastEvent() {
+    ensureIndexed();
+    return Optional.ofNullable(lastEvent);
+  }
+
+  /**
+   * Отбрасывание старых событий сверх лимита с сохранением индекса параметров.
+   *
+   * @param maxEvents максимальное количество хранимых событий ({@code 0} - без ограничения)
+   * @return количество отброшенных событий
+   */
+  public int truncate(int maxEvents) {
+    if (maxEvents <= 0 || size() <= maxEvents) {
+      return 0;
+    }
+    ensureIndexed();
+    int dropped = size() - maxEvents;
+    removeRange(0, dropped);
+    indexedModCount = modCount;
+    return dropped;
+  }
+
+  /** Перестроение индекса, если список изменялся в обход {@link #add}. */
+  private void ensureIndexed() {
+    if (indexedModCount != modCount) {
+      lastValues.clear();
+      lastEvent = null;
+      forEach(this::index);
+      indexedModCount = modCount;
+    }
+  }
+
+  /**
+   * Учёт события в индексе.
+   *
+   * @param event событие визита
+   */
+  private void index(VisitEventInformation event) {
+    ZonedDateTime dateTime = event != null ? event.getEventDateTime() : null;
+    if (dateTime == null) {
+      return;
+    }
+    if (lastEvent == null || dateTime.isAfter(lastEvent.getEventDateTime())) {
+      lastEvent = event;
+    }
+    if (event.getParameters() == null) {
+      return;
+    }
+    long epochSecond = dateTime.toEpochSecond();
+    event
+        .getParameters()
+        .forEach(
+            (key, value) -> {
+              if (value != null && !value.isEmpty()) {
+                LastValue last = lastValues.get(key);
+                if (last == null || epochSecond > last.epochSecond()) {
+                  lastValues.put(key, new LastValue(value, epochSecond));
+                }
+              }
+            });
+  }
+}
@@ -0,0 +1,150 @@
+package ru.aritmos.model.visit;
+
+import io.micronaut.serde.annotation.Serdeable;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Переход визита: событие, время его наступления и параметры.
+ *
+ * <p>Экземпляр неизменяем и создаётся на каждый переход, поэтому параллельные операции с визитами
+ * не затирают параметры событий друг друга. Для пошагового заполнения параметров используется
+ * {@link Builder}.
+ *
+ * @param event событие визита
+ * @param dateTime время наступления события
+ * @param parameters дополнительные параметры события (значения могут быть {@code null})
+ */
+@Serdeable
+public record VisitTransition(
+    VisitEvent event, ZonedDateTime dateTime, Map<String, String> parameters) {
+
+  /**
+   * Создание перехода; время по умолчанию - текущее, параметры копируются.
+   *
+   * @param event событие визита
+   * @param dateTime время наступления события
+   * @param parameters дополнительные параметры события
+   */
+  public VisitTransition {
+    Objects.requireNonNull(event, "event");
+    dateTime = dateTime != null ? dateTime : ZonedDateTime.now();
+    parameters =
+        parameters == null || parameters.isEmpty()
+            ? Map.of()
+            : Collections.unmodifiableMap(new HashMap<>(parameters));
+  }
+
+  /**
+   * Переход без параметров, наступивший сейчас.
+   *
+   * @param event событие визита
+   * @return переход
+   */
+  public static VisitTransition of(VisitEvent event) {
+    return new VisitTransition(event, null, null);
+  }
+
+  /**
+   * Переход с параметрами, наступивший сейчас.
+   *
+   * @param event событие визита
+   * @param parameters параметры события
+   * @return переход
+   */
+  public static VisitTransition of(VisitEvent event, Map<String, String> parameters) {
+    return new VisitTransition(event, null, parameters);
+  }
+
+  /**
+   * Построитель перехода.
+   *
+   * @param event событие визита
+   * @return построитель
+   */
+  public static Builder builder(VisitEvent event) {
+    return new Builder(event);
+  }
+
+  /**
+   * Состояние визита после перехода.
+   *
+   * @return состояние визита
+   */
+  public VisitState state() {
+    return event.getState();
+  }
+
+  /**
+   * Имя события перехода.
+   *
+   * @return имя события
+   */
+  public String name() {
+    return event.name();
+  }
+
+  /** Построитель перехода; принадлежит одной операции и не разделяется между потоками. */
+  public static final class Builder {
+    private final VisitEvent event;
+    private final Map<String, String> parameters = new HashMap<>();
+    private ZonedDateTime dateTime;
+
+    private Builder(VisitEvent event) {
+      this.event = event;
+    }
+
+    /**
+     * Изменяемые параметры будущего перехода.
+     *
+     * @return параметры
+     */
+    public Map<String, String> getParameters() {
+      return parameters;
+    }
+
+    /**
+     * Добавление параметра.
+     *
+     * @param key имя параметра
+     * @param value значение параметра
+     * @return построитель
+     */
+    public Builder parameter(String key, String value) {
+      parameters.put(key, value);
+      return this;
+    }
+
+    /**
+     * Время наступления события.
+     *
+     * @param dateTime время
+     * @return построитель
+     */
+    public Builder dateTime(ZonedDateTime dateTime) {
+      this.dateTime = dateTime;
+      return this;
+    }
+
+    /**
+     * Событие будущего перехода.
+     *
+     * @return событие визита
+     */
+    public VisitEvent getEvent() {
+      return event;
+    }
+
+    /**
+     * Создание неизменяемого перехода.
+     *
+     * @return переход
+     */
+    public VisitTransition build() {
+      return new VisitTransition(event, dateTime, parameters);
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package ru.aritmos.service;
+
+import io.micronaut.core.annotation.Nullable;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import ru.aritmos.model.Branch;
+
+/**
+ * Различия конфигурации отделения между опубликованной и новой версиями.
+ *
+ * <p>Для каждой категории сущностей (услуги, очереди, точки обслуживания, рабочие профили, правила
+ * сегментации) хранятся идентификаторы добавленных и удалённых сущностей. Сущности, присутствующие
+ * в обеих версиях, считаются обновлёнными: их живое состояние (визиты, сотрудники, счётчики
+ * талонов) переносится в новую версию (см. {@link Branch#adoptState(Branch)}).
+ *
+ * @param addedServices добавленные услуги
+ * @param removedServices удалённые услуги
+ * @param addedQueues добавленные очереди
+ * @param removedQueues удалённые очереди
+ * @param addedServicePoints добавленные точки обслуживания
+ * @param removedServicePoints удалённые точки обслуживания
+ * @param addedWorkProfiles добавленные рабочие профили
+ * @param removedWorkProfiles удалённые рабочие профили
+ * @param addedSegmentationRules добавленные правила сегментации
+ * @param removedSegmentationRules удалённые правила сегментации
+ */
+public record BranchConfigurationDiff(
+    Set<String> addedServices,
+    Set<String> removedServices,
+    Set<String> addedQueues,
+    Set<String> removedQueues,
+    Set<String> addedServicePoints,
+    Set<String> removedServicePoints,
+    Set<String> addedWorkProfiles,
+    Set<String> removedWorkProfiles,
+    Set<String> addedSegmentationRules,
+    Set<String> removedSegmentationRules) {
+
+  /**
+   * Вычисление различий конфигурации отделения.
+   *
+   * @param previous опубликованная версия отделения ({@code null} - отделение новое)
+   * @param next новая версия отделения
+   * @return различия версий
+   */
+  public static BranchConfigurationDiff of(@Nullable Branch previous, Branch next) {
+    Branch before = previous != null ? previous : new Branch();
+    return new BranchConfigurationDiff(
+        added(before.getServices(), next.getServices()),
+        added(next.getServices(), before.getServices()),
+        added(before.getQueues(), next.getQueues()),
+        added(next.getQueues(), before.getQueues()),
+        added(before.getServicePoints(), next.getServicePoints()),
+        added(next.getServicePoints(), before.getServicePoints()),
+        added(before.getWorkProfiles(), next.getWorkProfiles()),
+        added(next.getWorkProfiles(), before.getWorkProfiles()),
+        added(before.getSegmentationRules(), next.getSegmentationRules()),
+        added(next.getSegmentationRules(), before.getSegmentationRules()));
+  }
+
+  /**
+   * Проверка отсутствия добавленных и удалённых сущностей.
+   *
+   * @return {@code true}, если состав сущностей отделения не изменился
+   */
+  public boolean isStructureUnchanged() {
+    return addedServices.isEmpty()
+        && removedServices.isEmpty()
+        && addedQueues.isEmpty()
+        && removedQueues.isEmpty()
+        && addedServicePoints.isEmpty()
+        && removedServicePoints.isEmpty()
+        && addedWorkProfiles.isEmpty()
+        && removedWorkProfiles.isEmpty()
+        && addedSegmentationRules.isEmpty()
+        && removedSegmentationRules.isEmpty();
+  }
+
+  /**
+   * Краткое описание различий для журнала и событий публикации.
+   *
+   * @return строка вида {@code services +1/-0, queues +0/-2, ...}
+   */
+  public String summary() {
+    return String.format(
+        "services +%d/-%d, queues +%d/-%d, servicePoints +%d/-%d, workProfiles +%d/-%d,"
+            + " segmentationRules +%d/-%d",
+        addedServices.size(),
+        removedServices.size(),
+        addedQueues.size(),
+        removedQueues.size(),
+        addedServicePoints.size(),
+        removedServicePoints.size(),
+        addedWorkProfiles.size(),
+        removedWorkProfiles.size(),
+        addedSegmentationRules.size(),
+        removedSegmentationRules.size());
+  }
+
+  /**
+   * Идентификаторы сущностей, присутствующих во второй карте и отсутствующих в первой.
+   *
+   * @param from исходная карта
+   * @param to итоговая карта
+   * @return идентификаторы в порядке возрастания
+   */
+  private static Set<String> added(
+      @Nullable Map<String, ?> from, @Nullable Map<String, ?> to) {
+    Set<String> result = new TreeSet<>();
+    if (to != null) {
+      to.keySet().stream().filter(id -> from == null || !from.containsKey(id)).forEach(result::add);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,174 @@
+package ru.aritmos.service;
+
+import io.micronaut.cache.CacheManager;
+import io.micronaut.cache.SyncCache;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.scheduling.annotation.Scheduled;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import ru.aritmos.metrics.Measured;
+import ru.aritmos.model.Branch;
+import ru.aritmos.model.visit.Visit;
+
+/**
+ * Сохранение состояния отделений в кэш по изменениям.
+ *
+ * <p>Каждое изменение визита записывается отдельной записью кэша {@value #VISIT_CACHE} с ключом
+ * {@code <id отделения>:<id визита>}, а полный снимок отделения в кэш {@value #SNAPSHOT_CACHE}
+ * записывается только при периодическом уплотнении. После записи снимка записи визитов этого
+ * отделения удаляются: снимок уже содержит их состояние. Таким образом, на каждое действие с
+ * визитом сериализуется только визит, а не весь граф отделения.
+ *
+ * <p>Запись снимка и уплотнение выполняются под блокировкой отделения (см. {@link
+ * BranchStateStore}), поэтому снимок согласован с записями визитов.
+ *
+ * <p>Те же изменения визитов и снимки при включённом параметре {@code branch-journal.enabled}
+ * дублируются в локальный журнал {@link BranchJournal}, из которого состояние отделений
+ * восстанавливается при запуске.
+ */
+@Slf4j
+@Singleton
+public class BranchDeltaPersistence {
+
+  /** Кэш полных снимков отделений. */
+  static final String SNAPSHOT_CACHE = "branches";
+
+  /** Кэш изменённых визитов отделений. */
+  static final String VISIT_CACHE = "branch-visits";
+
+  /** Менеджер кэшей (отсутствует при создании службы вне контекста приложения). */
+  @Inject @Nullable CacheManager<?> cacheManager;
+
+  /** Хранилище состояния отделений, задающее блокировки отделений. */
+  @Inject BranchStateStore branchStateStore = new BranchStateStore();
+
+  /** Локальный журнал состояния отделений. */
+  @Inject BranchJournal journal = new BranchJournal();
+
+  /** Отделения, изменённые после последнего снимка (id -> отделение). */
+  private final Map<String, Branch> dirtyBranches = new ConcurrentHashMap<>();
+
+  /** Ключи записей визитов, сделанных после последнего снимка (id отделения -> ключи). */
+  private final Map<String, Set<String>> visitKeys = new ConcurrentHashMap<>();
+
+  /**
+   * Регистрация изменения отделения; снимок будет записан при ближайшем уплотнении.
+   *
+   * @param branchId идентификатор отделения
+   * @param branch отделение
+   */
+  public void branchChanged(String branchId, Branch branch) {
+    if (branchId != null && branch != null) {
+      dirtyBranches.put(branchId, branch);
+    }
+  }
+
+  /**
+   * Запись изменённого визита.
+   *
+   * @param branchId идентификатор отделения
+   * @param visit визит
+   */
+  @Measured(value = "branch.persistence", operation = "visit")
+  public void visitChanged(String branchId, Visit visit) {
+    if (branchId == null || visit == null || visit.getId() == null) {
+      return;
+    }
+    journal.visitChanged(branchId, visit);
+    cache(VISIT_CACHE)
+        .ifPresent(
+            cache -> {
+              String key = visitKey(branchId, visit.getId());
+              cache.put(key, visit);
+              visitKeys.computeIfAbsent(branchId, id -> ConcurrentHashMap.newKeySet()).add(key);
+            });
+  }
+
+  /**
+   * Удаление сохранённого состояния отделения.
+   *
+   * @param branchId идентификатор отделения
+   */
+  public void branchDeleted(String branchId) {
+    dirtyBranches.remove(branchId);
+    cache(SNAPSHOT_CACHE).ifPresent(cache -> cache.invalidate(branchId));
+    invalidateVisits(branchId);
+    journal.branchDeleted(branchId);
+  }
+
+  /**
+   * Уплотнение: запись полных снимков изменённых отделений и удаление записей их визитов.
+   *
+   * <p>Период задаётся параметром {@code micronaut.application.branchSnapshotInterval}.
+   */
+  @Scheduled(
+      fixedDelay = "${micronaut.application.branchSnapshotInterval:30s}",
+      initialDelay = "${micronaut.application.branchSnapshotInterval:30s}")
+  @Measured(value = "branch.persistence", operation = "snapshot")
+  public void compact() {
+    for (String branchId : dirtyBranches.keySet()) {
+      branchStateStore.runWithLock(branchId, () -> snapshot(branchId));
+    }
+  }
+
+  /**
+   * Запись снимка отделения (вызывается под блокировкой отделения).
+   *
+   * @param branchId идентификатор отделения
+   */
+  private void snapshot(String branchId) {
+    Branch branch = dirtyBranches.remove(branchId);
+    if (branch == null) {
+      return;
+    }
+    try {
+      cache(SNAPSHOT_CACHE).ifPresent(cache -> cache.put(branchId, branch));
+      invalidateVisits(branchId);
+      journal.snapshot(branchId, branch);
+    } catch (RuntimeException e) {
+      dirtyBranches.putIfAbsent(branchId, branch);
+      log.warn("Branch {} snapshot failed, will retry on next compaction", branchId, e);
+    }
+  }
+
+  /**
+   * Удаление записей визитов отделения.
+   *
+   * @param branchId идентификатор отделения
+   */
+  private void invalidateVisits(String branchId) {
+    Set<String> keys = visitKeys.remove(branchId);
+    if (keys != null) {
+      cache(VISIT_CACHE).ifPresent(cache -> keys.forEach(cache::invalidate));
+    }
+  }
+
+  /**
+   * Ключ записи визита.
+   *
+   * @param branchId идентификатор отделения
+   * @param visitId идентификатор визита
+   * @return ключ записи
+   */
+  static String visitKey(String branchId, String visitId) {
+    return branchId + ":" + visitId;
+  }
+
+  /**
+   * Получение кэша по имени; ненастроенный кэш пропускается.
+   *
+   * @param name имя кэша
+   * @return кэш, если он настроен
+   */
+  private Optional<SyncCache<?>> cache(String name) {
+    if (cacheManager == null || !cacheManager.getCacheNames().contains(name)) {
+      return Optional.empty();
+    }
+    return Optional.of(cacheManager.getCache(name));
+  }
+}
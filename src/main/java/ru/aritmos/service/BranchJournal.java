@@ -0,0 +1,292 @@
+package ru.aritmos.service;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.serde.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import ru.aritmos.model.Branch;
+import ru.aritmos.model.visit.Visit;
+
+/**
+ * Локальный журнал состояния отделений для быстрого восстановления после перезапуска.
+ *
+ * <p>Для каждого отделения в каталоге {@code branch-journal.directory} хранятся снимок отделения
+ * ({@code <id>.snapshot.json}) и журнал изменений визитов ({@code <id>.journal}), в который после
+ * каждого изменения визита дописывается строка JSON с состоянием визита. Снимок записывается при
+ * уплотнении {@link BranchDeltaPersistence#compact()}, после чего журнал отделения очищается.
+ * Запись снимка и журнала выполняется под блокировкой отделения.
+ *
+ * <p>При запуске ({@link #restore}) для каждого отделения параллельно читается снимок, поверх него
+ * применяются изменения визитов из журнала, и отделение сохраняется в {@link BranchService}. Если
+ * снимка нет, изменения применяются к уже опубликованной конфигурации отделения. Повреждённые
+ * строки журнала (например, недописанная при аварийной остановке последняя строка) пропускаются.
+ */
+@Slf4j
+@Singleton
+public class BranchJournal {
+
+  /** Расширение файла снимка отделения. */
+  static final String SNAPSHOT_SUFFIX = ".snapshot.json";
+
+  /** Расширение файла журнала изменений визитов. */
+  static final String JOURNAL_SUFFIX = ".journal";
+
+  /** Настройки журнала. */
+  @Inject BranchJournalProperties properties = new BranchJournalProperties();
+
+  /** Сериализатор JSON (может отсутствовать). */
+  @Inject @Nullable ObjectMapper objectMapper;
+
+  /** Открытые журналы отделений (id отделения -> журнал). */
+  private final Map<String, BranchFiles> files = new ConcurrentHashMap<>();
+
+  /** Файлы отделения. */
+  private static final class BranchFiles {
+    private final Path snapshot;
+    private final Path journal;
+    private BufferedWriter writer;
+
+    private BranchFiles(Path directory, String branchId) {
+      String name = URLEncoder.encode(branchId, StandardCharsets.UTF_8);
+      this.snapshot = directory.resolve(name + SNAPSHOT_SUFFIX);
+      this.journal = directory.resolve(name + JOURNAL_SUFFIX);
+    }
+  }
+
+  /**
+   * Признак включённого журнала.
+   *
+   * @return {@code true}, если журнал включён и доступен сериализатор
+   */
+  public boolean isEnabled() {
+    return properties != null && properties.isEnabled() && objectMapper != null;
+  }
+
+  /**
+   * Запись изменения визита (вызывается под блокировкой отделения).
+   *
+   * @param branchId идентификатор отделения
+   * @param visit визит после изменения
+   */
+  public void visitChanged(String branchId, Visit visit) {
+    if (!isEnabled() || branchId == null || visit == null) {
+      return;
+    }
+    BranchFiles branchFiles = filesOf(branchId);
+    synchronized (branchFiles) {
+      try {
+        if (branchFiles.writer == null) {
+          Files.createDirectories(directory());
+          branchFiles.writer =
+              Files.newBufferedWriter(
+                  branchFiles.journal,
+                  StandardCharsets.UTF_8,
+                  StandardOpenOption.CREATE,
+                  StandardOpenOption.APPEND);
+        }
+        branchFiles.writer.write(objectMapper.writeValueAsString(visit));
+        branchFiles.writer.newLine();
+        branchFiles.writer.flush();
+      } catch (IOException | RuntimeException e) {
+        log.warn(
+            "Visit {} of branch {} is not journaled: {}", visit.getId(), branchId, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Запись снимка отделения и очистка его журнала (вызывается под блокировкой отделения).
+   *
+   * @param branchId идентификатор отделения
+   * @param branch отделение
+   */
+  public void snapshot(String branchId, Branch branch) {
+    if (!isEnabled() || branchId == null || branch == null) {
+      return;
+    }
+    BranchFiles branchFiles = filesOf(branchId);
+    synchronized (branchFiles) {
+      try {
+        Files.createDirectories(directory());
+        Path temporary =
+            branchFiles.snapshot.resolveSibling(branchFiles.snapshot.getFileName() + ".tmp");
+        Files.write(temporary, objectMapper.writeValueAsBytes(branch));
+        Files.move(
+            temporary,
+            branchFiles.snapshot,
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        closeWriter(branchFiles);
+        Files.deleteIfExists(branchFiles.journal);
+      } catch (IOException | RuntimeException e) {
+        log.warn("Branch {} snapshot is not journaled: {}", branchId, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Удаление снимка и журнала удалённого отделения.
+   *
+   * @param branchId идентификатор отделения
+   */
+  public void branchDeleted(String branchId) {
+    if (!isEnabled() || branchId == null) {
+      return;
+    }
+    BranchFiles branchFiles = files.remove(branchId);
+    if (branchFiles == null) {
+      branchFiles = new BranchFiles(directory(), branchId);
+    }
+    synchronized (branchFiles) {
+      try {
+        closeWriter(branchFiles);
+        Files.deleteIfExists(branchFiles.snapshot);
+        Files.deleteIfExists(branchFiles.journal);
+      } catch (IOException e) {
+        log.warn("Branch {} journal is not deleted: {}", branchId, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Восстановление отделений из снимков и журналов.
+   *
+   * @param branchService сервис отделений, в который сохраняются восстановленные отделения
+   * @return количество восстановленных из журналов изменений визитов
+   */
+  public int restore(BranchService branchService) {
+    if (!isEnabled() || !Files.isDirectory(directory())) {
+      return 0;
+    }
+    Set<String> branchIds = new TreeSet<>();
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory())) {
+      for (Path entry : entries) {
+        String name = entry.getFileName().toString();
+        String suffix =
+            name.endsWith(SNAPSHOT_SUFFIX)
+                ? SNAPSHOT_SUFFIX
+                : name.endsWith(JOURNAL_SUFFIX) ? JOURNAL_SUFFIX : null;
+        if (suffix != null) {
+          branchIds.add(
+              URLDecoder.decode(
+                  name.substring(0, name.length() - suffix.length()), StandardCharsets.UTF_8));
+        }
+      }
+    } catch (IOException e) {
+      log.error("Branch journal {} is not readable", directory(), e);
+      return 0;
+    }
+    AtomicInteger replayed = new AtomicInteger();
+    branchIds.parallelStream()
+        .forEach(
+            branchId ->
+                branchService.branches.runWithLock(
+                    branchId, () -> replayed.addAndGet(restore(branchService, branchId))));
+    log.info("Restored {} branches and {} visit changes from journal", branchIds.size(), replayed);
+    return replayed.get();
+  }
+
+  /**
+   * Восстановление отделения (выполняется под блокировкой отделения).
+   *
+   * @param branchService сервис отделений
+   * @param branchId идентификатор отделения
+   * @return количество применённых изменений визитов
+   */
+  private int restore(BranchService branchService, String branchId) {
+    BranchFiles branchFiles = filesOf(branchId);
+    synchronized (branchFiles) {
+      try {
+        Branch branch =
+            Files.exists(branchFiles.snapshot)
+                ? objectMapper.readValue(Files.readAllBytes(branchFiles.snapshot), Branch.class)
+                : branchService.branches.get(branchId);
+        if (branch == null) {
+          log.warn("Branch {} journal skipped: no snapshot and no configuration", branchId);
+          return 0;
+        }
+        List<Visit> visits = readJournal(branchFiles.journal);
+        visits.forEach(branch::restoreVisit);
+        branchService.add(branchId, branch);
+        return visits.size();
+      } catch (IOException | RuntimeException e) {
+        log.error("Branch {} is not restored from journal", branchId, e);
+        return 0;
+      }
+    }
+  }
+
+  private List<Visit> readJournal(Path journal) throws IOException {
+    List<Visit> visits = new ArrayList<>();
+    if (!Files.exists(journal)) {
+      return visits;
+    }
+    try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+      for (String text = reader.readLine(); text != null; text = reader.readLine()) {
+        if (text.isBlank()) {
+          continue;
+        }
+        try {
+          visits.add(objectMapper.readValue(text, Visit.class));
+        } catch (IOException | RuntimeException e) {
+          log.warn("Branch journal line skipped: {}", e.getMessage());
+        }
+      }
+    }
+    return visits;
+  }
+
+  /** Закрытие журналов при остановке приложения. */
+  @PreDestroy
+  void close() {
+    files.values()
+        .forEach(
+            branchFiles -> {
+              synchronized (branchFiles) {
+                try {
+                  closeWriter(branchFiles);
+                } catch (IOException e) {
+                  log.warn("Branch journal {} close failed", branchFiles.journal, e);
+                }
+              }
+            });
+  }
+
+  private BranchFiles filesOf(String branchId) {
+    return files.computeIfAbsent(branchId, id -> new BranchFiles(directory(), id));
+  }
+
+  private Path directory() {
+    return Path.of(properties.getDirectory());
+  }
+
+  private static void closeWriter(BranchFiles branchFiles) throws IOException {
+    if (branchFiles.writer != null) {
+      try {
+        branchFiles.writer.close();
+      } finally {
+        branchFiles.writer = null;
+      }
+    }
+  }
+}
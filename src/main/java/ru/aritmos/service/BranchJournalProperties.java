@@ -0,0 +1,18 @@
+package ru.aritmos.service;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+/** Настройки локального журнала состояния отделений {@link BranchJournal}. */
+@Getter
+@Setter
+@ConfigurationProperties("branch-journal")
+public class BranchJournalProperties {
+
+  /** Включение журнала; при выключенном журнале состояние визитов после перезапуска теряется. */
+  private boolean enabled = false;
+
+  /** Каталог снимков отделений и журналов изменений визитов. */
+  private String directory = "data/branch-journal";
+}
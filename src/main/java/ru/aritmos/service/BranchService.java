@@ -2,7 +2,6 @@ package ru.aritmos.service;
 
 import io.micronaut.cache.annotation.CacheConfig;
 import io.micronaut.cache.annotation.CacheInvalidate;
-import io.micronaut.cache.annotation.CachePut;
 import io.micronaut.cache.interceptor.ParametersKey;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.serde.annotation.SerdeImport;
@@ -12,16 +11,18 @@ import jakarta.inject.Singleton;
 import java.io.IOException;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
 import lombok.extern.slf4j.Slf4j;
 import org.keycloak.representations.idm.UserRepresentation;
 import ru.aritmos.events.model.Event;
 import ru.aritmos.events.services.EventService;
 import ru.aritmos.exceptions.BusinessException;
 import ru.aritmos.keycloack.service.KeyCloackClient;
+import ru.aritmos.metrics.Measured;
 import ru.aritmos.model.*;
 import ru.aritmos.model.Queue;
 import ru.aritmos.model.visit.Visit;
-import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 
 /** Служба отвечающая за работу с отделениями */
 @Slf4j
@@ -31,8 +32,31 @@ import ru.aritmos.model.visit.VisitEvent;
 @SerdeImport(ParametersKey.class)
 public class BranchService {
 
-  /** Текущее состояние отделений (id -> отделение). */
-  HashMap<String, Branch> branches = new HashMap<>();
+  /**
+   * Текущее состояние отделений (id -> отделение).
+   *
+   * <p>Чтение выполняется без блокировок, изменения одного отделения сериализуются блокировкой
+   * отделения (см. {@link BranchStateStore}).
+   */
+  @Inject BranchStateStore branches = new BranchStateStore();
+
+  /**
+   * Сохранение состояния отделений в кэш: изменения визитов пишутся по отдельности, полный снимок
+   * отделения - при периодическом уплотнении.
+   */
+  @Inject BranchDeltaPersistence persistence = new BranchDeltaPersistence();
+
+  /** Поток изменений визитов отделений для фронтендов. */
+  @Inject VisitDeltaStream visitDeltaStream = new VisitDeltaStream();
+
+  /** Индекс рабочих мест сотрудников (логин -> отделение и точка обслуживания). */
+  @Inject UserServicePointIndex userIndex = new UserServicePointIndex();
+
+  /** Выдача номеров талонов очередей. */
+  @Inject TicketSequenceService ticketSequence = new TicketSequenceService();
+
+  /** Сервис сценариев Groovy: сбрасывает скомпилированные правила изменённых отделений. */
+  @Inject GroovyScriptService groovyScriptService = new GroovyScriptService();
 
   /** Сервис отправки событий. */
   @Inject EventService eventService;
@@ -47,7 +71,6 @@ public class BranchService {
    * @return отделение
    * @throws BusinessException если отделение не найдено
    */
-  @CachePut(parameters = {"key"})
   public Branch getBranch(String key) throws BusinessException {
 
     Branch branch = branches.get(key);
@@ -99,19 +122,71 @@ public class BranchService {
   /**
    * Создание или обновление отделения.
    *
-   * <p>Отправляет событие об изменении сущности.
+   * <p>Отправляет событие об изменении сущности. Полный снимок отделения записывается в кэш не
+   * сразу, а при ближайшем уплотнении (см. {@link BranchDeltaPersistence}).
    *
    * @param key идентификатор отделения
    * @param value модель отделения
    * @return сохранённое отделение
    */
-  @CachePut(parameters = {"key"})
   public Branch add(String key, Branch value) {
+    return branches.withLock(key, () -> put(key, value));
+  }
+
+  /**
+   * Публикация новой версии конфигурации существующего отделения без его удаления.
+   *
+   * <p>Под блокировкой отделения вычисляются различия версий; точки обслуживания, отсутствующие в
+   * новой версии, закрываются с выходом сотрудника, а визиты, сотрудники и счётчики талонов
+   * сохранившихся очередей и точек обслуживания переносятся в новую версию, после чего она заменяет
+   * опубликованную. Сотрудники, работающие на сохранившихся точках, остаются в системе.
+   *
+   * @param key идентификатор отделения
+   * @param value новая версия отделения
+   * @param visitService сервис визитов (для закрытия удалённых точек обслуживания)
+   * @return различия версий
+   */
+  @Measured(value = "branch.publish", operation = "republish")
+  public BranchConfigurationDiff republish(String key, Branch value, VisitService visitService) {
+    return branches.withLock(
+        key,
+        () -> {
+          Branch previous = branches.get(key);
+          BranchConfigurationDiff diff = BranchConfigurationDiff.of(previous, value);
+          if (previous != null && previous != value) {
+            diff.removedServicePoints().stream()
+                .filter(id -> previous.getServicePoints().get(id).getUser() != null)
+                .forEach(
+                    id ->
+                        closeServicePoint(
+                            key, id, visitService, true, false, "", true, "BRANCH_PUBLIC"));
+            int dropped = value.adoptState(branches.get(key));
+            if (dropped > 0) {
+              log.warn(
+                  "Branch {} publication dropped {} visits of removed queues and service points",
+                  key,
+                  dropped);
+            }
+          }
+          put(key, value);
+          return diff;
+        });
+  }
+
+  /**
+   * Сохранение отделения под блокировкой отделения.
+   *
+   * @param key идентификатор отделения
+   * @param value модель отделения
+   * @return сохранённое отделение
+   */
+  private Branch put(String key, Branch value) {
 
     Branch oldBranch;
 
     if (this.branches.containsKey(key)) {
       oldBranch = this.branches.get(key);
+      groovyScriptService.invalidateChangedRules(oldBranch, value);
       eventService.sendChangedEvent(
           "config", true, oldBranch, value, new HashMap<>(), "BRANCH_CHANGED");
       // eventService.sendChangedEvent("*", true, oldBranch, value, new HashMap<>(), "CHANGED");
@@ -127,25 +202,47 @@ public class BranchService {
     value.getWorkProfiles().forEach((key1, value2) -> value2.setBranchId(key));
     value.getServiceGroups().forEach((key1, value2) -> value2.setBranchId(key));
     value.getReception().setBranchId(key);
-    branches.put(key, value);
+    Branch previous = branches.put(key, value);
+    if (previous != value) {
+      userIndex.rebuild(key, value);
+      reseedTicketSequences(key, previous, value);
+      visitDeltaStream.branchReplaced(key, value.getAllVisits().values());
+    }
+    persistence.branchChanged(key, value);
 
     log.info("Putting branchInfo {}", value);
     return value;
   }
 
+  /**
+   * Перезапуск нумерации талонов очередей, счётчик которых изменён новой версией отделения.
+   *
+   * <p>Нумерация очередей, отсутствовавших в прежней версии, продолжается с учётом файлов резерва
+   * номеров; нумерация очереди со счётчиком, отличным от прежнего, начинается с нового значения.
+   *
+   * @param key идентификатор отделения
+   * @param previous прежняя версия отделения (может отсутствовать)
+   * @param value новая версия отделения
+   */
+  private void reseedTicketSequences(String key, Branch previous, Branch value) {
+    for (Queue queue : value.getQueues().values()) {
+      Queue before = previous != null ? previous.getQueues().get(queue.getId()) : null;
+      if (before != null && !Objects.equals(before.getTicketCounter(), queue.getTicketCounter())) {
+        ticketSequence.reseed(key, queue);
+      }
+    }
+  }
+
   /**
    * Проверка на наличие отделения в списке отделений по ключу
    *
+   * <p>Отсутствие отделения не является ошибкой: исключение и событие бизнес-ошибки не создаются.
+   *
    * @param key ключ отделения
    * @return флаг существования отделения
    */
   public Boolean branchExists(String key) {
-    try {
-      getBranch(key);
-      return true;
-    } catch (Exception e) {
-      return false;
-    }
+    return branches.containsKey(key);
   }
 
   /**
@@ -157,6 +254,16 @@ public class BranchService {
    */
   @CacheInvalidate
   public void delete(String key, VisitService visitService) {
+    branches.runWithLock(key, () -> remove(key, visitService));
+  }
+
+  /**
+   * Удаление отделения под блокировкой отделения.
+   *
+   * @param key идентификатор отделения
+   * @param visitService сервис визитов
+   */
+  private void remove(String key, VisitService visitService) {
     Branch oldBranch;
     if (this.branches.containsKey(key)) {
       oldBranch = this.branches.get(key);
@@ -185,6 +292,28 @@ public class BranchService {
     }
     log.info("Deleting branchInfo {}", key);
     branches.remove(key);
+    userIndex.branchRemoved(key);
+    persistence.branchDeleted(key);
+    visitDeltaStream.branchDeleted(key);
+    ticketSequence.branchDeleted(key);
+    groovyScriptService.invalidateChangedRules(oldBranch, null);
+  }
+
+  /**
+   * Запись изменений визитов, обновлённых изменением конфигурации отделения, в журнал и поток
+   * изменений (вызывается под блокировкой отделения).
+   *
+   * @param branchId идентификатор отделения
+   * @param visits обновлённые визиты (может быть {@code null})
+   */
+  private void visitsChanged(String branchId, List<Visit> visits) {
+    if (visits == null) {
+      return;
+    }
+    for (Visit visit : visits) {
+      persistence.visitChanged(branchId, visit);
+      visitDeltaStream.visitChanged(branchId, visit);
+    }
   }
 
   /**
@@ -197,50 +326,74 @@ public class BranchService {
   public void updateVisit(Visit visit, String action, VisitService visitService) {
 
     Branch branch = this.getBranch(visit.getBranchId());
-    branch.updateVisit(visit, eventService, action, visitService);
+    branches.runWithLock(
+        branch.getId(),
+        () -> {
+          branch.updateVisit(visit, eventService, action, visitService);
+          persistence.visitChanged(branch.getId(), visit);
+          visitDeltaStream.visitChanged(branch.getId(), visit);
+        });
   }
 
   /**
    * Обновление визита по событию.
    *
    * @param visit визит
-   * @param visitEvent событие визита
+   * @param transition переход визита
    * @param visitService сервис визитов
    */
-  public void updateVisit(Visit visit, VisitEvent visitEvent, VisitService visitService) {
+  public void updateVisit(Visit visit, VisitTransition transition, VisitService visitService) {
 
     Branch branch = this.getBranch(visit.getBranchId());
-    branch.updateVisit(visit, eventService, visitEvent, visitService);
+    branches.runWithLock(
+        branch.getId(),
+        () -> {
+          branch.updateVisit(visit, eventService, transition, visitService);
+          persistence.visitChanged(branch.getId(), visit);
+          visitDeltaStream.visitChanged(branch.getId(), visit);
+        });
   }
 
   /**
    * Обновление визита по событию с возможностью задать начало списка.
    *
    * @param visit визит
-   * @param visitEvent событие визита
+   * @param transition переход визита
    * @param visitService сервис визитов
    * @param isToStart поместить визит в начало списка очереди/пула
    */
   public void updateVisit(
-      Visit visit, VisitEvent visitEvent, VisitService visitService, Boolean isToStart) {
+      Visit visit, VisitTransition transition, VisitService visitService, Boolean isToStart) {
 
     Branch branch = this.getBranch(visit.getBranchId());
-    branch.updateVisit(visit, eventService, visitEvent, visitService, isToStart);
+    branches.runWithLock(
+        branch.getId(),
+        () -> {
+          branch.updateVisit(visit, eventService, transition, visitService, isToStart);
+          persistence.visitChanged(branch.getId(), visit);
+          visitDeltaStream.visitChanged(branch.getId(), visit);
+        });
   }
 
   /**
    * Обновление визита по событию с указанием позиции.
    *
    * @param visit визит
-   * @param visitEvent событие визита
+   * @param transition переход визита
    * @param visitService сервис визитов
    * @param index позиция вставки (или -1 для добавления в конец)
    */
   public void updateVisit(
-      Visit visit, VisitEvent visitEvent, VisitService visitService, Integer index) {
+      Visit visit, VisitTransition transition, VisitService visitService, Integer index) {
 
     Branch branch = this.getBranch(visit.getBranchId());
-    branch.updateVisit(visit, eventService, visitEvent, visitService, index);
+    branches.runWithLock(
+        branch.getId(),
+        () -> {
+          branch.updateVisit(visit, eventService, transition, visitService, index);
+          persistence.visitChanged(branch.getId(), visit);
+          visitDeltaStream.visitChanged(branch.getId(), visit);
+        });
   }
 
   /**
@@ -254,6 +407,19 @@ public class BranchService {
    */
   public User changeUserWorkProfileInServicePoint(
       String branchId, String servicePointId, String workProfileId) throws BusinessException {
+    return branches.withLock(
+        branchId, () -> changeWorkProfile(branchId, servicePointId, workProfileId));
+  }
+
+  /**
+   * Смена рабочего профиля пользователя под блокировкой отделения.
+   *
+   * @param branchId идентификатор отделения
+   * @param servicePointId идентификатор точки обслуживания
+   * @param workProfileId идентификатор рабочего профиля
+   * @return пользователь с обновлённым рабочим профилем
+   */
+  private User changeWorkProfile(String branchId, String servicePointId, String workProfileId) {
     Branch branch = this.getBranch(branchId);
     if (!branch.getWorkProfiles().containsKey(workProfileId)) {
       throw new BusinessException("work_profile_not_found", eventService, HttpStatus.NOT_FOUND);
@@ -270,6 +436,7 @@ public class BranchService {
     branch.getServicePoints().get(servicePointId).getUser().setCurrentWorkProfileId(workProfileId);
 
     this.add(branch.getId(), branch);
+    userIndex.put(user.getName(), branchId, servicePointId);
     checkWorkProfileChange(workProfileId, user, oldWorkProfileId);
     return branch.getServicePoints().get(servicePointId).getUser();
   }
@@ -293,6 +460,34 @@ public class BranchService {
       String workProfileId,
       VisitService visitService)
       throws BusinessException, IOException {
+    ReentrantLock lock = branches.lockOf(branchId);
+    lock.lock();
+    try {
+      return openServicePointLocked(
+          branchId, userName, servicePointId, workProfileId, visitService);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Открытие точки обслуживания под блокировкой отделения.
+   *
+   * @param branchId идентификатор отделения
+   * @param userName логин пользователя
+   * @param servicePointId идентификатор точки обслуживания
+   * @param workProfileId идентификатор рабочего профиля
+   * @param visitService сервис визитов
+   * @return пользователь, открывший точку
+   * @throws IOException при ошибке интеграции
+   */
+  private User openServicePointLocked(
+      String branchId,
+      String userName,
+      String servicePointId,
+      String workProfileId,
+      VisitService visitService)
+      throws IOException {
     Branch branch = this.getBranch(branchId);
     if (!branch.getWorkProfiles().containsKey(workProfileId)) {
       throw new BusinessException("work_profile_not_found", eventService, HttpStatus.NOT_FOUND);
@@ -385,6 +580,7 @@ public class BranchService {
       }
       branch.openServicePoint(user, eventService);
       this.add(branch.getId(), branch);
+      userIndex.put(userName, branchId, servicePointId);
       return branch.getUsers().get(userName);
     } else {
 
@@ -409,6 +605,7 @@ public class BranchService {
       checkWorkProfileChange(workProfileId, user, oldWorkProfileId);
       branch.openServicePoint(user, eventService);
       this.add(branch.getId(), branch);
+      userIndex.put(userName, branchId, servicePointId);
       return user;
     }
   }
@@ -490,17 +687,71 @@ public class BranchService {
       Boolean isForced,
       String reason) {
 
-    Branch branch = this.getBranch(branchId);
-    branch.closeServicePoint(
-        servicePointId,
-        eventService,
-        visitService,
-        isWithLogout,
-        isBreak,
-        breakReason,
-        isForced,
-        reason);
-    this.add(branch.getId(), branch);
+    branches.runWithLock(
+        branchId,
+        () -> {
+          Branch branch = this.getBranch(branchId);
+          ServicePoint servicePoint = branch.getServicePoints().get(servicePointId);
+          User user = servicePoint != null ? servicePoint.getUser() : null;
+          branch.closeServicePoint(
+              servicePointId,
+              eventService,
+              visitService,
+              isWithLogout,
+              isBreak,
+              breakReason,
+              isForced,
+              reason);
+          if (user != null && servicePoint.getUser() == null) {
+            userIndex.remove(user.getName(), branchId, servicePointId);
+          }
+          this.add(branch.getId(), branch);
+        });
+  }
+
+  /**
+   * Поиск точки обслуживания, на которой работает сотрудник.
+   *
+   * <p>Индекс {@link UserServicePointIndex} является источником истины: он обновляется при
+   * открытии и закрытии точек обслуживания, смене рабочего профиля и замене или удалении
+   * отделения, поэтому отсутствие записи означает, что сотрудник не работает на точке
+   * обслуживания, и обход отделений не выполняется. Если запись указывает на точку, на которой
+   * сотрудника уже нет, записи этого отделения перестраиваются по его текущему состоянию.
+   *
+   * @param login логин сотрудника
+   * @return точка обслуживания сотрудника либо пустое значение
+   */
+  public Optional<ServicePoint> findUserServicePoint(String login) {
+    Optional<UserServicePointIndex.Location> location = userIndex.get(login);
+    if (location.isEmpty()) {
+      return Optional.empty();
+    }
+    Optional<ServicePoint> indexed = locate(login, location.get());
+    if (indexed.isPresent()) {
+      return indexed;
+    }
+    String branchId = location.get().branchId();
+    Branch branch = branches.get(branchId);
+    if (branch != null) {
+      userIndex.rebuild(branchId, branch);
+    } else {
+      userIndex.branchRemoved(branchId);
+    }
+    return userIndex.get(login).flatMap(repaired -> locate(login, repaired));
+  }
+
+  /**
+   * Точка обслуживания записи индекса, если сотрудник на ней работает.
+   *
+   * @param login логин сотрудника
+   * @param location запись индекса
+   * @return точка обслуживания либо пустое значение
+   */
+  private Optional<ServicePoint> locate(String login, UserServicePointIndex.Location location) {
+    Branch branch = branches.get(location.branchId());
+    return Optional.ofNullable(
+            branch != null ? branch.getServicePoints().get(location.servicePointId()) : null)
+        .filter(sp -> sp.getUser() != null && login.equals(sp.getUser().getName()));
   }
 
   /**
@@ -518,16 +769,33 @@ public class BranchService {
   /**
    * Инкремент счётчика талонов очереди.
    *
+   * <p>Номер выдаётся {@link TicketSequenceService} без блокировки и сохранения отделения и
+   * используется вызывающим кодом напрямую. Счётчик очереди отделения только увеличивается (до
+   * максимального выданного номера) для последующих снимков состояния: параллельные запросы не
+   * могут вернуть его к меньшему значению.
+   *
    * @param branchId идентификатор отделения
    * @param queue очередь
    * @return новое значение счётчика либо -1, если очередь не найдена
+   * @throws BusinessException если отделение не найдено
    */
   public Integer incrementTicketCounter(String branchId, Queue queue) {
-
-    Branch branch = this.getBranch(branchId);
-    Integer result = branch.incrementTicketCounter(queue);
-    this.add(branch.getId(), branch);
-    return result;
+    Branch branch = branches.get(branchId);
+    if (branch == null) {
+      throw new BusinessException("branch_not_found", eventService, HttpStatus.NOT_FOUND);
+    }
+    Queue branchQueue = branch.getQueues().get(queue.getId());
+    if (branchQueue == null) {
+      return -1;
+    }
+    int number = ticketSequence.next(branchId, branchQueue);
+    synchronized (branchQueue) {
+      Integer counter = branchQueue.getTicketCounter();
+      if (counter == null || counter < number) {
+        branchQueue.setTicketCounter(number);
+      }
+    }
+    return number;
   }
 
   /**
@@ -543,9 +811,15 @@ public class BranchService {
       HashMap<String, Service> serviceHashMap,
       Boolean checkVisits,
       VisitService visitService) {
-    Branch branch = this.getBranch(branchId);
-    branch.addUpdateService(serviceHashMap, eventService, checkVisits, visitService);
-    this.add(branch.getId(), branch);
+    branches.runWithLock(
+        branchId,
+        () -> {
+          Branch branch = this.getBranch(branchId);
+          List<Visit> updated =
+              branch.addUpdateService(serviceHashMap, eventService, checkVisits, visitService);
+          this.add(branch.getId(), branch);
+          visitsChanged(branch.getId(), updated);
+        });
   }
 
   /**
@@ -558,8 +832,15 @@ public class BranchService {
    */
   public void deleteServices(
       String branchId, List<String> serviceIds, Boolean checkVisits, VisitService visitService) {
-    Branch branch = this.getBranch(branchId);
-    branch.deleteServices(serviceIds, eventService, checkVisits, visitService);
+    branches.runWithLock(
+        branchId,
+        () -> {
+          Branch branch = this.getBranch(branchId);
+          List<Visit> updated =
+              branch.deleteServices(serviceIds, eventService, checkVisits, visitService);
+          this.add(branch.getId(), branch);
+          visitsChanged(branch.getId(), updated);
+        });
   }
 
   /**
@@ -575,9 +856,14 @@ public class BranchService {
       HashMap<String, ServicePoint> servicePointHashMap,
       Boolean restoreVisit,
       Boolean restoreUser) {
-    Branch branch = this.getBranch(branchId);
-    branch.addUpdateServicePoint(servicePointHashMap, restoreVisit, restoreUser, eventService);
-    this.add(branch.getId(), branch);
+    branches.runWithLock(
+        branchId,
+        () -> {
+          Branch branch = this.getBranch(branchId);
+          branch.addUpdateServicePoint(
+              servicePointHashMap, restoreVisit, restoreUser, eventService);
+          this.add(branch.getId(), branch);
+        });
   }
 
   /**
@@ -588,9 +874,13 @@ public class BranchService {
    */
   public void addUpdateServiceGroups(
       String branchId, HashMap<String, ServiceGroup> serviceGroupsHashMap) {
-    Branch branch = this.getBranch(branchId);
-    branch.adUpdateServiceGroups(serviceGroupsHashMap, eventService);
-    this.add(branch.getId(), branch);
+    branches.runWithLock(
+        branchId,
+        () -> {
+          Branch branch = this.getBranch(branchId);
+          branch.adUpdateServiceGroups(serviceGroupsHashMap, eventService);
+          this.add(branch.getId(), branch);
+        });
   }
 
   /**
@@ -600,9 +890,13 @@ public class BranchService {
    * @param servicePointIds список идентификаторов точек обслуживания
    */
   public void deleteServicePoints(String branchId, List<String> servicePointIds) {
-    Branch branch = this.getBranch(branchId);
-    branch.deleteServicePoints(servicePointIds, eventService);
-    this.add(branch.getId(), branch);
+    branches.runWithLock(
+        branchId,
+        () -> {
+          Branch branch = this.getBranch(branchId);
+          branch.deleteServicePoints(servicePointIds, eventService);
+          this.add(branch.getId(), branch);
+        });
   }
 
   /**
@@ -614,9 +908,13 @@ public class BranchService {
    */
   public void addUpdateQueues(
       String branchId, HashMap<String, Queue> queueHashMap, Boolean restoreVisits) {
-    Branch branch = this.getBranch(branchId);
-    branch.addUpdateQueues(queueHashMap, restoreVisits, eventService);
-    this.add(branch.getId(), branch);
+    branches.runWithLock(
+        branchId,
+        () -> {
+          Branch branch = this.getBranch(branchId);
+          branch.addUpdateQueues(queueHashMap, restoreVisits, eventService);
+          this.add(branch.getId(), branch);
+        });
   }
 
   /**
@@ -626,9 +924,13 @@ public class BranchService {
    * @param queueIds список идентификаторов очередей
    */
   public void deleteQueues(String branchId, List<String> queueIds) {
-    Branch branch = this.getBranch(branchId);
-    branch.deleteQueues(queueIds, eventService);
-    this.add(branch.getId(), branch);
+    branches.runWithLock(
+        branchId,
+        () -> {
+          Branch branch = this.getBranch(branchId);
+          branch.deleteQueues(queueIds, eventService);
+          this.add(branch.getId(), branch);
+        });
   }
 
   /**
@@ -639,9 +941,13 @@ public class BranchService {
    */
   public void addUpdateSegmentationRules(
       String branchId, HashMap<String, SegmentationRuleData> segmentationRuleDataHashMap) {
-    Branch branch = this.getBranch(branchId);
-    branch.adUpdateSegmentRules(segmentationRuleDataHashMap, eventService);
-    this.add(branch.getId(), branch);
+    branches.runWithLock(
+        branchId,
+        () -> {
+          Branch branch = this.getBranch(branchId);
+          branch.adUpdateSegmentRules(segmentationRuleDataHashMap, eventService);
+          this.add(branch.getId(), branch);
+        });
   }
 
   /**
@@ -0,0 +1,181 @@
+package ru.aritmos.service;
+
+import jakarta.inject.Singleton;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import ru.aritmos.model.Branch;
+
+/**
+ * Хранилище текущего состояния отделений.
+ *
+ * <p>Отделения хранятся в конкурентной карте, поэтому чтение (получение отделения, перечень
+ * отделений) выполняется без блокировок. Изменения одного отделения сериализуются собственной
+ * реентерабельной блокировкой отделения, а изменения разных отделений выполняются параллельно.
+ * Реентерабельность позволяет вложенным вызовам (например, завершению визита при закрытии точки
+ * обслуживания) повторно захватывать блокировку того же отделения.
+ *
+ * <p>Каждое отделение имеет номер версии, который увеличивается при сохранении и удалении
+ * отделения и по завершении каждого действия под его блокировкой. По версии потребители (например,
+ * кэш снимков ответов {@link ru.aritmos.config.BranchSnapshotFilter}) определяют, что состояние
+ * отделения могло измениться.
+ */
+@Singleton
+public class BranchStateStore {
+
+  /** Отделения (id -> отделение). */
+  private final ConcurrentHashMap<String, Branch> branches = new ConcurrentHashMap<>();
+
+  /** Блокировки изменений отделений (id -> блокировка). */
+  private final ConcurrentHashMap<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+  /** Версии отделений (id -> версия). */
+  private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+  /**
+   * Получение отделения без блокировки.
+   *
+   * @param branchId идентификатор отделения
+   * @return отделение либо {@code null}, если отделение отсутствует
+   */
+  public Branch get(String branchId) {
+    return branchId == null ? null : branches.get(branchId);
+  }
+
+  /**
+   * Сохранение отделения.
+   *
+   * @param branchId идентификатор отделения
+   * @param branch отделение
+   * @return предыдущее значение либо {@code null}
+   */
+  public Branch put(String branchId, Branch branch) {
+    Branch previous = branches.put(branchId, branch);
+    touch(branchId);
+    return previous;
+  }
+
+  /**
+   * Проверка наличия отделения.
+   *
+   * @param branchId идентификатор отделения
+   * @return {@code true}, если отделение присутствует
+   */
+  public boolean containsKey(String branchId) {
+    return branchId != null && branches.containsKey(branchId);
+  }
+
+  /**
+   * Удаление отделения.
+   *
+   * <p>Блокировка отделения не удаляется: потоки, ожидающие её, должны продолжить работу с тем же
+   * объектом блокировки.
+   *
+   * @param branchId идентификатор отделения
+   * @return удалённое отделение либо {@code null}
+   */
+  public Branch remove(String branchId) {
+    Branch removed = branches.remove(branchId);
+    touch(branchId);
+    return removed;
+  }
+
+  /**
+   * Слабо согласованное представление отделений для чтения без блокировок.
+   *
+   * @return коллекция отделений
+   */
+  public Collection<Branch> values() {
+    return branches.values();
+  }
+
+  /**
+   * Идентификаторы отделений.
+   *
+   * @return набор идентификаторов
+   */
+  public Set<String> keySet() {
+    return branches.keySet();
+  }
+
+  /**
+   * Количество отделений.
+   *
+   * @return количество отделений
+   */
+  public int size() {
+    return branches.size();
+  }
+
+  /**
+   * Текущая версия отделения.
+   *
+   * @param branchId идентификатор отделения
+   * @return версия (0, если отделение ещё не изменялось)
+   */
+  public long version(String branchId) {
+    AtomicLong version = branchId == null ? null : versions.get(branchId);
+    return version != null ? version.get() : 0L;
+  }
+
+  /**
+   * Получение блокировки изменений отделения.
+   *
+   * @param branchId идентификатор отделения
+   * @return блокировка отделения
+   */
+  public ReentrantLock lockOf(String branchId) {
+    return locks.computeIfAbsent(branchId, id -> new ReentrantLock());
+  }
+
+  /**
+   * Выполнение изменения отделения под блокировкой этого отделения.
+   *
+   * @param branchId идентификатор отделения
+   * @param action изменение
+   * @param <T> тип результата
+   * @return результат изменения
+   */
+  public <T> T withLock(String branchId, Supplier<T> action) {
+    if (branchId == null) {
+      return action.get();
+    }
+    ReentrantLock lock = lockOf(branchId);
+    lock.lock();
+    try {
+      return action.get();
+    } finally {
+      touch(branchId);
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Выполнение изменения отделения без результата под блокировкой этого отделения.
+   *
+   * @param branchId идентификатор отделения
+   * @param action изменение
+   */
+  public void runWithLock(String branchId, Runnable action) {
+    withLock(
+        branchId,
+        () -> {
+          action.run();
+          return null;
+        });
+  }
+
+  /**
+   * Увеличение версии отделения.
+   *
+   * @param branchId идентификатор отделения
+   */
+  private void touch(String branchId) {
+    if (branchId != null) {
+      versions.computeIfAbsent(branchId, id -> new AtomicLong()).incrementAndGet();
+    }
+  }
+}
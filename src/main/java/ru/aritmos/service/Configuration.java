@@ -1,11 +1,16 @@
 package ru.aritmos.service;
 
 import io.micronaut.context.annotation.Context;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.serde.ObjectMapper;
 import jakarta.inject.Inject;
+import java.io.IOException;
 import java.time.ZonedDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import ru.aritmos.events.model.Event;
 import ru.aritmos.events.services.EventService;
@@ -28,13 +33,32 @@ public class Configuration {
   /** Сервис отправки событий. */
   @Inject EventService eventService;
 
+  /** Сериализатор для снимков опубликованных версий отделений (может отсутствовать). */
+  @Inject @Nullable ObjectMapper objectMapper;
+
   /**
    * Создать и опубликовать конфигурацию отделений.
    *
+   * <p>Отделения публикуются параллельно. Новое отделение добавляется, а у существующего
+   * опубликованная версия заменяется новой с переносом визитов и сотрудников сохранившихся очередей
+   * и точек обслуживания (см. {@link BranchService#republish}), поэтому публикация не прерывает
+   * работу сотрудников. Время публикации каждого отделения и различия версий передаются в событии
+   * {@code BRANCH_PUBLIC_COMPLETE}.
+   *
+   * <p>Перед публикацией снимаются копии опубликованных версий отделений: замена версии изменяет
+   * живую модель отделения (закрытие удалённых точек обслуживания), поэтому для отката используется
+   * копия, а не сама модель. Публикация всех отделений доводится до конца, и только после этого при
+   * ошибке хотя бы одного отделения выполняется откат: предыдущие версии возвращаются тем же
+   * способом (с переносом визитов и сотрудников из текущей версии), а отделения, которых до
+   * публикации не было, удаляются. Замена версии отдельного отделения атомарна (под блокировкой
+   * отделения), но публикация нескольких отделений как единое целое не атомарна: до отката
+   * новые версии успешно опубликованных отделений видны клиентам.
+   *
    * @param branchHashMap карта отделений (id -> отделение)
    * @return карта детализированных отделений
    */
   public HashMap<String, Branch> createBranchConfiguration(Map<String, Branch> branchHashMap) {
+    long started = System.nanoTime();
     Event eventPublicStart =
         Event.builder()
             .eventType("PUBLIC_STARTED")
@@ -42,68 +66,35 @@ public class Configuration {
             .body(branchHashMap)
             .build();
     eventService.send("stat", false, eventPublicStart);
-    try {
-      Thread.sleep(20);
-    } catch (InterruptedException e) {
-      throw new RuntimeException(e);
-    }
-    //
-    //    branchService
-    //        .getBranches()
-    //        .forEach(
-    //            (key, value) -> {
-    //              if (!branchHashMap.containsKey(key)) {
-    //                Branch body = branchHashMap.get(key);
-    //                branchService.delete(key, visitService);
-    //                Event eventDeleted =
-    //                    Event.builder()
-    //                        .eventType("PUBLIC_BRANCH_DELETED")
-    //                        .eventDate(ZonedDateTime.now())
-    //                        .body(body)
-    //                        .params(Map.of("branchId", key))
-    //                        .build();
-    //                eventService.send("stat", false, eventDeleted);
-    //              }
-    //            });
-    HashMap<String, Branch> branchesReserv = new HashMap<>(branchService.getBranches());
-    try {
-      branchHashMap.forEach(
-          (key, value) -> {
-            if (branchService.branchExists(key)) {
+    Map<String, Branch> published = branchService.getDetailedBranches();
+    Map<String, Branch> previousVersions = new HashMap<>();
+    branchHashMap.keySet().stream()
+        .filter(published::containsKey)
+        .forEach(key -> previousVersions.put(key, snapshot(published.get(key))));
+    Map<String, Exception> failures = new ConcurrentHashMap<>();
+    branchHashMap.entrySet().parallelStream()
+        .forEach(
+            entry -> {
               try {
-                branchService.delete(key, visitService);
+                publishBranch(entry.getKey(), entry.getValue());
               } catch (Exception e) {
-                // throw new RuntimeException(e);
+                failures.put(entry.getKey(), e);
               }
-            }
-            branchService.add(key, value);
-            Event eventDeleted =
-                Event.builder()
-                    .eventType("BRANCH_PUBLIC_COMPLETE")
-                    .eventDate(ZonedDateTime.now())
-                    .body(value)
-                    .params(Map.of("branchId", key))
-                    .build();
-            eventService.send("stat", false, eventDeleted);
-            try {
-              Thread.sleep(20);
-            } catch (InterruptedException e) {
-              throw new RuntimeException(e);
-            }
-          });
+            });
+    if (failures.isEmpty()) {
+      long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+      log.info("Configuration of {} branches published in {} ms", branchHashMap.size(), elapsed);
       Event eventPublicFinished =
           Event.builder()
               .eventType("PUBLIC_COMPLETE")
               .eventDate(ZonedDateTime.now())
               .body(branchHashMap)
+              .params(Map.of("durationMs", String.valueOf(elapsed)))
               .build();
       eventService.send("stat", false, eventPublicFinished);
-      try {
-        Thread.sleep(20);
-      } catch (InterruptedException e) {
-        throw new RuntimeException(e);
-      }
-    } catch (Exception ex) {
+    } else {
+      failures.forEach(
+          (key, e) -> log.error("Branch {} publication failed, rolling back", key, e));
       Event eventPublicFailed =
           Event.builder()
               .eventType("PUBLIC_FAILED")
@@ -118,47 +109,102 @@ public class Configuration {
               .body(branchHashMap)
               .build();
       eventService.send("stat", false, eventPublicStartRollback);
-      try {
-
-        branchesReserv.forEach(
-            (key, value) -> {
-              if (branchService.branchExists(key)) {
-                try {
-                  branchService.delete(key, visitService);
-                } catch (Exception e) {
-                  // throw new RuntimeException(e);
-                }
-              }
-              branchService.add(key, value);
-              Event eventRollbackComplete =
-                  Event.builder()
-                      .eventType("BRANCH_ROLLBACK_COMPLETE")
-                      .eventDate(ZonedDateTime.now())
-                      .body(value)
-                      .params(Map.of("branchId", key))
-                      .build();
-              eventService.send("stat", false, eventRollbackComplete);
-            });
-      } catch (Exception ex2) {
-        Event eventRollbackFailed =
-            Event.builder()
-                .eventType("BRANCH_ROLLBACK_FAILED")
-                .eventDate(ZonedDateTime.now())
-                .body(ex2)
-                .build();
-        eventService.send("stat", false, eventRollbackFailed);
-      }
+      branchHashMap.keySet().parallelStream()
+          .forEach(key -> rollbackBranch(key, previousVersions.get(key)));
       Event eventRollbackComplete =
           Event.builder()
               .eventType("ROLLBACK_COMPLETE")
               .eventDate(ZonedDateTime.now())
-              .body(branchesReserv)
+              .body(previousVersions)
               .build();
       eventService.send("stat", false, eventRollbackComplete);
     }
     return branchService.getDetailedBranches();
   }
 
+  /**
+   * Публикация конфигурации отделения.
+   *
+   * @param key идентификатор отделения
+   * @param value новая версия отделения
+   */
+  private void publishBranch(String key, Branch value) {
+    long started = System.nanoTime();
+    String changes;
+    if (branchService.branchExists(key)) {
+      changes = branchService.republish(key, value, visitService).summary();
+    } else {
+      branchService.add(key, value);
+      changes = "created";
+    }
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    log.info("Branch {} published in {} ms: {}", key, elapsed, changes);
+    Event eventBranchComplete =
+        Event.builder()
+            .eventType("BRANCH_PUBLIC_COMPLETE")
+            .eventDate(ZonedDateTime.now())
+            .body(value)
+            .params(
+                Map.of("branchId", key, "durationMs", String.valueOf(elapsed), "changes", changes))
+            .build();
+    eventService.send("stat", false, eventBranchComplete);
+  }
+
+  /**
+   * Копия опубликованной версии отделения для отката.
+   *
+   * @param branch опубликованная версия
+   * @return копия версии либо сама версия, если сериализатор недоступен или копирование не удалось
+   */
+  private Branch snapshot(Branch branch) {
+    if (objectMapper == null) {
+      log.warn("Branch {} rollback will use the live model: no serializer", branch.getId());
+      return branch;
+    }
+    try {
+      return objectMapper.readValue(objectMapper.writeValueAsBytes(branch), Branch.class);
+    } catch (IOException | RuntimeException e) {
+      log.warn("Branch {} rollback will use the live model: {}", branch.getId(), e.getMessage());
+      return branch;
+    }
+  }
+
+  /**
+   * Возврат версии отделения, опубликованной до неудачной публикации.
+   *
+   * @param key идентификатор отделения
+   * @param previous предыдущая версия отделения ({@code null} - отделения не было)
+   */
+  private void rollbackBranch(String key, Branch previous) {
+    try {
+      if (previous != null) {
+        branchService.republish(key, previous, visitService);
+      } else if (branchService.branchExists(key)) {
+        branchService.delete(key, visitService);
+      } else {
+        return;
+      }
+      Event eventRollbackComplete =
+          Event.builder()
+              .eventType("BRANCH_ROLLBACK_COMPLETE")
+              .eventDate(ZonedDateTime.now())
+              .body(previous)
+              .params(Map.of("branchId", key))
+              .build();
+      eventService.send("stat", false, eventRollbackComplete);
+    } catch (Exception e) {
+      log.error("Branch {} rollback failed", key, e);
+      Event eventRollbackFailed =
+          Event.builder()
+              .eventType("BRANCH_ROLLBACK_FAILED")
+              .eventDate(ZonedDateTime.now())
+              .body(e.getMessage())
+              .params(Map.of("branchId", key))
+              .build();
+      eventService.send("stat", false, eventRollbackFailed);
+    }
+  }
+
   /**
    * Создать демонстрационную конфигурацию отделений.
    *
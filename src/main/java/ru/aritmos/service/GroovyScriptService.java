@@ -1,28 +1,304 @@
 package ru.aritmos.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import groovy.lang.Binding;
-import groovy.lang.GroovyShell;
+import groovy.lang.GroovyClassLoader;
 import groovy.lang.Script;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.annotation.PostConstruct;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.codehaus.groovy.runtime.InvokerHelper;
+import ru.aritmos.model.Branch;
 import ru.aritmos.model.GroovyScript;
 
-/** Сервис выполнения сценариев Groovy для пользовательских правил. */
+/**
+ * Сервис выполнения сценариев Groovy для пользовательских правил.
+ *
+ * <p>Скомпилированные классы сценариев кэшируются по идентификатору правила и хэшу исходного
+ * кода, поэтому сценарий компилируется один раз, а каждое выполнение получает новый экземпляр
+ * сценария со своим {@link Binding}. Каждый класс загружается отдельным {@link GroovyClassLoader}:
+ * при вытеснении из кэша, ограниченного параметром {@code
+ * micronaut.application.groovyScriptCacheSize}, загрузчик закрывается и класс может быть выгружен.
+ */
+@Slf4j
+@Singleton
 public class GroovyScriptService {
+
+  /** Максимальное количество скомпилированных классов сценариев. */
+  @Value("${micronaut.application.groovyScriptCacheSize:256}")
+  long maximumSize = 256;
+
+  /** Реестр метрик (может отсутствовать). */
+  @Inject @Nullable MeterRegistry meterRegistry;
+
+  /** Попадания в кэш скомпилированных сценариев. */
+  private final LongAdder hits = new LongAdder();
+
+  /** Промахи кэша скомпилированных сценариев (каждый промах - компиляция). */
+  private final LongAdder misses = new LongAdder();
+
+  private volatile Cache<ScriptKey, CompiledScript> scripts;
+  private Timer compileTimer;
+
+  /**
+   * Ключ скомпилированного сценария.
+   *
+   * @param ruleId идентификатор правила (пустая строка для сценария без правила)
+   * @param codeHash хэш SHA-256 исходного кода
+   */
+  record ScriptKey(String ruleId, String codeHash) {}
+
+  /**
+   * Скомпилированный сценарий вместе с его загрузчиком.
+   *
+   * @param scriptClass класс сценария
+   * @param classLoader загрузчик, загрузивший класс
+   */
+  record CompiledScript(Class<? extends Script> scriptClass, GroovyClassLoader classLoader) {}
+
+  /** Регистрация метрик кэша. */
+  @PostConstruct
+  void registerMetrics() {
+    if (meterRegistry == null) {
+      return;
+    }
+    FunctionCounter.builder("groovy.script.cache.hits", hits, LongAdder::doubleValue)
+        .description("Groovy script executions served by a cached class")
+        .register(meterRegistry);
+    FunctionCounter.builder("groovy.script.cache.misses", misses, LongAdder::doubleValue)
+        .description("Groovy script executions that required compilation")
+        .register(meterRegistry);
+    Gauge.builder("groovy.script.cache.size", this, GroovyScriptService::size)
+        .description("Compiled Groovy script classes held by the cache")
+        .register(meterRegistry);
+    compileTimer =
+        Timer.builder("groovy.script.compile")
+            .description("Groovy script compilation time")
+            .register(meterRegistry);
+  }
+
   /**
    * Выполнить скрипт Groovy с передачей входных параметров и сбором результатов.
    *
    * @param groovyScript объект скрипта и его параметров
    */
   public void Execute(GroovyScript groovyScript) {
-    Binding binding = new Binding();
-    // Объект выполнения скрипта Groovy
-    GroovyShell shell = new GroovyShell(binding);
-    // Текст скрипта на groovy, берется из свойства scriptCode
-    String scriptCode = groovyScript.getRuleCode();
-    // Обработка скрипта перед выполнением
-    Script script = shell.parse(scriptCode);
-    groovyScript.getInputParameters().forEach(binding::setVariable);
-    script.run();
-    // Передача двух тестовых визитов
-    groovyScript.getOutputParameters().putAll(binding.getVariables());
+    Execute(null, groovyScript);
+  }
+
+  /**
+   * Выполнить скрипт Groovy пользовательского правила с передачей входных параметров и сбором
+   * результатов.
+   *
+   * @param ruleId идентификатор правила
+   * @param groovyScript объект скрипта и его параметров
+   */
+  public void Execute(String ruleId, GroovyScript groovyScript) {
+    long start = System.nanoTime();
+    String outcome = "error";
+    try {
+      Binding binding = new Binding();
+      groovyScript.getInputParameters().forEach(binding::setVariable);
+      // Новый экземпляр скомпилированного класса на каждое выполнение
+      Script script =
+          InvokerHelper.createScript(compile(ruleId, groovyScript.getRuleCode()), binding);
+      script.run();
+      groovyScript.getOutputParameters().putAll(binding.getVariables());
+      outcome = "success";
+    } finally {
+      recordExecution(ruleId, outcome, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Учёт времени выполнения сценария (включая компиляцию при промахе кэша).
+   *
+   * @param ruleId идентификатор правила
+   * @param outcome результат выполнения
+   * @param nanos время выполнения в наносекундах
+   */
+  private void recordExecution(String ruleId, String outcome, long nanos) {
+    if (meterRegistry == null) {
+      return;
+    }
+    Timer.builder("groovy.script.execute")
+        .description("Groovy script execution time")
+        .tag("rule", ruleId != null ? ruleId : "none")
+        .tag("outcome", outcome)
+        .register(meterRegistry)
+        .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Получение скомпилированного класса сценария из кэша с компиляцией при промахе.
+   *
+   * @param ruleId идентификатор правила
+   * @param ruleCode исходный код сценария
+   * @return класс сценария
+   */
+  Class<? extends Script> compile(String ruleId, String ruleCode) {
+    ScriptKey key = key(ruleId, ruleCode);
+    CompiledScript compiled = scripts().getIfPresent(key);
+    if (compiled != null) {
+      hits.increment();
+      return compiled.scriptClass();
+    }
+    return scripts().get(key, k -> parse(k, ruleCode)).scriptClass();
+  }
+
+  /**
+   * Компиляция сценария отдельным загрузчиком классов.
+   *
+   * @param key ключ сценария
+   * @param ruleCode исходный код сценария
+   * @return скомпилированный сценарий
+   */
+  @SuppressWarnings("unchecked")
+  private CompiledScript parse(ScriptKey key, String ruleCode) {
+    misses.increment();
+    long start = System.nanoTime();
+    GroovyClassLoader classLoader = new GroovyClassLoader(getClass().getClassLoader());
+    Class<? extends Script> scriptClass =
+        (Class<? extends Script>) classLoader.parseClass(ruleCode, scriptName(key));
+    if (compileTimer != null) {
+      compileTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+    log.debug("Groovy script of rule {} compiled", key.ruleId());
+    return new CompiledScript(scriptClass, classLoader);
+  }
+
+  /**
+   * Удаление из кэша сценариев правил, которые отсутствуют или изменены в новой конфигурации
+   * отделения.
+   *
+   * @param oldBranch прежнее состояние отделения
+   * @param newBranch новое состояние отделения (null при удалении отделения)
+   */
+  public void invalidateChangedRules(Branch oldBranch, @Nullable Branch newBranch) {
+    if (oldBranch == null || oldBranch == newBranch || scripts == null) {
+      return;
+    }
+    Set<ScriptKey> obsolete = new HashSet<>();
+    collectKeys(oldBranch.getCustomSegmentationRules(), obsolete);
+    collectKeys(oldBranch.getCustomCallRules(), obsolete);
+    if (newBranch != null) {
+      Set<ScriptKey> current = new HashSet<>();
+      collectKeys(newBranch.getCustomSegmentationRules(), current);
+      collectKeys(newBranch.getCustomCallRules(), current);
+      obsolete.removeAll(current);
+    }
+    scripts.invalidateAll(obsolete);
+  }
+
+  /**
+   * Количество скомпилированных классов в кэше.
+   *
+   * @return размер кэша
+   */
+  public long size() {
+    Cache<ScriptKey, CompiledScript> current = scripts;
+    if (current == null) {
+      return 0;
+    }
+    current.cleanUp();
+    return current.estimatedSize();
+  }
+
+  /**
+   * Количество попаданий в кэш.
+   *
+   * @return количество выполнений без компиляции
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Количество промахов кэша.
+   *
+   * @return количество компиляций
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  private void collectKeys(Map<String, GroovyScript> rules, Set<ScriptKey> keys) {
+    if (rules == null) {
+      return;
+    }
+    rules.forEach(
+        (ruleId, script) -> {
+          if (script != null && script.getRuleCode() != null) {
+            keys.add(key(ruleId, script.getRuleCode()));
+          }
+        });
+  }
+
+  /**
+   * Кэш скомпилированных сценариев; закрывает загрузчик вытесненного класса.
+   *
+   * @return кэш
+   */
+  private Cache<ScriptKey, CompiledScript> scripts() {
+    Cache<ScriptKey, CompiledScript> current = scripts;
+    if (current == null) {
+      synchronized (this) {
+        current = scripts;
+        if (current == null) {
+          current =
+              Caffeine.newBuilder()
+                  .maximumSize(maximumSize)
+                  .<ScriptKey, CompiledScript>removalListener(
+                      (key, compiled, cause) -> close(compiled))
+                  .build();
+          scripts = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  private static void close(CompiledScript compiled) {
+    if (compiled == null) {
+      return;
+    }
+    compiled.classLoader().clearCache();
+    try {
+      compiled.classLoader().close();
+    } catch (IOException e) {
+      log.warn("Groovy class loader close failed", e);
+    }
+  }
+
+  static ScriptKey key(String ruleId, String ruleCode) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(ruleCode.getBytes(StandardCharsets.UTF_8));
+      return new ScriptKey(ruleId == null ? "" : ruleId, HexFormat.of().formatHex(digest));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String scriptName(ScriptKey key) {
+    return "Rule_" + key.codeHash().substring(0, 16) + ".groovy";
   }
 }
@@ -0,0 +1,32 @@
+package ru.aritmos.service;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.Setter;
+
+/** Настройки выдачи номеров талонов {@link TicketSequenceService}. */
+@Getter
+@Setter
+@ConfigurationProperties("ticket-sequence")
+public class TicketSequenceProperties {
+
+  /** Резервирование номеров в файле (иначе после перезапуска номера могут повториться). */
+  private boolean durable = false;
+
+  /** Каталог файлов резерва номеров. */
+  private String directory = "data/ticket-sequence";
+
+  /** Количество номеров, резервируемых в файле за одну запись. */
+  private int blockSize = 100;
+
+  /** Ежедневный сброс нумерации талонов (по локальной дате сервера). */
+  private boolean dailyReset = false;
+
+  /** Формат номера талона ({@link String#format}), добавляемого к префиксу очереди. */
+  private String numberFormat = "%03d";
+
+  /** Форматы номера для отдельных очередей (id очереди -> формат). */
+  private Map<String, String> queueFormats = new HashMap<>();
+}
@@ -0,0 +1,242 @@
+package ru.aritmos.service;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import ru.aritmos.model.Queue;
+
+/**
+ * Выдача номеров талонов очередей.
+ *
+ * <p>Для каждой очереди отделения ведётся атомарный счётчик: номер выдаётся без блокировки
+ * отделения и без сохранения модели отделения. Начальное значение счётчика берётся из очереди
+ * ({@link Queue#getTicketCounter()}) при первом обращении.
+ *
+ * <p>При включённом {@code ticket-sequence.durable} номера резервируются блоками по {@code
+ * block-size}: верхняя граница выданного блока записывается в файл очереди до выдачи первого номера
+ * блока. После перезапуска нумерация продолжается с границы последнего блока, поэтому выданные до
+ * остановки номера не повторяются (неиспользованный остаток блока пропускается). При включённом
+ * {@code daily-reset} нумерация начинается заново с первым талоном нового дня.
+ *
+ * <p>Счётчики удалённого отделения (вместе с файлами резерва) сбрасываются {@link #branchDeleted},
+ * а счётчик очереди, значение которого изменено новой конфигурацией, начинается заново с этого
+ * значения ({@link #reseed}).
+ */
+@Slf4j
+@Singleton
+public class TicketSequenceService {
+
+  /** Расширение файла резерва номеров очереди. */
+  static final String SEQUENCE_SUFFIX = ".seq";
+
+  /** Настройки выдачи номеров. */
+  @Inject TicketSequenceProperties properties = new TicketSequenceProperties();
+
+  /** Часы для определения текущей даты. */
+  Clock clock = Clock.systemDefaultZone();
+
+  /** Счётчики очередей (id отделения/id очереди -> счётчик). */
+  private final Map<String, Sequence> sequences = new ConcurrentHashMap<>();
+
+  /** Счётчик номеров очереди. */
+  private static final class Sequence {
+    private final AtomicInteger counter;
+    private final Path file;
+    private volatile int reserved;
+    private volatile LocalDate day;
+
+    private Sequence(int start, Path file, LocalDate day) {
+      this.counter = new AtomicInteger(start);
+      this.file = file;
+      this.reserved = file != null ? start : Integer.MAX_VALUE;
+      this.day = day;
+    }
+  }
+
+  /**
+   * Выдача следующего номера талона очереди.
+   *
+   * @param branchId идентификатор отделения
+   * @param queue очередь отделения
+   * @return номер талона
+   */
+  public int next(String branchId, Queue queue) {
+    Sequence sequence =
+        sequences.computeIfAbsent(keyOf(branchId, queue.getId()), k -> load(branchId, queue));
+    if (properties.isDailyReset()) {
+      LocalDate today = LocalDate.now(clock);
+      if (!today.equals(sequence.day)) {
+        reset(sequence, today);
+      }
+    }
+    int number = sequence.counter.incrementAndGet();
+    if (number > sequence.reserved) {
+      reserve(sequence, number);
+    }
+    return number;
+  }
+
+  /**
+   * Перезапуск нумерации очереди со счётчика, заданного конфигурацией очереди.
+   *
+   * <p>Граница резерва в файле очереди не учитывается: новая конфигурация явно задаёт начальное
+   * значение.
+   *
+   * @param branchId идентификатор отделения
+   * @param queue очередь с новым значением счётчика
+   */
+  public void reseed(String branchId, Queue queue) {
+    int start = queue.getTicketCounter() != null ? queue.getTicketCounter() : 0;
+    Path file = properties.isDurable() ? fileOf(branchId, queue.getId()) : null;
+    sequences.put(keyOf(branchId, queue.getId()), new Sequence(start, file, LocalDate.now(clock)));
+  }
+
+  /**
+   * Сброс счётчиков очередей удалённого отделения и их файлов резерва.
+   *
+   * @param branchId идентификатор отделения
+   */
+  public void branchDeleted(String branchId) {
+    sequences.keySet().removeIf(key -> key.startsWith(branchId + "/"));
+    if (!properties.isDurable()) {
+      return;
+    }
+    Path branchDirectory =
+        Path.of(properties.getDirectory())
+            .resolve(URLEncoder.encode(branchId, StandardCharsets.UTF_8));
+    if (!Files.isDirectory(branchDirectory)) {
+      return;
+    }
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(branchDirectory)) {
+      for (Path file : files) {
+        Files.deleteIfExists(file);
+      }
+      Files.deleteIfExists(branchDirectory);
+    } catch (IOException e) {
+      log.warn("Ticket sequences of branch {} are not deleted: {}", branchId, e.getMessage());
+    }
+  }
+
+  /**
+   * Формирование номера талона: префикс очереди и номер в формате очереди.
+   *
+   * @param queue очередь
+   * @param number номер талона
+   * @return номер талона для печати
+   */
+  public String format(Queue queue, int number) {
+    String numberFormat =
+        properties.getQueueFormats().getOrDefault(queue.getId(), properties.getNumberFormat());
+    return queue.getTicketPrefix() + String.format(numberFormat, number);
+  }
+
+  /**
+   * Создание счётчика очереди: из файла резерва либо из счётчика очереди.
+   *
+   * @param branchId идентификатор отделения
+   * @param queue очередь
+   * @return счётчик
+   */
+  private Sequence load(String branchId, Queue queue) {
+    LocalDate today = LocalDate.now(clock);
+    int start = queue.getTicketCounter() != null ? queue.getTicketCounter() : 0;
+    if (!properties.isDurable()) {
+      return new Sequence(start, null, today);
+    }
+    Path file = fileOf(branchId, queue.getId());
+    if (Files.exists(file)) {
+      try {
+        String[] content = Files.readString(file, StandardCharsets.UTF_8).trim().split(" ");
+        LocalDate day = LocalDate.parse(content[0]);
+        int reserved = Integer.parseInt(content[1]);
+        if (!properties.isDailyReset() || day.equals(today)) {
+          start = Math.max(start, reserved);
+        } else {
+          start = 0;
+        }
+      } catch (IOException | RuntimeException e) {
+        log.warn("Ticket sequence file {} is not readable: {}", file, e.getMessage());
+      }
+    }
+    return new Sequence(start, file, today);
+  }
+
+  private static String keyOf(String branchId, String queueId) {
+    return branchId + "/" + queueId;
+  }
+
+  /**
+   * Файл резерва номеров очереди.
+   *
+   * @param branchId идентификатор отделения
+   * @param queueId идентификатор очереди
+   * @return путь к файлу
+   */
+  private Path fileOf(String branchId, String queueId) {
+    return Path.of(properties.getDirectory())
+        .resolve(URLEncoder.encode(branchId, StandardCharsets.UTF_8))
+        .resolve(URLEncoder.encode(queueId, StandardCharsets.UTF_8) + SEQUENCE_SUFFIX);
+  }
+
+  /**
+   * Сброс нумерации очереди в начале нового дня.
+   *
+   * @param sequence счётчик
+   * @param today текущая дата
+   */
+  private void reset(Sequence sequence, LocalDate today) {
+    synchronized (sequence) {
+      if (!today.equals(sequence.day)) {
+        sequence.counter.set(0);
+        if (sequence.file != null) {
+          sequence.reserved = 0;
+        }
+        sequence.day = today;
+      }
+    }
+  }
+
+  /**
+   * Резервирование блока номеров, включающего выданный номер.
+   *
+   * @param sequence счётчик
+   * @param number выданный номер
+   */
+  private void reserve(Sequence sequence, int number) {
+    synchronized (sequence) {
+      if (number <= sequence.reserved) {
+        return;
+      }
+      int blockSize = Math.max(1, properties.getBlockSize());
+      int reserved = sequence.reserved;
+      while (reserved < number) {
+        reserved += blockSize;
+      }
+      try {
+        Files.createDirectories(sequence.file.getParent());
+        Path temporary = sequence.file.resolveSibling(sequence.file.getFileName() + ".tmp");
+        Files.writeString(temporary, sequence.day + " " + reserved, StandardCharsets.UTF_8);
+        Files.move(
+            temporary,
+            sequence.file,
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException e) {
+        log.warn("Ticket sequence {} is not persisted: {}", sequence.file, e.getMessage());
+      }
+      sequence.reserved = reserved;
+    }
+  }
+}
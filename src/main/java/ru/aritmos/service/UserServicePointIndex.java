@@ -0,0 +1,94 @@
+package ru.aritmos.service;
+
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import ru.aritmos.model.Branch;
+
+/**
+ * Индекс рабочих мест сотрудников: логин -> (отделение, точка обслуживания).
+ *
+ * <p>Индекс поддерживается {@link BranchService} при открытии и закрытии точек обслуживания и смене
+ * рабочего профиля, а при замене модели отделения (публикация конфигурации, восстановление из
+ * журнала) перестраивается по точкам обслуживания отделения. Позволяет находить рабочее место
+ * сотрудника без обхода всех отделений (обработка завершения сессий, запросы «где сотрудник»).
+ */
+@Singleton
+public class UserServicePointIndex {
+
+  /**
+   * Рабочее место сотрудника.
+   *
+   * @param branchId идентификатор отделения
+   * @param servicePointId идентификатор точки обслуживания
+   */
+  public record Location(String branchId, String servicePointId) {}
+
+  /** Рабочие места (логин -> рабочее место). */
+  private final ConcurrentHashMap<String, Location> locations = new ConcurrentHashMap<>();
+
+  /**
+   * Регистрация сотрудника на точке обслуживания.
+   *
+   * @param login логин сотрудника
+   * @param branchId идентификатор отделения
+   * @param servicePointId идентификатор точки обслуживания
+   */
+  public void put(String login, String branchId, String servicePointId) {
+    if (login != null && branchId != null && servicePointId != null) {
+      locations.put(login, new Location(branchId, servicePointId));
+    }
+  }
+
+  /**
+   * Снятие сотрудника с точки обслуживания. Запись удаляется, только если она указывает на
+   * переданную точку (сотрудник мог уже перейти на другую точку).
+   *
+   * @param login логин сотрудника
+   * @param branchId идентификатор отделения
+   * @param servicePointId идентификатор точки обслуживания
+   */
+  public void remove(String login, String branchId, String servicePointId) {
+    if (login != null) {
+      locations.remove(login, new Location(branchId, servicePointId));
+    }
+  }
+
+  /**
+   * Получение рабочего места сотрудника.
+   *
+   * @param login логин сотрудника
+   * @return рабочее место либо пустое значение
+   */
+  public Optional<Location> get(@Nullable String login) {
+    return login == null ? Optional.empty() : Optional.ofNullable(locations.get(login));
+  }
+
+  /**
+   * Перестроение записей отделения по его точкам обслуживания.
+   *
+   * @param branchId идентификатор отделения
+   * @param branch модель отделения
+   */
+  public void rebuild(String branchId, Branch branch) {
+    branchRemoved(branchId);
+    branch
+        .getServicePoints()
+        .forEach(
+            (id, servicePoint) -> {
+              if (servicePoint.getUser() != null) {
+                put(servicePoint.getUser().getName(), branchId, id);
+              }
+            });
+  }
+
+  /**
+   * Удаление записей отделения.
+   *
+   * @param branchId идентификатор отделения
+   */
+  public void branchRemoved(String branchId) {
+    locations.values().removeIf(location -> location.branchId().equals(branchId));
+  }
+}
@@ -0,0 +1,302 @@
+package ru.aritmos.service;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import ru.aritmos.model.visit.Visit;
+import ru.aritmos.model.visit.VisitDelta;
+
+/**
+ * Поток изменений визитов отделений для фронтендов.
+ *
+ * <p>При каждом обновлении визита (см. {@link BranchService#updateVisit}) размещение и статус
+ * визита сравниваются с предыдущими, и в поток отделения публикуется изменение {@link VisitDelta}
+ * со следующим номером. Публикация выполняется под блокировкой отделения, поэтому номера изменений
+ * отделения монотонны и соответствуют порядку изменений.
+ *
+ * <p>Последние {@code micronaut.application.visitDeltaHistory} изменений отделения хранятся для
+ * возобновления потока после переподключения клиента. Если клиент запросил изменения старше
+ * хранимых, поток начинается с записи {@link VisitDelta.Type#RESYNC}. Клиент, не успевающий читать
+ * поток, отключается по переполнению буфера и переподключается с номера последнего изменения.
+ *
+ * <p>При замене модели отделения (публикация конфигурации, {@link BranchService#add}) размещения
+ * визитов перечитываются из новой модели, а в поток публикуется {@link VisitDelta.Type#RESYNC}:
+ * клиенты заново запрашивают состояние отделения.
+ */
+@Slf4j
+@Singleton
+public class VisitDeltaStream {
+
+  /** Количество хранимых изменений отделения. */
+  @Value("${micronaut.application.visitDeltaHistory:1000}")
+  int historySize = 1000;
+
+  /** Каналы отделений (id отделения -> канал). */
+  private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+  /**
+   * Размещение и статус визита.
+   *
+   * @param queueId очередь
+   * @param servicePointId точка обслуживания
+   * @param poolServicePointId пул точки обслуживания
+   * @param poolUserId пул сотрудника
+   * @param status статус
+   */
+  record Placement(
+      String queueId,
+      String servicePointId,
+      String poolServicePointId,
+      String poolUserId,
+      String status) {
+
+    static Placement of(Visit visit) {
+      return new Placement(
+          visit.getQueueId(),
+          visit.getServicePointId(),
+          visit.getPoolServicePointId(),
+          visit.getPoolUserId(),
+          visit.getStatus());
+    }
+
+    boolean isDetached() {
+      return queueId == null
+          && servicePointId == null
+          && poolServicePointId == null
+          && poolUserId == null;
+    }
+
+    boolean sameLocation(Placement other) {
+      return Objects.equals(queueId, other.queueId)
+          && Objects.equals(servicePointId, other.servicePointId)
+          && Objects.equals(poolServicePointId, other.poolServicePointId)
+          && Objects.equals(poolUserId, other.poolUserId);
+    }
+  }
+
+  /** Канал изменений отделения. */
+  private final class Channel {
+    private final Sinks.Many<VisitDelta> sink =
+        Sinks.many().replay().limit(Math.max(1, historySize));
+    private final Map<String, Placement> placements = new HashMap<>();
+    private long sequence;
+  }
+
+  /**
+   * Публикация изменения визита (вызывается под блокировкой отделения).
+   *
+   * @param branchId идентификатор отделения
+   * @param visit визит после изменения
+   */
+  public void visitChanged(String branchId, Visit visit) {
+    if (branchId == null || visit == null || visit.getId() == null) {
+      return;
+    }
+    Channel channel = channels.computeIfAbsent(branchId, id -> new Channel());
+    synchronized (channel) {
+      Placement current = Placement.of(visit);
+      Placement previous = channel.placements.get(visit.getId());
+      VisitDelta.Type type;
+      if (current.isDetached()) {
+        if (previous == null) {
+          return;
+        }
+        channel.placements.remove(visit.getId());
+        type = VisitDelta.Type.REMOVED;
+      } else {
+        channel.placements.put(visit.getId(), current);
+        if (previous == null) {
+          type = VisitDelta.Type.ADDED;
+        } else if (!previous.sameLocation(current)) {
+          type = VisitDelta.Type.MOVED;
+        } else if (!Objects.equals(previous.status(), current.status())) {
+          type = VisitDelta.Type.STATUS_CHANGED;
+        } else {
+          type = VisitDelta.Type.UPDATED;
+        }
+      }
+      VisitDelta delta =
+          new VisitDelta(
+              ++channel.sequence,
+              branchId,
+              type,
+              visit.getId(),
+              visit.getTicket(),
+              current.status(),
+              current.queueId(),
+              current.servicePointId(),
+              current.poolServicePointId(),
+              current.poolUserId(),
+              previous != null ? previous.queueId() : null,
+              previous != null ? previous.servicePointId() : null,
+              ZonedDateTime.now());
+      Sinks.EmitResult result = channel.sink.tryEmitNext(delta);
+      if (result.isFailure()) {
+        log.warn(
+            "Visit delta {} of branch {} is not published: {}", delta.sequence(), branchId, result);
+      }
+    }
+  }
+
+  /**
+   * Замена модели отделения (вызывается под блокировкой отделения): размещения визитов
+   * перечитываются из новой модели, подписчикам публикуется {@link VisitDelta.Type#RESYNC}.
+   *
+   * @param branchId идентификатор отделения
+   * @param visits визиты новой модели отделения
+   */
+  public void branchReplaced(String branchId, Collection<Visit> visits) {
+    Channel channel = branchId == null ? null : channels.get(branchId);
+    if (channel == null) {
+      return;
+    }
+    synchronized (channel) {
+      channel.placements.clear();
+      for (Visit visit : visits) {
+        Placement placement = Placement.of(visit);
+        if (visit.getId() != null && !placement.isDetached()) {
+          channel.placements.put(visit.getId(), placement);
+        }
+      }
+      VisitDelta marker = resync(++channel.sequence, branchId);
+      Sinks.EmitResult result = channel.sink.tryEmitNext(marker);
+      if (result.isFailure()) {
+        log.warn("Resync of branch {} is not published: {}", branchId, result);
+      }
+    }
+  }
+
+  /**
+   * Закрытие потока удалённого отделения.
+   *
+   * @param branchId идентификатор отделения
+   */
+  public void branchDeleted(String branchId) {
+    Channel channel = branchId == null ? null : channels.remove(branchId);
+    if (channel != null) {
+      channel.sink.tryEmitComplete();
+    }
+  }
+
+  /**
+   * Номер последнего изменения отделения.
+   *
+   * @param branchId идентификатор отделения
+   * @return номер изменения (0, если изменений не было)
+   */
+  public long sequence(String branchId) {
+    Channel channel = branchId == null ? null : channels.get(branchId);
+    if (channel == null) {
+      return 0L;
+    }
+    synchronized (channel) {
+      return channel.sequence;
+    }
+  }
+
+  /**
+   * Подписка на изменения отделения.
+   *
+   * @param branchId идентификатор отделения
+   * @param fromSequence номер последнего полученного клиентом изменения; {@code null} - только
+   *     новые изменения
+   * @param queueIds очереди, изменения которых нужны клиенту (пусто - все)
+   * @param servicePointIds точки обслуживания, изменения которых нужны клиенту (пусто - все)
+   * @return поток изменений в порядке номеров
+   */
+  public Flux<VisitDelta> subscribe(
+      String branchId,
+      @Nullable Long fromSequence,
+      @Nullable Collection<String> queueIds,
+      @Nullable Collection<String> servicePointIds) {
+    Channel channel = channels.computeIfAbsent(branchId, id -> new Channel());
+    long last;
+    synchronized (channel) {
+      last = channel.sequence;
+    }
+    long oldest = Math.max(1L, last - Math.max(1, historySize) + 1);
+    // Номер больше последнего бывает после перезапуска сервиса: нумерация начинается заново
+    boolean resync =
+        fromSequence != null && (fromSequence > last || fromSequence + 1 < oldest);
+    long from = fromSequence == null || resync ? last : fromSequence;
+    Flux<VisitDelta> deltas =
+        channel
+            .sink
+            .asFlux()
+            .filter(delta -> delta.sequence() > from)
+            .filter(delta -> matches(delta, queueIds, servicePointIds))
+            .onBackpressureBuffer(Math.max(1, historySize));
+    if (!resync) {
+      return deltas;
+    }
+    return Flux.just(resync(from, branchId)).concatWith(deltas);
+  }
+
+  /**
+   * Запись о необходимости заново получить состояние отделения.
+   *
+   * @param sequence номер записи
+   * @param branchId идентификатор отделения
+   * @return запись {@link VisitDelta.Type#RESYNC}
+   */
+  private static VisitDelta resync(long sequence, String branchId) {
+    return new VisitDelta(
+        sequence,
+        branchId,
+        VisitDelta.Type.RESYNC,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        ZonedDateTime.now());
+  }
+
+  /**
+   * Проверка соответствия изменения фильтру клиента: изменение нужно, если визит находится или
+   * находился в одной из запрошенных очередей или точек обслуживания; запись {@link
+   * VisitDelta.Type#RESYNC} нужна всем клиентам.
+   *
+   * @param delta изменение
+   * @param queueIds очереди
+   * @param servicePointIds точки обслуживания
+   * @return {@code true}, если изменение нужно клиенту
+   */
+  static boolean matches(
+      VisitDelta delta,
+      @Nullable Collection<String> queueIds,
+      @Nullable Collection<String> servicePointIds) {
+    boolean anyQueue = queueIds == null || queueIds.isEmpty();
+    boolean anyServicePoint = servicePointIds == null || servicePointIds.isEmpty();
+    if (delta.type() == VisitDelta.Type.RESYNC || anyQueue && anyServicePoint) {
+      return true;
+    }
+    boolean queueMatches =
+        !anyQueue
+            && (contains(queueIds, delta.queueId())
+                || contains(queueIds, delta.previousQueueId()));
+    boolean servicePointMatches =
+        !anyServicePoint
+            && (contains(servicePointIds, delta.servicePointId())
+                || contains(servicePointIds, delta.poolServicePointId())
+                || contains(servicePointIds, delta.previousServicePointId()));
+    return queueMatches || servicePointMatches;
+  }
+
+  private static boolean contains(Collection<String> ids, String id) {
+    return id != null && ids.contains(id);
+  }
+}
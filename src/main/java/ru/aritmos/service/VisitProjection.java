@@ -0,0 +1,194 @@
+package ru.aritmos.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import ru.aritmos.model.visit.Visit;
+
+/**
+ * Проекции визитов для списков: только запрошенные поля, без копирования визита.
+ *
+ * <p>Значения полей читаются из визита непосредственно при построении проекции; вычисляемые по
+ * времени поля ({@code waitingTime}, {@code visitLifeTime}, {@code servingTime}) рассчитываются на
+ * момент построения.
+ *
+ * <p>Визиты упорядочиваются по началу текущего ожидания (возвращение, перевод либо создание
+ * визита), а при равенстве - по идентификатору. Такой порядок совпадает с убыванием времени
+ * ожидания, но не меняется с течением времени, поэтому курсор страницы (ключ порядка последнего
+ * визита страницы) остаётся корректным между запросами.
+ */
+final class VisitProjection {
+
+  /** Размер страницы по умолчанию. */
+  static final int DEFAULT_LIMIT = 100;
+
+  /** Максимальный размер страницы. */
+  static final int MAX_LIMIT = 1000;
+
+  /** Поля проекции по умолчанию. */
+  static final List<String> DEFAULT_FIELDS =
+      List.of("id", "ticket", "status", "queueId", "servicePointId", "waitingTime");
+
+  /** Доступные поля проекции (имя поля -> получение значения). */
+  static final Map<String, Function<Visit, Object>> FIELDS = fields();
+
+  /** Порядок визитов в списке. */
+  static final Comparator<Visit> ORDER =
+      Comparator.<Visit>comparingLong(VisitProjection::waitingSince)
+          .thenComparing(Visit::getId, Comparator.nullsLast(Comparator.<String>naturalOrder()));
+
+  /**
+   * Позиция в списке визитов.
+   *
+   * @param waitingSince начало ожидания визита в миллисекундах
+   * @param visitId идентификатор визита
+   */
+  record Cursor(long waitingSince, String visitId) {}
+
+  private VisitProjection() {}
+
+  private static Map<String, Function<Visit, Object>> fields() {
+    Map<String, Function<Visit, Object>> fields = new LinkedHashMap<>();
+    fields.put("id", Visit::getId);
+    fields.put("ticket", Visit::getTicket);
+    fields.put("status", Visit::getStatus);
+    fields.put("branchId", Visit::getBranchId);
+    fields.put("queueId", Visit::getQueueId);
+    fields.put("servicePointId", Visit::getServicePointId);
+    fields.put("poolServicePointId", Visit::getPoolServicePointId);
+    fields.put("poolUserId", Visit::getPoolUserId);
+    fields.put("userName", Visit::getUserName);
+    fields.put("createDateTime", Visit::getCreateDateTime);
+    fields.put("transferDateTime", Visit::getTransferDateTime);
+    fields.put("returnDateTime", Visit::getReturnDateTime);
+    fields.put("callDateTime", Visit::getCallDateTime);
+    fields.put("startServingDateTime", Visit::getStartServingDateTime);
+    fields.put("waitingTime", Visit::getWaitingTime);
+    fields.put("visitLifeTime", Visit::getVisitLifeTime);
+    fields.put("servingTime", Visit::getServingTime);
+    fields.put(
+        "currentServiceId",
+        visit -> visit.getCurrentService() != null ? visit.getCurrentService().getId() : null);
+    fields.put(
+        "currentServiceName",
+        visit -> visit.getCurrentService() != null ? visit.getCurrentService().getName() : null);
+    fields.put("parameterMap", Visit::getParameterMap);
+    return Collections.unmodifiableMap(fields);
+  }
+
+  /**
+   * Разбор перечня полей проекции.
+   *
+   * @param fields имена полей через запятую; пустое значение - поля по умолчанию
+   * @return имена полей в порядке перечисления
+   * @throws IllegalArgumentException если поле неизвестно
+   */
+  static List<String> parseFields(String fields) {
+    if (fields == null || fields.isBlank()) {
+      return DEFAULT_FIELDS;
+    }
+    Set<String> result = new LinkedHashSet<>();
+    for (String field : fields.split(",")) {
+      String name = field.trim();
+      if (name.isEmpty()) {
+        continue;
+      }
+      if (!FIELDS.containsKey(name)) {
+        throw new IllegalArgumentException(name);
+      }
+      result.add(name);
+    }
+    return result.isEmpty() ? DEFAULT_FIELDS : List.copyOf(result);
+  }
+
+  /**
+   * Построение проекции визита.
+   *
+   * @param visit визит
+   * @param fields имена полей
+   * @return значения полей (имя поля -> значение)
+   */
+  static Map<String, Object> project(Visit visit, Collection<String> fields) {
+    Map<String, Object> projection = new LinkedHashMap<>(fields.size() * 2);
+    for (String field : fields) {
+      projection.put(field, FIELDS.get(field).apply(visit));
+    }
+    return projection;
+  }
+
+  /**
+   * Начало текущего ожидания визита.
+   *
+   * @param visit визит
+   * @return момент в миллисекундах; визиты без дат - в конце списка
+   */
+  static long waitingSince(Visit visit) {
+    ZonedDateTime since =
+        visit.getReturnDateTime() != null
+            ? visit.getReturnDateTime()
+            : visit.getTransferDateTime() != null
+                ? visit.getTransferDateTime()
+                : visit.getCreateDateTime();
+    return since != null ? since.toInstant().toEpochMilli() : Long.MAX_VALUE;
+  }
+
+  /**
+   * Проверка, что визит следует за позицией курсора.
+   *
+   * @param visit визит
+   * @param cursor позиция ({@code null} - начало списка)
+   * @return {@code true}, если визит входит в страницы после курсора
+   */
+  static boolean isAfter(Visit visit, Cursor cursor) {
+    if (cursor == null) {
+      return true;
+    }
+    int bySince = Long.compare(waitingSince(visit), cursor.waitingSince());
+    if (bySince != 0) {
+      return bySince > 0;
+    }
+    return visit.getId() != null && visit.getId().compareTo(cursor.visitId()) > 0;
+  }
+
+  /**
+   * Курсор, указывающий на визит.
+   *
+   * @param visit последний визит страницы
+   * @return непрозрачное значение курсора
+   */
+  static String cursorOf(Visit visit) {
+    String value = waitingSince(visit) + ":" + visit.getId();
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Разбор курсора.
+   *
+   * @param cursor значение курсора ({@code null} или пустое - начало списка)
+   * @return позиция либо {@code null}
+   * @throws IllegalArgumentException если курсор повреждён
+   */
+  static Cursor parseCursor(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    int separator = value.indexOf(':');
+    if (separator <= 0 || separator == value.length() - 1) {
+      throw new IllegalArgumentException(cursor);
+    }
+    return new Cursor(
+        Long.parseLong(value.substring(0, separator)), value.substring(separator + 1));
+  }
+}
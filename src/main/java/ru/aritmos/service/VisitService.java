@@ -1,5 +1,6 @@
 package ru.aritmos.service;
 
+import io.micronaut.context.annotation.Value;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.ExecuteOn;
@@ -15,18 +16,23 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.keycloak.representations.idm.UserRepresentation;
+import ru.aritmos.config.VisitManagerExecutors;
 import ru.aritmos.events.model.Event;
 import ru.aritmos.events.services.DelayedEvents;
 import ru.aritmos.events.services.EventService;
 import ru.aritmos.exceptions.BusinessException;
 import ru.aritmos.exceptions.SystemException;
 import ru.aritmos.keycloack.service.KeyCloackClient;
+import ru.aritmos.metrics.Measured;
 import ru.aritmos.model.*;
 import ru.aritmos.model.Queue;
 import ru.aritmos.model.tiny.TinyClass;
+import ru.aritmos.model.tiny.VisitPage;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitEventHistory;
 import ru.aritmos.model.visit.VisitEventInformation;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.service.rules.CallRule;
 import ru.aritmos.service.rules.SegmentationRule;
 
@@ -43,6 +49,19 @@ public class VisitService {
   CallRule lifeTimeCallRule;
   @Inject SegmentationRule segmentationRule;
 
+  /** Хранилище состояния отделений, сериализующее изменения одного отделения. */
+  @Inject BranchStateStore branchStateStore = new BranchStateStore();
+
+  /** Выдача и форматирование номеров талонов. */
+  @Inject TicketSequenceService ticketSequence = new TicketSequenceService();
+
+  /**
+   * Максимальное количество хранимых событий визита ({@code 0} - без ограничения). Старые события
+   * отбрасываются из истории визита; последние значения их параметров остаются в индексе истории.
+   */
+  @Value("${visit-history.max-events:0}")
+  int maxHistoryEvents;
+
   @Inject
   public void setWaitingTimeCallRule(@Named("MaxWaitingTimeCallRule") CallRule callRule) {
     this.waitingTimeCallRule = callRule;
@@ -61,8 +80,9 @@ public class VisitService {
    * @return визит
    */
   public Visit getVisit(String branchId, String visitId) {
-    if (getAllVisits(branchId).containsKey(visitId)) {
-      return getAllVisits(branchId).get(visitId);
+    Optional<Visit> visit = branchService.getBranch(branchId).findVisit(visitId);
+    if (visit.isPresent()) {
+      return visit.get();
     }
     throw new BusinessException(
         String.format("Visit %s not found", visitId),
@@ -133,7 +153,7 @@ public class VisitService {
    * @param queueId идентификатор очереди
    * @return список визитов
    */
-  @ExecuteOn(TaskExecutors.IO)
+  @ExecuteOn(VisitManagerExecutors.READ_QUERY)
   public List<Visit> getVisits(String branchId, String queueId) {
     Branch currentBranch = branchService.getBranch(branchId);
     Queue queue;
@@ -144,15 +164,7 @@ public class VisitService {
           "queue_not_found_in_branch_configuration", eventService, HttpStatus.NOT_FOUND);
     }
     List<Visit> visits;
-    visits =
-        queue.getVisits().stream()
-            .filter(
-                f ->
-                    (f.getReturnTimeDelay() == null
-                            || f.getReturnTimeDelay() <= f.getReturningTime())
-                        && (f.getTransferTimeDelay() == null
-                            || f.getTransferTimeDelay() <= f.getTransferingTime()))
-            .toList();
+    visits = queue.getVisits().stream().filter(VisitService::isDelayElapsed).toList();
     return visits.stream()
         .sorted((f1, f2) -> Long.compare(f2.getWaitingTime(), f1.getWaitingTime()))
         .toList();
@@ -182,6 +194,7 @@ public class VisitService {
    * @param printTicket флаг печати талона
    * @return созданный визит
    */
+  @Measured(value = "visit.operation", operation = "create")
   public Visit createVisit(
       String branchId, String entryPointId, VisitParameters visitParameters, Boolean printTicket)
       throws SystemException {
@@ -212,6 +225,7 @@ public class VisitService {
    * @param segmentationRuleId идентификатор правила вызова
    * @return созданный визит
    */
+  @Measured(value = "visit.operation", operation = "create")
   public Visit createVisit(
       String branchId,
       String entryPointId,
@@ -249,6 +263,7 @@ public class VisitService {
    * @param printTicket флаг печати талона
    * @return созданный визит
    */
+  @Measured(value = "visit.operation", operation = "create")
   public Visit createVisitFromReception(
       String branchId,
       String printerId,
@@ -282,6 +297,7 @@ public class VisitService {
    * @param printTicket флаг печати талона
    * @return созданный визит
    */
+  @Measured(value = "visit.operation", operation = "create")
   public Visit createVisitFromReception(
       String branchId,
       String printerId,
@@ -312,6 +328,7 @@ public class VisitService {
     }
   }
 
+  @Measured(value = "visit.operation", operation = "create")
   public Visit createVirtualVisit(
       String branchId, String servicePointId, VisitParameters visitParameters, String sid)
       throws SystemException {
@@ -348,47 +365,44 @@ public class VisitService {
    * @param eventService служба отправки события визита на шину данных
    */
   public void addEvent(Visit visit, VisitEvent event, EventService eventService) {
+    addEvent(visit, VisitTransition.of(event), eventService);
+  }
+
+  /**
+   * Добавление перехода в визит
+   *
+   * @param visit визит
+   * @param transition переход визита (событие, время и параметры)
+   * @param eventService служба отправки события визита на шину данных
+   */
+  public void addEvent(Visit visit, VisitTransition transition, EventService eventService) {
+    VisitEvent event = transition.event();
     if (visit.getVisitEvents().isEmpty()) {
       if (!event.equals(VisitEvent.CREATED))
         throw new BusinessException(
             "visit_must_be_created_first", eventService, HttpStatus.CONFLICT);
-      else {
-        visit
-            .getEvents()
-            .add(
-                VisitEventInformation.builder()
-                    .visitEvent(event)
-                    .parameters(new HashMap<>(event.getParameters()))
-                    .eventDateTime(event.dateTime != null ? event.dateTime : ZonedDateTime.now())
-                    .build());
-        visit.getVisitEvents().add(event);
-      }
-
     } else {
       VisitEvent prevEvent = visit.getVisitEvents().get(visit.getVisitEvents().size() - 1);
-      if (prevEvent.canBeNext(event)) {
-        visit
-            .getEvents()
-            .add(
-                VisitEventInformation.builder()
-                    .visitEvent(event)
-                    .parameters(new HashMap<>(event.getParameters()))
-                    .eventDateTime(event.dateTime != null ? event.dateTime : ZonedDateTime.now())
-                    .build());
-        visit.getVisitEvents().add(event);
-
-      } else
+      if (!prevEvent.canBeNext(event))
         throw new BusinessException(
             String.format(
                 "Event %s cannot transition the visit to status %s",
-                event.name(), visit.getVisitEvents().get(visit.getVisitEvents().size() - 1).name()),
+                event.name(), prevEvent.name()),
             String.format(
                 "Событие %s не может перевести визит в статус %s",
-                event.name(), visit.getVisitEvents().get(visit.getVisitEvents().size() - 1).name()),
+                event.name(), prevEvent.name()),
             eventService,
             HttpStatus.CONFLICT);
     }
-    event.getState();
+    VisitEventHistory history = visit.eventHistory();
+    history.add(
+        VisitEventInformation.builder()
+            .visitEvent(event)
+            .parameters(new HashMap<>(transition.parameters()))
+            .eventDateTime(transition.dateTime())
+            .build());
+    history.truncate(maxHistoryEvents);
+    visit.getVisitEvents().add(event);
   }
 
   /**
@@ -473,6 +487,96 @@ public class VisitService {
     return branchService.getBranch(branchId).getVisitsByStatus(statuses);
   }
 
+  /**
+   * Получение страницы визитов отделения или очереди в виде проекций с выбранными полями.
+   *
+   * <p>Визиты не копируются: отбираются ссылки на визиты отделения, и проекции строятся только для
+   * визитов страницы. Порядок и курсор описаны в {@link VisitProjection}; для очереди, как и в
+   * {@link #getVisits(String, String)}, не выводятся визиты, не выдержавшие задержку после
+   * возвращения или перевода.
+   *
+   * @param branchId идентификатор отделения
+   * @param queueId идентификатор очереди ({@code null} - все визиты отделения)
+   * @param statuses статусы визитов ({@code null} или пустой список - любые)
+   * @param fields имена полей проекции через запятую ({@code null} - поля по умолчанию)
+   * @param limit размер страницы ({@code null} - по умолчанию)
+   * @param cursor курсор страницы из предыдущего ответа ({@code null} - первая страница)
+   * @return страница визитов
+   * @throws BusinessException если отделение или очередь не найдены, поле или курсор некорректны
+   */
+  public VisitPage getVisitPage(
+      String branchId,
+      String queueId,
+      List<String> statuses,
+      String fields,
+      Integer limit,
+      String cursor) {
+    Branch currentBranch = branchService.getBranch(branchId);
+    Collection<Visit> source;
+    if (queueId == null) {
+      source = currentBranch.getAllVisits().values();
+    } else if (currentBranch.getQueues().containsKey(queueId)) {
+      source =
+          currentBranch.getQueues().get(queueId).getVisits().stream()
+              .filter(VisitService::isDelayElapsed)
+              .toList();
+    } else {
+      throw new BusinessException(
+          "queue_not_found_in_branch_configuration", eventService, HttpStatus.NOT_FOUND);
+    }
+    List<String> projectionFields;
+    VisitProjection.Cursor position;
+    try {
+      projectionFields = VisitProjection.parseFields(fields);
+      position = VisitProjection.parseCursor(cursor);
+    } catch (IllegalArgumentException e) {
+      throw new BusinessException(
+          String.format("Invalid field or cursor %s", e.getMessage()),
+          String.format("Некорректное поле или курсор %s", e.getMessage()),
+          eventService,
+          HttpStatus.BAD_REQUEST);
+    }
+    int pageSize =
+        limit == null || limit <= 0
+            ? VisitProjection.DEFAULT_LIMIT
+            : Math.min(limit, VisitProjection.MAX_LIMIT);
+    List<Visit> matching =
+        source.stream()
+            .filter(
+                visit ->
+                    statuses == null
+                        || statuses.isEmpty()
+                        || statuses.contains(visit.getStatus()))
+            .toList();
+    List<Visit> page =
+        matching.stream()
+            .filter(visit -> VisitProjection.isAfter(visit, position))
+            .sorted(VisitProjection.ORDER)
+            .limit(pageSize + 1L)
+            .toList();
+    boolean hasNext = page.size() > pageSize;
+    List<Visit> items = hasNext ? page.subList(0, pageSize) : page;
+    return VisitPage.builder()
+        .items(
+            items.stream().map(visit -> VisitProjection.project(visit, projectionFields)).toList())
+        .nextCursor(hasNext ? VisitProjection.cursorOf(items.get(items.size() - 1)) : null)
+        .total(matching.size())
+        .build();
+  }
+
+  /**
+   * Проверка, что визит выдержал задержку после возвращения или перевода в очередь.
+   *
+   * @param visit визит
+   * @return {@code true}, если визит можно выводить в очереди
+   */
+  private static boolean isDelayElapsed(Visit visit) {
+    return (visit.getReturnTimeDelay() == null
+            || visit.getReturnTimeDelay() <= visit.getReturningTime())
+        && (visit.getTransferTimeDelay() == null
+            || visit.getTransferTimeDelay() <= visit.getTransferingTime());
+  }
+
   /**
    * Создание визита
    *
@@ -482,6 +586,7 @@ public class VisitService {
    * @param printTicket флаг печати талона
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "create")
   public Visit createVisit2(
       String branchId,
       String entryPointId,
@@ -524,7 +629,7 @@ public class VisitService {
                 .visitMarks(new ArrayList<>())
                 .visitNotes(new ArrayList<>())
                 .visitEvents(new ArrayList<>())
-                .events(new ArrayList<>())
+                .events(new VisitEventHistory())
                 .returnTimeDelay(0L)
                 .transferTimeDelay(0L)
                 // .updateDateTime(ZonedDateTime.now())
@@ -535,17 +640,14 @@ public class VisitService {
                 .parameterMap(parametersMap)
                 .build();
         Queue serviceQueue;
-        if (segmentationRule.getQueue(visit, currentBranch).isPresent()) {
-          serviceQueue = segmentationRule.getQueue(visit, currentBranch).get();
+        Optional<Queue> queue = segmentationRule.getQueue(visit, currentBranch);
+        if (queue.isPresent()) {
+          serviceQueue = queue.get();
 
-          serviceQueue.setTicketCounter(
-              branchService.incrementTicketCounter(branchId, serviceQueue));
+          int ticketNumber = branchService.incrementTicketCounter(branchId, serviceQueue);
           visit.setQueueId(serviceQueue.getId());
-          visit.setTicket(
-              (serviceQueue.getTicketPrefix()
-                  + String.format("%03d", serviceQueue.getTicketCounter())));
-          VisitEvent event = VisitEvent.CREATED;
-          event.getParameters().clear();
+          visit.setTicket(ticketSequence.format(serviceQueue, ticketNumber));
+          VisitTransition.Builder event = VisitTransition.builder(VisitEvent.CREATED);
 
           event.getParameters().put("visitCreator", "terminal");
           event
@@ -558,12 +660,13 @@ public class VisitService {
 
             event.getParameters().put("printerId", entryPoint.getPrinter().getId());
           }
-          event.dateTime = ZonedDateTime.now();
+          event.dateTime(ZonedDateTime.now());
 
-          branchService.updateVisit(visit, event, this);
+          branchService.updateVisit(visit, event.build(), this);
           if (currentBranch.getQueues().containsKey(serviceQueue.getId())) {
-            VisitEvent queueEvent = VisitEvent.PLACED_IN_QUEUE;
-            queueEvent.dateTime = ZonedDateTime.now();
+            VisitTransition.Builder queueEvent =
+                VisitTransition.builder(VisitEvent.PLACED_IN_QUEUE);
+            queueEvent.dateTime(ZonedDateTime.now());
             queueEvent
                 .getParameters()
                 .put("serviceId", !services.isEmpty() ? services.get(0).getId() : null);
@@ -580,7 +683,7 @@ public class VisitService {
             }
 
             // changedVisitEventSend("CREATED", null, visit, new HashMap<>());
-            branchService.updateVisit(visit, queueEvent, this);
+            branchService.updateVisit(visit, queueEvent.build(), this);
             log.info("Visit {} created!", visit);
 
             return visit;
@@ -612,6 +715,7 @@ public class VisitService {
    * @param printTicket флаг печати талона
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "create")
   public Visit createVisit2(
       String branchId,
       String entryPointId,
@@ -654,7 +758,7 @@ public class VisitService {
                 .visitMarks(new ArrayList<>())
                 .visitNotes(new ArrayList<>())
                 .visitEvents(new ArrayList<>())
-                .events(new ArrayList<>())
+                .events(new VisitEventHistory())
                 .returnTimeDelay(0L)
                 .transferTimeDelay(0L)
                 // .updateDateTime(ZonedDateTime.now())
@@ -669,14 +773,10 @@ public class VisitService {
         if (queue.isPresent()) {
           serviceQueue = queue.get();
 
-          serviceQueue.setTicketCounter(
-              branchService.incrementTicketCounter(branchId, serviceQueue));
+          int ticketNumber = branchService.incrementTicketCounter(branchId, serviceQueue);
           visit.setQueueId(serviceQueue.getId());
-          visit.setTicket(
-              (serviceQueue.getTicketPrefix()
-                  + String.format("%03d", serviceQueue.getTicketCounter())));
-          VisitEvent event = VisitEvent.CREATED;
-          event.getParameters().clear();
+          visit.setTicket(ticketSequence.format(serviceQueue, ticketNumber));
+          VisitTransition.Builder event = VisitTransition.builder(VisitEvent.CREATED);
 
           event.getParameters().put("visitCreator", "terminal");
           event
@@ -690,12 +790,13 @@ public class VisitService {
             event.getParameters().put("printerId", entryPoint.getPrinter().getId());
           }
 
-          event.dateTime = ZonedDateTime.now();
+          event.dateTime(ZonedDateTime.now());
 
-          branchService.updateVisit(visit, event, this);
+          branchService.updateVisit(visit, event.build(), this);
           if (currentBranch.getQueues().containsKey(serviceQueue.getId())) {
-            VisitEvent queueEvent = VisitEvent.PLACED_IN_QUEUE;
-            queueEvent.dateTime = ZonedDateTime.now();
+            VisitTransition.Builder queueEvent =
+                VisitTransition.builder(VisitEvent.PLACED_IN_QUEUE);
+            queueEvent.dateTime(ZonedDateTime.now());
             queueEvent
                 .getParameters()
                 .put("serviceId", !services.isEmpty() ? services.get(0).getId() : null);
@@ -712,7 +813,7 @@ public class VisitService {
             }
 
             // changedVisitEventSend("CREATED", null, visit, new HashMap<>());
-            branchService.updateVisit(visit, queueEvent, this);
+            branchService.updateVisit(visit, queueEvent.build(), this);
             log.info("Visit {} created!", visit);
 
             return visit;
@@ -744,6 +845,7 @@ public class VisitService {
    * @param printTicket флаг печати талона
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "create")
   public Visit createVisit2FromReception(
       String branchId,
       String printerId,
@@ -777,7 +879,7 @@ public class VisitService {
                 .visitMarks(new ArrayList<>())
                 .visitNotes(new ArrayList<>())
                 .visitEvents(new ArrayList<>())
-                .events(new ArrayList<>())
+                .events(new VisitEventHistory())
                 .returnTimeDelay(0L)
                 .transferTimeDelay(0L)
                 // .updateDateTime(ZonedDateTime.now())
@@ -799,14 +901,10 @@ public class VisitService {
         if (queue.isPresent()) {
           serviceQueue = queue.get();
 
-          serviceQueue.setTicketCounter(
-              branchService.incrementTicketCounter(branchId, serviceQueue));
+          int ticketNumber = branchService.incrementTicketCounter(branchId, serviceQueue);
           visit.setQueueId(serviceQueue.getId());
-          visit.setTicket(
-              (serviceQueue.getTicketPrefix()
-                  + String.format("%03d", serviceQueue.getTicketCounter())));
-          VisitEvent event = VisitEvent.CREATED;
-          event.getParameters().clear();
+          visit.setTicket(ticketSequence.format(serviceQueue, ticketNumber));
+          VisitTransition.Builder event = VisitTransition.builder(VisitEvent.CREATED);
 
           event.getParameters().put("isVirtual", printTicket ? "false" : "true");
           event.getParameters().put("visitCreator", "reception");
@@ -819,12 +917,13 @@ public class VisitService {
               .getParameters()
               .put("serviceName", !services.isEmpty() ? services.get(0).getName() : null);
           event.getParameters().put("printerId", printerId);
-          event.dateTime = ZonedDateTime.now();
+          event.dateTime(ZonedDateTime.now());
 
-          branchService.updateVisit(visit, event, this);
+          branchService.updateVisit(visit, event.build(), this);
           if (currentBranch.getQueues().containsKey(serviceQueue.getId())) {
-            VisitEvent queueEvent = VisitEvent.PLACED_IN_QUEUE;
-            queueEvent.dateTime = ZonedDateTime.now();
+            VisitTransition.Builder queueEvent =
+                VisitTransition.builder(VisitEvent.PLACED_IN_QUEUE);
+            queueEvent.dateTime(ZonedDateTime.now());
             queueEvent
                 .getParameters()
                 .put("serviceId", !services.isEmpty() ? services.get(0).getId() : null);
@@ -841,7 +940,7 @@ public class VisitService {
             }
 
             // changedVisitEventSend("CREATED", null, visit, new HashMap<>());
-            branchService.updateVisit(visit, queueEvent, this);
+            branchService.updateVisit(visit, queueEvent.build(), this);
             log.info("Visit {} created!", visit);
 
             return visit;
@@ -873,6 +972,7 @@ public class VisitService {
    * @param printTicket флаг печати талона
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "create")
   public Visit createVisit2FromReception(
       String branchId,
       String printerId,
@@ -906,7 +1006,7 @@ public class VisitService {
                 .visitMarks(new ArrayList<>())
                 .visitNotes(new ArrayList<>())
                 .visitEvents(new ArrayList<>())
-                .events(new ArrayList<>())
+                .events(new VisitEventHistory())
                 .returnTimeDelay(0L)
                 .transferTimeDelay(0L)
                 // .updateDateTime(ZonedDateTime.now())
@@ -917,7 +1017,8 @@ public class VisitService {
                 .parameterMap(parametersMap)
                 .build();
         Queue serviceQueue;
-        if (segmentationRule.getQueue(visit, currentBranch).isPresent()) {
+        Optional<Queue> queue = segmentationRule.getQueue(visit, currentBranch);
+        if (queue.isPresent()) {
           Optional<UserRepresentation> user = keyCloackClient.getUserBySid(sid);
           String staffName = "";
           String staffId = "";
@@ -925,16 +1026,12 @@ public class VisitService {
             staffName = user.get().getUsername();
             staffId = user.get().getId();
           }
-          serviceQueue = segmentationRule.getQueue(visit, currentBranch).get();
+          serviceQueue = queue.get();
 
-          serviceQueue.setTicketCounter(
-              branchService.incrementTicketCounter(branchId, serviceQueue));
+          int ticketNumber = branchService.incrementTicketCounter(branchId, serviceQueue);
           visit.setQueueId(serviceQueue.getId());
-          visit.setTicket(
-              (serviceQueue.getTicketPrefix()
-                  + String.format("%03d", serviceQueue.getTicketCounter())));
-          VisitEvent event = VisitEvent.CREATED;
-          event.getParameters().clear();
+          visit.setTicket(ticketSequence.format(serviceQueue, ticketNumber));
+          VisitTransition.Builder event = VisitTransition.builder(VisitEvent.CREATED);
           event.getParameters().put("staffId", staffId);
           event.getParameters().put("staffName", staffName);
           event.getParameters().put("isVirtual", printTicket ? "false" : "true");
@@ -946,12 +1043,13 @@ public class VisitService {
               .getParameters()
               .put("serviceName", !services.isEmpty() ? services.get(0).getName() : null);
           event.getParameters().put("printerId", printerId);
-          event.dateTime = ZonedDateTime.now();
+          event.dateTime(ZonedDateTime.now());
 
-          branchService.updateVisit(visit, event, this);
+          branchService.updateVisit(visit, event.build(), this);
           if (currentBranch.getQueues().containsKey(serviceQueue.getId())) {
-            VisitEvent queueEvent = VisitEvent.PLACED_IN_QUEUE;
-            queueEvent.dateTime = ZonedDateTime.now();
+            VisitTransition.Builder queueEvent =
+                VisitTransition.builder(VisitEvent.PLACED_IN_QUEUE);
+            queueEvent.dateTime(ZonedDateTime.now());
             queueEvent
                 .getParameters()
                 .put("serviceId", !services.isEmpty() ? services.get(0).getId() : null);
@@ -967,7 +1065,7 @@ public class VisitService {
             }
 
             // changedVisitEventSend("CREATED", null, visit, new HashMap<>());
-            branchService.updateVisit(visit, queueEvent, this);
+            branchService.updateVisit(visit, queueEvent.build(), this);
             log.info("Visit {} created!", visit);
 
             return visit;
@@ -999,6 +1097,7 @@ public class VisitService {
    * @param parametersMap параметры визита
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "create")
   public Visit createVirtualVisit2(
       String branchId,
       String servicePointId,
@@ -1039,7 +1138,7 @@ public class VisitService {
                 .visitMarks(new ArrayList<>())
                 .visitNotes(new ArrayList<>())
                 .visitEvents(new ArrayList<>())
-                .events(new ArrayList<>())
+                .events(new VisitEventHistory())
                 .transferTimeDelay(0L)
                 // .updateDateTime(ZonedDateTime.now())
                 // .transferDateTime(ZonedDateTime.now())
@@ -1051,17 +1150,14 @@ public class VisitService {
                 .parameterMap(parametersMap)
                 .build();
         Queue serviceQueue;
-        if (segmentationRule.getQueue(visit, currentBranch).isPresent()) {
-          serviceQueue = segmentationRule.getQueue(visit, currentBranch).get();
+        Optional<Queue> queue = segmentationRule.getQueue(visit, currentBranch);
+        if (queue.isPresent()) {
+          serviceQueue = queue.get();
           // visit.setQueueId(serviceQueue.getId());
-          serviceQueue.setTicketCounter(
-              branchService.incrementTicketCounter(branchId, serviceQueue));
+          int ticketNumber = branchService.incrementTicketCounter(branchId, serviceQueue);
           visit.setServicePointId(servicePointId);
-          visit.setTicket(
-              (serviceQueue.getTicketPrefix()
-                  + String.format("%03d", serviceQueue.getTicketCounter())));
-          VisitEvent event = VisitEvent.CREATED;
-          event.getParameters().clear();
+          visit.setTicket(ticketSequence.format(serviceQueue, ticketNumber));
+          VisitTransition.Builder event = VisitTransition.builder(VisitEvent.CREATED);
           event.getParameters().put("isVirtual", "true");
           event.getParameters().put("visitCreator", "workstation");
           event
@@ -1099,11 +1195,11 @@ public class VisitService {
                           .getUser()
                           .getCurrentWorkProfileId()
                       : "");
-          event.dateTime = ZonedDateTime.now();
+          event.dateTime(ZonedDateTime.now());
 
-          branchService.updateVisit(visit, event, this);
+          branchService.updateVisit(visit, event.build(), this);
 
-          VisitEvent calledEvent = VisitEvent.CALLED;
+          VisitTransition.Builder calledEvent = VisitTransition.builder(VisitEvent.CALLED);
           calledEvent
               .getParameters()
               .put("serviceId", !services.isEmpty() ? services.get(0).getId() : null);
@@ -1140,15 +1236,15 @@ public class VisitService {
                       : "");
           calledEvent.getParameters().put("queueId", serviceQueue.getId());
           calledEvent.getParameters().put("callMethod", "virtual");
-          calledEvent.dateTime = ZonedDateTime.now();
+          calledEvent.dateTime(ZonedDateTime.now());
 
           visit.getParameterMap().put("LastQueueId", serviceQueue.getId());
           visit.setQueueId(null);
 
           visit.setCallDateTime(ZonedDateTime.now());
-          branchService.updateVisit(visit, calledEvent, this);
+          branchService.updateVisit(visit, calledEvent.build(), this);
           if (currentBranch.getQueues().containsKey(serviceQueue.getId())) {
-            VisitEvent queueEvent = VisitEvent.START_SERVING;
+            VisitTransition.Builder queueEvent = VisitTransition.builder(VisitEvent.START_SERVING);
             queueEvent
                 .getParameters()
                 .put(
@@ -1181,7 +1277,7 @@ public class VisitService {
                             .getCurrentWorkProfileId()
                         : "");
             queueEvent.getParameters().put("queueId", serviceQueue.getId());
-            queueEvent.dateTime = ZonedDateTime.now();
+            queueEvent.dateTime(ZonedDateTime.now());
             queueEvent
                 .getParameters()
                 .put("serviceId", !services.isEmpty() ? services.get(0).clone().getId() : null);
@@ -1193,7 +1289,7 @@ public class VisitService {
             visit.setStartServingDateTime(ZonedDateTime.now());
 
             // changedVisitEventSend("CREATED", null, visit, new HashMap<>());
-            branchService.updateVisit(visit, queueEvent, this);
+            branchService.updateVisit(visit, queueEvent.build(), this);
             log.info("Visit {} created and started serving!", visit);
 
             return visit;
@@ -1296,8 +1392,9 @@ public class VisitService {
         currentService.getDeliveredServices().put(uid, deliveredService);
         visit.setCurrentService(currentService.clone());
 
-        VisitEvent visitEvent = VisitEvent.ADDED_DELIVERED_SERVICE;
-        visitEvent.dateTime = ZonedDateTime.now();
+        VisitTransition.Builder visitEvent =
+            VisitTransition.builder(VisitEvent.ADDED_DELIVERED_SERVICE);
+        visitEvent.dateTime(ZonedDateTime.now());
         visitEvent.getParameters().put("servicePointId", servicePoint.getId());
         visitEvent.getParameters().put("deliveredServiceId", deliveredServiceId);
         visitEvent.getParameters().put("uiDeliveredServiceId", uid);
@@ -1324,7 +1421,7 @@ public class VisitService {
                 servicePoint.getUser() != null
                     ? servicePoint.getUser().getCurrentWorkProfileId()
                     : "");
-        branchService.updateVisit(visit, visitEvent, this);
+        branchService.updateVisit(visit, visitEvent.build(), this);
         return visit;
 
       } else {
@@ -1391,7 +1488,8 @@ public class VisitService {
               visit.getCurrentService().getDeliveredServices().get(deliveredServiceId);
           visit.getCurrentService().getDeliveredServices().remove(deliveredServiceId);
         }
-        VisitEvent visitEvent = VisitEvent.DELETED_DELIVERED_SERVICE;
+        VisitTransition.Builder visitEvent =
+            VisitTransition.builder(VisitEvent.DELETED_DELIVERED_SERVICE);
         visitEvent.getParameters().put("servicePointId", servicePoint.getId());
         visitEvent.getParameters().put("uiDeliveredServiceId", deliveredServiceId);
         visitEvent.getParameters().put("deliveredServiceId", deliveredService.getId());
@@ -1414,7 +1512,7 @@ public class VisitService {
                 servicePoint.getUser() != null
                     ? servicePoint.getUser().getCurrentWorkProfileId()
                     : "");
-        branchService.updateVisit(visit, visitEvent, this);
+        branchService.updateVisit(visit, visitEvent.build(), this);
         return visit;
 
       } else {
@@ -1459,7 +1557,7 @@ public class VisitService {
         Service service = currentBranch.getServices().get(serviceId);
         visit.getUnservedServices().add(service);
 
-        VisitEvent visitEvent = VisitEvent.ADD_SERVICE;
+        VisitTransition.Builder visitEvent = VisitTransition.builder(VisitEvent.ADD_SERVICE);
         visitEvent.getParameters().put("servicePointId", servicePoint.getId());
 
         visitEvent.getParameters().put("serviceId", service.getId());
@@ -1480,7 +1578,7 @@ public class VisitService {
                 servicePoint.getUser() != null
                     ? servicePoint.getUser().getCurrentWorkProfileId()
                     : "");
-        branchService.updateVisit(visit, visitEvent, this);
+        branchService.updateVisit(visit, visitEvent.build(), this);
         return visit;
 
       } else {
@@ -1524,8 +1622,8 @@ public class VisitService {
           mark.setAuthor(user);
         }
         visit.getVisitMarks().add(mark);
-        VisitEvent visitEvent = VisitEvent.ADDED_MARK;
-        visitEvent.dateTime = ZonedDateTime.now();
+        VisitTransition.Builder visitEvent = VisitTransition.builder(VisitEvent.ADDED_MARK);
+        visitEvent.dateTime(ZonedDateTime.now());
         visitEvent.getParameters().put("servicePointId", servicePoint.getId());
         visitEvent.getParameters().put("mark", mark.getValue());
         visitEvent.getParameters().put("branchId", branchId);
@@ -1548,7 +1646,7 @@ public class VisitService {
         if (queueId != null && !queueId.isEmpty()) {
           visitEvent.getParameters().put("queueId", queueId);
         }
-        branchService.updateVisit(visit, visitEvent, this);
+        branchService.updateVisit(visit, visitEvent.build(), this);
         return visit;
 
       } else {
@@ -1585,7 +1683,7 @@ public class VisitService {
           throw new BusinessException(
               "current_service_is_null", eventService, HttpStatus.NOT_FOUND);
         visit.getVisitMarks().removeIf(f -> f.getId().equals(mark.getId()));
-        VisitEvent visitEvent = VisitEvent.DELETED_MARK;
+        VisitTransition.Builder visitEvent = VisitTransition.builder(VisitEvent.DELETED_MARK);
         visitEvent.getParameters().put("servicePointId", servicePoint.getId());
         visitEvent.getParameters().put("mark", mark.getValue());
         visitEvent.getParameters().put("branchId", branchId);
@@ -1604,7 +1702,7 @@ public class VisitService {
                 servicePoint.getUser() != null
                     ? servicePoint.getUser().getCurrentWorkProfileId()
                     : "");
-        branchService.updateVisit(visit, visitEvent, this);
+        branchService.updateVisit(visit, visitEvent.build(), this);
         return visit;
 
       } else {
@@ -1653,9 +1751,9 @@ public class VisitService {
    */
   public List<Mark> getMarks(String branchId, String visitId) {
     Branch currentBranch = branchService.getBranch(branchId);
-    if (currentBranch.getAllVisits().containsKey(visitId)) {
-      Visit visit = currentBranch.getAllVisits().get(visitId);
-      return visit.getVisitMarks();
+    Optional<Visit> visit = currentBranch.findVisit(visitId);
+    if (visit.isPresent()) {
+      return visit.get().getVisitMarks();
     } else {
       throw new BusinessException(
           String.format("Visit %s not found", visitId),
@@ -1715,7 +1813,8 @@ public class VisitService {
           Outcome outcome = visit.getCurrentService().getPossibleOutcomes().get(outcomeId).clone();
           visit.getCurrentService().setOutcome(outcome);
 
-          VisitEvent visitEvent = VisitEvent.ADDED_SERVICE_RESULT;
+          VisitTransition.Builder visitEvent =
+              VisitTransition.builder(VisitEvent.ADDED_SERVICE_RESULT);
           visitEvent.getParameters().put("servicePointId", servicePoint.getId());
           visitEvent.getParameters().put("outcomeId", outcomeId);
           visitEvent.getParameters().put("outcomeName", outcome.getName());
@@ -1739,7 +1838,7 @@ public class VisitService {
           if (queueId != null && !queueId.isEmpty()) {
             visitEvent.getParameters().put("queueId", queueId);
           }
-          branchService.updateVisit(visit, visitEvent, this);
+          branchService.updateVisit(visit, visitEvent.build(), this);
           return visit;
         }
 
@@ -1822,7 +1921,8 @@ public class VisitService {
               .get(deliveredServiceId)
               .setOutcome(outcome.clone());
 
-          VisitEvent visitEvent = VisitEvent.ADDED_DELIVERED_SERVICE_RESULT;
+          VisitTransition.Builder visitEvent =
+              VisitTransition.builder(VisitEvent.ADDED_DELIVERED_SERVICE_RESULT);
           visitEvent.getParameters().put("servicePointId", servicePoint.getId());
           visitEvent
               .getParameters()
@@ -1867,7 +1967,7 @@ public class VisitService {
           if (queueId != null && !queueId.isEmpty()) {
             visitEvent.getParameters().put("queueId", queueId);
           }
-          branchService.updateVisit(visit, visitEvent, this);
+          branchService.updateVisit(visit, visitEvent.build(), this);
           return visit;
         }
 
@@ -1939,7 +2039,8 @@ public class VisitService {
                 : "";
         visit.getCurrentService().getDeliveredServices().get(deliveredServiceId).setOutcome(null);
 
-        VisitEvent visitEvent = VisitEvent.DELETED_DELIVERED_SERVICE_RESULT;
+        VisitTransition.Builder visitEvent =
+            VisitTransition.builder(VisitEvent.DELETED_DELIVERED_SERVICE_RESULT);
         visitEvent.getParameters().put("servicePointId", servicePoint.getId());
         visitEvent
             .getParameters()
@@ -1960,7 +2061,7 @@ public class VisitService {
             .put(
                 "staffName",
                 servicePoint.getUser() != null ? servicePoint.getUser().getName() : "");
-        branchService.updateVisit(visit, visitEvent, this);
+        branchService.updateVisit(visit, visitEvent.build(), this);
         return visit;
 
       } else {
@@ -2010,7 +2111,8 @@ public class VisitService {
                 : "";
         visit.getCurrentService().setOutcome(null);
 
-        VisitEvent visitEvent = VisitEvent.DELETED_SERVICE_RESULT;
+        VisitTransition.Builder visitEvent =
+            VisitTransition.builder(VisitEvent.DELETED_SERVICE_RESULT);
         visitEvent.getParameters().put("servicePointId", servicePoint.getId());
 
         visitEvent.getParameters().put("branchId", branchId);
@@ -2024,7 +2126,7 @@ public class VisitService {
                 servicePoint.getUser() != null ? servicePoint.getUser().getName() : "");
         visitEvent.getParameters().put("outcomeId", outcomeId);
         visitEvent.getParameters().put("outcomeName", outcomeName);
-        branchService.updateVisit(visit, visitEvent, this);
+        branchService.updateVisit(visit, visitEvent.build(), this);
         return visit;
 
       } else {
@@ -2044,37 +2146,37 @@ public class VisitService {
   }
 
   /** Возвращение вызванного визита в очередь */
+  @Measured(value = "visit.operation", operation = "back")
   public Visit backCalledVisit(String branchId, String visitId, Long returnTimeDelay) {
     Branch currentBranch = branchService.getBranch(branchId);
-    if (currentBranch.getAllVisits().containsKey(visitId)) {
-      Visit visit = currentBranch.getAllVisits().get(visitId);
+    Optional<Visit> calledVisit = currentBranch.findVisit(visitId);
+    if (calledVisit.isPresent()) {
+      Visit visit = calledVisit.get();
 
       visit.setReturnDateTime(ZonedDateTime.now());
       visit.setReturnTimeDelay(returnTimeDelay);
       visit.setStartServingDateTime(null);
-      Optional<VisitEventInformation> event =
-          visit.getEvents().stream()
-              .max(Comparator.comparing(VisitEventInformation::getEventDateTime));
+      Optional<VisitEventInformation> event = visit.eventHistory().lastEvent();
 
       if (event.isPresent() && event.get().getParameters().containsKey("servicePointId")) {
-        VisitEvent visitEvent =
-            visit.getQueueId() != null
-                ? VisitEvent.BACK_TO_QUEUE
-                : visit.getPoolUserId() != null
-                    ? VisitEvent.BACK_TO_USER_POOL
-                    : VisitEvent.BACK_TO_SERVICE_POINT_POOL;
+        VisitTransition.Builder visitEvent =
+            VisitTransition.builder(
+                visit.getQueueId() != null
+                    ? VisitEvent.BACK_TO_QUEUE
+                    : visit.getPoolUserId() != null
+                        ? VisitEvent.BACK_TO_USER_POOL
+                        : VisitEvent.BACK_TO_SERVICE_POINT_POOL);
 
         visitEvent
             .getParameters()
             .put("servicePointId", event.get().getParameters().get("servicePointId"));
-        visitEvent.dateTime = ZonedDateTime.now();
+        visitEvent.dateTime(ZonedDateTime.now());
         visitEvent.getParameters().put("branchId", branchId);
         visitEvent.getParameters().put("serviceId", visit.getCurrentService().getId());
         visitEvent.getParameters().put("serviceName", visit.getCurrentService().getName());
-        branchService.updateVisit(visit, visitEvent, this);
+        branchService.updateVisit(visit, visitEvent.build(), this);
       }
-      visit = branchService.getBranch(branchId).getAllVisits().get(visit.getId());
-      return visit;
+      return branchService.getBranch(branchId).findVisit(visit.getId()).orElse(null);
     } else {
       throw new BusinessException("visit_not_found", eventService, HttpStatus.NOT_FOUND);
     }
@@ -2089,6 +2191,7 @@ public class VisitService {
    * @return визит
    */
   @ExecuteOn(TaskExecutors.SCHEDULED)
+  @Measured(value = "visit.operation", operation = "back")
   public Visit stopServingAndBackToQueue(
       String branchId, String servicePointId, Long returnTimeDelay) {
     Branch currentBranch = branchService.getBranch(branchId);
@@ -2099,15 +2202,14 @@ public class VisitService {
         visit.setReturnDateTime(ZonedDateTime.now());
         visit.setReturnTimeDelay(returnTimeDelay);
         visit.setStartServingDateTime(null);
-        VisitEvent visitEvent = VisitEvent.STOP_SERVING;
-        visitEvent.getParameters().clear();
+        VisitTransition.Builder visitEvent = VisitTransition.builder(VisitEvent.STOP_SERVING);
         visitEvent.getParameters().put("isForced", "false");
         visitEvent.getParameters().put("servicePointId", servicePoint.getId());
         visitEvent.getParameters().put("servicePointName", servicePoint.getName());
         visitEvent.getParameters().put("branchId", branchId);
 
-        branchService.updateVisit(visit, visitEvent, this);
-        visit = branchService.getBranch(branchId).getAllVisits().get(visit.getId());
+        branchService.updateVisit(visit, visitEvent.build(), this);
+        visit = branchService.getBranch(branchId).findVisit(visit.getId()).orElse(null);
         if (visit.getParameterMap().containsKey("LastQueueId")) {
           Event delayedEvent =
               Event.builder()
@@ -2168,6 +2270,7 @@ public class VisitService {
    * @param queueId идентификатор очереди
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "transfer")
   public Visit visitTransfer(
       String branchId,
       String servicePointId,
@@ -2205,8 +2308,8 @@ public class VisitService {
 
         queue.getVisits().add(visit);
         currentBranch.getQueues().put(queue.getId(), queue);
-        VisitEvent event = VisitEvent.TRANSFER_TO_QUEUE;
-        event.dateTime = ZonedDateTime.now();
+        VisitTransition.Builder event = VisitTransition.builder(VisitEvent.TRANSFER_TO_QUEUE);
+        event.dateTime(ZonedDateTime.now());
         event.getParameters().put("branchId", branchId);
         event.getParameters().put("newQueueId", queueId);
         event
@@ -2224,7 +2327,7 @@ public class VisitService {
           event.getParameters().put("oldQueueId", value);
         }
 
-        branchService.updateVisit(visit, event, this, !isAppend);
+        branchService.updateVisit(visit, event.build(), this, !isAppend);
         // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
         log.info("Visit {} transfered!", visit);
         Event delayedEvent =
@@ -2274,6 +2377,7 @@ public class VisitService {
    * @param queueId идентификатор очереди
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "back")
   public Visit visitBack(
       String branchId, String servicePointId, String queueId, Long returnTimeDelay) {
 
@@ -2305,8 +2409,8 @@ public class VisitService {
 
         queue.getVisits().add(visit);
         currentBranch.getQueues().put(queue.getId(), queue);
-        VisitEvent event = VisitEvent.BACK_TO_QUEUE;
-        event.dateTime = ZonedDateTime.now();
+        VisitTransition.Builder event = VisitTransition.builder(VisitEvent.BACK_TO_QUEUE);
+        event.dateTime(ZonedDateTime.now());
         event.getParameters().put("branchId", branchId);
         event.getParameters().put("queueId", queueId);
         event
@@ -2319,7 +2423,7 @@ public class VisitService {
                 servicePoint.getUser() != null ? servicePoint.getUser().getName() : "");
         event.getParameters().put("servicePointId", servicePointId);
 
-        branchService.updateVisit(visit, event, this);
+        branchService.updateVisit(visit, event.build(), this);
         // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
         log.info("Visit {} transfered!", visit);
         return visit;
@@ -2348,6 +2452,7 @@ public class VisitService {
    * @param returnTimeDelay задержка возвращения в секундах
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "back")
   public Visit visitBackToServicePointPool(
       String branchId, String servicePointId, String poolServicePointId, Long returnTimeDelay) {
 
@@ -2368,10 +2473,9 @@ public class VisitService {
               eventService,
               HttpStatus.NOT_FOUND);
         }
-        VisitEvent event = VisitEvent.STOP_SERVING;
-        event.getParameters().clear();
+        VisitTransition.Builder event = VisitTransition.builder(VisitEvent.STOP_SERVING);
         event.getParameters().put("isForced", "false");
-        event.dateTime = ZonedDateTime.now();
+        event.dateTime(ZonedDateTime.now());
         event.getParameters().put("branchId", branchId);
         event.getParameters().put("poolServicePointId", poolServicePointId);
         event
@@ -2384,7 +2488,7 @@ public class VisitService {
                 servicePoint.getUser() != null ? servicePoint.getUser().getName() : "");
         event.getParameters().put("servicePointId", servicePointId);
         event.getParameters().put("servicePointName", servicePoint.getName());
-        branchService.updateVisit(visit, event, this);
+        branchService.updateVisit(visit, event.build(), this);
 
         visit.getParameterMap().remove("LastPoolServicePointId");
         assert poolServicePoint != null;
@@ -2397,8 +2501,9 @@ public class VisitService {
         visit.setReturnDateTime(ZonedDateTime.now());
         visit.setReturnTimeDelay(returnTimeDelay);
         visit.setStartServingDateTime(null);
-        VisitEvent backEvent = VisitEvent.BACK_TO_SERVICE_POINT_POOL;
-        backEvent.dateTime = ZonedDateTime.now();
+        VisitTransition.Builder backEvent =
+            VisitTransition.builder(VisitEvent.BACK_TO_SERVICE_POINT_POOL);
+        backEvent.dateTime(ZonedDateTime.now());
         backEvent.getParameters().put("branchId", branchId);
         backEvent.getParameters().put("poolServicePointId", poolServicePointId);
         backEvent
@@ -2410,7 +2515,7 @@ public class VisitService {
                 "staffName",
                 servicePoint.getUser() != null ? servicePoint.getUser().getName() : "");
         backEvent.getParameters().put("servicePointId", servicePointId);
-        branchService.updateVisit(visit, backEvent, this);
+        branchService.updateVisit(visit, backEvent.build(), this);
         // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
         log.info("Visit {} transfered!", visit);
         return visit;
@@ -2430,6 +2535,7 @@ public class VisitService {
     }
   }
 
+  @Measured(value = "visit.operation", operation = "back")
   public Visit visitPutBack(String branchId, String servicePointId, Long returnTimeDelay) {
     Branch currentBranch = branchService.getBranch(branchId);
 
@@ -2480,6 +2586,7 @@ public class VisitService {
    * @param servicePointId идентификатор точки обслуживания
    * @return отложенный визит
    */
+  @Measured(value = "visit.operation", operation = "back")
   public Visit visitPostPone(String branchId, String servicePointId) {
     Branch currentBranch = branchService.getBranch(branchId);
     if (currentBranch.getServicePoints().containsKey(servicePointId)) {
@@ -2516,6 +2623,7 @@ public class VisitService {
    * @param returnTimeDelay задержка возвращения в секундах
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "back")
   public Visit visitBackToUserPool(
       String branchId, String servicePointId, String userId, Long returnTimeDelay) {
 
@@ -2543,9 +2651,8 @@ public class VisitService {
           throw new BusinessException(
               "user_not_found_in_branch_configuration", eventService, HttpStatus.NOT_FOUND);
         }
-        VisitEvent event = VisitEvent.STOP_SERVING;
-        event.getParameters().clear();
-        event.dateTime = ZonedDateTime.now();
+        VisitTransition.Builder event = VisitTransition.builder(VisitEvent.STOP_SERVING);
+        event.dateTime(ZonedDateTime.now());
         event.getParameters().put("isForced", "false");
         event.getParameters().put("branchId", branchId);
         event.getParameters().put("staffId", staff.getId());
@@ -2553,7 +2660,7 @@ public class VisitService {
         event.getParameters().put("workProfileId", staff.getCurrentWorkProfileId());
         event.getParameters().put("servicePointId", servicePointId);
         event.getParameters().put("servicePointName", servicePoint.getName());
-        branchService.updateVisit(visit, event, this);
+        branchService.updateVisit(visit, event.build(), this);
         visit.setServicePointId(null);
         visit.setQueueId(null);
         assert user != null;
@@ -2566,8 +2673,8 @@ public class VisitService {
         visit.setReturnDateTime(ZonedDateTime.now());
         visit.setReturnTimeDelay(returnTimeDelay);
         visit.getParameterMap().remove("LastPoolUserId");
-        VisitEvent backEvent = VisitEvent.BACK_TO_USER_POOL;
-        backEvent.dateTime = ZonedDateTime.now();
+        VisitTransition.Builder backEvent = VisitTransition.builder(VisitEvent.BACK_TO_USER_POOL);
+        backEvent.dateTime(ZonedDateTime.now());
         backEvent.getParameters().put("branchId", branchId);
 
         backEvent.getParameters().put("staffId", staff.getId());
@@ -2576,7 +2683,7 @@ public class VisitService {
         backEvent.getParameters().put("userId", user.getId());
         backEvent.getParameters().put("userName", user.getName());
         backEvent.getParameters().put("servicePointId", servicePointId);
-        branchService.updateVisit(visit, backEvent, this);
+        branchService.updateVisit(visit, backEvent.build(), this);
         // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
         log.info("Visit {} transfered!", visit);
         return visit;
@@ -2608,6 +2715,7 @@ public class VisitService {
    *     перевода)
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "transfer")
   public Visit visitTransfer(
       String branchId,
       String servicePointId,
@@ -2643,8 +2751,8 @@ public class VisitService {
     assert queue != null;
     visit.setQueueId(queue.getId());
 
-    VisitEvent event = VisitEvent.TRANSFER_TO_QUEUE;
-    event.dateTime = ZonedDateTime.now();
+    VisitTransition.Builder event = VisitTransition.builder(VisitEvent.TRANSFER_TO_QUEUE);
+    event.dateTime(ZonedDateTime.now());
     if (oldQueueID != null) {
       event.getParameters().put("oldQueueId", oldQueueID);
     } else {
@@ -2659,7 +2767,7 @@ public class VisitService {
     event.getParameters().put("staffId", user.getId());
     event.getParameters().put("staffName", user.getName());
     event.getParameters().put("workProfileId", user.getCurrentWorkProfileId());
-    branchService.updateVisit(visit, event, this, index);
+    branchService.updateVisit(visit, event.build(), this, index);
     // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
     log.info("Visit {} transfered!", visit);
     Event delayedEvent =
@@ -2699,6 +2807,7 @@ public class VisitService {
    *     перевода)
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "transfer")
   public Visit visitTransfer(
       String branchId,
       String servicePointId,
@@ -2740,8 +2849,8 @@ public class VisitService {
     assert queue != null;
     visit.setQueueId(queue.getId());
 
-    VisitEvent event = VisitEvent.TRANSFER_TO_QUEUE;
-    event.dateTime = ZonedDateTime.now();
+    VisitTransition.Builder event = VisitTransition.builder(VisitEvent.TRANSFER_TO_QUEUE);
+    event.dateTime(ZonedDateTime.now());
     if (oldQueueID != null) {
       event.getParameters().put("oldQueueId", oldQueueID);
     } else {
@@ -2756,7 +2865,7 @@ public class VisitService {
     event.getParameters().put("staffId", user.getId());
     event.getParameters().put("staffName", user.getName());
     event.getParameters().put("workProfileId", user.getCurrentWorkProfileId());
-    branchService.updateVisit(visit, event, this, isToStart);
+    branchService.updateVisit(visit, event.build(), this, isToStart);
 
     // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
     log.info("Visit {} transfered!", visit);
@@ -2787,20 +2896,7 @@ public class VisitService {
   }
 
   private String getLastNotNutllEventParam(Visit visit, String paramName) {
-    String result = "";
-    Optional<VisitEventInformation> event =
-        visit.getEvents().stream()
-            .filter(
-                f ->
-                    f.getEventDateTime() != null
-                        && f.getParameters().containsKey(paramName)
-                        && f.getParameters().get(paramName) != null
-                        && !f.getParameters().get(paramName).isEmpty())
-            .max(Comparator.comparing(co -> co.getEventDateTime().truncatedTo(ChronoUnit.SECONDS)));
-    if (event.isPresent()) {
-      result = event.get().getParameters().get(paramName);
-    }
-    return result;
+    return visit.eventHistory().lastValue(paramName).orElse("");
   }
 
   private String getLastOldQueueId(Visit visit) {
@@ -2824,6 +2920,7 @@ public class VisitService {
    *     перевода)
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "transfer")
   public Visit visitTransfer(
       String branchId,
       String queueId,
@@ -2865,8 +2962,8 @@ public class VisitService {
     visit.setStartServingDateTime(null);
     assert queue != null;
     visit.setQueueId(queue.getId());
-    VisitEvent event = VisitEvent.TRANSFER_TO_QUEUE;
-    event.dateTime = ZonedDateTime.now();
+    VisitTransition.Builder event = VisitTransition.builder(VisitEvent.TRANSFER_TO_QUEUE);
+    event.dateTime(ZonedDateTime.now());
     if (oldQueueID != null) {
       event.getParameters().put("oldQueueId", oldQueueID);
     } else {
@@ -2881,7 +2978,7 @@ public class VisitService {
     event.getParameters().put("staffId", staffId != null ? staffId : "");
     event.getParameters().put("staffName", staffName);
     event.getParameters().putAll(serviceInfo);
-    branchService.updateVisit(visit, event, this, !isAppend);
+    branchService.updateVisit(visit, event.build(), this, !isAppend);
     // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
     log.info("Visit {} transferred!", visit);
     Event delayedEvent =
@@ -2920,6 +3017,7 @@ public class VisitService {
    *     перевода)
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "transfer")
   public Visit visitTransferFromQueueToServicePointPool(
       String branchId,
       String servicePointId,
@@ -2954,8 +3052,9 @@ public class VisitService {
     visit.setPoolServicePointId(poolServicePoint.getId());
     visit.setTransferDateTime(ZonedDateTime.now());
     visit.setTransferTimeDelay(transferTimeDelay);
-    VisitEvent event = VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL;
-    event.dateTime = ZonedDateTime.now();
+    VisitTransition.Builder event =
+        VisitTransition.builder(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL);
+    event.dateTime(ZonedDateTime.now());
     if (oldQueueID != null) {
       event.getParameters().put("queueId", oldQueueID);
     } else {
@@ -2970,7 +3069,7 @@ public class VisitService {
     event.getParameters().put("staffId", user.getId());
     event.getParameters().put("staffName", user.getName());
     event.getParameters().put("workProfileId", user.getCurrentWorkProfileId());
-    branchService.updateVisit(visit, event, this, index);
+    branchService.updateVisit(visit, event.build(), this, index);
     // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
     log.info("Visit {} transfered!", visit);
     Event delayedEvent =
@@ -3006,6 +3105,7 @@ public class VisitService {
    *     перевода)
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "transfer")
   public Visit visitTransferFromQueueToServicePointPool(
       String branchId,
       String servicePointId,
@@ -3038,8 +3138,9 @@ public class VisitService {
     assert poolServicePoint != null;
 
     visit.setPoolServicePointId(poolServicePoint.getId());
-    VisitEvent event = VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL;
-    event.dateTime = ZonedDateTime.now();
+    VisitTransition.Builder event =
+        VisitTransition.builder(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL);
+    event.dateTime(ZonedDateTime.now());
     if (oldQueueID != null) {
       event.getParameters().put("queueId", oldQueueID);
     } else {
@@ -3076,7 +3177,7 @@ public class VisitService {
                     .getUser()
                     .getCurrentWorkProfileId()
                 : "");
-    branchService.updateVisit(visit, event, this, !isAppend);
+    branchService.updateVisit(visit, event.build(), this, !isAppend);
     // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
     log.info("Visit {} transfered!", visit);
     Event delayedEvent =
@@ -3112,6 +3213,7 @@ public class VisitService {
    *     перевода)
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "transfer")
   public Visit visitTransferFromQueueToServicePointPool(
       String branchId,
       String poolServicePointId,
@@ -3147,9 +3249,10 @@ public class VisitService {
     visit.setStartServingDateTime(null);
     visit.setPoolServicePointId(poolServicePoint.getId());
 
-    VisitEvent event = VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL;
+    VisitTransition.Builder event =
+        VisitTransition.builder(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL);
 
-    event.dateTime = ZonedDateTime.now();
+    event.dateTime(ZonedDateTime.now());
     if (oldQueueID != null) {
       event.getParameters().put("queueId", oldQueueID);
     } else {
@@ -3163,7 +3266,7 @@ public class VisitService {
     event.getParameters().put("poolServicePointId", poolServicePointId);
     event.getParameters().putAll(serviceInfo);
     event.getParameters().put("branchId", branchId);
-    branchService.updateVisit(visit, event, this, !isAppend);
+    branchService.updateVisit(visit, event.build(), this, !isAppend);
     // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
     log.info("Visit {} transfered!", visit);
     Event delayedEvent =
@@ -3214,6 +3317,7 @@ public class VisitService {
    * @param isAppend флаг вставки визита в начало или в конец (по умолчанию в конец)
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "transfer")
   public Visit visitTransferFromQueueToUserPool(
       String branchId,
       String userId,
@@ -3247,8 +3351,8 @@ public class VisitService {
 
     visit.setTransferTimeDelay(transferTimeDelay);
 
-    VisitEvent event = VisitEvent.TRANSFER_TO_USER_POOL;
-    event.dateTime = ZonedDateTime.now();
+    VisitTransition.Builder event = VisitTransition.builder(VisitEvent.TRANSFER_TO_USER_POOL);
+    event.dateTime(ZonedDateTime.now());
     if (oldQueueID != null) {
       event.getParameters().put("queueId", oldQueueID);
     } else {
@@ -3262,7 +3366,7 @@ public class VisitService {
     event.getParameters().put("branchId", branchId);
     event.getParameters().put("staffId", staffId != null ? staffId : "");
     event.getParameters().put("staffName", staffName);
-    branchService.updateVisit(visit, event, this, !isAppend);
+    branchService.updateVisit(visit, event.build(), this, !isAppend);
     // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
     log.info("Visit {} transfered!", visit);
     if (currentBranch.getUsers().get(userId) != null) {
@@ -3296,6 +3400,7 @@ public class VisitService {
    * @param serviceInfo данные о внешней службе
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "transfer")
   public Visit visitTransferFromQueueToUserPool(
       String branchId,
       String userId,
@@ -3330,8 +3435,8 @@ public class VisitService {
 
     visit.setTransferTimeDelay(transferTimeDelay);
 
-    VisitEvent event = VisitEvent.TRANSFER_TO_USER_POOL;
-    event.dateTime = ZonedDateTime.now();
+    VisitTransition.Builder event = VisitTransition.builder(VisitEvent.TRANSFER_TO_USER_POOL);
+    event.dateTime(ZonedDateTime.now());
     if (oldQueueID != null) {
       event.getParameters().put("queueId", oldQueueID);
     } else {
@@ -3346,7 +3451,7 @@ public class VisitService {
     event.getParameters().put("branchId", branchId);
     event.getParameters().putAll(serviceInfo);
 
-    branchService.updateVisit(visit, event, this, !isAppend);
+    branchService.updateVisit(visit, event.build(), this, !isAppend);
     // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
     log.info("Visit {} transfered!", visit);
     Event delayedEvent =
@@ -3377,6 +3482,7 @@ public class VisitService {
    * @param index позиция визита в списке
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "transfer")
   public Visit visitTransferFromQueueToUserPool(
       String branchId,
       String userId,
@@ -3406,9 +3512,8 @@ public class VisitService {
 
     visit.setTransferTimeDelay(transferTimeDelay);
 
-    VisitEvent event = VisitEvent.TRANSFER_TO_USER_POOL;
-    event.getParameters().clear();
-    event.dateTime = ZonedDateTime.now();
+    VisitTransition.Builder event = VisitTransition.builder(VisitEvent.TRANSFER_TO_USER_POOL);
+    event.dateTime(ZonedDateTime.now());
     if (oldQueueID != null) {
       event.getParameters().put("queueId", oldQueueID);
     } else {
@@ -3423,7 +3528,7 @@ public class VisitService {
     event.getParameters().put("staffId", staffId != null ? staffId : "");
     event.getParameters().put("staffName", staffName);
 
-    branchService.updateVisit(visit, event, this, index);
+    branchService.updateVisit(visit, event.build(), this, index);
     // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
     log.info("Visit {} transfered!", visit);
     Event delayedEvent =
@@ -3452,7 +3557,20 @@ public class VisitService {
    * @param servicePointId идентификатор точки обслуживания
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "end")
   public Visit visitEnd(String branchId, String servicePointId, Boolean isForced, String reason) {
+    return branchStateStore.withLock(
+        branchId, () -> endVisit(branchId, servicePointId, isForced, reason));
+  }
+
+  /**
+   * Завершение визита под блокировкой отделения
+   *
+   * @param branchId идентификатор отделения
+   * @param servicePointId идентификатор точки обслуживания
+   * @return визит
+   */
+  private Visit endVisit(String branchId, String servicePointId, Boolean isForced, String reason) {
     Branch currentBranch = branchService.getBranch(branchId);
     Visit visit;
 
@@ -3464,24 +3582,23 @@ public class VisitService {
         visit.setServicePointId(servicePoint.getId());
         visit.setTransferDateTime(ZonedDateTime.now());
 
-        VisitEvent stopServingEvent;
-        VisitEvent backToQueueEvent;
-        VisitEvent endEvent;
+        VisitTransition.Builder stopServingEvent;
+        VisitTransition.Builder backToQueueEvent;
+        VisitTransition.Builder endEvent;
 
         if (visit.getUnservedServices() != null && !visit.getUnservedServices().isEmpty()) {
 
-          visit.getServedServices().add(visit.toBuilder().build().getCurrentService());
-          visit.setCurrentService(visit.toBuilder().build().getUnservedServices().get(0).clone());
+          visit.getServedServices().add(visit.getCurrentService());
+          visit.setCurrentService(visit.getUnservedServices().get(0).clone());
           visit.getUnservedServices().remove(0);
           String queueIdToReturn = visit.getCurrentService().getLinkedQueueId();
           visit.setQueueId(queueIdToReturn);
 
           visit.setServedDateTime(ZonedDateTime.now());
-          stopServingEvent = VisitEvent.STOP_SERVING;
-          stopServingEvent.getParameters().clear();
+          stopServingEvent = VisitTransition.builder(VisitEvent.STOP_SERVING);
           stopServingEvent.getParameters().put("isForced", isForced.toString());
           stopServingEvent.getParameters().put("reason", reason);
-          stopServingEvent.dateTime = ZonedDateTime.now();
+          stopServingEvent.dateTime(ZonedDateTime.now());
           stopServingEvent.getParameters().put("servicePointId", servicePointId);
           stopServingEvent.getParameters().put("servicePointName", servicePoint.getName());
           stopServingEvent.getParameters().put("branchId", branchId);
@@ -3506,15 +3623,15 @@ public class VisitService {
                   servicePoint.getUser() != null
                       ? servicePoint.getUser().getCurrentWorkProfileId()
                       : getLastNotNutllEventParam(visit, "workProfileId"));
-          branchService.updateVisit(visit, stopServingEvent, this, true);
+          branchService.updateVisit(visit, stopServingEvent.build(), this, true);
 
           visit.setReturnDateTime(ZonedDateTime.now());
           visit.setCallDateTime(null);
 
           visit.setStartServingDateTime(null);
 
-          backToQueueEvent = VisitEvent.BACK_TO_QUEUE;
-          backToQueueEvent.dateTime = ZonedDateTime.now();
+          backToQueueEvent = VisitTransition.builder(VisitEvent.BACK_TO_QUEUE);
+          backToQueueEvent.dateTime(ZonedDateTime.now());
           backToQueueEvent.getParameters().put("branchId", branchId);
           backToQueueEvent.getParameters().put("queueId", queueIdToReturn);
           backToQueueEvent.getParameters().put("servicePointId", servicePointId);
@@ -3540,7 +3657,7 @@ public class VisitService {
                       ? servicePoint.getUser().getCurrentWorkProfileId()
                       : "");
           visit.setServicePointId(null);
-          branchService.updateVisit(visit, backToQueueEvent, this, true);
+          branchService.updateVisit(visit, backToQueueEvent.build(), this, true);
 
         } else {
           visit.getServedServices().add(visit.getCurrentService());
@@ -3548,10 +3665,10 @@ public class VisitService {
           visit.setServedDateTime(ZonedDateTime.now());
           visit.setQueueId(null);
           visit.setServedDateTime(ZonedDateTime.now());
-          stopServingEvent = VisitEvent.STOP_SERVING;
+          stopServingEvent = VisitTransition.builder(VisitEvent.STOP_SERVING);
           stopServingEvent.getParameters().put("isForced", isForced.toString());
           stopServingEvent.getParameters().put("reason", reason);
-          stopServingEvent.dateTime = ZonedDateTime.now();
+          stopServingEvent.dateTime(ZonedDateTime.now());
           stopServingEvent.getParameters().put("branchId", branchId);
           stopServingEvent
               .getParameters()
@@ -3576,12 +3693,12 @@ public class VisitService {
                       : getLastNotNutllEventParam(visit, "workProfileId"));
           stopServingEvent.getParameters().put("servicePointId", servicePointId);
           stopServingEvent.getParameters().put("servicePointName", servicePoint.getName());
-          branchService.updateVisit(visit, stopServingEvent, this, true);
-          endEvent = VisitEvent.END;
-          endEvent.dateTime = ZonedDateTime.now();
+          branchService.updateVisit(visit, stopServingEvent.build(), this, true);
+          endEvent = VisitTransition.builder(VisitEvent.END);
+          endEvent.dateTime(ZonedDateTime.now());
 
           visit.setServicePointId(null);
-          branchService.updateVisit(visit, endEvent, this, true);
+          branchService.updateVisit(visit, endEvent.build(), this, true);
         }
 
         log.info("Visit {} ended", visit);
@@ -3610,8 +3727,23 @@ public class VisitService {
    * @param visit визит
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "call")
   public Optional<Visit> visitCall(
       String branchId, String servicePointId, Visit visit, String callMethod) {
+    return branchStateStore.withLock(
+        branchId, () -> callVisit(branchId, servicePointId, visit, callMethod));
+  }
+
+  /**
+   * Вызов визита под блокировкой отделения
+   *
+   * @param branchId идентификатор отделения
+   * @param servicePointId идентификатор точки обслуживания
+   * @param visit визит
+   * @return визит
+   */
+  private Optional<Visit> callVisit(
+      String branchId, String servicePointId, Visit visit, String callMethod) {
     Branch currentBranch = branchService.getBranch(branchId);
 
     Optional<Queue> queue;
@@ -3643,7 +3775,7 @@ public class VisitService {
             "service_point_not_found_in_branch_configuration", eventService, HttpStatus.NOT_FOUND);
       }
     }
-    VisitEvent event = VisitEvent.CALLED;
+    VisitTransition.Builder event = VisitTransition.builder(VisitEvent.CALLED);
     if (visit.getQueueId() != null) {
       queue =
           currentBranch.getQueues().values().stream()
@@ -3703,14 +3835,14 @@ public class VisitService {
                     .getCurrentWorkProfileId()
                 : "");
     event.getParameters().put("callMethod", callMethod);
-    event.dateTime = ZonedDateTime.now();
-    branchService.updateVisit(visit, event, this);
+    event.dateTime(ZonedDateTime.now());
+    branchService.updateVisit(visit, event.build(), this);
 
-    VisitEvent servingEvent = VisitEvent.START_SERVING;
-    servingEvent.dateTime = ZonedDateTime.now();
+    VisitTransition.Builder servingEvent = VisitTransition.builder(VisitEvent.START_SERVING);
+    servingEvent.dateTime(ZonedDateTime.now());
     visit.setStartServingDateTime(ZonedDateTime.now());
 
-    branchService.updateVisit(visit, servingEvent, this);
+    branchService.updateVisit(visit, servingEvent.build(), this);
 
     log.info("Visit {} called!", visit);
     // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
@@ -3725,6 +3857,7 @@ public class VisitService {
    * @param visitId идентификатор визита
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "call")
   public Optional<Visit> visitCall(String branchId, String servicePointId, String visitId) {
     if (this.getAllVisits(branchId).containsKey(visitId)) {
       Visit visit = this.getAllVisits(branchId).get(visitId);
@@ -3741,6 +3874,7 @@ public class VisitService {
    * @param visit визит
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "call")
   public Optional<Visit> visitCallForConfirmWithMaxWaitingTime(
       String branchId, String servicePointId, Visit visit) {
 
@@ -3774,8 +3908,8 @@ public class VisitService {
     visit.getParameterMap().put("LastQueueId", visit.getQueueId());
     visit.getParameterMap().remove("isTransferredToStart");
 
-    VisitEvent event = VisitEvent.CALLED;
-    event.dateTime = ZonedDateTime.now();
+    VisitTransition.Builder event = VisitTransition.builder(VisitEvent.CALLED);
+    event.dateTime(ZonedDateTime.now());
     event.getParameters().put("servicePointId", servicePointId);
     event.getParameters().put("servicePointName", servicePointName);
     event.getParameters().put("branchId", branchId);
@@ -3789,7 +3923,7 @@ public class VisitService {
     event.getParameters().put("staffName", userName);
     event.getParameters().put("workProfileId", workProfileId);
     event.getParameters().put("callMethod", "callNext");
-    branchService.updateVisit(visit, event, this);
+    branchService.updateVisit(visit, event.build(), this);
 
     log.info("Visit {} called!", visit);
     // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
@@ -3804,6 +3938,7 @@ public class VisitService {
    * @param visit визит
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "call")
   public Visit visitReCallForConfirm(String branchId, String servicePointId, Visit visit) {
 
     String userId = "";
@@ -3824,8 +3959,8 @@ public class VisitService {
     checkTransferOrReturnTime(visit);
     visit.setCallDateTime(ZonedDateTime.now());
     visit.getParameterMap().remove("isTransferredToStart");
-    VisitEvent event = VisitEvent.RECALLED;
-    event.dateTime = ZonedDateTime.now();
+    VisitTransition.Builder event = VisitTransition.builder(VisitEvent.RECALLED);
+    event.dateTime(ZonedDateTime.now());
     event.getParameters().put("servicePointId", servicePointId);
     event.getParameters().put("servicePointName", servicePointName);
     event.getParameters().put("branchId", branchId);
@@ -3844,7 +3979,7 @@ public class VisitService {
                     .getUser()
                     .getCurrentWorkProfileId()
                 : "");
-    branchService.updateVisit(visit, event, this);
+    branchService.updateVisit(visit, event.build(), this);
 
     log.info("Visit {} called!", visit);
     // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
@@ -3874,6 +4009,7 @@ public class VisitService {
    * @param visit визит
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "confirm")
   public Visit visitConfirm(String branchId, String servicePointId, Visit visit) {
     Branch currentBranch = branchService.getBranch(branchId);
     String userId = "";
@@ -3930,8 +4066,8 @@ public class VisitService {
     }
     visit.setUserId(userId);
     visit.setUserName(userName);
-    VisitEvent event = VisitEvent.START_SERVING;
-    event.dateTime = ZonedDateTime.now();
+    VisitTransition.Builder event = VisitTransition.builder(VisitEvent.START_SERVING);
+    event.dateTime(ZonedDateTime.now());
     event.getParameters().put("servicePointId", servicePointId);
     event.getParameters().put("branchId", branchId);
     event.getParameters().put("serviceId", visit.getCurrentService().getId());
@@ -3962,7 +4098,7 @@ public class VisitService {
                     .getUser()
                     .getCurrentWorkProfileId()
                 : "");
-    branchService.updateVisit(visit, event, this);
+    branchService.updateVisit(visit, event.build(), this);
 
     log.info("Visit {} statted serving!", visit);
     // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
@@ -3977,6 +4113,7 @@ public class VisitService {
    * @param visit визит
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "no_show")
   public Optional<Visit> visitNoShow(String branchId, String servicePointId, Visit visit) {
 
     Branch currentBranch = branchService.getBranch(branchId);
@@ -3999,8 +4136,8 @@ public class VisitService {
     visit.setQueueId(null);
     visit.setServicePointId(null);
 
-    VisitEvent event = VisitEvent.NO_SHOW;
-    event.dateTime = ZonedDateTime.now();
+    VisitTransition.Builder event = VisitTransition.builder(VisitEvent.NO_SHOW);
+    event.dateTime(ZonedDateTime.now());
     event.getParameters().put("servicePointId", servicePointId);
     event.getParameters().put("branchId", branchId);
     event.getParameters().put("staffId", userId);
@@ -4016,7 +4153,7 @@ public class VisitService {
                     .getUser()
                     .getCurrentWorkProfileId()
                 : "");
-    branchService.updateVisit(visit, event, this);
+    branchService.updateVisit(visit, event.build(), this);
 
     log.info("Visit {} statted serving!", visit);
     // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
@@ -4030,6 +4167,7 @@ public class VisitService {
    * @param servicePointId идентификатор точки обслуживания
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "call")
   public Optional<Visit> visitCallForConfirmWithMaxWaitingTime(
       String branchId, String servicePointId) {
     Branch currentBranch = branchService.getBranch(branchId);
@@ -4040,8 +4178,8 @@ public class VisitService {
       ServicePoint servicePoint = currentBranch.getServicePoints().get(servicePointId);
 
       Optional<Visit> visit = waitingTimeCallRule.call(currentBranch, servicePoint);
-      VisitEvent event = VisitEvent.CALLED;
-      event.dateTime = ZonedDateTime.now();
+      VisitTransition.Builder event = VisitTransition.builder(VisitEvent.CALLED);
+      event.dateTime(ZonedDateTime.now());
       event.getParameters().put("servicePointId", servicePointId);
       event.getParameters().put("servicePointName", servicePoint.getName());
       event.getParameters().put("branchId", branchId);
@@ -4068,7 +4206,7 @@ public class VisitService {
                   : "");
       event.getParameters().put("callMethod", "callNext");
       if (visit.isPresent()) {
-        branchService.updateVisit(visit.get(), event, this);
+        branchService.updateVisit(visit.get(), event.build(), this);
         return visit;
       }
 
@@ -4096,6 +4234,7 @@ public class VisitService {
    * @param queueIds идентификаторы очередей
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "call")
   public Optional<Visit> visitCallForConfirmWithMaxWaitingTime(
       String branchId, String servicePointId, List<String> queueIds) {
     Branch currentBranch = branchService.getBranch(branchId);
@@ -4106,8 +4245,8 @@ public class VisitService {
       ServicePoint servicePoint = currentBranch.getServicePoints().get(servicePointId);
 
       Optional<Visit> visit = waitingTimeCallRule.call(currentBranch, servicePoint, queueIds);
-      VisitEvent event = VisitEvent.CALLED;
-      event.dateTime = ZonedDateTime.now();
+      VisitTransition.Builder event = VisitTransition.builder(VisitEvent.CALLED);
+      event.dateTime(ZonedDateTime.now());
       event.getParameters().put("servicePointId", servicePointId);
       event.getParameters().put("servicePointName", servicePoint.getName());
       event.getParameters().put("branchId", branchId);
@@ -4134,7 +4273,7 @@ public class VisitService {
                   : "");
       event.getParameters().put("callMethod", "callNext");
       if (visit.isPresent()) {
-        branchService.updateVisit(visit.get(), event, this);
+        branchService.updateVisit(visit.get(), event.build(), this);
         return visit;
       }
 
@@ -4161,6 +4300,7 @@ public class VisitService {
    * @param servicePointId идентификатор точки обслуживания
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "call")
   public Optional<Visit> visitCallForConfirmWithMaxLifeTime(
       String branchId, String servicePointId) {
     Branch currentBranch = branchService.getBranch(branchId);
@@ -4171,8 +4311,8 @@ public class VisitService {
       ServicePoint servicePoint = currentBranch.getServicePoints().get(servicePointId);
 
       Optional<Visit> visit = lifeTimeCallRule.call(currentBranch, servicePoint);
-      VisitEvent event = VisitEvent.CALLED;
-      event.dateTime = ZonedDateTime.now();
+      VisitTransition.Builder event = VisitTransition.builder(VisitEvent.CALLED);
+      event.dateTime(ZonedDateTime.now());
       event.getParameters().put("servicePointId", servicePointId);
       event.getParameters().put("servicePointName", servicePoint.getName());
       event.getParameters().put("branchId", branchId);
@@ -4199,7 +4339,7 @@ public class VisitService {
                   : "");
       event.getParameters().put("callMethod", "callNext");
       if (visit.isPresent()) {
-        branchService.updateVisit(visit.get(), event, this);
+        branchService.updateVisit(visit.get(), event.build(), this);
         return visit;
       }
 
@@ -4280,10 +4420,12 @@ public class VisitService {
     } else if (isAutoCallMode) {
       throw new BusinessException(
           String.format(
-              "Service point %s cannot be turned on because automatic call mode is disabled for the current branch",
+              "Service point %s cannot be turned on because automatic call mode is disabled"
+                  + " for the current branch",
               servicePointId),
           String.format(
-              "Точку обслуживания %s нельзя включить, потому что режим автовызова отключён для текущего филиала",
+              "Точку обслуживания %s нельзя включить, потому что режим автовызова отключён"
+                  + " для текущего филиала",
               servicePointId),
           eventService,
           HttpStatus.CONFLICT);
@@ -4364,6 +4506,7 @@ public class VisitService {
    * @param queueIds идентификаторы очередей
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "call")
   public Optional<Visit> visitCallForConfirmWithMaxLifeTime(
       String branchId, String servicePointId, List<String> queueIds) {
     Branch currentBranch = branchService.getBranch(branchId);
@@ -4374,8 +4517,8 @@ public class VisitService {
       ServicePoint servicePoint = currentBranch.getServicePoints().get(servicePointId);
 
       Optional<Visit> visit = lifeTimeCallRule.call(currentBranch, servicePoint, queueIds);
-      VisitEvent event = VisitEvent.CALLED;
-      event.dateTime = ZonedDateTime.now();
+      VisitTransition.Builder event = VisitTransition.builder(VisitEvent.CALLED);
+      event.dateTime(ZonedDateTime.now());
       event.getParameters().put("servicePointId", servicePointId);
       event.getParameters().put("servicePointName", servicePoint.getName());
       event.getParameters().put("branchId", branchId);
@@ -4402,7 +4545,7 @@ public class VisitService {
                   : "");
       event.getParameters().put("callMethod", "callNext");
       if (visit.isPresent()) {
-        branchService.updateVisit(visit.get(), event, this);
+        branchService.updateVisit(visit.get(), event.build(), this);
         return visit;
       }
 
@@ -4445,6 +4588,7 @@ public class VisitService {
    * @param visit созданный визит
    * @return визит после аввтовызова
    */
+  @Measured(value = "visit.operation", operation = "call")
   public Visit visitAutoCall(Visit visit) {
     Branch currentBranch = branchService.getBranch(visit.getBranchId());
     Optional<Visit> visit2;
@@ -4479,6 +4623,7 @@ public class VisitService {
    * @param servicePointId идентификатор точки обслуживания
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "call")
   public Optional<Visit> visitCallWithMaximalWaitingTime(String branchId, String servicePointId) {
     Branch currentBranch = branchService.getBranch(branchId);
 
@@ -4518,6 +4663,7 @@ public class VisitService {
    * @param queueIds идентификаторы очередей
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "call")
   public Optional<Visit> visitCallWithMaximalWaitingTime(
       String branchId, String servicePointId, List<String> queueIds) {
     Branch currentBranch = branchService.getBranch(branchId);
@@ -4556,6 +4702,7 @@ public class VisitService {
    * @param servicePointId идентификатор точки обслуживания
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "call")
   public Optional<Visit> visitCallWithMaxLifeTime(String branchId, String servicePointId) {
     Branch currentBranch = branchService.getBranch(branchId);
 
@@ -4594,6 +4741,7 @@ public class VisitService {
    * @param queueIds идентификаторы очередей
    * @return визит
    */
+  @Measured(value = "visit.operation", operation = "call")
   public Optional<Visit> visitCallWithMaxLifeTime(
       String branchId, String servicePointId, List<String> queueIds) {
     Branch currentBranch = branchService.getBranch(branchId);
@@ -4630,6 +4778,7 @@ public class VisitService {
    *
    * @param visit визит
    */
+  @Measured(value = "visit.operation", operation = "delete")
   public void deleteVisit(Visit visit) {
 
     if (visit.getReturningTime() > 0 && visit.getReturningTime() < visit.getReturnTimeDelay()) {
@@ -4643,15 +4792,16 @@ public class VisitService {
     }
     visit.setServicePointId(null);
     visit.setQueueId(null);
-    VisitEvent event = VisitEvent.DELETED;
-    event.dateTime = ZonedDateTime.now();
+    VisitTransition.Builder event = VisitTransition.builder(VisitEvent.DELETED);
+    event.dateTime(ZonedDateTime.now());
 
-    branchService.updateVisit(visit, event, this);
+    branchService.updateVisit(visit, event.build(), this);
 
     log.info("Visit {} deleted!", visit);
     // changedVisitEventSend("DELETED", visit, null, new HashMap<>());
   }
 
+  @Measured(value = "visit.operation", operation = "transfer")
   public Visit visitTransferToUserPool(
       String branchId, String servicePointId, String userId, Long transferTimeDelay) {
     Branch currentBranch = branchService.getBranch(branchId);
@@ -4669,9 +4819,9 @@ public class VisitService {
           throw new BusinessException(
               "user_not_found_in_branch_configuration", eventService, HttpStatus.NOT_FOUND);
         }
-        VisitEvent event = VisitEvent.STOP_SERVING;
+        VisitTransition.Builder event = VisitTransition.builder(VisitEvent.STOP_SERVING);
         event.getParameters().put("isForced", "false");
-        event.dateTime = ZonedDateTime.now();
+        event.dateTime(ZonedDateTime.now());
         event.getParameters().put("branchId", branchId);
         event
             .getParameters()
@@ -4696,7 +4846,7 @@ public class VisitService {
                     : "");
         event.getParameters().put("servicePointId", servicePointId);
         event.getParameters().put("servicePointName", servicePoint.getName());
-        branchService.updateVisit(visit, event, this);
+        branchService.updateVisit(visit, event.build(), this);
 
         assert user != null;
 
@@ -4709,14 +4859,14 @@ public class VisitService {
         visit.setTransferTimeDelay(transferTimeDelay);
 
         visit.getParameterMap().remove("LastPoolUserId");
-        VisitEvent transferEvent = VisitEvent.TRANSFER_TO_USER_POOL;
-        transferEvent.getParameters().clear();
+        VisitTransition.Builder transferEvent =
+            VisitTransition.builder(VisitEvent.TRANSFER_TO_USER_POOL);
         String value = getLastOldQueueId(visit);
         if (value != null && !value.isEmpty()) {
           transferEvent.getParameters().put("queueId", value);
         }
 
-        transferEvent.dateTime = ZonedDateTime.now();
+        transferEvent.dateTime(ZonedDateTime.now());
         transferEvent.getParameters().put("branchId", branchId);
         transferEvent.getParameters().put("userId", userId);
         transferEvent
@@ -4742,7 +4892,7 @@ public class VisitService {
                     : "");
         transferEvent.getParameters().put("servicePointId", servicePointId);
 
-        branchService.updateVisit(visit, transferEvent, this);
+        branchService.updateVisit(visit, transferEvent.build(), this);
         Event delayedEvent =
             Event.builder()
                 .eventType("USER_POOL_REFRESHED")
@@ -4778,6 +4928,7 @@ public class VisitService {
     }
   }
 
+  @Measured(value = "visit.operation", operation = "transfer")
   public Visit visitTransferToServicePointPool(
       String branchId, String servicePointId, String poolServicePointId, Long transferTimeDelay) {
     Branch currentBranch = branchService.getBranch(branchId);
@@ -4797,9 +4948,9 @@ public class VisitService {
               eventService,
               HttpStatus.NOT_FOUND);
         }
-        VisitEvent event = VisitEvent.STOP_SERVING;
+        VisitTransition.Builder event = VisitTransition.builder(VisitEvent.STOP_SERVING);
         event.getParameters().put("isForced", "false");
-        event.dateTime = ZonedDateTime.now();
+        event.dateTime(ZonedDateTime.now());
         event.getParameters().put("branchId", branchId);
         event.getParameters().put("poolServicePointId", poolServicePointId);
         event
@@ -4825,7 +4976,7 @@ public class VisitService {
                     : "");
         event.getParameters().put("servicePointId", servicePointId);
         event.getParameters().put("servicePointName", servicePoint.getName());
-        branchService.updateVisit(visit, event, this);
+        branchService.updateVisit(visit, event.build(), this);
 
         visit.getParameterMap().remove("LastPoolServicePointId");
         assert poolServicePoint != null;
@@ -4839,14 +4990,15 @@ public class VisitService {
         visit.setTransferTimeDelay(transferTimeDelay);
 
         visit.setStartServingDateTime(null);
-        VisitEvent transferEvent = VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL;
+        VisitTransition.Builder transferEvent =
+            VisitTransition.builder(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL);
 
         String value = getLastOldQueueId(visit);
         if (value != null && !value.isEmpty()) {
           transferEvent.getParameters().put("queueId", value);
         }
 
-        transferEvent.dateTime = ZonedDateTime.now();
+        transferEvent.dateTime(ZonedDateTime.now());
         transferEvent.getParameters().put("branchId", branchId);
         transferEvent.getParameters().put("poolServicePointId", poolServicePointId);
         transferEvent
@@ -4872,7 +5024,7 @@ public class VisitService {
                     : "");
 
         transferEvent.getParameters().put("servicePointId", servicePointId);
-        branchService.updateVisit(visit, transferEvent, this);
+        branchService.updateVisit(visit, transferEvent.build(), this);
         // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
         log.info("Visit {} transfered!", visit);
         Event delayedEvent =
@@ -4910,6 +5062,7 @@ public class VisitService {
     }
   }
 
+  @Measured(value = "visit.operation", operation = "transfer")
   public Visit visitTransferToServicePointPool(
       String branchId,
       String servicePointId,
@@ -4933,9 +5086,9 @@ public class VisitService {
               eventService,
               HttpStatus.NOT_FOUND);
         }
-        VisitEvent event = VisitEvent.STOP_SERVING;
+        VisitTransition.Builder event = VisitTransition.builder(VisitEvent.STOP_SERVING);
         event.getParameters().put("isForced", "false");
-        event.dateTime = ZonedDateTime.now();
+        event.dateTime(ZonedDateTime.now());
         event.getParameters().put("branchId", branchId);
         event.getParameters().put("poolServicePointId", poolServicePointId);
         event
@@ -4962,7 +5115,7 @@ public class VisitService {
         event.getParameters().put("servicePointId", servicePointId);
         event.getParameters().put("servicePointName", servicePoint.getName());
         event.getParameters().putAll(serviceInfo);
-        branchService.updateVisit(visit, event, this);
+        branchService.updateVisit(visit, event.build(), this);
 
         visit.setServicePointId(null);
         visit.getParameterMap().remove("LastPoolServicePointId");
@@ -4975,14 +5128,14 @@ public class VisitService {
 
         visit.setTransferTimeDelay(transferTimeDelay);
         visit.setStartServingDateTime(null);
-        event = VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL;
+        event = VisitTransition.builder(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL);
 
         String value = getLastOldQueueId(visit);
         if (value != null && !value.isEmpty()) {
           event.getParameters().put("queueId", value);
         }
 
-        event.dateTime = ZonedDateTime.now();
+        event.dateTime(ZonedDateTime.now());
         event.getParameters().put("branchId", branchId);
         event.getParameters().put("poolServicePointId", poolServicePointId);
         event
@@ -5008,7 +5161,7 @@ public class VisitService {
                     : "");
         event.getParameters().put("servicePointId", servicePointId);
         event.getParameters().putAll(serviceInfo);
-        branchService.updateVisit(visit, event, this);
+        branchService.updateVisit(visit, event.build(), this);
         // changedVisitEventSend("CHANGED", oldVisit, visit, new HashMap<>());
         log.info("Visit {} transfered!", visit);
         Event delayedEvent =
@@ -5089,13 +5242,13 @@ public class VisitService {
           note.setAuthor(user);
         }
         visit.getVisitNotes().add(note);
-        VisitEvent visitEvent = VisitEvent.ADDED_NOTE;
+        VisitTransition.Builder visitEvent = VisitTransition.builder(VisitEvent.ADDED_NOTE);
 
         String queueId = getLastOldQueueId(visit);
         if (queueId != null && !queueId.isEmpty()) {
           visitEvent.getParameters().put("queueId", queueId);
         }
-        visitEvent.dateTime = ZonedDateTime.now();
+        visitEvent.dateTime(ZonedDateTime.now());
         visitEvent.getParameters().put("servicePointId", servicePoint.getId());
         visitEvent.getParameters().put("note", noteText);
         visitEvent.getParameters().put("branchId", branchId);
@@ -5120,7 +5273,7 @@ public class VisitService {
                 currentBranch.getServicePoints().get(servicePointId).getUser() != null
                     ? currentBranch.getServicePoints().get(servicePointId).getUser().getName()
                     : "");
-        branchService.updateVisit(visit, visitEvent, this);
+        branchService.updateVisit(visit, visitEvent.build(), this);
         return visit;
 
       } else {
@@ -5148,9 +5301,9 @@ public class VisitService {
    */
   public List<Mark> getNotes(String branchId, String visitId) {
     Branch currentBranch = branchService.getBranch(branchId);
-    if (currentBranch.getAllVisits().containsKey(visitId)) {
-      Visit visit = currentBranch.getAllVisits().get(visitId);
-      return visit.getVisitNotes();
+    Optional<Visit> visit = currentBranch.findVisit(visitId);
+    if (visit.isPresent()) {
+      return visit.get().getVisitNotes();
     } else {
       throw new BusinessException(
           String.format("Visit %s not found", visitId),
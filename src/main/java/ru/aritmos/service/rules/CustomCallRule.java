@@ -6,6 +6,7 @@ import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import java.util.List;
 import java.util.Optional;
+import ru.aritmos.metrics.Measured;
 import ru.aritmos.model.Branch;
 import ru.aritmos.model.ServicePoint;
 import ru.aritmos.model.visit.Visit;
@@ -26,6 +27,7 @@ public class CustomCallRule implements CallRule {
    * @param servicePoint точка обслуживания
    * @return опционально найденный визит
    */
+  @Measured(value = "visit.rule", operation = "custom")
   @Override
   public Optional<Visit> call(Branch branch, ServicePoint servicePoint) {
     return callRuleClient.callRule(branch, servicePoint);
@@ -39,6 +41,7 @@ public class CustomCallRule implements CallRule {
    * @param queueIds идентификаторы очередей
    * @return опционально найденный визит
    */
+  @Measured(value = "visit.rule", operation = "custom")
   @Override
   public Optional<Visit> call(Branch branch, ServicePoint servicePoint, List<String> queueIds) {
     return Optional.empty();
@@ -9,13 +9,20 @@ import java.util.Map;
 import java.util.Optional;
 import ru.aritmos.events.services.EventService;
 import ru.aritmos.exceptions.BusinessException;
+import ru.aritmos.metrics.Measured;
 import ru.aritmos.model.Branch;
 import ru.aritmos.model.BranchEntity;
 import ru.aritmos.model.Queue;
 import ru.aritmos.model.ServicePoint;
+import ru.aritmos.model.WaitingOrder;
 import ru.aritmos.model.visit.Visit;
 
-/** Правило вызова визита по максимальному времени жизни. */
+/**
+ * Правило вызова визита по максимальному времени жизни.
+ *
+ * <p>Визит выбирается по индексу ожидающих визитов очередей в порядке {@link
+ * WaitingOrder#MAX_LIFE_TIME}.
+ */
 @Singleton
 @Named("MaxLifeTimeCallRule")
 public class MaxLifeTimeCallRule implements CallRule {
@@ -29,6 +36,7 @@ public class MaxLifeTimeCallRule implements CallRule {
    * @param servicePoint точка обслуживания
    * @return опционально найденный визит
    */
+  @Measured(value = "visit.rule", operation = "max_life_time")
   @Override
   public Optional<Visit> call(Branch branch, ServicePoint servicePoint) {
 
@@ -42,22 +50,7 @@ public class MaxLifeTimeCallRule implements CallRule {
                 .filter(f -> queueIds.contains(f.getKey()))
                 .map(Map.Entry::getValue)
                 .toList();
-        Optional<Visit> result =
-            availableQueues.stream()
-                .map(Queue::getVisits)
-                .flatMap(List::stream)
-                .filter(
-                    f ->
-                        ((f.getReturnDateTime() == null
-                                    || f.getReturningTime() >= f.getReturnTimeDelay())
-                                && (f.getTransferDateTime() == null
-                                    || f.getTransferingTime() >= f.getTransferTimeDelay()))
-                            && f.getStatus().contains("WAITING"))
-                .max(
-                    (o1, o2) ->
-                        o1.getReturningTime().compareTo(o2.getReturningTime()) == 0
-                            ? o1.getVisitLifeTime().compareTo(o2.getVisitLifeTime())
-                            : o1.getReturningTime().compareTo(o2.getReturningTime()));
+        Optional<Visit> result = WaitingOrder.MAX_LIFE_TIME.next(availableQueues);
 
         if (result.isPresent()) {
           result.get().getParameterMap().remove("isTransferredToStart");
@@ -84,6 +77,7 @@ public class MaxLifeTimeCallRule implements CallRule {
    * @param queueIds список идентификаторов очередей
    * @return опционально найденный визит
    */
+  @Measured(value = "visit.rule", operation = "max_life_time")
   @Override
   public Optional<Visit> call(Branch branch, ServicePoint servicePoint, List<String> queueIds) {
     if (servicePoint.getUser() != null) {
@@ -94,19 +88,7 @@ public class MaxLifeTimeCallRule implements CallRule {
           Queue availableQueue = branch.getQueues().get(f);
           if (!availableQueue.getVisits().isEmpty()) {
             Optional<Visit> result =
-                availableQueue.getVisits().stream()
-                    .filter(
-                        f2 ->
-                            ((f2.getReturnDateTime() == null
-                                        || f2.getReturningTime() >= f2.getReturnTimeDelay())
-                                    && (f2.getTransferDateTime() == null
-                                        || f2.getTransferingTime() >= f2.getTransferTimeDelay()))
-                                && f2.getStatus().contains("WAITING"))
-                    .max(
-                        (o1, o2) ->
-                            o1.getReturningTime().compareTo(o2.getReturningTime()) == 0
-                                ? o1.getVisitLifeTime().compareTo(o2.getVisitLifeTime())
-                                : o1.getReturningTime().compareTo(o2.getReturningTime()));
+                availableQueue.nextWaitingVisit(WaitingOrder.MAX_LIFE_TIME);
             result.ifPresent(visit -> visit.getParameterMap().remove("isTransferredToStart"));
             result.ifPresent(visit -> visit.setReturnDateTime(null));
             result.ifPresent(visit -> visit.setTransferDateTime(null));
@@ -4,65 +4,31 @@ import io.micronaut.http.HttpStatus;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import jakarta.inject.Singleton;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import ru.aritmos.events.services.EventService;
 import ru.aritmos.exceptions.BusinessException;
+import ru.aritmos.metrics.Measured;
 import ru.aritmos.model.Branch;
 import ru.aritmos.model.BranchEntity;
 import ru.aritmos.model.Queue;
 import ru.aritmos.model.ServicePoint;
+import ru.aritmos.model.WaitingOrder;
 import ru.aritmos.model.visit.Visit;
 
-/** Правило вызова визита по максимальному времени ожидания. */
+/**
+ * Правило вызова визита по максимальному времени ожидания.
+ *
+ * <p>Визит выбирается по индексу ожидающих визитов очередей в порядке {@link
+ * WaitingOrder#MAX_WAITING_TIME}.
+ */
 @Singleton
 @Named("MaxWaitingTimeCallRule")
 public class MaxWaitingTimeCallRule implements CallRule {
   /** Сервис событий. */
   @Inject EventService eventService;
 
-  /**
-   * Компаратор визитов по признакам переноса/возврата и времени ожидания.
-   *
-   * @param visit1 первый визит
-   * @param visit2 второй визит
-   * @return результат сравнения для сортировки
-   */
-  private Integer visitComparer(Visit visit1, Visit visit2) {
-    if (visit1.getParameterMap().containsKey("isTransferredToStart")) {
-      if (visit2.getParameterMap().containsKey("isTransferredToStart")) {
-        return getDateNyString(visit2.getParameterMap().get("isTransferredToStart"))
-            .compareTo(getDateNyString(visit1.getParameterMap().get("isTransferredToStart")));
-
-      } else {
-        return 1;
-      }
-    } else {
-      if (visit2.getParameterMap().containsKey("isTransferredToStart")) {
-        return -1;
-      }
-    }
-
-    return Long.compare(visit1.getWaitingTime(), visit2.getWaitingTime());
-  }
-
-  /**
-   * Конвертация даты типа {@link ZonedDateTime} в строку формата EEE, dd MMM yyyy HH:mm:ss zzz
-   *
-   * @param date дата типа {@link ZonedDateTime}
-   * @return строка даты формата EEE, dd MMM yyyy HH:mm:ss zzz
-   */
-  ZonedDateTime getDateNyString(String date) {
-
-    DateTimeFormatter format =
-        DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
-    return ZonedDateTime.parse(date, format);
-  }
-
   /**
    * Вызов визита исходя из максимального времени ожидания.
    *
@@ -70,6 +36,7 @@ public class MaxWaitingTimeCallRule implements CallRule {
    * @param servicePoint точка обслуживания
    * @return опционально найденный визит
    */
+  @Measured(value = "visit.rule", operation = "max_waiting_time")
   @Override
   public Optional<Visit> call(Branch branch, ServicePoint servicePoint) {
 
@@ -84,18 +51,7 @@ public class MaxWaitingTimeCallRule implements CallRule {
                 .map(Map.Entry::getValue)
                 .toList();
 
-        Optional<Visit> result =
-            availableQueues.stream()
-                .map(Queue::getVisits)
-                .flatMap(List::stream)
-                .filter(
-                    f ->
-                        ((f.getReturnDateTime() == null
-                                    || f.getReturningTime() >= f.getReturnTimeDelay())
-                                && (f.getTransferDateTime() == null
-                                    || f.getTransferingTime() >= f.getTransferTimeDelay()))
-                            && f.getStatus().contains("WAITING"))
-                .max(this::visitComparer);
+        Optional<Visit> result = WaitingOrder.MAX_WAITING_TIME.next(availableQueues);
         result.ifPresent(visit -> visit.getParameterMap().remove("isTransferredToStart"));
         result.ifPresent(visit -> visit.setReturnDateTime(null));
         result.ifPresent(visit -> visit.setTransferDateTime(null));
@@ -119,6 +75,7 @@ public class MaxWaitingTimeCallRule implements CallRule {
    * @param queueIds список идентификаторов очередей
    * @return опционально найденный визит
    */
+  @Measured(value = "visit.rule", operation = "max_waiting_time")
   @Override
   public Optional<Visit> call(Branch branch, ServicePoint servicePoint, List<String> queueIds) {
 
@@ -130,15 +87,7 @@ public class MaxWaitingTimeCallRule implements CallRule {
           Queue availableQueue = branch.getQueues().get(f);
           if (!availableQueue.getVisits().isEmpty()) {
             Optional<Visit> result =
-                availableQueue.getVisits().stream()
-                    .filter(
-                        f2 ->
-                            ((f2.getReturnDateTime() == null
-                                        || f2.getReturningTime() >= f2.getReturnTimeDelay())
-                                    && (f2.getTransferDateTime() == null
-                                        || f2.getTransferingTime() >= f2.getTransferTimeDelay()))
-                                && f2.getStatus().contains("WAITING"))
-                    .max(this::visitComparer);
+                availableQueue.nextWaitingVisit(WaitingOrder.MAX_WAITING_TIME);
             result.ifPresent(visit -> visit.getParameterMap().remove("isTransferredToStart"));
             result.ifPresent(visit -> visit.setReturnDateTime(null));
             result.ifPresent(visit -> visit.setTransferDateTime(null));
@@ -4,12 +4,14 @@ import io.micronaut.core.annotation.Introspected;
 import io.micronaut.http.HttpStatus;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import ru.aritmos.events.services.EventService;
 import ru.aritmos.exceptions.BusinessException;
 import ru.aritmos.exceptions.SystemException;
+import ru.aritmos.metrics.Measured;
 import ru.aritmos.model.*;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.service.BranchService;
@@ -26,8 +28,8 @@ public class SegmentationRule {
   /** Сервис событий. */
   @Inject EventService eventService;
 
-  /** Текущий исполняемый скрипт сегментации. */
-  GroovyScript groovyScript;
+  /** Сервис выполнения сценариев Groovy с кэшем скомпилированных правил. */
+  @Inject GroovyScriptService groovyScriptService = new GroovyScriptService();
 
   /**
    * Возвращает очередь согласно текущей услуге визита. Если у услуги есть правило сегментации —
@@ -38,6 +40,7 @@ public class SegmentationRule {
    * @return очередь (если определена)
    * @throws SystemException ошибка выполнения правила сегментации
    */
+  @Measured(value = "visit.rule", operation = "segmentation")
   public Optional<Queue> getQueue(Visit visit, Branch branch) throws SystemException {
     if (visit.getCurrentService() != null
         && visit.getCurrentService().getServiceGroupId() != null) {
@@ -87,14 +90,21 @@ public class SegmentationRule {
    * @param segmentationRuleId идентификатор правила сегментации
    * @return очередь (если определена)
    */
+  @Measured(value = "visit.rule", operation = "segmentation")
   public Optional<Queue> getQueue(Visit visit, Branch branch, String segmentationRuleId) {
     Branch currentBranch = branchService.getBranch(branch.getId());
     if (segmentationRuleId == null || segmentationRuleId.isEmpty()) {
       return Optional.empty();
     }
+    GroovyScript groovyScript;
     if (currentBranch.getSegmentationRules().containsKey(segmentationRuleId)) {
+      // Копия правила с собственными параметрами: настроенное правило отделения не изменяется
+      GroovyScript rule = currentBranch.getCustomSegmentationRules().get(segmentationRuleId);
       groovyScript =
-          currentBranch.getCustomSegmentationRules().get(segmentationRuleId).toBuilder().build();
+          rule.toBuilder()
+              .inputParameters(new HashMap<>(rule.getInputParameters()))
+              .outputParameters(new HashMap<>())
+              .build();
     } else {
       throw new BusinessException(
           "segmentation_rule_not_found", eventService, HttpStatus.NOT_FOUND);
@@ -103,8 +113,7 @@ public class SegmentationRule {
     if (inputParameters.containsKey("visit") && inputParameters.containsKey("branch")) {
       inputParameters.put("visit", visit);
       inputParameters.put("branch", branch);
-      GroovyScriptService groovyScriptService = new GroovyScriptService();
-      groovyScriptService.Execute(groovyScript);
+      groovyScriptService.Execute(segmentationRuleId, groovyScript);
       if (groovyScript.getOutputParameters().containsKey("queue")) {
         Optional<Queue> queue;
         queue = (Optional<Queue>) groovyScript.getOutputParameters().get("queue");
@@ -4,7 +4,9 @@ import static org.mockito.Mockito.*;
 import static ru.aritmos.test.LoggingAssertions.*;
 
 import io.micronaut.http.HttpStatus;
+import io.micronaut.http.sse.Event;
 import io.micronaut.http.exceptions.HttpStatusException;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -14,10 +16,14 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.keycloak.representations.idm.GroupRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
+import reactor.core.publisher.Flux;
 import ru.aritmos.keycloack.service.KeyCloackClient;
 import ru.aritmos.model.Branch;
 import ru.aritmos.model.tiny.TinyClass;
+import ru.aritmos.model.visit.Visit;
+import ru.aritmos.model.visit.VisitDelta;
 import ru.aritmos.service.BranchService;
+import ru.aritmos.service.VisitDeltaStream;
 
 class ManagementControllerTest {
 
@@ -150,4 +156,26 @@ class ManagementControllerTest {
         assertEquals(1, tiny.size());
         assertEquals("b1", tiny.get(0).getId());
     }
+
+    @DisplayName("Поток изменений отделения продолжается с номера из заголовка Last-Event-ID")
+    @Test
+    void streamResumesFromLastEventId() {
+        BranchService branchService = mock(BranchService.class);
+        when(branchService.getBranch("b1")).thenReturn(new Branch("b1", "Branch"));
+        VisitDeltaStream stream = new VisitDeltaStream();
+        stream.visitChanged("b1", Visit.builder().id("v1").queueId("q1").build());
+        stream.visitChanged("b1", Visit.builder().id("v2").queueId("q1").build());
+        ManagementController controller = new ManagementController();
+        controller.branchService = branchService;
+        controller.visitDeltaStream = stream;
+
+        Event<VisitDelta> event =
+            Flux.from(controller.streamBranchVisitChanges("b1", null, null, null, "1"))
+                .blockFirst(Duration.ofSeconds(5));
+
+        assertEquals("2", event.getId());
+        assertEquals("ADDED", event.getName());
+        assertEquals("v2", event.getData().visitId());
+        assertNull(ManagementController.parseSequence("abc"));
+    }
 }
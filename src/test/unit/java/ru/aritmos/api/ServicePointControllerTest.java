@@ -183,12 +183,10 @@ class ServicePointControllerTest {
         ServicePoint sp = new ServicePoint("sp1", "SP");
         sp.setUser(user);
         BranchService branchService = controller.branchService;
-        Branch branch = new Branch("b1", "B");
-        branch.getServicePoints().put("sp1", sp);
-        when(branchService.getDetailedBranches())
-            .thenReturn(new HashMap<>(Map.of("b1", branch)));
+        when(branchService.findUserServicePoint("u1")).thenReturn(Optional.of(sp));
         Optional<ServicePoint> result = controller.getServicePointsByUserName("u1");
         assertTrue(result.isPresent());
+        verify(branchService).findUserServicePoint("u1");
     }
 
     @DisplayName("Поиск пользователя по имени возвращает данные сервиса визитов")
@@ -5,11 +5,11 @@ import static ru.aritmos.test.LoggingAssertions.*;
 import io.micronaut.http.annotation.Post;
 import io.micronaut.http.client.annotation.Client;
 import io.micronaut.retry.annotation.Retryable;
-import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.ExecuteOn;
 import java.lang.reflect.Method;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import ru.aritmos.config.VisitManagerExecutors;
 import ru.aritmos.model.visit.Visit;
 
 class PrinterClientTest {
@@ -36,6 +36,6 @@ class PrinterClientTest {
 
     ExecuteOn executeOn = method.getAnnotation(ExecuteOn.class);
     assertNotNull(executeOn);
-    assertTrue(java.util.Arrays.asList(executeOn.value()).contains(TaskExecutors.IO));
+    assertTrue(java.util.Arrays.asList(executeOn.value()).contains(VisitManagerExecutors.OUTBOUND_IO));
   }
 }
@@ -0,0 +1,165 @@
+package ru.aritmos.config;
+
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.filter.ServerFilterChain;
+import io.micronaut.serde.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import ru.aritmos.model.Branch;
+import ru.aritmos.service.BranchStateStore;
+import ru.aritmos.test.TestLoggingExtension;
+
+/** Проверки {@link BranchSnapshotFilter}: сериализация один раз на версию отделения и ETag. */
+@ExtendWith(TestLoggingExtension.class)
+class BranchSnapshotFilterTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BranchSnapshotFilterTest.class);
+
+    private static final String PATH = "/servicepoint/branches/b1/visits/all";
+
+    private BranchSnapshotFilter filter;
+    private BranchStateStore store;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        store = new BranchStateStore();
+        store.put("b1", new Branch("b1", "Отделение"));
+        filter = new BranchSnapshotFilter();
+        filter.branchStateStore = store;
+        filter.objectMapper = ObjectMapper.getDefault();
+        filter.maxAge = Duration.ofMinutes(1);
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Повторный запрос без изменения отделения отдаётся из снимка без вызова контроллера")
+    void servesSnapshotUntilBranchChanges() {
+        LOG.info("Шаг 1: первый запрос сериализует ответ контроллера.");
+        MutableHttpResponse<?> first = apply(HttpRequest.GET(PATH));
+        String etag = first.getHeaders().get(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertEquals(
+                "{\"v1\":\"visit\"}", new String((byte[]) first.body(), StandardCharsets.UTF_8));
+
+        LOG.info("Шаг 2: второй запрос отдаётся готовыми байтами.");
+        MutableHttpResponse<?> second = apply(HttpRequest.GET(PATH));
+        assertEquals(1, calls.get());
+        assertEquals(etag, second.getHeaders().get(HttpHeaders.ETAG));
+        assertSame(first.body(), second.body());
+
+        LOG.info("Шаг 3: изменение отделения под блокировкой делает снимок устаревшим.");
+        store.runWithLock("b1", () -> {});
+        MutableHttpResponse<?> third = apply(HttpRequest.GET(PATH));
+        assertEquals(2, calls.get());
+        assertNotEquals(etag, third.getHeaders().get(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @DisplayName("При совпадении If-None-Match возвращается 304 без тела")
+    void returnsNotModifiedForMatchingEtag() {
+        String etag = apply(HttpRequest.GET(PATH)).getHeaders().get(HttpHeaders.ETAG);
+
+        MutableHttpResponse<?> response =
+                apply(HttpRequest.GET(PATH).header(HttpHeaders.IF_NONE_MATCH, etag));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatus());
+        assertEquals(etag, response.getHeaders().get(HttpHeaders.ETAG));
+        assertFalse(response.getBody().isPresent());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("Снимок старше максимального возраста сериализуется заново")
+    void expiredSnapshotIsSerializedAgain() {
+        filter.maxAge = Duration.ofMillis(1);
+        apply(HttpRequest.GET(PATH));
+        sleep(5);
+
+        apply(HttpRequest.GET(PATH));
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Запросы к отсутствующему отделению и при нулевом возрасте не кэшируются")
+    void passesThroughWhenNotCacheable() {
+        MutableHttpResponse<?> missing = apply(HttpRequest.GET("/managementinformation/branches/tiny"));
+        assertTrue(missing.body() instanceof Map);
+
+        filter.maxAge = Duration.ZERO;
+        apply(HttpRequest.GET(PATH));
+        apply(HttpRequest.GET(PATH));
+
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    @DisplayName("Параметры запроса не порождают снимков, снимки удалённого отделения сбрасываются")
+    void queryDoesNotMultiplySnapshotsAndDeletedBranchIsEvicted() {
+        apply(HttpRequest.GET(PATH));
+        apply(HttpRequest.GET(PATH + "?nocache=1"));
+        apply(HttpRequest.GET(PATH + "?nocache=2"));
+        assertEquals(1, calls.get());
+
+        LOG.info("Удаление отделения сбрасывает его снимки при следующем обращении.");
+        store.remove("b1");
+        apply(HttpRequest.GET("/managementinformation/branches/b1"));
+        store.put("b1", new Branch("b1", "Отделение"));
+        apply(HttpRequest.GET(PATH));
+
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    @DisplayName("Разбор идентификатора отделения и заголовка If-None-Match")
+    void parsesBranchIdAndIfNoneMatch() {
+        assertEquals("b1", BranchSnapshotFilter.branchIdOf("/managementinformation/branches/b1"));
+        assertEquals("b1", BranchSnapshotFilter.branchIdOf(PATH));
+        assertNull(BranchSnapshotFilter.branchIdOf("/managementinformation/branches/"));
+        assertNull(BranchSnapshotFilter.branchIdOf("/servicepoint/visits"));
+
+        String etag = BranchSnapshotFilter.etagOf(3, new byte[] {1, 2});
+        assertTrue(etag.startsWith("W/\"3-"));
+        assertTrue(BranchSnapshotFilter.matches("\"x\", " + etag, etag));
+        assertTrue(BranchSnapshotFilter.matches(etag.substring(2), etag));
+        assertTrue(BranchSnapshotFilter.matches("*", etag));
+        assertFalse(BranchSnapshotFilter.matches("W/\"2-0\"", etag));
+        assertFalse(BranchSnapshotFilter.matches(null, etag));
+    }
+
+    private MutableHttpResponse<?> apply(HttpRequest<?> request) {
+        ServerFilterChain chain =
+                req -> {
+                    calls.incrementAndGet();
+                    LOG.info("Контроллер формирует ответ на запрос {}.", req.getPath());
+                    return Publishers.just(HttpResponse.ok(new HashMap<>(Map.of("v1", "visit"))));
+                };
+        return Mono.from(filter.doFilter(request, chain)).block();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
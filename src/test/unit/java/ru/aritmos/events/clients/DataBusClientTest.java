@@ -9,7 +9,6 @@ import io.micronaut.http.annotation.PathVariable;
 import io.micronaut.http.annotation.Post;
 import io.micronaut.http.client.annotation.Client;
 import io.micronaut.retry.annotation.Retryable;
-import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.Async;
 import io.micronaut.scheduling.annotation.ExecuteOn;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -18,6 +17,7 @@ import java.lang.reflect.Method;
 import java.util.Arrays;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import ru.aritmos.config.VisitManagerExecutors;
 
 /**
  * Рефлексивные проверки конфигурации {@link DataBusClient}.
@@ -64,7 +64,7 @@ class DataBusClientTest {
     assertNotNull(send.getAnnotation(Async.class), "Отсутствует @Async");
     ExecuteOn executeOn = send.getAnnotation(ExecuteOn.class);
     assertNotNull(executeOn, "Отсутствует @ExecuteOn");
-    assertEquals(TaskExecutors.IO, executeOn.value());
+    assertEquals(VisitManagerExecutors.OUTBOUND_IO, executeOn.value());
   }
 
   /** Проверяем ожидаемые аннотации на параметрах метода send. */
@@ -3,24 +3,24 @@ package ru.aritmos.events.model;
 import static ru.aritmos.test.LoggingAssertions.*;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.ExecuteOn;
 import java.lang.reflect.Method;
 import java.util.Set;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import ru.aritmos.config.VisitManagerExecutors;
 import ru.aritmos.exceptions.SystemException;
 
 class EventHandlerTest {
 
-    @DisplayName("Метод обработки помечен выполнением в пуле ввода-вывода")
+    @DisplayName("Метод обработки помечен выполнением в пуле обработки сообщений Kafka")
     @Test
-    void handleMethodShouldBeAnnotatedForIoExecutor() throws NoSuchMethodException {
+    void handleMethodShouldBeAnnotatedForKafkaExecutor() throws NoSuchMethodException {
         Method handle = EventHandler.class.getMethod("Handle", Event.class);
         ExecuteOn executeOn = handle.getAnnotation(ExecuteOn.class);
 
         assertNotNull(executeOn, "аннотация ExecuteOn должна присутствовать");
-        assertEquals(TaskExecutors.IO, executeOn.value());
+        assertEquals(VisitManagerExecutors.KAFKA_CONSUMER, executeOn.value());
     }
 
     @DisplayName("Метод обработки декларирует ожидаемые исключения")
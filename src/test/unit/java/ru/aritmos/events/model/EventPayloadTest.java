@@ -0,0 +1,47 @@
+package ru.aritmos.events.model;
+
+import static org.mockito.Mockito.*;
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import io.micronaut.json.tree.JsonNode;
+import io.micronaut.serde.ObjectMapper;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.aritmos.model.visit.Visit;
+
+class EventPayloadTest {
+
+    @DisplayName("Тело события фиксирует состояние визита на момент формирования")
+    @Test
+    void payloadIsNotAffectedByLaterChanges() {
+        Visit visit = Visit.builder().id("v1").branchId("b1").status("WAITING").build();
+
+        Object payload = EventPayload.of(ObjectMapper.getDefault(), visit);
+        visit.setStatus("CALLED");
+
+        assertTrue(payload instanceof JsonNode);
+        assertEquals("v1", EventPayload.stringField(payload, "id"));
+        assertEquals("b1", EventPayload.stringField(payload, "branchId"));
+        assertEquals("WAITING", EventPayload.stringField(payload, "status"));
+    }
+
+    @DisplayName("Снимок строится переданным сериализатором приложения")
+    @Test
+    void payloadUsesGivenObjectMapper() throws Exception {
+        Visit visit = Visit.builder().id("v1").build();
+        JsonNode tree = JsonNode.createObjectNode(Map.of("id", JsonNode.createStringNode("v1")));
+        ObjectMapper objectMapper = mock(ObjectMapper.class);
+        when(objectMapper.writeValueToTree(visit)).thenReturn(tree);
+
+        assertSame(tree, EventPayload.of(objectMapper, visit));
+        verify(objectMapper).writeValueToTree(visit);
+    }
+
+    @DisplayName("Чтение поля из тела, не являющегося деревом JSON, возвращает null")
+    @Test
+    void stringFieldOfPlainBodyIsNull() {
+        assertNull(EventPayload.of(null, null));
+        assertNull(EventPayload.stringField("body", "id"));
+    }
+}
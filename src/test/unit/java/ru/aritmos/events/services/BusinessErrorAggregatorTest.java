@@ -0,0 +1,160 @@
+package ru.aritmos.events.services;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import ru.aritmos.events.model.Event;
+
+/**
+ * Тесты для {@link BusinessErrorAggregator}.
+ */
+class BusinessErrorAggregatorTest {
+
+    private static final Instant START = Instant.parse("2026-10-18T10:00:00Z");
+
+    private final EventService eventService = mock(EventService.class);
+
+    private BusinessErrorAggregator aggregator() {
+        BusinessErrorAggregator aggregator = new BusinessErrorAggregator();
+        aggregator.properties.setSampleSize(2);
+        aggregator.properties.setWindow(Duration.ofMinutes(1));
+        aggregator.eventService = () -> eventService;
+        aggregator.clock = Clock.fixed(START, ZoneOffset.UTC);
+        return aggregator;
+    }
+
+    private static Event error(String key) {
+        return Event.builder()
+                .eventType("BUSINESS_ERROR")
+                .params(new HashMap<>(Map.of("key", key)))
+                .body("error " + key)
+                .build();
+    }
+
+    @DisplayName("Сверх выборки окна одинаковые ошибки подавляются, другие ключи не затрагиваются")
+    @Test
+    void suppressesRepeatedErrorsOverSample() {
+        BusinessErrorAggregator aggregator = aggregator();
+
+        assertTrue(aggregator.admit("*", error("branch_not_found")));
+        assertTrue(aggregator.admit("*", error("branch_not_found")));
+        assertFalse(aggregator.admit("*", error("branch_not_found")));
+        assertTrue(aggregator.admit("*", error("visit_not_found")));
+        assertTrue(aggregator.admit("*", Event.builder().eventType("VISIT_CALLED").build()));
+    }
+
+    @DisplayName("Подавленные ошибки отправляются одним сводным событием")
+    @Test
+    void flushSendsSummaryOfSuppressedErrors() {
+        BusinessErrorAggregator aggregator = aggregator();
+        for (int i = 0; i < 5; i++) {
+            aggregator.admit("*", error("branch_not_found"));
+        }
+
+        aggregator.flush();
+
+        ArgumentCaptor<Event> captor = ArgumentCaptor.forClass(Event.class);
+        verify(eventService).send(eq("*"), eq(false), captor.capture());
+        assertEquals("BUSINESS_ERROR_SUMMARY", captor.getValue().getEventType());
+        Map<?, ?> body = (Map<?, ?>) captor.getValue().getBody();
+        assertEquals("branch_not_found", body.get("key"));
+        assertEquals(3, body.get("suppressed"));
+        assertEquals("error branch_not_found", body.get("lastError"));
+
+        aggregator.flush();
+        verifyNoMoreInteractions(eventService);
+    }
+
+    @DisplayName("Ошибки предыдущего интервала учитываются пропорционально части окна")
+    @Test
+    void slidingWindowWeighsPreviousInterval() {
+        BusinessErrorAggregator aggregator = aggregator();
+        aggregator.admit("*", error("k"));
+        aggregator.admit("*", error("k"));
+        aggregator.admit("*", error("k"));
+
+        aggregator.clock = Clock.fixed(START.plusSeconds(70), ZoneOffset.UTC);
+        assertFalse(aggregator.admit("*", error("k")));
+
+        aggregator.clock = Clock.fixed(START.plusSeconds(170), ZoneOffset.UTC);
+        assertTrue(aggregator.admit("*", error("k")));
+    }
+
+    @DisplayName("При выключенной агрегации отправляется каждое событие ошибки")
+    @Test
+    void disabledAggregationAdmitsEverything() {
+        BusinessErrorAggregator aggregator = aggregator();
+        aggregator.properties.setEnabled(false);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(aggregator.admit("*", error("k")));
+        }
+    }
+
+    @DisplayName("Параллельная сводка не теряет ошибки, подавленные во время удаления счётчика")
+    @Test
+    void concurrentFlushKeepsSuppressedErrors() throws Exception {
+        BusinessErrorAggregator aggregator = aggregator();
+        aggregator.properties.setSampleSize(0);
+        // Каждое обращение к часам сдвигает время на два окна: счётчики постоянно простаивают
+        // и удаляются в flush одновременно с учётом новых ошибок.
+        AtomicLong millis = new AtomicLong(START.toEpochMilli());
+        aggregator.clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(millis.getAndAdd(Duration.ofMinutes(2).toMillis()));
+            }
+        };
+        AtomicLong reported = new AtomicLong();
+        doAnswer(invocation -> {
+            Event summary = invocation.getArgument(2);
+            reported.addAndGet((Integer) ((Map<?, ?>) summary.getBody()).get("suppressed"));
+            return null;
+        }).when(eventService).send(anyString(), anyBoolean(), any(Event.class));
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (running.get()) {
+                aggregator.flush();
+            }
+        });
+        flusher.start();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 20000; i++) {
+            executor.execute(() -> aggregator.admit("*", error("k")));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        running.set(false);
+        flusher.join();
+        aggregator.flush();
+
+        assertEquals(20000, reported.get());
+    }
+}
@@ -0,0 +1,74 @@
+package ru.aritmos.events.services;
+
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import io.micronaut.serde.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.aritmos.events.model.Event;
+
+/**
+ * Юнит-тесты для {@link DelayedEventJournal}.
+ */
+class DelayedEventJournalTest {
+
+    @TempDir Path directory;
+
+    private static DelayedEventJournal.Entry entry(String id, long dueAt) {
+        Event event = Event.builder().eventType("QUEUE_REFRESHED").body(Map.of("visitId", id)).build();
+        return new DelayedEventJournal.Entry(id, dueAt, List.of("frontend"), false, false, event);
+    }
+
+    @DisplayName("После перезапуска восстанавливаются только неотправленные события")
+    @Test
+    void recoversPendingEntries() throws Exception {
+        Path path = directory.resolve("journal/delayed.journal");
+        DelayedEventJournal journal = new DelayedEventJournal(path, ObjectMapper.getDefault());
+        assertEquals(List.of(), journal.recover());
+        journal.scheduled(entry("v1", 100L));
+        journal.scheduled(entry("v2", 200L));
+        journal.completed("v1");
+        journal.close();
+        Files.writeString(path, "{\"id\":\"v3\",\"sched", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        DelayedEventJournal reopened = new DelayedEventJournal(path, ObjectMapper.getDefault());
+        List<DelayedEventJournal.Entry> pending = reopened.recover();
+
+        assertEquals(1, pending.size());
+        assertEquals("v2", pending.get(0).id());
+        assertEquals(200L, pending.get(0).dueAt());
+        assertEquals(List.of("frontend"), pending.get(0).destinations());
+        assertEquals("QUEUE_REFRESHED", pending.get(0).event().getEventType());
+        assertEquals(1, Files.readAllLines(path).size());
+        reopened.close();
+    }
+
+    @DisplayName("Сжатие журнала оставляет только ожидающие события")
+    @Test
+    void compactRewritesPendingEntries() throws Exception {
+        Path path = directory.resolve("delayed.journal");
+        DelayedEventJournal journal = new DelayedEventJournal(path, ObjectMapper.getDefault());
+        journal.recover();
+        journal.scheduled(entry("v1", 100L));
+        journal.scheduled(entry("v2", 200L));
+        journal.completed("v1");
+        assertEquals(1L, journal.getCompleted());
+
+        journal.compact(List.of(entry("v2", 200L)));
+        journal.scheduled(entry("v3", 300L));
+        journal.close();
+
+        assertEquals(0L, journal.getCompleted());
+        assertEquals(2, Files.readAllLines(path).size());
+        List<DelayedEventJournal.Entry> pending =
+                new DelayedEventJournal(path, ObjectMapper.getDefault()).recover();
+        assertEquals(List.of("v2", "v3"), pending.stream().map(DelayedEventJournal.Entry::id).toList());
+    }
+}
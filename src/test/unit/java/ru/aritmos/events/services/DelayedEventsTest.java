@@ -4,10 +4,13 @@ import static org.mockito.Mockito.*;
 import static ru.aritmos.test.LoggingAssertions.*;
 
 import io.micronaut.scheduling.TaskScheduler;
+import io.micronaut.serde.ObjectMapper;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.List;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import ru.aritmos.events.model.Event;
 
@@ -52,4 +55,65 @@ class DelayedEventsTest {
         captor.getValue().run();
         verify(eventService).send(destinations, false, event);
     }
+
+    @TempDir Path directory;
+
+    private DelayedEvents wheelEnabled(TaskScheduler scheduler, Path journal, EventService recovered) {
+        DelayedEvents delayed = new DelayedEvents(scheduler);
+        delayed.properties.setEnabled(true);
+        delayed.properties.setJournal(journal != null ? journal.toString() : "");
+        delayed.objectMapper = ObjectMapper.getDefault();
+        delayed.recoveredEventService = recovered;
+        delayed.start();
+        return delayed;
+    }
+
+    /** Проверяет, что колесо таймеров продвигается одной периодической задачей. */
+    @DisplayName("Колесо таймеров отправляет событие по наступлении срока без отдельной задачи")
+    @Test
+    void wheelSendsEventWhenDue() {
+        TaskScheduler scheduler = mock(TaskScheduler.class);
+        DelayedEvents delayed = wheelEnabled(scheduler, null, null);
+        EventService eventService = mock(EventService.class);
+        Event event = Event.builder().eventType("t").build();
+
+        delayed.delayedEventService("dest", true, event, 5L, eventService);
+        delayed.delayedEventService(List.of("d1", "d2"), false, event, 60L, eventService);
+
+        verify(scheduler)
+                .scheduleAtFixedRate(eq(Duration.ofMillis(100)), eq(Duration.ofMillis(100)), any(Runnable.class));
+        verify(scheduler, never()).schedule(any(Duration.class), any(Runnable.class));
+        assertEquals(2, delayed.pendingCount());
+        delayed.advance(System.currentTimeMillis() + 1_000);
+        verifyNoInteractions(eventService);
+
+        delayed.advance(System.currentTimeMillis() + 6_000);
+        verify(eventService).send("dest", true, event);
+        assertEquals(1, delayed.pendingCount());
+    }
+
+    /** Проверяет восстановление неотправленных событий из журнала после перезапуска. */
+    @DisplayName("Неотправленные события восстанавливаются из журнала после перезапуска")
+    @Test
+    void wheelRecoversEventsFromJournal() {
+        Path journal = directory.resolve("delayed-events.journal");
+        EventService eventService = mock(EventService.class);
+        DelayedEvents before = wheelEnabled(mock(TaskScheduler.class), journal, null);
+        before.delayedEventService("frontend", false, Event.builder().eventType("sent").build(), 1L, eventService);
+        before.delayedEventService("frontend", false, Event.builder().eventType("kept").build(), 30L, eventService);
+        before.advance(System.currentTimeMillis() + 2_000);
+        before.stop();
+        verify(eventService).send(eq("frontend"), eq(false), any(Event.class));
+
+        EventService recovered = mock(EventService.class);
+        DelayedEvents after = wheelEnabled(mock(TaskScheduler.class), journal, recovered);
+        assertEquals(1, after.pendingCount());
+        after.advance(System.currentTimeMillis() + 31_000);
+
+        ArgumentCaptor<Event> captor = ArgumentCaptor.forClass(Event.class);
+        verify(recovered).send(eq("frontend"), eq(false), captor.capture());
+        assertEquals("kept", captor.getValue().getEventType());
+        assertNotNull(captor.getValue().getEventDate());
+        after.stop();
+    }
 }
@@ -0,0 +1,191 @@
+package ru.aritmos.events.services;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import ru.aritmos.events.clients.DataBusClient;
+import ru.aritmos.events.model.Event;
+import ru.aritmos.events.model.EventPayload;
+import ru.aritmos.model.visit.Visit;
+
+/**
+ * Тесты для {@link EventOutbox}.
+ */
+class EventOutboxTest {
+
+    private final DataBusClient dataBusClient = mock(DataBusClient.class);
+    private EventOutbox outbox;
+
+    private EventOutbox outbox(boolean enabled, boolean batchEndpoint, int capacity) {
+        EventOutboxProperties properties = new EventOutboxProperties();
+        properties.setEnabled(enabled);
+        properties.setBatchEndpoint(batchEndpoint);
+        properties.setCapacity(capacity);
+        properties.setLinger(Duration.ofMillis(50));
+        properties.setOfferTimeout(Duration.ofMillis(1));
+        outbox = new EventOutbox();
+        outbox.properties = properties;
+        outbox.dataBusClient = dataBusClient;
+        outbox.applicationName = "vm";
+        return outbox;
+    }
+
+    private static Event event(String type, String branchId) {
+        return Event.builder().eventType(type).params(Map.of("branchId", branchId)).body(type).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (outbox != null) {
+            outbox.stop();
+        }
+    }
+
+    @DisplayName("Выключенный буфер не принимает события")
+    @Test
+    void disabledOutboxRejectsEvents() {
+        EventOutbox disabled = outbox(false, false, 10);
+        disabled.start();
+
+        assertFalse(disabled.offer("dest", false, event("PING", "b1")));
+        assertFalse(disabled.isEnabled());
+        verifyNoInteractions(dataBusClient);
+    }
+
+    @DisplayName("События одного отделения отправляются в порядке поступления")
+    @Test
+    void eventsOfBranchAreSentInOrder() {
+        List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        when(dataBusClient.send(any(), any(), any(), any(), any(), any()))
+                .thenAnswer(
+                        invocation -> {
+                            sent.add(invocation.getArgument(4));
+                            return Mono.just(Map.of());
+                        });
+        EventOutbox enabled = outbox(true, false, 100);
+        enabled.start();
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(enabled.offer("dest", false, event("E" + i, "b1")));
+        }
+
+        verify(dataBusClient, timeout(2000).times(10))
+                .send(eq("dest"), eq(false), any(), eq("vm"), any(), any());
+        assertEquals(List.of("E0", "E1", "E2", "E3", "E4", "E5", "E6", "E7", "E8", "E9"), sent);
+    }
+
+    @DisplayName("При пакетной точке пачка адресата отправляется одним запросом")
+    @Test
+    void batchEndpointSendsSingleRequest() {
+        when(dataBusClient.sendBatch(any(), any(), any(), any(), any()))
+                .thenReturn(Mono.just(Map.of()));
+        EventOutbox enabled = outbox(true, true, 100);
+        List<Event> events = List.of(event("E0", "b1"), event("E1", "b2"), event("E2", "b1"));
+
+        enabled.flush(
+                events.stream()
+                        .map(e -> new EventOutbox.OutboxEntry("dest", false, e))
+                        .toList());
+
+        verify(dataBusClient).sendBatch(eq("dest"), eq(false), any(), eq("vm"), eq(events));
+        verify(dataBusClient, never()).send(any(), any(), any(), any(), any(), any());
+    }
+
+    @DisplayName("Переполненный буфер отказывает, чтобы событие ушло напрямую")
+    @Test
+    void fullOutboxRejectsEvents() {
+        when(dataBusClient.send(any(), any(), any(), any(), any(), any())).thenReturn(Mono.never());
+        EventOutbox enabled = outbox(true, false, 1);
+        enabled.properties.setFlushTimeout(Duration.ofMillis(500));
+        enabled.start();
+
+        assertTrue(enabled.offer("dest", false, event("E0", "b1")));
+        verify(dataBusClient, timeout(2000)).send(any(), any(), any(), any(), any(), any());
+        assertTrue(enabled.offer("dest", false, event("E1", "b1")));
+
+        assertFalse(enabled.offer("dest", false, event("E2", "b1")));
+    }
+
+    @DisplayName("События, не подтверждённые шиной данных, отправляются повторно в прежнем порядке")
+    @Test
+    void failedEventsAreRetriedInOrder() {
+        List<String> attempts = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean failing = new AtomicBoolean(true);
+        when(dataBusClient.send(any(), any(), any(), any(), any(), any()))
+                .thenAnswer(
+                        invocation -> {
+                            attempts.add(invocation.getArgument(4));
+                            return failing.getAndSet(false)
+                                    ? Mono.error(new IllegalStateException("DataBus is down"))
+                                    : Mono.just(Map.of());
+                        });
+        EventOutbox enabled = outbox(true, false, 100);
+        enabled.properties.setRetryDelay(Duration.ofMillis(100));
+        enabled.start();
+
+        assertTrue(enabled.offer("dest", false, event("E0", "b1")));
+        assertTrue(enabled.offer("dest", false, event("E1", "b1")));
+
+        verify(dataBusClient, timeout(3000).times(3))
+                .send(eq("dest"), eq(false), any(), eq("vm"), any(), any());
+        assertEquals(List.of("E0", "E0", "E1"), attempts);
+    }
+
+    @DisplayName("Отправка не отменяется по истечении ожидания, следующие события ждут подтверждения")
+    @Test
+    void slowSendIsNotCancelled() {
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        List<String> attempts = Collections.synchronizedList(new ArrayList<>());
+        when(dataBusClient.send(any(), any(), any(), any(), any(), any()))
+                .thenAnswer(
+                        invocation -> {
+                            String type = invocation.getArgument(4);
+                            attempts.add(type);
+                            Mono<Map<String, String>> response =
+                                    Mono.<Map<String, String>>just(Map.of())
+                                            .doOnNext(r -> delivered.add(type));
+                            return "E0".equals(type)
+                                    ? Mono.delay(Duration.ofMillis(600)).then(response)
+                                    : response;
+                        });
+        EventOutbox enabled = outbox(true, false, 100);
+        enabled.properties.setFlushTimeout(Duration.ofMillis(100));
+        enabled.start();
+
+        assertTrue(enabled.offer("dest", false, event("E0", "b1")));
+        verify(dataBusClient, timeout(2000)).send(any(), any(), any(), any(), eq("E0"), any());
+        assertTrue(enabled.offer("dest", false, event("E1", "b1")));
+
+        verify(dataBusClient, timeout(3000)).send(any(), any(), any(), any(), eq("E1"), any());
+        assertEquals(List.of("E0", "E1"), attempts);
+        // E1 отправлено только после подтверждения E0
+        assertEquals("E0", delivered.get(0));
+    }
+
+    @DisplayName("Ключ упорядочивания берётся из параметра отделения")
+    @Test
+    void orderingKeyUsesBranchParameter() {
+        assertEquals("b1", EventOutbox.orderingKey(event("PING", "b1")));
+        assertEquals("", EventOutbox.orderingKey(Event.builder().eventType("PING").build()));
+    }
+
+    @DisplayName("Ключ упорядочивания берётся из сериализованного тела визита")
+    @Test
+    void orderingKeyUsesSerializedVisitBranch() {
+        Visit visit = Visit.builder().id("v1").branchId("b2").build();
+        Event event = Event.builder().eventType("VISIT_CALLED").body(EventPayload.of(null, visit)).build();
+
+        assertEquals("b2", EventOutbox.orderingKey(event));
+    }
+}
@@ -1,5 +1,6 @@
 package ru.aritmos.events.services;
 
+import io.micronaut.json.tree.JsonNode;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
 import jakarta.inject.Inject;
 import java.time.ZoneId;
@@ -11,6 +12,10 @@ import org.junit.jupiter.api.Test;
 import ru.aritmos.config.LocalNoDockerDataBusClientStub;
 import ru.aritmos.events.model.ChangedObject;
 import ru.aritmos.events.model.Event;
+import ru.aritmos.events.model.EventPayload;
+import ru.aritmos.events.model.EventPayloadProfile;
+import ru.aritmos.model.ServicePoint;
+import ru.aritmos.model.visit.Visit;
 
 @MicronautTest
 class EventServiceTest {
@@ -118,4 +123,36 @@ class EventServiceTest {
               ru.aritmos.test.LoggingAssertions.assertEquals(String.class.getName(), changed.getClassName());
             });
     }
+
+    @DisplayName("Рассылка события формирует одно тело для каждого профиля адресатов")
+    @Test
+    void fanOutSerializesBodyOncePerProfile() {
+        dataBusClient.clearInvocations();
+        eventService.applicationName = "vm";
+        eventService.payloadProperties.getProfiles().put("stat", EventPayloadProfile.FULL);
+        try {
+            ServicePoint servicePoint = new ServicePoint("sp1", "СП1");
+            servicePoint.getVisits().add(Visit.builder().id("v1").build());
+            Event event = Event.builder().eventType("SERVICE_POINT_OPENED").body(servicePoint).build();
+
+            eventService.fanOut(
+                List.of("*", "stat", "frontend"), false, event, servicePoint.toSlim());
+
+            List<LocalNoDockerDataBusClientStub.InvocationRecord> invocations = dataBusClient.getInvocations();
+            ru.aritmos.test.LoggingAssertions.assertEquals(3, invocations.size());
+            JsonNode all = (JsonNode) invocations.get(0).body();
+            JsonNode stat = (JsonNode) invocations.get(1).body();
+            ru.aritmos.test.LoggingAssertions.assertSame(all, invocations.get(2).body());
+            ru.aritmos.test.LoggingAssertions.assertEquals(0, all.get("visits").size());
+            ru.aritmos.test.LoggingAssertions.assertEquals(1, stat.get("visits").size());
+            ru.aritmos.test.LoggingAssertions.assertEquals("sp1", EventPayload.stringField(all, "id"));
+            invocations.forEach(
+                i -> {
+                  ru.aritmos.test.LoggingAssertions.assertEquals("vm", i.senderService());
+                  ru.aritmos.test.LoggingAssertions.assertEquals("SERVICE_POINT_OPENED", i.type());
+                });
+        } finally {
+            eventService.payloadProperties.getProfiles().remove("stat");
+        }
+    }
 }
@@ -6,12 +6,17 @@ import io.micronaut.serde.ObjectMapper;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
 import jakarta.inject.Inject;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import ru.aritmos.events.model.Event;
 import ru.aritmos.events.model.EventHandler;
+import ru.aritmos.model.keycloak.UserSession;
 
 @MicronautTest
 class KafkaListenerTest {
@@ -53,23 +58,93 @@ class KafkaListenerTest {
 
   @DisplayName("Получение сервисного события вызывает соответствующий обработчик")
   @Test
-  void receiveCallsServiceHandler() throws Exception {
+  void receiveBatchCallsServiceHandler() throws Exception {
     Event event = Event.builder().eventType("t").build();
     String json = objectMapper.writeValueAsString(event);
     EventHandler handler = mock(EventHandler.class);
     KafkaListener.addServiceEventHandler("t", handler);
-    kafkaListener.receive("k", json);
+    kafkaListener.receiveBatch(List.of(record("k", json)));
     verify(handler).Handle(event);
   }
 
   @DisplayName("Получение общего события активирует универсальный обработчик")
   @Test
-  void receiveAllCallsAllHandler() throws Exception {
+  void receiveAllBatchCallsAllHandler() throws Exception {
     Event event = Event.builder().eventType("t").build();
     String json = objectMapper.writeValueAsString(event);
     EventHandler handler = mock(EventHandler.class);
     KafkaListener.addAllEventHandler("t", handler);
-    kafkaListener.receiveAll("k", json);
+    kafkaListener.receiveAllBatch(List.of(record("k", json)));
     verify(handler).Handle(event);
   }
+
+  @DisplayName("Тип события определяется без разбора вложенных объектов")
+  @Test
+  void peekEventTypeReadsTopLevelField() throws Exception {
+    String json = "{\"body\":{\"eventType\":\"inner\",\"items\":[1,2]},\"eventType\":\"t\"}";
+
+    ru.aritmos.test.LoggingAssertions.assertEquals("t", KafkaListener.peekEventType(json));
+    ru.aritmos.test.LoggingAssertions.assertNull(KafkaListener.peekEventType("{\"body\":{}}"));
+  }
+
+  @DisplayName("Пачка сообщений обрабатывается с сохранением порядка в пределах ключа")
+  @Test
+  void receiveBatchKeepsOrderPerKeyAndSkipsUnhandled() throws Exception {
+    List<String> handled = Collections.synchronizedList(new ArrayList<>());
+    KafkaListener.addServiceEventHandler(
+        "t", event -> handled.add(event.getParams().get("key") + event.getParams().get("n")));
+    List<ConsumerRecord<String, String>> records =
+        List.of(
+            record("b1", "t", "1"),
+            record("b2", "t", "2"),
+            record("b1", "other", "3"),
+            record("b1", "t", "4"));
+
+    kafkaListener.receiveBatch(records);
+
+    ru.aritmos.test.LoggingAssertions.assertEquals(3, handled.size());
+    ru.aritmos.test.LoggingAssertions.assertTrue(handled.indexOf("b11") < handled.indexOf("b14"));
+    ru.aritmos.test.LoggingAssertions.assertFalse(handled.contains("b13"));
+  }
+
+  @DisplayName("Тело события приводится к типу, объявленному обработчиком")
+  @Test
+  void receiveConvertsBodyToHandlerType() throws Exception {
+    List<Object> bodies = new ArrayList<>();
+    KafkaListener.addServiceEventHandler(
+        "logout",
+        new EventHandler() {
+          @Override
+          public void Handle(Event event) {
+            bodies.add(event.getBody());
+          }
+
+          @Override
+          public Class<?> bodyType() {
+            return UserSession.class;
+          }
+        });
+    Event event =
+        Event.builder()
+            .eventType("logout")
+            .body(Map.of("login", "operator", "sid", "s1"))
+            .build();
+
+    kafkaListener.receiveBatch(List.of(record("k", objectMapper.writeValueAsString(event))));
+
+    ru.aritmos.test.LoggingAssertions.assertTrue(bodies.get(0) instanceof UserSession);
+    ru.aritmos.test.LoggingAssertions.assertEquals(
+        "operator", ((UserSession) bodies.get(0)).getLogin());
+  }
+
+  private ConsumerRecord<String, String> record(String key, String eventType, String n)
+      throws Exception {
+    Event event =
+        Event.builder().eventType(eventType).params(Map.of("key", key, "n", n)).build();
+    return record(key, objectMapper.writeValueAsString(event));
+  }
+
+  private ConsumerRecord<String, String> record(String key, String json) {
+    return new ConsumerRecord<>("event_visitmanager", 0, 0L, key, json);
+  }
 }
@@ -0,0 +1,84 @@
+package ru.aritmos.events.services;
+
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Юнит-тесты для {@link TimerWheel}.
+ */
+class TimerWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @DisplayName("Таймер срабатывает на такте, не раньше момента срабатывания")
+    @Test
+    void firesAtDueTick() {
+        TimerWheel<String> wheel = new TimerWheel<>(Duration.ofMillis(100), 8, START);
+        wheel.schedule("a", START + 250);
+
+        assertEquals(List.of(), wheel.advance(START + 200));
+        assertEquals(List.of("a"), wheel.advance(START + 300));
+        assertEquals(0, wheel.size());
+    }
+
+    @DisplayName("Дальние таймеры переносятся с верхних уровней и срабатывают по порядку")
+    @Test
+    void cascadesFromUpperLevels() {
+        TimerWheel<Long> wheel = new TimerWheel<>(Duration.ofMillis(10), 4, START);
+        List<Long> delays = List.of(5_000L, 30L, 640L, 10L, 2_550L, 100_000L, 160L);
+        delays.forEach(delay -> wheel.schedule(delay, START + delay));
+
+        List<Long> fired = new ArrayList<>();
+        for (long now = START; now <= START + 100_000; now += 10) {
+            for (Long delay : wheel.advance(now)) {
+                assertEquals(START + delay, now, "Таймер " + delay + " сработал не вовремя");
+                fired.add(delay);
+            }
+        }
+
+        assertEquals(List.of(10L, 30L, 160L, 640L, 2_550L, 5_000L, 100_000L), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @DisplayName("Отменённый таймер не срабатывает, повторная отмена возвращает false")
+    @Test
+    void cancelledTimerDoesNotFire() {
+        TimerWheel<String> wheel = new TimerWheel<>(Duration.ofMillis(100), 8, START);
+        TimerWheel.Timeout<String> cancelled = wheel.schedule("cancelled", START + 5_000);
+        wheel.schedule("kept", START + 5_000);
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+        assertEquals(List.of("kept"), wheel.pending());
+        assertEquals(List.of("kept"), wheel.advance(START + 5_000));
+    }
+
+    @DisplayName("Просроченный таймер срабатывает на следующем такте, таймеры такта - в порядке добавления")
+    @Test
+    void overdueTimerFiresOnNextTick() {
+        TimerWheel<String> wheel = new TimerWheel<>(Duration.ofMillis(100), 8, START);
+        wheel.advance(START + 1_000);
+        wheel.schedule("overdue", START);
+        wheel.schedule("next", START + 1_100);
+
+        assertEquals(List.of("overdue", "next"), wheel.advance(START + 1_100));
+    }
+
+    @DisplayName("Продвижение после долгой паузы отправляет все просроченные таймеры")
+    @Test
+    void advancesOverLongPause() {
+        TimerWheel<Integer> wheel = new TimerWheel<>(Duration.ofMillis(100), 16, START);
+        for (int i = 0; i < 10_000; i++) {
+            wheel.schedule(i, START + 100L * (i % 500) + 100);
+        }
+
+        assertEquals(10_000, wheel.size());
+        assertEquals(10_000, wheel.advance(START + 3_600_000).size());
+        assertEquals(0, wheel.size());
+    }
+}
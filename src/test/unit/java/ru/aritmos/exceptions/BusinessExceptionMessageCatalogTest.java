@@ -0,0 +1,61 @@
+package ru.aritmos.exceptions;
+
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BusinessExceptionMessageCatalogTest {
+
+    @DisplayName("Словарь содержит переводы из ресурсов и настроек с приоритетом настроек")
+    @Test
+    void compilesResourcesAndConfiguredMessages() {
+        BusinessExceptionLocalizationProperties.ChannelLocalization channel =
+                new BusinessExceptionLocalizationProperties.ChannelLocalization();
+        channel.setLanguage("ru");
+        channel.setDefaultLanguage("en");
+        channel.setMessages(Map.of("queue_not_found", Map.of("ru", "Нет такой очереди")));
+
+        BusinessExceptionMessageCatalog catalog = BusinessExceptionMessageCatalog.compile(channel);
+
+        assertEquals("Отделение не найдено", catalog.resolve("branch_not_found"));
+        assertEquals("Нет такой очереди", catalog.resolve("queue_not_found"));
+        assertEquals("Visit 42 not found", catalog.resolve("Visit 42 not found"));
+        assertNull(catalog.resolve(null));
+        assertSame(
+                catalog.resolve("branch_not_found"),
+                BusinessExceptionMessageCatalog.compile(channel).resolve("branch_not_found"));
+    }
+
+    @DisplayName("Словарь совпадает с разрешением перевода по настройкам канала")
+    @Test
+    void matchesChannelResolution() {
+        BusinessExceptionLocalizationProperties.ChannelLocalization channel =
+                BusinessExceptionLocalizationProperties.ChannelLocalization.httpDefaults();
+
+        BusinessExceptionMessageCatalog catalog = BusinessExceptionMessageCatalog.compile(channel);
+
+        assertTrue(catalog.size() > 0);
+        for (String key : channel.messageKeys()) {
+            assertEquals(channel.resolve(key), catalog.resolve(key));
+        }
+    }
+
+    @DisplayName("Повторная локализация одних и тех же сообщений возвращает сохранённый результат")
+    @Test
+    void repeatedLocalizationIsCached() {
+        BusinessExceptionLocalization localization =
+                new BusinessExceptionLocalization(new BusinessExceptionLocalizationProperties());
+
+        String key = "branch_not_found";
+        BusinessExceptionLocalization.LocalizedMessages first =
+                localization.localize(null, key, key, key);
+        BusinessExceptionLocalization.LocalizedMessages second =
+                localization.localize(null, key, key, key);
+
+        assertSame(first, second);
+        assertEquals("Branch not found", first.clientMessage());
+        assertEquals("Отделение не найдено", first.logMessage());
+    }
+}
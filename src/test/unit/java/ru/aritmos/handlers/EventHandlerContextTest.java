@@ -7,6 +7,7 @@ import static ru.aritmos.test.LoggingAssertions.*;
 import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -74,7 +75,7 @@ class EventHandlerContextTest {
         sp.setVisit(visit);
         branch.getServicePoints().put(sp.getId(), sp);
 
-        when(branchService.getDetailedBranches()).thenReturn(new HashMap<>(Map.of("b1", branch)));
+        when(branchService.findUserServicePoint("u1")).thenReturn(Optional.of(sp));
 
         EventHandlerContext.NotForceUserLogoutHandler handler =
                 new EventHandlerContext.NotForceUserLogoutHandler(visitService, eventService);
@@ -108,7 +109,7 @@ class EventHandlerContextTest {
         sp.setUser(user);
         branch.getServicePoints().put(sp.getId(), sp);
 
-        when(branchService.getDetailedBranches()).thenReturn(new HashMap<>(Map.of("b1", branch)));
+        when(branchService.findUserServicePoint("u1")).thenReturn(Optional.of(sp));
 
         EventHandlerContext.ForceUserLogoutHandler handler =
                 new EventHandlerContext.ForceUserLogoutHandler(visitService, eventService);
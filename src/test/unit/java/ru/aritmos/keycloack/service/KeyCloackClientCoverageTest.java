@@ -255,6 +255,31 @@ class KeyCloackClientCoverageTest {
         verify(userResource).logout();
     }
 
+    @DisplayName("Выход сотрудника без ожидания выполняется в пуле исходящих вызовов")
+    @Test
+    void userLogoutAsyncRunsOnOutboundExecutor() {
+        KeyCloackClient client = spy(new KeyCloackClient());
+        List<Runnable> tasks = new ArrayList<>();
+        java.util.concurrent.ExecutorService executor =
+                mock(java.util.concurrent.ExecutorService.class);
+        doAnswer(invocation -> tasks.add(invocation.getArgument(0)))
+                .when(executor)
+                .execute(any(Runnable.class));
+        client.outboundExecutor = executor;
+        doThrow(new IllegalStateException("keycloak is down"))
+                .when(client)
+                .userLogout("operator", true, "maintenance");
+
+        log.info("Вызываем userLogoutAsync: выход ставится в пул, а не выполняется сразу");
+        client.userLogoutAsync("operator", true, "maintenance");
+        verify(client, never()).userLogout(anyString(), any(), anyString());
+        assertEquals(1, tasks.size());
+
+        log.info("Ошибка Keycloak в задаче пула не передаётся вызывающему");
+        assertDoesNotThrow(() -> tasks.get(0).run());
+        verify(client).userLogout("operator", true, "maintenance");
+    }
+
     @DisplayName("Загрузка отделений по названию региона возвращает данные из вложенных групп")
     @Test
     void getAllBranchesByRegionNameReturnsRecursiveBranches() {
@@ -0,0 +1,179 @@
+package ru.aritmos.keycloack.service;
+
+import static org.mockito.Mockito.*;
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.*;
+import org.keycloak.representations.idm.*;
+
+/**
+ * Тесты для {@link KeycloakLookupCache} и кэширования обращений {@link KeyCloackClient}.
+ */
+class KeycloakLookupCacheTest {
+
+    private static UserRepresentation user(String id, String username) {
+        UserRepresentation user = new UserRepresentation();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+
+    @DisplayName("Повторный поиск пользователя не обращается к Keycloak, пустой результат не кэшируется")
+    @Test
+    void getUserInfoIsCached() {
+        KeyCloackClient client = new KeyCloackClient();
+        client.realm = "realm";
+        Keycloak keycloak = mock(Keycloak.class);
+        client.keycloak = keycloak;
+        RealmResource realmResource = mock(RealmResource.class);
+        UsersResource usersResource = mock(UsersResource.class);
+        when(keycloak.realm("realm")).thenReturn(realmResource);
+        when(realmResource.users()).thenReturn(usersResource);
+        UserRepresentation operator = user("user-id", "operator");
+        when(usersResource.search("operator", true)).thenReturn(List.of(operator));
+        when(usersResource.search("missing", true)).thenReturn(List.of());
+
+        assertSame(operator, client.getUserInfo("operator").orElseThrow());
+        assertSame(operator, client.getUserInfo("operator").orElseThrow());
+        assertTrue(client.getUserInfo("missing").isEmpty());
+        assertTrue(client.getUserInfo("missing").isEmpty());
+
+        verify(usersResource, times(1)).search("operator", true);
+        verify(usersResource, times(2)).search("missing", true);
+    }
+
+    @DisplayName("Проверка типа модуля кэшируется до выхода пользователя")
+    @Test
+    void moduleTypeIsCachedUntilLogout() {
+        KeyCloackClient client = new KeyCloackClient();
+        client.realm = "realm";
+        Keycloak keycloak = mock(Keycloak.class);
+        client.keycloak = keycloak;
+        RealmResource realmResource = mock(RealmResource.class);
+        UsersResource usersResource = mock(UsersResource.class);
+        UserResource userResource = mock(UserResource.class);
+        RoleMappingResource roleMappingResource = mock(RoleMappingResource.class);
+        RoleByIdResource roleByIdResource = mock(RoleByIdResource.class);
+        RoleRepresentation role = new RoleRepresentation();
+        role.setId("role-id");
+        MappingsRepresentation mappings = new MappingsRepresentation();
+        mappings.setRealmMappings(List.of(role));
+        RoleRepresentation composite = new RoleRepresentation();
+        composite.setId("composite-id");
+        composite.setAttributes(Map.of("type", List.of("admin")));
+        when(keycloak.realm("realm")).thenReturn(realmResource);
+        when(realmResource.users()).thenReturn(usersResource);
+        when(usersResource.searchByUsername("operator", true))
+                .thenReturn(List.of(user("user-id", "operator")));
+        when(usersResource.get("user-id")).thenReturn(userResource);
+        when(userResource.roles()).thenReturn(roleMappingResource);
+        when(roleMappingResource.getAll()).thenReturn(mappings);
+        when(realmResource.rolesById()).thenReturn(roleByIdResource);
+        when(roleByIdResource.getRoleComposites("role-id")).thenReturn(Set.of(composite));
+        when(roleByIdResource.getRole("composite-id")).thenReturn(composite);
+
+        assertTrue(client.isUserModuleTypeByUserName("operator", "admin"));
+        assertTrue(client.isUserModuleTypeByUserName("operator", "admin"));
+        verify(usersResource, times(1)).searchByUsername("operator", true);
+
+        client.invalidateUser("operator", null);
+
+        assertTrue(client.isUserModuleTypeByUserName("operator", "admin"));
+        verify(usersResource, times(2)).searchByUsername("operator", true);
+    }
+
+    @DisplayName("Отделения регионов кэшируются для каждого узла дерева групп")
+    @Test
+    void regionBranchesAreCachedPerRegion() {
+        KeyCloackClient client = new KeyCloackClient();
+        client.realm = "realm";
+        Keycloak keycloak = mock(Keycloak.class);
+        RealmResource realmResource = mock(RealmResource.class);
+        GroupsResource groupsResource = mock(GroupsResource.class);
+        GroupResource rootGroup = mock(GroupResource.class);
+        GroupResource subRegionGroup = mock(GroupResource.class);
+        GroupRepresentation region = new GroupRepresentation();
+        region.setId("region2");
+        region.setSubGroupCount(1L);
+        region.setAttributes(Map.of("type", List.of("region")));
+        GroupRepresentation branch = new GroupRepresentation();
+        branch.setAttributes(Map.of("type", List.of("branch")));
+        when(keycloak.realm("realm")).thenReturn(realmResource);
+        when(realmResource.groups()).thenReturn(groupsResource);
+        when(groupsResource.group("region1")).thenReturn(rootGroup);
+        when(rootGroup.getSubGroups(0, 1000000000, false)).thenReturn(List.of(region));
+        when(groupsResource.group("region2")).thenReturn(subRegionGroup);
+        when(subRegionGroup.getSubGroups(0, 1000000000, false)).thenReturn(List.of(branch));
+
+        assertEquals(List.of(branch), client.getAllBranchesByRegionId("region1", keycloak));
+        assertEquals(List.of(branch), client.getAllBranchesByRegionId("region2", keycloak));
+        assertEquals(List.of(branch), client.getAllBranchesByRegionId("region1", keycloak));
+
+        verify(rootGroup, times(1)).getSubGroups(0, 1000000000, false);
+        verify(subRegionGroup, times(1)).getSubGroups(0, 1000000000, false);
+    }
+
+    @DisplayName("Сессии индексируются за один обход клиентов и сбрасываются при выходе")
+    @Test
+    void sessionsAreIndexed() {
+        KeyCloackClient client = new KeyCloackClient();
+        client.realm = "realm";
+        Keycloak keycloak = mock(Keycloak.class);
+        client.keycloak = keycloak;
+        RealmResource realmResource = mock(RealmResource.class);
+        ClientsResource clientsResource = mock(ClientsResource.class);
+        ClientResource clientResource = mock(ClientResource.class);
+        UsersResource usersResource = mock(UsersResource.class);
+        UserResource firstResource = mock(UserResource.class);
+        UserResource secondResource = mock(UserResource.class);
+        ClientRepresentation clientRepresentation = new ClientRepresentation();
+        clientRepresentation.setId("client-id");
+        UserSessionRepresentation first = new UserSessionRepresentation();
+        first.setId("sid-1");
+        first.setUserId("user-1");
+        UserSessionRepresentation second = new UserSessionRepresentation();
+        second.setId("sid-2");
+        second.setUserId("user-2");
+        when(keycloak.realm("realm")).thenReturn(realmResource);
+        when(realmResource.clients()).thenReturn(clientsResource);
+        when(clientsResource.findAll()).thenReturn(List.of(clientRepresentation));
+        when(clientsResource.get("client-id")).thenReturn(clientResource);
+        when(clientResource.getUserSessions(0, 1000000000)).thenReturn(List.of(first, second));
+        when(realmResource.users()).thenReturn(usersResource);
+        when(usersResource.get("user-1")).thenReturn(firstResource);
+        when(usersResource.get("user-2")).thenReturn(secondResource);
+        when(firstResource.toRepresentation()).thenReturn(user("user-1", "first"));
+        when(secondResource.toRepresentation()).thenReturn(user("user-2", "second"));
+
+        assertEquals("first", client.getUserBySid("sid-1").orElseThrow().getUsername());
+        assertEquals("second", client.getUserBySid("sid-2").orElseThrow().getUsername());
+        assertEquals("first", client.getUserBySid("sid-1").orElseThrow().getUsername());
+        verify(clientResource, times(1)).getUserSessions(0, 1000000000);
+        verify(firstResource, times(1)).toRepresentation();
+
+        client.invalidateUser("first", null);
+        when(clientResource.getUserSessions(0, 1000000000)).thenReturn(List.of(second));
+
+        assertEquals(Optional.empty(), client.getUserBySid("sid-1"));
+        assertEquals("second", client.getUserBySid("sid-2").orElseThrow().getUsername());
+        verify(secondResource, times(1)).toRepresentation();
+    }
+
+    @DisplayName("Нулевое время жизни отключает кэширование")
+    @Test
+    void zeroTtlDisablesCaching() {
+        KeycloakLookupCache cache = new KeycloakLookupCache();
+        cache.ttl = Duration.ZERO;
+
+        assertEquals("a", cache.regionId("region", name -> "a"));
+        assertEquals("b", cache.regionId("region", name -> "b"));
+    }
+}
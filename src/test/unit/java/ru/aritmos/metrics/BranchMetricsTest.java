@@ -0,0 +1,115 @@
+package ru.aritmos.metrics;
+
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micronaut.serde.ObjectMapper;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.aritmos.model.Branch;
+import ru.aritmos.model.Queue;
+import ru.aritmos.model.ServicePoint;
+import ru.aritmos.model.User;
+import ru.aritmos.model.visit.Visit;
+import ru.aritmos.service.BranchStateStore;
+
+class BranchMetricsTest {
+
+    private static Visit waiting(String id, ZonedDateTime createDateTime) {
+        return Visit.builder().id(id).branchId("b1").queueId("q1").createDateTime(createDateTime).build();
+    }
+
+    @DisplayName("Сбор метрик отражает длину очереди, время ожидания и занятость точек обслуживания")
+    @Test
+    void refreshPublishesBranchState() {
+        ZonedDateTime now = ZonedDateTime.now();
+        Branch branch = new Branch("b1", "Отделение");
+        Queue queue = new Queue("q1", "Очередь", "A", 1);
+        queue.getVisits().add(waiting("v1", now.minusSeconds(100)));
+        queue.getVisits().add(waiting("v2", now.minusSeconds(10)));
+        branch.getQueues().put(queue.getId(), queue);
+        ServicePoint serving = new ServicePoint("sp1", "Окно 1");
+        serving.setUser(new User("u1", "user1", null));
+        serving.setVisit(Visit.builder().id("v3").branchId("b1").build());
+        branch.getServicePoints().put(serving.getId(), serving);
+        branch.getServicePoints().put("sp2", new ServicePoint("sp2", "Окно 2"));
+
+        BranchStateStore store = new BranchStateStore();
+        store.put(branch.getId(), branch);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BranchMetrics metrics = new BranchMetrics();
+        metrics.meterRegistry = registry;
+        metrics.branchStateStore = store;
+        metrics.registerMetrics();
+
+        metrics.refresh();
+
+        assertEquals(2.0, registry.get("branch.queue.length").tags("branch", "b1", "queue", "q1").gauge().value());
+        assertTrue(
+                registry.get("branch.queue.waiting.time").tags("queue", "q1", "quantile", "1.0").gauge().value()
+                        >= 100.0);
+        assertEquals(1.0, registry.get("branch.service.points").tags("state", "serving").gauge().value());
+        assertEquals(0.0, registry.get("branch.service.points").tags("state", "idle").gauge().value());
+        assertEquals(1.0, registry.get("branch.service.points").tags("state", "closed").gauge().value());
+        assertNull(registry.find("branch.size").gauge());
+    }
+
+    @DisplayName("Размер сериализованного отделения собирается только при явном включении")
+    @Test
+    void branchSizeIsOptIn() {
+        BranchStateStore store = new BranchStateStore();
+        store.put("b1", new Branch("b1", "Отделение"));
+        SimpleMeterRegistry disabledRegistry = new SimpleMeterRegistry();
+        BranchMetrics disabled = new BranchMetrics();
+        disabled.meterRegistry = disabledRegistry;
+        disabled.branchStateStore = store;
+        disabled.objectMapper = ObjectMapper.getDefault();
+        disabled.registerMetrics();
+        disabled.refresh();
+
+        assertNull(disabledRegistry.find("branch.size").gauge());
+
+        SimpleMeterRegistry enabledRegistry = new SimpleMeterRegistry();
+        BranchMetrics enabled = new BranchMetrics();
+        enabled.meterRegistry = enabledRegistry;
+        enabled.branchStateStore = store;
+        enabled.objectMapper = ObjectMapper.getDefault();
+        enabled.branchSizeEnabled = true;
+        enabled.registerMetrics();
+        enabled.refresh();
+
+        assertTrue(enabledRegistry.get("branch.size").tags("branch", "b1").gauge().value() > 0);
+    }
+
+    @DisplayName("Процентиль вычисляется по ближайшему рангу, пустой набор даёт ноль")
+    @Test
+    void quantileUsesNearestRank() {
+        long[] sorted = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+
+        assertEquals(5L, BranchMetrics.quantile(sorted, 0.5));
+        assertEquals(9L, BranchMetrics.quantile(sorted, 0.9));
+        assertEquals(10L, BranchMetrics.quantile(sorted, 1.0));
+        assertEquals(0L, BranchMetrics.quantile(new long[0], 0.5));
+    }
+
+    @DisplayName("Время ожидания отсчитывается от возврата, перевода или создания визита")
+    @Test
+    void waitingSecondsUsesLatestWaitingStart() {
+        Instant now = Instant.parse("2024-01-01T10:00:00Z");
+        ZonedDateTime base = now.atZone(ZoneId.of("UTC"));
+        Visit created = waiting("v1", base.minusSeconds(300));
+        Visit returned = waiting("v2", base.minusSeconds(600));
+        returned.setReturnDateTime(base.minusSeconds(30));
+        Visit unknown = Visit.builder().id("v3").build();
+
+        long[] seconds = BranchMetrics.waitingSeconds(List.of(created, returned, unknown), now);
+
+        assertEquals(2, seconds.length);
+        assertEquals(30L, seconds[0]);
+        assertEquals(300L, seconds[1]);
+    }
+}
@@ -0,0 +1,103 @@
+package ru.aritmos.metrics;
+
+import static org.mockito.Mockito.*;
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micronaut.aop.MethodInvocationContext;
+import io.micronaut.core.annotation.AnnotationValue;
+import io.micronaut.core.type.Argument;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.exceptions.HttpStatusException;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.aritmos.model.Branch;
+import ru.aritmos.model.visit.Visit;
+
+class MeasuredInterceptorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private MeasuredInterceptor interceptor() {
+        MeasuredInterceptor interceptor = new MeasuredInterceptor();
+        interceptor.meterRegistry = registry;
+        return interceptor;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MethodInvocationContext<Object, Object> context(
+            Argument<?>[] arguments, Object[] values) {
+        MethodInvocationContext<Object, Object> context = mock(MethodInvocationContext.class);
+        when(context.getAnnotation(Measured.class))
+                .thenReturn(
+                        AnnotationValue.builder(Measured.class)
+                                .value("visit.operation")
+                                .member("operation", "call")
+                                .build());
+        when(context.getArguments()).thenReturn(arguments);
+        when(context.getParameterValues()).thenReturn(values);
+        when(context.getMethodName()).thenReturn("visitCall");
+        return context;
+    }
+
+    private Timer timer(String branch, String outcome) {
+        return registry.find("visit.operation")
+                .tags("operation", "call", "branch", branch, "outcome", outcome)
+                .timer();
+    }
+
+    @DisplayName("Успешная операция учитывается с отделением из параметра branchId")
+    @Test
+    void recordsSuccessWithBranchIdParameter() {
+        MethodInvocationContext<Object, Object> context =
+                context(
+                        new Argument<?>[] {Argument.of(String.class, "branchId"), Argument.of(String.class, "servicePointId")},
+                        new Object[] {"b1", "sp1"});
+        Visit visit = Visit.builder().id("v1").build();
+        when(context.proceed()).thenReturn(Optional.of(visit));
+
+        assertEquals(Optional.of(visit), interceptor().intercept(context));
+
+        assertEquals(1L, timer("b1", "success").count());
+    }
+
+    @DisplayName("Пустой результат и отделение визита отражаются в тегах")
+    @Test
+    void recordsEmptyResultWithVisitBranch() {
+        Visit visit = Visit.builder().id("v1").branchId("b2").build();
+        MethodInvocationContext<Object, Object> context =
+                context(new Argument<?>[] {Argument.of(Visit.class, "visit")}, new Object[] {visit});
+        when(context.proceed()).thenReturn(Optional.empty());
+
+        interceptor().intercept(context);
+
+        assertEquals(1L, timer("b2", "empty").count());
+    }
+
+    @DisplayName("Отказ с HTTP-статусом учитывается как бизнес-ошибка и пробрасывается")
+    @Test
+    void recordsBusinessErrorAndRethrows() {
+        MethodInvocationContext<Object, Object> context =
+                context(new Argument<?>[] {Argument.of(Branch.class, "branch")}, new Object[] {new Branch("b3", "Отделение")});
+        when(context.proceed()).thenThrow(new HttpStatusException(HttpStatus.NOT_FOUND, "not found"));
+
+        assertThrows(HttpStatusException.class, () -> interceptor().intercept(context));
+
+        assertEquals(1L, timer("b3", "business_error").count());
+    }
+
+    @DisplayName("Без реестра метрик метод выполняется без замера")
+    @Test
+    void proceedsWithoutRegistry() {
+        MethodInvocationContext<Object, Object> context =
+                context(new Argument<?>[0], new Object[0]);
+        when(context.proceed()).thenReturn("result");
+
+        assertEquals("result", new MeasuredInterceptor().intercept(context));
+
+        assertTrue(registry.getMeters().isEmpty());
+        assertEquals(MeasuredInterceptor.NO_BRANCH, MeasuredInterceptor.branchOf(new Argument<?>[0], new Object[0]));
+    }
+}
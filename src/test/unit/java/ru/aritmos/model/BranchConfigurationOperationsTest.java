@@ -15,6 +15,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import ru.aritmos.events.model.Event;
+import ru.aritmos.events.model.EventPayload;
 import ru.aritmos.events.services.EventService;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.service.BranchService;
@@ -94,7 +95,7 @@ class BranchConfigurationOperationsTest {
     List<Event> events = eventCaptor.getAllValues();
     assertEquals("VISIT_CUSTOM_ACTION", events.get(0).getEventType());
     assertEquals("VISIT_CUSTOM_ACTION", events.get(1).getEventType());
-    assertEquals(visit.getId(), ((Visit) events.get(0).getBody()).getId());
+    assertEquals(visit.getId(), EventPayload.stringField(events.get(0).getBody(), "id"));
   }
 
   @DisplayName("Обновление визита с произвольным действием завершится ошибкой при занятой точке")
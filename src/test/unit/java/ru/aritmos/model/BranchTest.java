@@ -15,10 +15,12 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import ru.aritmos.events.model.Event;
+import ru.aritmos.events.model.EventPayload;
 import ru.aritmos.events.services.EventService;
 import ru.aritmos.keycloack.service.KeyCloackClient;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.service.BranchService;
 import ru.aritmos.service.VisitService;
 
@@ -287,19 +289,13 @@ class BranchTest {
 
     // На шину отправлены события открытия
     ArgumentCaptor<Event> captor = ArgumentCaptor.forClass(Event.class);
-    verify(eventService).send(eq("*"), eq(false), captor.capture());
-    assertEquals("SERVICE_POINT_OPENED", captor.getValue().getEventType());
-    assertSame(sp, captor.getValue().getBody());
-
-    captor = ArgumentCaptor.forClass(Event.class);
-    verify(eventService).send(eq("stat"), eq(false), captor.capture());
-    assertEquals("SERVICE_POINT_OPENED", captor.getValue().getEventType());
-    assertSame(sp, captor.getValue().getBody());
-
-    captor = ArgumentCaptor.forClass(Event.class);
-    verify(eventService).send(eq("frontend"), eq(false), captor.capture());
+    ArgumentCaptor<Object> slim = ArgumentCaptor.forClass(Object.class);
+    verify(eventService)
+        .fanOut(eq(List.of("*", "stat", "frontend")), eq(false), captor.capture(), slim.capture());
     assertEquals("SERVICE_POINT_OPENED", captor.getValue().getEventType());
     assertSame(sp, captor.getValue().getBody());
+    assertEquals("sp1", ((ServicePoint) slim.getValue()).getId());
+    assertEquals("u1", ((ServicePoint) slim.getValue()).getUser().getName());
   }
 
   @DisplayName("Открытие точки завершается ошибкой при занятом рабочем месте")
@@ -406,7 +402,7 @@ class BranchTest {
     assertTrue(branch.getUsers().containsKey("u1"));
     assertTrue(visit.getUnservedServices().isEmpty());
 
-    verify(keyCloackClient).userLogout("u1", true, "force");
+    verify(keyCloackClient).userLogoutAsync("u1", true, "force");
     verify(visitService).visitEnd("b1", "sp1", true, "force");
     verify(branch)
         .updateVisit(
@@ -415,9 +411,13 @@ class BranchTest {
     ArgumentCaptor<Event> captor = ArgumentCaptor.forClass(Event.class);
     verify(eventService, atLeast(3)).send(anyString(), eq(false), captor.capture());
     List<String> types = captor.getAllValues().stream().map(Event::getEventType).toList();
-    assertTrue(types.contains("SERVICE_POINT_CLOSING"));
     assertTrue(types.contains("STAFF_START_BREAK"));
-    assertTrue(types.contains("SERVICE_POINT_CLOSED"));
+
+    captor = ArgumentCaptor.forClass(Event.class);
+    verify(eventService, times(2))
+        .fanOut(eq(List.of("*", "stat", "frontend")), eq(false), captor.capture(), any());
+    types = captor.getAllValues().stream().map(Event::getEventType).toList();
+    assertEquals(List.of("SERVICE_POINT_CLOSING", "SERVICE_POINT_CLOSED"), types);
   }
 
   @DisplayName("Закрытие точки завершается ошибкой при отсутствии точки в отделении")
@@ -670,13 +670,15 @@ class BranchTest {
     assertSame(poolUser, branch.getUsers().get(poolUser.getName()));
     assertSame(poolPointUser, branch.getUsers().get(poolPointUser.getName()));
 
-    verify(visitService).addEvent(visit, VisitEvent.CALLED, eventService);
+    verify(visitService)
+        .addEvent(
+            eq(visit), argThat((VisitTransition t) -> t.event() == VisitEvent.CALLED), eq(eventService));
     verify(branchService).add("b1", branch);
 
     ArgumentCaptor<Event> captor = ArgumentCaptor.forClass(Event.class);
     verify(eventService).send(eq("*"), eq(false), captor.capture());
     assertEquals("VISIT_CALLED", captor.getValue().getEventType());
-    assertEquals("visit-new", ((Visit) captor.getValue().getBody()).getId());
+    assertEquals("visit-new", EventPayload.stringField(captor.getValue().getBody(), "id"));
 
     verify(eventService)
         .send(eq("stat"), eq(false), argThat(event -> "VISIT_CALLED".equals(event.getEventType())));
@@ -724,7 +726,9 @@ class BranchTest {
     assertEquals(1, branch.getQueues().get("q1").getVisits().size());
     assertSame(visit, branch.getQueues().get("q1").getVisits().get(0));
 
-    verify(visitService).addEvent(visit, VisitEvent.CALLED, eventService);
+    verify(visitService)
+        .addEvent(
+            eq(visit), argThat((VisitTransition t) -> t.event() == VisitEvent.CALLED), eq(eventService));
     verify(branchService).add("b1", branch);
     verify(eventService).send(eq("*"), eq(false), any(Event.class));
   }
@@ -759,7 +763,9 @@ class BranchTest {
     assertEquals(1, queue.getVisits().size());
     assertEquals("keep", queue.getVisits().get(0).getId());
 
-    verify(visitService).addEvent(visit, VisitEvent.CALLED, eventService);
+    verify(visitService)
+        .addEvent(
+            eq(visit), argThat((VisitTransition t) -> t.event() == VisitEvent.CALLED), eq(eventService));
     verify(eventService)
         .send(eq("*"), eq(false), argThat(event -> "BUSINESS_ERROR".equals(event.getEventType())));
     verify(eventService, never()).send(eq("stat"), anyBoolean(), any(Event.class));
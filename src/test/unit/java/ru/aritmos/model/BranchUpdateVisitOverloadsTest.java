@@ -16,9 +16,11 @@ import org.mockito.ArgumentCaptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.aritmos.events.model.Event;
+import ru.aritmos.events.model.EventPayload;
 import ru.aritmos.events.services.EventService;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.service.BranchService;
 import ru.aritmos.service.VisitService;
 
@@ -32,9 +34,6 @@ class BranchUpdateVisitOverloadsTest {
     @DisplayName("Обновление визита с флагом размещает запись в начале очереди")
     @Test
     void updateVisitWithBooleanPlacesVisitAtStart() {
-        VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL.getParameters().clear();
-        VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL.dateTime = null;
-
         String branchId = "branch-start";
         log.info("Подготавливаем отделение {} для размещения визита в начале.", branchId);
         Branch branch = new Branch(branchId, "Отделение старт");
@@ -84,13 +83,17 @@ class BranchUpdateVisitOverloadsTest {
                 poolStaff.getVisits().stream().map(Visit::getId).toList());
         assertEquals(poolStaff, branch.getUsers().get(poolStaff.getName()));
 
-        verify(visitService).addEvent(visit, VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL, eventService);
+        verify(visitService)
+                .addEvent(
+                        eq(visit),
+                        argThat((VisitTransition t) -> t.event() == VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL),
+                        eq(eventService));
         verify(branchService).add(branchId, branch);
 
         ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
         verify(eventService).send(eq("*"), eq(false), eventCaptor.capture());
         assertEquals("VISIT_TRANSFER_TO_SERVICE_POINT_POOL", eventCaptor.getValue().getEventType());
-        assertEquals("visit-start", ((Visit) eventCaptor.getValue().getBody()).getId());
+        assertEquals("visit-start", EventPayload.stringField(eventCaptor.getValue().getBody(), "id"));
         verify(eventService).send(
                 eq("stat"),
                 eq(false),
@@ -104,9 +107,6 @@ class BranchUpdateVisitOverloadsTest {
     @DisplayName("Обновление визита с флагом помещает запись в конец очереди")
     @Test
     void updateVisitWithBooleanPlacesVisitAtEnd() {
-        VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL.getParameters().clear();
-        VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL.dateTime = null;
-
         log.info("Подготавливаем отделение для проверки добавления визита в конец.");
         Branch branch = new Branch("branch-end", "Отделение конец");
         Queue queue = new Queue("queue-end", "Очередь", "Q", 1);
@@ -156,7 +156,11 @@ class BranchUpdateVisitOverloadsTest {
         assertEquals(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL.getState().name(), visit.getStatus());
         assertEquals(poolStaff, branch.getUsers().get(poolStaff.getName()));
 
-        verify(visitService).addEvent(visit, VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL, eventService);
+        verify(visitService)
+                .addEvent(
+                        eq(visit),
+                        argThat((VisitTransition t) -> t.event() == VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL),
+                        eq(eventService));
         verify(branchService).add(branch.getId(), branch);
         verify(eventService).send(eq("*"), eq(false), any(Event.class));
         verify(eventService).send(eq("stat"), eq(false), any(Event.class));
@@ -166,9 +170,6 @@ class BranchUpdateVisitOverloadsTest {
     @DisplayName("Обновление визита без флага по умолчанию ставит запись в начало")
     @Test
     void updateVisitWithoutBooleanPlacesVisitAtStartByDefault() {
-        VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL.getParameters().clear();
-        VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL.dateTime = null;
-
         log.info("Проверяем дефолтное поведение перегрузки без параметра isToStart.");
         Branch branch = new Branch("branch-default", "Отделение по умолчанию");
         Queue queue = new Queue("queue-default", "Очередь", "Q", 1);
@@ -212,7 +213,11 @@ class BranchUpdateVisitOverloadsTest {
         assertEquals(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL.getState().name(), visit.getStatus());
         assertEquals(poolStaff, branch.getUsers().get(poolStaff.getName()));
 
-        verify(visitService).addEvent(visit, VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL, eventService);
+        verify(visitService)
+                .addEvent(
+                        eq(visit),
+                        argThat((VisitTransition t) -> t.event() == VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL),
+                        eq(eventService));
         verify(branchService).add(branch.getId(), branch);
         verify(eventService).send(eq("*"), eq(false), any(Event.class));
         verify(eventService).send(eq("stat"), eq(false), any(Event.class));
@@ -0,0 +1,139 @@
+package ru.aritmos.model;
+
+import static org.mockito.Mockito.*;
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.aritmos.events.services.EventService;
+import ru.aritmos.model.visit.Visit;
+import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.service.BranchService;
+import ru.aritmos.service.VisitService;
+
+/** Проверки индекса расположения визитов {@link Branch}. */
+class BranchVisitIndexTest {
+
+  private final EventService eventService = mock(EventService.class);
+  private final VisitService visitService = mock(VisitService.class);
+
+  private Branch branch() {
+    when(visitService.getBranchService()).thenReturn(mock(BranchService.class));
+    Branch branch = new Branch("b1", "Отделение");
+    branch.getQueues().put("q1", new Queue("q1", "Очередь 1", "A", 1));
+    branch.getQueues().put("q2", new Queue("q2", "Очередь 2", "B", 1));
+    branch.getServicePoints().put("sp1", new ServicePoint("sp1", "Окно 1"));
+    branch.getServicePoints().put("sp2", new ServicePoint("sp2", "Окно 2"));
+    return branch;
+  }
+
+  private Visit visit(String id, String queueId) {
+    return Visit.builder()
+        .id(id)
+        .branchId("b1")
+        .queueId(queueId)
+        .visitEvents(new ArrayList<>())
+        .events(new ArrayList<>())
+        .build();
+  }
+
+  @DisplayName("Поиск визита находит визит, размещённый обновлением")
+  @Test
+  void findVisitReturnsVisitPlacedByUpdate() {
+    Branch branch = branch();
+    Visit visit = visit("v1", "q1");
+
+    branch.updateVisit(visit, eventService, VisitEvent.PLACED_IN_QUEUE, visitService, -1);
+
+    assertSame(visit, branch.findVisit("v1").orElseThrow());
+    assertTrue(branch.findVisit("missing").isEmpty());
+  }
+
+  @DisplayName("Перемещение визита удаляет его из прежнего места размещения")
+  @Test
+  void updateVisitMovesVisitBetweenLocations() {
+    Branch branch = branch();
+    Visit visit = visit("v1", "q1");
+    branch.updateVisit(visit, eventService, VisitEvent.PLACED_IN_QUEUE, visitService, -1);
+
+    visit.setQueueId(null);
+    visit.setServicePointId("sp1");
+    branch.updateVisit(visit, eventService, VisitEvent.CALLED, visitService, -1);
+
+    assertTrue(branch.getQueues().get("q1").getVisits().isEmpty());
+    assertSame(visit, branch.getServicePoints().get("sp1").getVisit());
+    assertSame(visit, branch.findVisit("v1").orElseThrow());
+
+    visit.setServicePointId(null);
+    visit.setQueueId("q2");
+    branch.updateVisit(visit, eventService, VisitEvent.BACK_TO_QUEUE, visitService, 0);
+
+    assertNull(branch.getServicePoints().get("sp1").getVisit());
+    assertEquals(List.of(visit), branch.getQueues().get("q2").getVisits());
+  }
+
+  @DisplayName("Обновление визита не затрагивает визиты других точек обслуживания")
+  @Test
+  void updateVisitKeepsVisitsOfOtherServicePoints() {
+    Branch branch = branch();
+    Visit other = visit("other", null);
+    other.setServicePointId("sp2");
+    branch.updateVisit(other, eventService, VisitEvent.CALLED, visitService, -1);
+    Visit visit = visit("v1", null);
+    visit.setServicePointId("sp1");
+
+    branch.updateVisit(visit, eventService, VisitEvent.CALLED, visitService, -1);
+
+    assertSame(other, branch.getServicePoints().get("sp2").getVisit());
+    assertSame(visit, branch.getServicePoints().get("sp1").getVisit());
+  }
+
+  @DisplayName("Визит, добавленный в обход отделения, учитывается после перестроения индекса")
+  @Test
+  void outOfBandChangesAreIndexedByRebuild() {
+    Branch branch = branch();
+    Visit visit = visit("v1", "q1");
+    branch.updateVisit(visit, eventService, VisitEvent.PLACED_IN_QUEUE, visitService, -1);
+
+    branch.getQueues().get("q1").getVisits().clear();
+    branch.getQueues().get("q2").getVisits().add(visit);
+
+    assertSame(visit, branch.findVisit("v1").orElseThrow());
+
+    branch.rebuildVisitIndex();
+    visit.setQueueId("q1");
+    branch.updateVisit(visit, eventService, VisitEvent.TRANSFER_TO_QUEUE, visitService, -1);
+
+    assertTrue(branch.getQueues().get("q2").getVisits().isEmpty());
+    assertEquals(List.of(visit), branch.getQueues().get("q1").getVisits());
+  }
+
+  @DisplayName("Визиты отделения, полученного без индекса, индексируются при первом обновлении")
+  @Test
+  void unindexedBranchIsIndexedOnFirstUpdate() {
+    Branch branch = branch();
+    Visit visit = visit("v1", "q1");
+    branch.getQueues().get("q1").getVisits().add(visit);
+
+    visit.setQueueId("q2");
+    branch.updateVisit(visit, eventService, VisitEvent.TRANSFER_TO_QUEUE, visitService, -1);
+
+    assertTrue(branch.getQueues().get("q1").getVisits().isEmpty());
+    assertEquals(List.of(visit), branch.getQueues().get("q2").getVisits());
+  }
+
+  @DisplayName("Индекс визитов не влияет на сравнение и строковое представление отделения")
+  @Test
+  void visitIndexIsNotPartOfBranchState() {
+    Branch indexed = branch();
+    Visit visit = visit("v1", "q1");
+    indexed.updateVisit(visit, eventService, VisitEvent.PLACED_IN_QUEUE, visitService, -1);
+    Branch plain = branch();
+    plain.getQueues().get("q1").getVisits().add(visit);
+
+    assertEquals(plain, indexed);
+    assertFalse(indexed.toString().contains("visitIndex"));
+  }
+}
@@ -2,8 +2,14 @@ package ru.aritmos.model;
 
 import static ru.aritmos.test.LoggingAssertions.*;
 
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import ru.aritmos.model.visit.Visit;
 
 /** Тесты для {@link Queue}. */
 class QueueTest {
@@ -29,4 +35,89 @@ class QueueTest {
     assertEquals(30, queue.getWaitingSL());
     assertEquals(0, queue.getTicketCounter());
   }
+
+  @DisplayName("Индекс ожидающих визитов выбирает визит с наибольшим ожиданием и учитывает удаление")
+  @Test
+  void nextWaitingVisitFollowsQueueChanges() {
+    Queue queue = new Queue("q1", "Main", "A", 60);
+    ZonedDateTime now = ZonedDateTime.now();
+    Visit recent = visit("recent", now.minusMinutes(1));
+    Visit oldest = visit("oldest", now.minusMinutes(10));
+    Visit served = visit("served", now.minusMinutes(20));
+    served.setStatus("SERVING");
+    queue.getVisits().addAll(List.of(recent, oldest, served));
+
+    assertEquals("oldest", queue.nextWaitingVisit(WaitingOrder.MAX_WAITING_TIME).orElseThrow().getId());
+
+    queue.getVisits().removeIf(v -> v.getId().equals("oldest"));
+    assertEquals("recent", queue.nextWaitingVisit(WaitingOrder.MAX_WAITING_TIME).orElseThrow().getId());
+
+    queue.getVisits().remove(recent);
+    assertTrue(queue.nextWaitingVisit(WaitingOrder.MAX_WAITING_TIME).isEmpty());
+  }
+
+  @DisplayName("Возвращённый визит становится доступным после окончания задержки")
+  @Test
+  void delayedVisitIsPromotedWhenDelayExpires() {
+    Queue queue = new Queue("q1", "Main", "A", 60);
+    ZonedDateTime now = ZonedDateTime.now();
+    Visit waiting = visit("waiting", now.minusMinutes(1));
+    Visit returned = visit("returned", now.minusMinutes(30));
+    returned.setReturnDateTime(now.minusSeconds(10));
+    returned.setReturnTimeDelay(60L);
+    queue.getVisits().add(waiting);
+    queue.getVisits().add(0, returned);
+
+    Instant instant = now.toInstant();
+    assertEquals(
+        "waiting", queue.nextWaitingVisit(WaitingOrder.MAX_LIFE_TIME, instant).orElseThrow().getId());
+    assertEquals(
+        "returned",
+        queue
+            .nextWaitingVisit(WaitingOrder.MAX_LIFE_TIME, instant.plusSeconds(60))
+            .orElseThrow()
+            .getId());
+  }
+
+  @DisplayName("Изменение полей первого визита пересчитывает его место в индексе")
+  @Test
+  void changedVisitIsReindexed() {
+    Queue queue = new Queue("q1", "Main", "A", 60);
+    ZonedDateTime now = ZonedDateTime.now();
+    Visit first = visit("first", now.minusMinutes(10));
+    Visit second = visit("second", now.minusMinutes(5));
+    queue.getVisits().add(first);
+    queue.getVisits().add(second);
+    assertEquals("first", queue.nextWaitingVisit(WaitingOrder.MAX_WAITING_TIME).orElseThrow().getId());
+
+    first.setTransferDateTime(now);
+    first.setTransferTimeDelay(600L);
+
+    assertEquals("second", queue.nextWaitingVisit(WaitingOrder.MAX_WAITING_TIME).orElseThrow().getId());
+  }
+
+  @DisplayName("Установка списка визитов сохраняет индекс ожидающих визитов")
+  @Test
+  void setVisitsKeepsIndex() {
+    Queue queue = new Queue("q1", "Main", "A", 60);
+    ZonedDateTime now = ZonedDateTime.now();
+    List<Visit> visits = new ArrayList<>();
+    visits.add(visit("late", now.minusMinutes(1)));
+    visits.add(visit("early", now.minusMinutes(2)));
+
+    queue.setVisits(visits);
+    visits.clear();
+
+    assertEquals(2, queue.getVisits().size());
+    assertEquals("early", queue.nextWaitingVisit(WaitingOrder.MAX_WAITING_TIME).orElseThrow().getId());
+  }
+
+  private static Visit visit(String id, ZonedDateTime createDateTime) {
+    return Visit.builder()
+        .id(id)
+        .status("WAITING")
+        .createDateTime(createDateTime)
+        .parameterMap(new HashMap<>())
+        .build();
+  }
 }
@@ -2,9 +2,12 @@ package ru.aritmos.model;
 
 import static ru.aritmos.test.LoggingAssertions.*;
 
+import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.keycloak.representations.idm.GroupRepresentation;
+import ru.aritmos.model.visit.Visit;
 
 class ServicePointTest {
 
@@ -37,4 +40,33 @@ class ServicePointTest {
         assertNull(servicePoint.getUser());
         assertTrue(servicePoint.getVisits().isEmpty());
     }
+
+    @DisplayName("Сокращённое представление не содержит пула визитов и групп сотрудника")
+    @Test
+    void toSlimDropsVisitPoolAndUserGroups() {
+        ServicePoint servicePoint = new ServicePoint("sp1", "Окно 1");
+        servicePoint.setBranchId("b1");
+        servicePoint.getVisits().add(Visit.builder().id("v1").build());
+        Visit current = Visit.builder().id("v2").build();
+        servicePoint.setVisit(current);
+        User user = new User("u1", "user", null);
+        user.setFirstName("Иван");
+        user.setServicePointId("sp1");
+        user.setAllBranches(List.of(new GroupRepresentation()));
+        user.getVisits().add(Visit.builder().id("v3").build());
+        servicePoint.setUser(user);
+
+        ServicePoint slim = servicePoint.toSlim();
+
+        assertEquals("sp1", slim.getId());
+        assertEquals("b1", slim.getBranchId());
+        assertSame(current, slim.getVisit());
+        assertTrue(slim.getVisits().isEmpty());
+        assertEquals("u1", slim.getUser().getId());
+        assertEquals("Иван", slim.getUser().getFirstName());
+        assertEquals("sp1", slim.getUser().getServicePointId());
+        assertNull(slim.getUser().getAllBranches());
+        assertTrue(slim.getUser().getVisits().isEmpty());
+        assertEquals(1, servicePoint.getVisits().size());
+    }
 }
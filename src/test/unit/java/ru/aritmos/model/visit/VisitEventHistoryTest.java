@@ -0,0 +1,99 @@
+package ru.aritmos.model.visit;
+
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class VisitEventHistoryTest {
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2026-10-18T10:00:00Z");
+
+    private static VisitEventInformation event(
+            VisitEvent visitEvent, long seconds, Map<String, String> parameters) {
+        return VisitEventInformation.builder()
+                .visitEvent(visitEvent)
+                .eventDateTime(START.plusSeconds(seconds))
+                .parameters(new HashMap<>(parameters))
+                .build();
+    }
+
+    @DisplayName("Индекс возвращает последнее непустое значение параметра")
+    @Test
+    void lastValueIgnoresEmptyValues() {
+        VisitEventHistory history = new VisitEventHistory();
+        history.add(event(VisitEvent.CALLED, 1, Map.of("staffId", "u1", "servicePointId", "sp1")));
+        history.add(event(VisitEvent.STOP_SERVING, 5, Map.of("staffId", "u2")));
+        history.add(event(VisitEvent.BACK_TO_QUEUE, 9, Map.of("staffId", "")));
+
+        assertEquals(Optional.of("u2"), history.lastValue("staffId"));
+        assertEquals(Optional.of("sp1"), history.lastValue("servicePointId"));
+        assertTrue(history.lastValue("workProfileId").isEmpty());
+        assertEquals(VisitEvent.BACK_TO_QUEUE, history.lastEvent().orElseThrow().getVisitEvent());
+    }
+
+    @DisplayName("При совпадении секунды побеждает ранее добавленное событие")
+    @Test
+    void sameSecondKeepsFirstValue() {
+        VisitEventHistory history = new VisitEventHistory();
+        history.add(event(VisitEvent.CALLED, 1, Map.of("staffId", "u1")));
+        history.add(
+                VisitEventInformation.builder()
+                        .visitEvent(VisitEvent.START_SERVING)
+                        .eventDateTime(START.plusSeconds(1).plusNanos(500_000_000))
+                        .parameters(new HashMap<>(Map.of("staffId", "u2")))
+                        .build());
+
+        assertEquals(Optional.of("u1"), history.lastValue("staffId"));
+        assertEquals(VisitEvent.START_SERVING, history.lastEvent().orElseThrow().getVisitEvent());
+    }
+
+    @DisplayName("Отбрасывание старых событий сохраняет значения параметров")
+    @Test
+    void truncateKeepsIndexedValues() {
+        VisitEventHistory history = new VisitEventHistory();
+        history.add(event(VisitEvent.CALLED, 1, Map.of("workProfileId", "wp1")));
+        history.add(event(VisitEvent.START_SERVING, 2, Map.of("staffId", "u1")));
+        history.add(event(VisitEvent.STOP_SERVING, 3, Map.of("servicePointId", "sp1")));
+
+        assertEquals(2, history.truncate(1));
+
+        assertEquals(1, history.size());
+        assertEquals(Optional.of("wp1"), history.lastValue("workProfileId"));
+        assertEquals(Optional.of("u1"), history.lastValue("staffId"));
+    }
+
+    @DisplayName("Изменение списка в обход добавления перестраивает индекс")
+    @Test
+    void externalModificationRebuildsIndex() {
+        VisitEventHistory history = new VisitEventHistory();
+        history.add(event(VisitEvent.CALLED, 1, Map.of("staffId", "u1")));
+        history.add(event(VisitEvent.START_SERVING, 2, Map.of("staffId", "u2")));
+
+        history.remove(1);
+
+        assertEquals(Optional.of("u1"), history.lastValue("staffId"));
+    }
+
+    @DisplayName("Визит заменяет обычный список событий историей с индексом")
+    @Test
+    void visitConvertsPlainEventList() {
+        List<VisitEventInformation> events = new ArrayList<>();
+        events.add(event(VisitEvent.CALLED, 1, Map.of(new String("staffId"), "u1")));
+        Visit visit = Visit.builder().id("v1").events(events).build();
+
+        VisitEventHistory history = visit.eventHistory();
+
+        assertSame(history, visit.getEvents());
+        assertSame(history, visit.eventHistory());
+        assertEquals(events, history);
+        assertEquals(Optional.of("u1"), history.lastValue("staffId"));
+        assertSame("staffId", history.get(0).getParameters().keySet().iterator().next());
+    }
+}
@@ -0,0 +1,55 @@
+package ru.aritmos.model.visit;
+
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class VisitTransitionTest {
+
+    @DisplayName("Переход без параметров получает текущее время и пустые параметры")
+    @Test
+    void ofFillsDefaults() {
+        VisitTransition transition = VisitTransition.of(VisitEvent.CREATED);
+
+        assertSame(VisitEvent.CREATED, transition.event());
+        assertNotNull(transition.dateTime());
+        assertTrue(transition.parameters().isEmpty());
+        assertEquals(VisitState.CREATED, transition.state());
+        assertEquals("CREATED", transition.name());
+    }
+
+    @DisplayName("Параметры перехода копируются и не изменяются")
+    @Test
+    void parametersAreImmutableCopy() {
+        Map<String, String> source = new HashMap<>();
+        source.put("queueId", "q1");
+        source.put("staffId", null);
+
+        VisitTransition transition = VisitTransition.of(VisitEvent.PLACED_IN_QUEUE, source);
+        source.put("queueId", "q2");
+
+        assertEquals("q1", transition.parameters().get("queueId"));
+        assertTrue(transition.parameters().containsKey("staffId"));
+        assertThrows(UnsupportedOperationException.class, () -> transition.parameters().put("x", "y"));
+    }
+
+    @DisplayName("Построитель не разделяет параметры между переходами")
+    @Test
+    void builderCreatesIndependentTransitions() {
+        ZonedDateTime dateTime = ZonedDateTime.now().minusMinutes(1);
+        VisitTransition.Builder builder =
+                VisitTransition.builder(VisitEvent.CALLED).parameter("servicePointId", "sp1").dateTime(dateTime);
+        VisitTransition first = builder.build();
+        builder.getParameters().put("servicePointId", "sp2");
+        VisitTransition second = builder.build();
+
+        assertEquals("sp1", first.parameters().get("servicePointId"));
+        assertEquals("sp2", second.parameters().get("servicePointId"));
+        assertEquals(dateTime, first.dateTime());
+        assertTrue(VisitTransition.of(VisitEvent.CALLED).parameters().isEmpty());
+    }
+}
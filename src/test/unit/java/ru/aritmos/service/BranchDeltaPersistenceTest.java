@@ -0,0 +1,94 @@
+package ru.aritmos.service;
+
+import static org.mockito.Mockito.*;
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import io.micronaut.cache.CacheManager;
+import io.micronaut.cache.SyncCache;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.aritmos.model.Branch;
+import ru.aritmos.model.visit.Visit;
+
+/**
+ * Тесты для {@link BranchDeltaPersistence}.
+ */
+class BranchDeltaPersistenceTest {
+
+    @SuppressWarnings("unchecked")
+    private final CacheManager<Object> cacheManager = mock(CacheManager.class);
+
+    @SuppressWarnings("unchecked")
+    private final SyncCache<Object> snapshots = mock(SyncCache.class);
+
+    @SuppressWarnings("unchecked")
+    private final SyncCache<Object> visits = mock(SyncCache.class);
+
+    private BranchDeltaPersistence persistence() {
+        when(cacheManager.getCacheNames())
+                .thenReturn(
+                        Set.of(
+                                BranchDeltaPersistence.SNAPSHOT_CACHE,
+                                BranchDeltaPersistence.VISIT_CACHE));
+        when(cacheManager.getCache(BranchDeltaPersistence.SNAPSHOT_CACHE)).thenReturn(snapshots);
+        when(cacheManager.getCache(BranchDeltaPersistence.VISIT_CACHE)).thenReturn(visits);
+        BranchDeltaPersistence persistence = new BranchDeltaPersistence();
+        persistence.cacheManager = cacheManager;
+        return persistence;
+    }
+
+    @DisplayName("Изменение визита записывает только визит, без снимка отделения")
+    @Test
+    void visitChangeWritesOnlyVisit() {
+        BranchDeltaPersistence persistence = persistence();
+        Branch branch = new Branch("b1", "Отделение");
+        Visit visit = Visit.builder().id("v1").build();
+
+        persistence.branchChanged("b1", branch);
+        persistence.visitChanged("b1", visit);
+
+        verify(visits).put("b1:v1", visit);
+        verifyNoInteractions(snapshots);
+    }
+
+    @DisplayName("Уплотнение записывает снимок и удаляет записи визитов отделения")
+    @Test
+    void compactWritesSnapshotAndDropsVisitEntries() {
+        BranchDeltaPersistence persistence = persistence();
+        Branch branch = new Branch("b1", "Отделение");
+        persistence.branchChanged("b1", branch);
+        persistence.visitChanged("b1", Visit.builder().id("v1").build());
+
+        persistence.compact();
+        persistence.compact();
+
+        verify(snapshots, times(1)).put("b1", branch);
+        verify(visits).invalidate("b1:v1");
+    }
+
+    @DisplayName("Удаление отделения очищает снимок и записи визитов")
+    @Test
+    void branchDeletionInvalidatesEntries() {
+        BranchDeltaPersistence persistence = persistence();
+        persistence.branchChanged("b1", new Branch("b1", "Отделение"));
+        persistence.visitChanged("b1", Visit.builder().id("v1").build());
+
+        persistence.branchDeleted("b1");
+        persistence.compact();
+
+        verify(snapshots).invalidate("b1");
+        verify(visits).invalidate("b1:v1");
+        verify(snapshots, never()).put(any(), any());
+    }
+
+    @DisplayName("Без настроенных кэшей сохранение состояния ничего не делает")
+    @Test
+    void missingCachesAreSkipped() {
+        BranchDeltaPersistence persistence = new BranchDeltaPersistence();
+        persistence.branchChanged("b1", new Branch("b1", "Отделение"));
+
+        assertDoesNotThrow(() -> persistence.visitChanged("b1", Visit.builder().id("v1").build()));
+        assertDoesNotThrow(persistence::compact);
+    }
+}
@@ -0,0 +1,97 @@
+package ru.aritmos.service;
+
+import static org.mockito.Mockito.*;
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import io.micronaut.serde.ObjectMapper;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import ru.aritmos.model.Branch;
+import ru.aritmos.model.Queue;
+import ru.aritmos.model.ServicePoint;
+import ru.aritmos.model.visit.Visit;
+
+/** Тесты для {@link BranchJournal}. */
+class BranchJournalTest {
+
+    @TempDir Path directory;
+
+    private BranchJournal journal() {
+        BranchJournal journal = new BranchJournal();
+        journal.properties.setEnabled(true);
+        journal.properties.setDirectory(directory.toString());
+        journal.objectMapper = ObjectMapper.getDefault();
+        return journal;
+    }
+
+    private static Branch branch() {
+        Branch branch = new Branch("b1", "Отделение");
+        branch.getQueues().put("q1", new Queue("q1", "Очередь", "A", 10));
+        branch.getServicePoints().put("sp1", new ServicePoint("sp1", "Окно 1"));
+        return branch;
+    }
+
+    @DisplayName("Состояние отделения восстанавливается из снимка и журнала изменений визитов")
+    @Test
+    void restoresSnapshotAndReplaysVisitChanges() throws Exception {
+        BranchJournal journal = journal();
+        Branch branch = branch();
+        journal.snapshot("b1", branch);
+        Visit first = Visit.builder().id("v1").ticket("A001").queueId("q1").build();
+        Visit second = Visit.builder().id("v2").ticket("A002").queueId("q1").build();
+        journal.visitChanged("b1", first);
+        journal.visitChanged("b1", second);
+        first.setQueueId(null);
+        first.setServicePointId("sp1");
+        journal.visitChanged("b1", first);
+        journal.close();
+        Path journalFile = directory.resolve("b1" + BranchJournal.JOURNAL_SUFFIX);
+        Files.writeString(journalFile, "{\"id\":\"v3\",", StandardOpenOption.APPEND);
+
+        BranchService branchService = mock(BranchService.class);
+        branchService.branches = new BranchStateStore();
+        int replayed = journal().restore(branchService);
+
+        ArgumentCaptor<Branch> restored = ArgumentCaptor.forClass(Branch.class);
+        verify(branchService).add(eq("b1"), restored.capture());
+        assertEquals(3, replayed);
+        assertEquals(1, restored.getValue().getQueues().get("q1").getVisits().size());
+        assertEquals("v2", restored.getValue().getQueues().get("q1").getVisits().get(0).getId());
+        assertEquals("v1", restored.getValue().getServicePoints().get("sp1").getVisit().getId());
+    }
+
+    @DisplayName("Снимок отделения очищает журнал, удаление отделения удаляет его файлы")
+    @Test
+    void snapshotTruncatesJournalAndDeleteRemovesFiles() {
+        BranchJournal journal = journal();
+        Path journalFile = directory.resolve("b1" + BranchJournal.JOURNAL_SUFFIX);
+        Path snapshotFile = directory.resolve("b1" + BranchJournal.SNAPSHOT_SUFFIX);
+
+        journal.visitChanged("b1", Visit.builder().id("v1").queueId("q1").build());
+        assertTrue(Files.exists(journalFile));
+        journal.snapshot("b1", branch());
+        assertFalse(Files.exists(journalFile));
+        assertTrue(Files.exists(snapshotFile));
+
+        journal.branchDeleted("b1");
+        assertFalse(Files.exists(snapshotFile));
+    }
+
+    @DisplayName("Выключенный журнал не создаёт файлов")
+    @Test
+    void disabledJournalWritesNothing() throws Exception {
+        BranchJournal journal = journal();
+        journal.properties.setEnabled(false);
+
+        journal.visitChanged("b1", Visit.builder().id("v1").queueId("q1").build());
+
+        try (var files = Files.list(directory)) {
+            assertEquals(0L, files.count());
+        }
+    }
+}
@@ -4,10 +4,13 @@ import static org.mockito.Mockito.*;
 import static ru.aritmos.test.LoggingAssertions.*;
 
 import io.micronaut.http.exceptions.HttpStatusException;
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -28,7 +31,9 @@ import ru.aritmos.model.ServicePoint;
 import ru.aritmos.model.User;
 import ru.aritmos.model.WorkProfile;
 import ru.aritmos.model.visit.Visit;
+import ru.aritmos.model.visit.VisitDelta;
 import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.test.TestLoggingExtension;
 
 /**
@@ -146,7 +151,7 @@ class BranchServiceTest {
         // действие и проверки
         assertTrue(service.branchExists("b1"));
         assertFalse(service.branchExists("b2"));
-        verify(eventService).send(eq("*"), eq(false), any());
+        verify(eventService, never()).send(anyString(), anyBoolean(), any(Event.class));
     }
 
     /**
@@ -222,6 +227,108 @@ class BranchServiceTest {
             .sendChangedEvent(eq("config"), eq(true), isNull(), eq(branch), anyMap(), eq("BRANCH_CREATED"));
     }
 
+    /**
+     * Находит рабочее место сотрудника по индексу и восстанавливает устаревшую запись индекса.
+     */
+    @DisplayName("Поиск точки обслуживания сотрудника использует индекс рабочих мест")
+    @Test
+    void findUserServicePointUsesIndex() {
+        // подготовка
+        BranchService service = new BranchService();
+        service.eventService = mock(EventService.class);
+        service.keyCloackClient = mock(KeyCloackClient.class);
+        Branch branch = new Branch("b1", "Branch");
+        ServicePoint sp1 = new ServicePoint("sp1", "SP1");
+        ServicePoint sp2 = new ServicePoint("sp2", "SP2");
+        User user = new User("id", "u1", null);
+        sp1.setUser(user);
+        branch.getServicePoints().put("sp1", sp1);
+        branch.getServicePoints().put("sp2", sp2);
+
+        // действие
+        service.add("b1", branch);
+
+        // проверки
+        assertEquals(
+            Optional.of(new UserServicePointIndex.Location("b1", "sp1")),
+            service.userIndex.get("u1"));
+        assertSame(sp1, service.findUserServicePoint("u1").orElseThrow());
+        assertTrue(service.findUserServicePoint("u2").isEmpty());
+
+        // сотрудник пересел без обновления индекса - запись исправляется при поиске
+        sp1.setUser(null);
+        sp2.setUser(user);
+        assertSame(sp2, service.findUserServicePoint("u1").orElseThrow());
+        assertEquals(
+            Optional.of(new UserServicePointIndex.Location("b1", "sp2")),
+            service.userIndex.get("u1"));
+
+        // сотрудника нет в индексе - отделения не просматриваются
+        User other = new User("id2", "u3", null);
+        sp1.setUser(other);
+        assertTrue(service.findUserServicePoint("u3").isEmpty());
+    }
+
+    /**
+     * Выдаёт номер талона без сохранения всего отделения.
+     */
+    @DisplayName("Инкремент счётчика талонов не сохраняет отделение целиком")
+    @Test
+    void incrementTicketCounterDoesNotRewriteBranch() {
+        // подготовка
+        BranchService service = spy(new BranchService());
+        service.eventService = mock(EventService.class);
+        service.keyCloackClient = mock(KeyCloackClient.class);
+        Branch branch = new Branch("b1", "Branch");
+        Queue queue = new Queue("q1", "Queue", "A", 1);
+        queue.setTicketCounter(5);
+        branch.getQueues().put("q1", queue);
+        service.branches.put("b1", branch);
+
+        // действие
+        Integer first = service.incrementTicketCounter("b1", queue);
+        Integer second = service.incrementTicketCounter("b1", queue);
+        Integer foreign = service.incrementTicketCounter("b1", new Queue("q9", "Queue", "Z", 1));
+
+        // проверки
+        assertEquals(6, first);
+        assertEquals(7, second);
+        assertEquals(-1, foreign);
+        assertEquals(7, queue.getTicketCounter());
+        verify(service, never()).add(anyString(), any());
+    }
+
+    /**
+     * Перезапускает нумерацию талонов после удаления отделения и изменения счётчика конфигурацией.
+     */
+    @DisplayName("Нумерация талонов перезапускается со счётчика конфигурации")
+    @Test
+    void ticketNumbersRestartAfterDeleteAndReconfiguration() {
+        BranchService service = new BranchService();
+        service.eventService = mock(EventService.class);
+        service.keyCloackClient = mock(KeyCloackClient.class);
+        service.add("b1", branchWithCounter(0));
+        assertEquals(1, service.incrementTicketCounter("b1", new Queue("q1", "Queue", "A", 1)));
+        assertEquals(2, service.incrementTicketCounter("b1", new Queue("q1", "Queue", "A", 1)));
+
+        service.delete("b1", mock(VisitService.class));
+        service.add("b1", branchWithCounter(10));
+
+        assertEquals(11, service.incrementTicketCounter("b1", new Queue("q1", "Queue", "A", 1)));
+
+        service.add("b1", branchWithCounter(100));
+
+        assertEquals(101, service.incrementTicketCounter("b1", new Queue("q1", "Queue", "A", 1)));
+    }
+
+    private static Branch branchWithCounter(int ticketCounter) {
+        Branch branch = new Branch("b1", "Branch");
+        Queue queue = new Queue("q1", "Queue", "A", 1);
+        queue.setTicketCounter(ticketCounter);
+        branch.getQueues().put("q1", queue);
+        return branch;
+    }
+
     /**
      * Меняет рабочий профиль пользователя на точке обслуживания.
      */
@@ -364,6 +471,56 @@ class BranchServiceTest {
         assertFalse(service.branches.containsKey("b1"));
     }
 
+    /**
+     * Публикует новую версию отделения с переносом визитов и сотрудников.
+     */
+    @DisplayName("Повторная публикация отделения сохраняет визиты и сотрудников сохранившихся точек")
+    @Test
+    void republishKeepsLiveStateOfRemainingEntities() {
+        BranchService service = spy(new BranchService());
+        service.eventService = mock(EventService.class);
+        service.keyCloackClient = mock(KeyCloackClient.class);
+        VisitService visitService = mock(VisitService.class);
+        Branch branch = new Branch("b1", "Старый");
+        Queue queue = new Queue("q1", "Очередь", "A", 10);
+        queue.setTicketCounter(7);
+        queue.getVisits().add(Visit.builder().id("v1").queueId("q1").build());
+        branch.getQueues().put("q1", queue);
+        ServicePoint kept = new ServicePoint("sp1", "Окно 1");
+        kept.setUser(new User("u1", "Сотрудник 1", null));
+        kept.setVisit(Visit.builder().id("v2").servicePointId("sp1").build());
+        branch.getServicePoints().put("sp1", kept);
+        ServicePoint removed = new ServicePoint("sp2", "Окно 2");
+        removed.setUser(new User("u2", "Сотрудник 2", null));
+        branch.getServicePoints().put("sp2", removed);
+        service.branches.put("b1", branch);
+        doNothing()
+            .when(service)
+            .closeServicePoint(
+                anyString(), anyString(), any(), anyBoolean(), anyBoolean(), anyString(), anyBoolean(), anyString());
+
+        Branch updated = new Branch("b1", "Новый");
+        updated.getQueues().put("q1", new Queue("q1", "Очередь", "A", 10));
+        updated.getQueues().put("q2", new Queue("q2", "Новая очередь", "B", 10));
+        updated.getServicePoints().put("sp1", new ServicePoint("sp1", "Окно 1"));
+        BranchConfigurationDiff diff = service.republish("b1", updated, visitService);
+
+        assertSame(updated, service.branches.get("b1"));
+        assertEquals(Set.of("q2"), diff.addedQueues());
+        assertEquals(Set.of("sp2"), diff.removedServicePoints());
+        assertEquals("v1", updated.getQueues().get("q1").getVisits().get(0).getId());
+        assertEquals(7, updated.getQueues().get("q1").getTicketCounter());
+        assertEquals("u1", updated.getServicePoints().get("sp1").getUser().getId());
+        assertEquals("v2", updated.getServicePoints().get("sp1").getVisit().getId());
+        verify(service)
+            .closeServicePoint(
+                eq("b1"), eq("sp2"), eq(visitService), eq(true), eq(false), eq(""), eq(true),
+                eq("BRANCH_PUBLIC"));
+        verify(service, never())
+            .closeServicePoint(
+                anyString(), eq("sp1"), any(), anyBoolean(), anyBoolean(), anyString(), anyBoolean(), anyString());
+    }
+
     /**
      * Бросает исключение при попытке удалить неизвестное отделение.
      */
@@ -535,14 +692,16 @@ class BranchServiceTest {
         Branch branch = spy(new Branch("b1", "Branch"));
         doNothing()
             .when(branch)
-            .updateVisit(any(Visit.class), any(), any(VisitEvent.class), any(VisitService.class));
+            .updateVisit(any(Visit.class), any(), any(VisitTransition.class), any(VisitService.class));
         service.branches.put("b1", branch);
         Visit visit = Visit.builder().id("v1").branchId("b1").build();
         VisitService visitService = mock(VisitService.class);
 
-        service.updateVisit(visit, VisitEvent.CREATED, visitService);
+        VisitTransition transition = VisitTransition.of(VisitEvent.CREATED);
+
+        service.updateVisit(visit, transition, visitService);
 
-        verify(branch).updateVisit(visit, service.eventService, VisitEvent.CREATED, visitService);
+        verify(branch).updateVisit(visit, service.eventService, transition, visitService);
         verify(service).getBranch("b1");
     }
 
@@ -558,15 +717,17 @@ class BranchServiceTest {
         Branch branch = spy(new Branch("b1", "Branch"));
         doNothing()
             .when(branch)
-            .updateVisit(any(Visit.class), any(), any(VisitEvent.class), any(VisitService.class), anyBoolean());
+            .updateVisit(any(Visit.class), any(), any(VisitTransition.class), any(VisitService.class), anyBoolean());
         service.branches.put("b1", branch);
         Visit visit = Visit.builder().id("v1").branchId("b1").build();
         VisitService visitService = mock(VisitService.class);
 
-        service.updateVisit(visit, VisitEvent.CALLED, visitService, true);
+        VisitTransition transition = VisitTransition.of(VisitEvent.CALLED);
+
+        service.updateVisit(visit, transition, visitService, true);
 
         verify(branch)
-            .updateVisit(visit, service.eventService, VisitEvent.CALLED, visitService, true);
+            .updateVisit(visit, service.eventService, transition, visitService, true);
         verify(service).getBranch("b1");
     }
 
@@ -582,15 +743,17 @@ class BranchServiceTest {
         Branch branch = spy(new Branch("b1", "Branch"));
         doNothing()
             .when(branch)
-            .updateVisit(any(Visit.class), any(), any(VisitEvent.class), any(VisitService.class), anyInt());
+            .updateVisit(any(Visit.class), any(), any(VisitTransition.class), any(VisitService.class), anyInt());
         service.branches.put("b1", branch);
         Visit visit = Visit.builder().id("v1").branchId("b1").build();
         VisitService visitService = mock(VisitService.class);
 
-        service.updateVisit(visit, VisitEvent.START_SERVING, visitService, 2);
+        VisitTransition transition = VisitTransition.of(VisitEvent.START_SERVING);
+
+        service.updateVisit(visit, transition, visitService, 2);
 
         verify(branch)
-            .updateVisit(visit, service.eventService, VisitEvent.START_SERVING, visitService, 2);
+            .updateVisit(visit, service.eventService, transition, visitService, 2);
         verify(service).getBranch("b1");
     }
 
@@ -1072,6 +1235,47 @@ class BranchServiceTest {
 
         verify(branch)
             .deleteServices(serviceIds, service.eventService, true, visitService);
+        verify(service).add("b1", branch);
+    }
+
+    /**
+     * Публикует в поток изменений визиты, изменённые удалением услуги.
+     */
+    @DisplayName("Изменение визитов удалением услуги попадает в поток изменений визитов")
+    @Test
+    void deleteServicesPublishesVisitDeltas() {
+        BranchService service = new BranchService();
+        service.eventService = mock(EventService.class);
+        service.keyCloackClient = mock(KeyCloackClient.class);
+        VisitService visitService = mock(VisitService.class);
+        when(visitService.getBranchService()).thenReturn(service);
+        Branch branch = new Branch("b1", "Branch");
+        branch.getQueues().put("q1", new Queue("q1", "Queue", "A", 1));
+        Service deleted = new Service("s1", "Service", 1, "q1");
+        branch.getServices().put("s1", deleted);
+        Visit visit =
+            Visit.builder()
+                .id("v1")
+                .branchId("b1")
+                .queueId("q1")
+                .currentService(deleted.clone())
+                .unservedServices(new ArrayList<>())
+                .servedServices(new ArrayList<>())
+                .build();
+        branch.getQueues().get("q1").getVisits().add(visit);
+        service.add("b1", branch);
+        service.visitDeltaStream.visitChanged("b1", visit);
+
+        service.deleteServices("b1", List.of("s1"), true, visitService);
+
+        VisitDelta delta =
+            service
+                .visitDeltaStream
+                .subscribe("b1", 1L, null, null)
+                .blockFirst(Duration.ofSeconds(5));
+        assertEquals(VisitDelta.Type.REMOVED, delta.type());
+        assertEquals("v1", delta.visitId());
+        assertTrue(branch.getQueues().get("q1").getVisits().isEmpty());
     }
 
     /**
@@ -0,0 +1,126 @@
+package ru.aritmos.service;
+
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.aritmos.model.Branch;
+
+/**
+ * Тесты для {@link BranchStateStore}.
+ */
+class BranchStateStoreTest {
+
+    @DisplayName("Хранилище возвращает сохранённое отделение и удаляет его")
+    @Test
+    void putGetAndRemoveBranch() {
+        BranchStateStore store = new BranchStateStore();
+        Branch branch = new Branch("b1", "Отделение");
+
+        store.put("b1", branch);
+
+        assertTrue(store.containsKey("b1"));
+        assertSame(branch, store.get("b1"));
+        assertEquals(1, store.size());
+        assertSame(branch, store.remove("b1"));
+        assertFalse(store.containsKey("b1"));
+        assertNull(store.get(null));
+    }
+
+    @DisplayName("Изменения одного отделения выполняются последовательно")
+    @Test
+    void sameBranchMutationsAreSerialized() throws Exception {
+        BranchStateStore store = new BranchStateStore();
+        int[] counter = {0};
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    for (int j = 0; j < 1000; j++) {
+                                        store.runWithLock("b1", () -> counter[0]++);
+                                    }
+                                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(8000, counter[0]);
+    }
+
+    @DisplayName("Изменения разных отделений не блокируют друг друга")
+    @Test
+    void differentBranchesDoNotBlockEachOther() throws Exception {
+        BranchStateStore store = new BranchStateStore();
+        CountDownLatch firstLocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder =
+                    executor.submit(
+                            () ->
+                                    store.runWithLock(
+                                            "b1",
+                                            () -> {
+                                                firstLocked.countDown();
+                                                try {
+                                                    release.await(10, TimeUnit.SECONDS);
+                                                } catch (InterruptedException e) {
+                                                    Thread.currentThread().interrupt();
+                                                }
+                                            }));
+            assertTrue(firstLocked.await(10, TimeUnit.SECONDS));
+
+            assertFalse(store.lockOf("b2").isLocked());
+            assertEquals("done", store.withLock("b2", () -> "done"));
+            assertTrue(store.lockOf("b1").isLocked());
+
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @DisplayName("Блокировка отделения допускает вложенный захват тем же потоком")
+    @Test
+    void lockIsReentrant() {
+        BranchStateStore store = new BranchStateStore();
+
+        String result = store.withLock("b1", () -> store.withLock("b1", () -> "nested"));
+
+        assertEquals("nested", result);
+        assertFalse(store.lockOf("b1").isLocked());
+    }
+
+    @DisplayName("Версия отделения растёт при сохранении, изменении под блокировкой и удалении")
+    @Test
+    void versionGrowsOnEveryChange() {
+        BranchStateStore store = new BranchStateStore();
+        assertEquals(0L, store.version("b1"));
+
+        store.put("b1", new Branch("b1", "Отделение"));
+        long saved = store.version("b1");
+        store.runWithLock("b1", () -> {});
+        long changed = store.version("b1");
+        store.remove("b1");
+
+        assertTrue(saved > 0);
+        assertTrue(changed > saved);
+        assertTrue(store.version("b1") > changed);
+        assertEquals(0L, store.version(null));
+    }
+}
@@ -4,7 +4,11 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static ru.aritmos.test.LoggingAssertions.*;
 
+import io.micronaut.serde.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -59,6 +63,35 @@ class ConfigurationTest {
         assertEquals(branches, result);
     }
 
+    /**
+     * Проверяет публикацию существующего отделения без его удаления.
+     */
+    @DisplayName("Публикация существующего отделения заменяет версию без удаления отделения")
+    @Test
+    void createBranchConfigurationRepublishesExistingBranch() {
+        Configuration configuration = new Configuration();
+        configuration.branchService = mock(BranchService.class);
+        configuration.keyCloackClient = mock(KeyCloackClient.class);
+        configuration.visitService = mock(VisitService.class);
+        configuration.eventService = mock(EventService.class);
+        Branch branch = new Branch("b1", "Филиал");
+        when(configuration.branchService.branchExists("b1")).thenReturn(true);
+        when(configuration.branchService.republish("b1", branch, configuration.visitService))
+            .thenReturn(BranchConfigurationDiff.of(new Branch("b1", "Филиал"), branch));
+
+        configuration.createBranchConfiguration(Map.of("b1", branch));
+
+        verify(configuration.branchService).republish("b1", branch, configuration.visitService);
+        verify(configuration.branchService, never()).delete(anyString(), any());
+        verify(configuration.branchService, never()).add(anyString(), any());
+        verify(configuration.eventService)
+            .send(
+                eq("stat"),
+                eq(false),
+                argThat((Event e) -> e.getEventType().equals("BRANCH_PUBLIC_COMPLETE")
+                    && e.getParams().containsKey("durationMs")));
+    }
+
     /**
      * Проверяет откат публикации при ошибке.
      */
@@ -99,6 +132,52 @@ class ConfigurationTest {
             .send(eq("stat"), eq(false), argThat((Event e) -> e.getEventType().equals("ROLLBACK_COMPLETE")));
     }
 
+    /**
+     * Проверяет, что откат выполняется после завершения публикации всех отделений и использует копию
+     * предыдущей версии.
+     */
+    @DisplayName("Откат выполняется после публикации всех отделений по копии предыдущей версии")
+    @Test
+    void rollbackWaitsForAllBranchesAndUsesSnapshot() {
+        Configuration configuration = new Configuration();
+        configuration.branchService = mock(BranchService.class);
+        configuration.keyCloackClient = mock(KeyCloackClient.class);
+        configuration.visitService = mock(VisitService.class);
+        configuration.eventService = mock(EventService.class);
+        configuration.objectMapper = ObjectMapper.getDefault();
+
+        Branch published = new Branch("b1", "Опубликованный");
+        Branch newVersion = new Branch("b1", "Новый");
+        when(configuration.branchService.getDetailedBranches())
+            .thenReturn(new HashMap<>(Map.of("b1", published)));
+        when(configuration.branchService.branchExists("b1")).thenReturn(true);
+        when(configuration.branchService.branchExists("b2")).thenReturn(false);
+        List<Branch> republished = Collections.synchronizedList(new ArrayList<>());
+        when(configuration.branchService.republish(eq("b1"), any(), eq(configuration.visitService)))
+            .thenAnswer(invocation -> {
+                Branch version = invocation.getArgument(1);
+                if (version == newVersion) {
+                    Thread.sleep(300);
+                    // замена версии изменяет живую модель
+                    published.setName("Изменённый");
+                }
+                republished.add(version);
+                return BranchConfigurationDiff.of(published, version);
+            });
+        doThrow(new RuntimeException("boom")).when(configuration.branchService).add(eq("b2"), any());
+
+        configuration.createBranchConfiguration(
+            Map.of("b1", newVersion, "b2", new Branch("b2", "Ошибочный")));
+
+        assertEquals(2, republished.size());
+        assertSame(newVersion, republished.get(0));
+        Branch rolledBack = republished.get(1);
+        assertNotSame(published, rolledBack);
+        assertEquals("Опубликованный", rolledBack.getName());
+        verify(configuration.eventService)
+            .send(eq("stat"), eq(false), argThat((Event e) -> e.getEventType().equals("ROLLBACK_COMPLETE")));
+    }
+
 
     /**
      * Создаёт демонстрационное отделение с заполненными данными.
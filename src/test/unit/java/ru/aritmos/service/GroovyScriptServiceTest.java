@@ -4,6 +4,7 @@ import static ru.aritmos.test.LoggingAssertions.*;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import ru.aritmos.model.Branch;
 import ru.aritmos.model.GroovyScript;
 
 /** Unit tests for {@link GroovyScriptService}. */
@@ -31,4 +32,57 @@ class GroovyScriptServiceTest {
 
     assertThrows(RuntimeException.class, () -> service.Execute(script));
   }
+
+  @DisplayName("Повторное выполнение правила использует скомпилированный класс и новую привязку")
+  @Test
+  void reusesCompiledClassWithFreshBinding() {
+    GroovyScriptService service = new GroovyScriptService();
+    GroovyScript first = GroovyScript.builder().ruleCode("if (x > 1) { y = x }").build();
+    first.getInputParameters().put("x", 2);
+    GroovyScript second = GroovyScript.builder().ruleCode("if (x > 1) { y = x }").build();
+    second.getInputParameters().put("x", 1);
+
+    service.Execute("rule1", first);
+    service.Execute("rule1", second);
+
+    assertEquals(2, first.getOutputParameters().get("y"));
+    assertFalse(second.getOutputParameters().containsKey("y"));
+    assertEquals(1L, service.getMisses());
+    assertEquals(1L, service.getHits());
+    assertEquals(1L, service.size());
+  }
+
+  @DisplayName("Изменение кода правила отделения удаляет прежний скомпилированный класс")
+  @Test
+  void invalidatesChangedBranchRules() {
+    GroovyScriptService service = new GroovyScriptService();
+    Branch oldBranch = new Branch("b1", "Отделение");
+    oldBranch.getCustomSegmentationRules().put("rule1", GroovyScript.builder().ruleCode("a = 1").build());
+    oldBranch.getCustomCallRules().put("call1", GroovyScript.builder().ruleCode("b = 1").build());
+    service.Execute("rule1", oldBranch.getCustomSegmentationRules().get("rule1"));
+    service.Execute("call1", oldBranch.getCustomCallRules().get("call1"));
+    Branch newBranch = new Branch("b1", "Отделение");
+    newBranch.getCustomSegmentationRules().put("rule1", GroovyScript.builder().ruleCode("a = 2").build());
+    newBranch.getCustomCallRules().put("call1", GroovyScript.builder().ruleCode("b = 1").build());
+
+    service.invalidateChangedRules(oldBranch, newBranch);
+
+    assertEquals(1L, service.size());
+    service.invalidateChangedRules(newBranch, null);
+    assertEquals(0L, service.size());
+  }
+
+  @DisplayName("Количество скомпилированных классов ограничено размером кэша")
+  @Test
+  void boundsCompiledClasses() {
+    GroovyScriptService service = new GroovyScriptService();
+    service.maximumSize = 2;
+
+    for (int i = 0; i < 5; i++) {
+      service.Execute("rule" + i, GroovyScript.builder().ruleCode("a = " + i).build());
+    }
+
+    assertTrue(service.size() <= 2);
+    assertEquals(5L, service.getMisses());
+  }
 }
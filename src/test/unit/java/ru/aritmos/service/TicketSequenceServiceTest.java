@@ -0,0 +1,114 @@
+package ru.aritmos.service;
+
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.aritmos.model.Queue;
+
+/** Тесты для {@link TicketSequenceService}. */
+class TicketSequenceServiceTest {
+
+    @TempDir Path directory;
+
+    private TicketSequenceService durableService() {
+        TicketSequenceService service = new TicketSequenceService();
+        service.properties.setDurable(true);
+        service.properties.setDirectory(directory.toString());
+        service.properties.setBlockSize(10);
+        return service;
+    }
+
+    @DisplayName("Параллельная выдача номеров не повторяет номера")
+    @Test
+    void concurrentNumbersAreUnique() throws Exception {
+        TicketSequenceService service = new TicketSequenceService();
+        Queue queue = new Queue("q1", "Очередь", "A", 10);
+        Set<Integer> numbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> numbers.add(service.next("b1", queue)));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1000, numbers.size());
+        assertEquals(1001, service.next("b1", queue));
+    }
+
+    @DisplayName("После перезапуска нумерация продолжается с границы зарезервированного блока")
+    @Test
+    void restartContinuesAfterReservedBlock() throws Exception {
+        Queue queue = new Queue("q1", "Очередь", "A", 10);
+        TicketSequenceService first = durableService();
+        for (int i = 0; i < 12; i++) {
+            first.next("b1", queue);
+        }
+        Path file = directory.resolve("b1").resolve("q1" + TicketSequenceService.SEQUENCE_SUFFIX);
+        assertTrue(Files.readString(file).endsWith(" 20"));
+
+        TicketSequenceService restarted = durableService();
+
+        assertEquals(21, restarted.next("b1", new Queue("q1", "Очередь", "A", 10)));
+    }
+
+    @DisplayName("Нумерация сбрасывается с наступлением нового дня")
+    @Test
+    void dailyResetStartsNewNumbering() {
+        TicketSequenceService service = durableService();
+        service.properties.setDailyReset(true);
+        service.clock = Clock.fixed(Instant.parse("2026-10-18T10:00:00Z"), ZoneOffset.UTC);
+        Queue queue = new Queue("q1", "Очередь", "A", 10);
+        queue.setTicketCounter(41);
+        assertEquals(42, service.next("b1", queue));
+
+        service.clock = Clock.fixed(Instant.parse("2026-10-19T08:00:00Z"), ZoneOffset.UTC);
+
+        assertEquals(1, service.next("b1", queue));
+        assertEquals(2, service.next("b1", queue));
+    }
+
+    @DisplayName("Удаление отделения сбрасывает счётчики и резерв, конфигурация задаёт начало")
+    @Test
+    void branchDeletedAndReseedRestartNumbering() {
+        TicketSequenceService service = durableService();
+        Queue queue = new Queue("q1", "Очередь", "A", 10);
+        for (int i = 0; i < 12; i++) {
+            service.next("b1", queue);
+        }
+        Path file = directory.resolve("b1").resolve("q1" + TicketSequenceService.SEQUENCE_SUFFIX);
+        assertTrue(Files.exists(file));
+
+        service.branchDeleted("b1");
+
+        assertFalse(Files.exists(file));
+        assertEquals(1, service.next("b1", new Queue("q1", "Очередь", "A", 10)));
+
+        Queue reconfigured = new Queue("q1", "Очередь", "A", 10);
+        reconfigured.setTicketCounter(500);
+        service.reseed("b1", reconfigured);
+
+        assertEquals(501, service.next("b1", reconfigured));
+    }
+
+    @DisplayName("Номер талона формируется по формату очереди")
+    @Test
+    void formatUsesQueueSpecificFormat() {
+        TicketSequenceService service = new TicketSequenceService();
+        service.properties.getQueueFormats().put("q2", "%04d");
+
+        assertEquals("A007", service.format(new Queue("q1", "Очередь", "A", 10), 7));
+        assertEquals("B0007", service.format(new Queue("q2", "Очередь", "B", 10), 7));
+    }
+}
@@ -0,0 +1,124 @@
+package ru.aritmos.service;
+
+import static ru.aritmos.test.LoggingAssertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.aritmos.model.visit.Visit;
+import ru.aritmos.model.visit.VisitDelta;
+
+/** Тесты для {@link VisitDeltaStream}. */
+class VisitDeltaStreamTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @DisplayName("Изменения визита нумеруются и классифицируются по размещению и статусу")
+    @Test
+    void classifiesVisitChanges() {
+        VisitDeltaStream stream = new VisitDeltaStream();
+        Visit visit = visit("q1", null, "WAITING");
+
+        stream.visitChanged("b1", visit);
+        visit.setStatus("WAITING_AGAIN");
+        stream.visitChanged("b1", visit);
+        visit.setQueueId(null);
+        visit.setServicePointId("sp1");
+        visit.setStatus("CALLED");
+        stream.visitChanged("b1", visit);
+        visit.setServicePointId(null);
+        stream.visitChanged("b1", visit);
+
+        List<VisitDelta> deltas =
+                stream.subscribe("b1", 0L, null, null).take(4).collectList().block(TIMEOUT);
+
+        assertEquals(4, deltas.size());
+        assertEquals(VisitDelta.Type.ADDED, deltas.get(0).type());
+        assertEquals(VisitDelta.Type.STATUS_CHANGED, deltas.get(1).type());
+        assertEquals(VisitDelta.Type.MOVED, deltas.get(2).type());
+        assertEquals("q1", deltas.get(2).previousQueueId());
+        assertEquals("sp1", deltas.get(2).servicePointId());
+        assertEquals(VisitDelta.Type.REMOVED, deltas.get(3).type());
+        assertEquals(4L, deltas.get(3).sequence());
+        assertEquals(4L, stream.sequence("b1"));
+    }
+
+    @DisplayName("Поток возобновляется после указанного номера изменения")
+    @Test
+    void resumesFromSequence() {
+        VisitDeltaStream stream = new VisitDeltaStream();
+        stream.visitChanged("b1", visit("q1", null, "WAITING"));
+        stream.visitChanged("b1", visit("q2", null, "WAITING"));
+        stream.visitChanged("b1", visit("q3", null, "WAITING"));
+
+        List<VisitDelta> deltas =
+                stream.subscribe("b1", 1L, null, null).take(2).collectList().block(TIMEOUT);
+
+        assertEquals(2L, deltas.get(0).sequence());
+        assertEquals(3L, deltas.get(1).sequence());
+    }
+
+    @DisplayName("Запрос недоступных изменений начинается с записи RESYNC")
+    @Test
+    void requestsResyncWhenHistoryIsLost() {
+        VisitDeltaStream stream = new VisitDeltaStream();
+        stream.historySize = 2;
+        for (int i = 0; i < 5; i++) {
+            stream.visitChanged("b1", visit("q" + i, null, "WAITING"));
+        }
+
+        VisitDelta tooOld = stream.subscribe("b1", 1L, null, null).blockFirst(TIMEOUT);
+        VisitDelta afterRestart = stream.subscribe("b1", 42L, null, null).blockFirst(TIMEOUT);
+
+        assertEquals(VisitDelta.Type.RESYNC, tooOld.type());
+        assertEquals(5L, tooOld.sequence());
+        assertEquals(VisitDelta.Type.RESYNC, afterRestart.type());
+    }
+
+    @DisplayName("Замена модели отделения публикует RESYNC и перечитывает размещения визитов")
+    @Test
+    void branchReplacementPublishesResync() {
+        VisitDeltaStream stream = new VisitDeltaStream();
+        Visit visit = visit("q1", null, "WAITING");
+        stream.visitChanged("b1", visit);
+        Visit replaced = visit("q1", null, "WAITING");
+        replaced.setQueueId("q2");
+
+        stream.branchReplaced("b1", List.of(replaced));
+        stream.visitChanged("b1", replaced);
+
+        List<VisitDelta> deltas =
+                stream.subscribe("b1", 0L, null, null).take(3).collectList().block(TIMEOUT);
+        VisitDelta filtered = stream.subscribe("b1", 1L, List.of("q9"), null).blockFirst(TIMEOUT);
+
+        assertEquals(VisitDelta.Type.ADDED, deltas.get(0).type());
+        assertEquals(VisitDelta.Type.RESYNC, deltas.get(1).type());
+        assertEquals(2L, deltas.get(1).sequence());
+        assertEquals(VisitDelta.Type.UPDATED, deltas.get(2).type());
+        assertEquals(VisitDelta.Type.RESYNC, filtered.type());
+    }
+
+    @DisplayName("Клиент получает только изменения запрошенных очередей и точек обслуживания")
+    @Test
+    void filtersByQueuesAndServicePoints() {
+        VisitDelta moved =
+                new VisitDelta(1, "b1", VisitDelta.Type.MOVED, "v1", "A001", "CALLED",
+                        null, "sp1", null, null, "q1", null, null);
+
+        assertTrue(VisitDeltaStream.matches(moved, null, null));
+        assertTrue(VisitDeltaStream.matches(moved, List.of("q1"), null));
+        assertTrue(VisitDeltaStream.matches(moved, null, List.of("sp1")));
+        assertFalse(VisitDeltaStream.matches(moved, List.of("q2"), List.of("sp2")));
+    }
+
+    private static Visit visit(String queueId, String servicePointId, String status) {
+        return Visit.builder()
+                .id(queueId == null ? "v" : "v-" + queueId)
+                .ticket("A001")
+                .queueId(queueId)
+                .servicePointId(servicePointId)
+                .status(status)
+                .build();
+    }
+}
@@ -12,7 +12,7 @@ import ru.aritmos.model.Branch;
 import ru.aritmos.model.Service;
 import ru.aritmos.model.ServicePoint;
 import ru.aritmos.model.visit.Visit;
-import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 
 /** Юнит-тесты для метода {@link VisitService#addService(String, String, String)}. */
 class VisitServiceAddServiceTest {
@@ -39,7 +39,7 @@ class VisitServiceAddServiceTest {
     Visit result = service.addService("b1", "sp1", "s1");
     assertEquals(1, result.getUnservedServices().size());
     assertSame(serviceEntity, result.getUnservedServices().get(0));
-    verify(branchService).updateVisit(eq(visit), any(VisitEvent.class), eq(service));
+    verify(branchService).updateVisit(eq(visit), any(VisitTransition.class), eq(service));
   }
 
   @DisplayName("Выбрасывает исключение, если услуга не найдена")
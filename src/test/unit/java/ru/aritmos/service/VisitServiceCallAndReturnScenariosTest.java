@@ -9,8 +9,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
-import org.junit.jupiter.api.AfterEach;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -26,6 +24,7 @@ import ru.aritmos.model.ServicePoint;
 import ru.aritmos.model.User;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.service.rules.CallRule;
 import ru.aritmos.service.rules.SegmentationRule;
 import ru.aritmos.test.TestLoggingExtension;
@@ -38,21 +37,6 @@ import ru.aritmos.test.TestLoggingExtension;
 @ExtendWith(TestLoggingExtension.class)
 class VisitServiceCallAndReturnScenariosTest {
 
-    private final List<VisitEvent> eventsToReset = List.of(
-            VisitEvent.CALLED,
-            VisitEvent.STOP_SERVING,
-            VisitEvent.BACK_TO_QUEUE);
-
-    @BeforeEach
-    void resetEventsBefore() {
-        resetVisitEvents();
-    }
-
-    @AfterEach
-    void resetEventsAfter() {
-        resetVisitEvents();
-    }
-
     @DisplayName("Вызов визита на подтверждение с максимальным ожиданием обновляет визит и событие")
     @Test
     void visitCallForConfirmWithMaxWaitingTimeUpdatesVisitAndEvent() {
@@ -94,19 +78,19 @@ class VisitServiceCallAndReturnScenariosTest {
         assertFalse(visit.getParameterMap().containsKey("isTransferredToStart"));
         assertNotNull(visit.getCallDateTime());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(service));
-        VisitEvent event = eventCaptor.getValue();
-        assertSame(VisitEvent.CALLED, event);
-        assertEquals(servicePoint.getId(), event.getParameters().get("servicePointId"));
-        assertEquals(servicePoint.getName(), event.getParameters().get("servicePointName"));
-        assertEquals(branch.getId(), event.getParameters().get("branchId"));
-        assertEquals("queue-1", event.getParameters().get("queueId"));
-        assertEquals("pool-sp-1", event.getParameters().get("PoolServicePointId"));
-        assertEquals(operator.getId(), event.getParameters().get("staffId"));
-        assertEquals(operator.getName(), event.getParameters().get("staffName"));
-        assertEquals(operator.getCurrentWorkProfileId(), event.getParameters().get("workProfileId"));
-        assertEquals("callNext", event.getParameters().get("callMethod"));
+        VisitTransition event = eventCaptor.getValue();
+        assertSame(VisitEvent.CALLED, event.event());
+        assertEquals(servicePoint.getId(), event.parameters().get("servicePointId"));
+        assertEquals(servicePoint.getName(), event.parameters().get("servicePointName"));
+        assertEquals(branch.getId(), event.parameters().get("branchId"));
+        assertEquals("queue-1", event.parameters().get("queueId"));
+        assertEquals("pool-sp-1", event.parameters().get("PoolServicePointId"));
+        assertEquals(operator.getId(), event.parameters().get("staffId"));
+        assertEquals(operator.getName(), event.parameters().get("staffName"));
+        assertEquals(operator.getCurrentWorkProfileId(), event.parameters().get("workProfileId"));
+        assertEquals("callNext", event.parameters().get("callMethod"));
     }
 
     @DisplayName("Вызов визита на подтверждение с максимальным временем жизни вызывает правило и обновляет визит")
@@ -146,17 +130,17 @@ class VisitServiceCallAndReturnScenariosTest {
         assertSame(visit, result.get());
         verify(lifeTimeRule).call(same(branch), same(servicePoint));
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(service));
-        VisitEvent event = eventCaptor.getValue();
-        assertSame(VisitEvent.CALLED, event);
-        assertEquals(servicePoint.getId(), event.getParameters().get("servicePointId"));
-        assertEquals(servicePoint.getName(), event.getParameters().get("servicePointName"));
-        assertEquals(branch.getId(), event.getParameters().get("branchId"));
-        assertEquals(operator.getId(), event.getParameters().get("staffId"));
-        assertEquals(operator.getName(), event.getParameters().get("staffName"));
-        assertEquals(operator.getCurrentWorkProfileId(), event.getParameters().get("workProfileId"));
-        assertEquals("callNext", event.getParameters().get("callMethod"));
+        VisitTransition event = eventCaptor.getValue();
+        assertSame(VisitEvent.CALLED, event.event());
+        assertEquals(servicePoint.getId(), event.parameters().get("servicePointId"));
+        assertEquals(servicePoint.getName(), event.parameters().get("servicePointName"));
+        assertEquals(branch.getId(), event.parameters().get("branchId"));
+        assertEquals(operator.getId(), event.parameters().get("staffId"));
+        assertEquals(operator.getName(), event.parameters().get("staffName"));
+        assertEquals(operator.getCurrentWorkProfileId(), event.parameters().get("workProfileId"));
+        assertEquals("callNext", event.parameters().get("callMethod"));
     }
 
     @DisplayName("Вызов визита на подтверждение с ограничением времени и очередями распространяет идентификаторы")
@@ -198,17 +182,17 @@ class VisitServiceCallAndReturnScenariosTest {
         assertSame(visit, result.get());
         verify(lifeTimeRule).call(same(branch), same(servicePoint), eq(queueIds));
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(service));
-        VisitEvent event = eventCaptor.getValue();
-        assertSame(VisitEvent.CALLED, event);
-        assertEquals(servicePoint.getId(), event.getParameters().get("servicePointId"));
-        assertEquals(servicePoint.getName(), event.getParameters().get("servicePointName"));
-        assertEquals(branch.getId(), event.getParameters().get("branchId"));
-        assertEquals(operator.getId(), event.getParameters().get("staffId"));
-        assertEquals(operator.getName(), event.getParameters().get("staffName"));
-        assertEquals(operator.getCurrentWorkProfileId(), event.getParameters().get("workProfileId"));
-        assertEquals("callNext", event.getParameters().get("callMethod"));
+        VisitTransition event = eventCaptor.getValue();
+        assertSame(VisitEvent.CALLED, event.event());
+        assertEquals(servicePoint.getId(), event.parameters().get("servicePointId"));
+        assertEquals(servicePoint.getName(), event.parameters().get("servicePointName"));
+        assertEquals(branch.getId(), event.parameters().get("branchId"));
+        assertEquals(operator.getId(), event.parameters().get("staffId"));
+        assertEquals(operator.getName(), event.parameters().get("staffName"));
+        assertEquals(operator.getCurrentWorkProfileId(), event.parameters().get("workProfileId"));
+        assertEquals("callNext", event.parameters().get("callMethod"));
     }
 
     @DisplayName("Завершение обслуживания и возврат в очередь планируют отложенное обновление")
@@ -256,20 +240,20 @@ class VisitServiceCallAndReturnScenariosTest {
         assertNotNull(visit.getReturnDateTime());
         assertTrue(queue.getVisits().contains(visit));
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService, times(2)).updateVisit(same(visit), eventCaptor.capture(), same(service));
-        List<VisitEvent> events = eventCaptor.getAllValues();
+        List<VisitTransition> events = eventCaptor.getAllValues();
         assertEquals(2, events.size());
-        VisitEvent stopEvent = events.get(0);
-        assertSame(VisitEvent.STOP_SERVING, stopEvent);
-        assertEquals("false", stopEvent.getParameters().get("isForced"));
-        assertEquals(servicePoint.getId(), stopEvent.getParameters().get("servicePointId"));
-        assertEquals(servicePoint.getName(), stopEvent.getParameters().get("servicePointName"));
-        assertEquals(branch.getId(), stopEvent.getParameters().get("branchId"));
-        VisitEvent backEvent = events.get(1);
-        assertSame(VisitEvent.BACK_TO_QUEUE, backEvent);
-        assertEquals(queue.getId(), backEvent.getParameters().get("queueId"));
-        assertEquals(branch.getId(), backEvent.getParameters().get("branchId"));
+        VisitTransition stopEvent = events.get(0);
+        assertSame(VisitEvent.STOP_SERVING, stopEvent.event());
+        assertEquals("false", stopEvent.parameters().get("isForced"));
+        assertEquals(servicePoint.getId(), stopEvent.parameters().get("servicePointId"));
+        assertEquals(servicePoint.getName(), stopEvent.parameters().get("servicePointName"));
+        assertEquals(branch.getId(), stopEvent.parameters().get("branchId"));
+        VisitTransition backEvent = events.get(1);
+        assertSame(VisitEvent.BACK_TO_QUEUE, backEvent.event());
+        assertEquals(queue.getId(), backEvent.parameters().get("queueId"));
+        assertEquals(branch.getId(), backEvent.parameters().get("branchId"));
 
         ArgumentCaptor<Event> delayedEventCaptor = ArgumentCaptor.forClass(Event.class);
         verify(delayedEvents).delayedEventService(
@@ -335,15 +319,15 @@ class VisitServiceCallAndReturnScenariosTest {
         assertNotNull(visit.getReturnDateTime());
         assertTrue(queue.getVisits().contains(visit));
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(service));
-        VisitEvent event = eventCaptor.getValue();
-        assertSame(VisitEvent.BACK_TO_QUEUE, event);
-        assertEquals(branch.getId(), event.getParameters().get("branchId"));
-        assertEquals(queue.getId(), event.getParameters().get("queueId"));
-        assertEquals(servicePoint.getId(), event.getParameters().get("servicePointId"));
-        assertEquals(operator.getId(), event.getParameters().get("staffId"));
-        assertEquals(operator.getName(), event.getParameters().get("staffName"));
+        VisitTransition event = eventCaptor.getValue();
+        assertSame(VisitEvent.BACK_TO_QUEUE, event.event());
+        assertEquals(branch.getId(), event.parameters().get("branchId"));
+        assertEquals(queue.getId(), event.parameters().get("queueId"));
+        assertEquals(servicePoint.getId(), event.parameters().get("servicePointId"));
+        assertEquals(operator.getId(), event.parameters().get("staffId"));
+        assertEquals(operator.getName(), event.parameters().get("staffName"));
     }
 
     private VisitService createVisitService(
@@ -364,10 +348,4 @@ class VisitServiceCallAndReturnScenariosTest {
         return service;
     }
 
-    private void resetVisitEvents() {
-        eventsToReset.forEach(event -> {
-            event.getParameters().clear();
-            event.dateTime = null;
-        });
-    }
 }
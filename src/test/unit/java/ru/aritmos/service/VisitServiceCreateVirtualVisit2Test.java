@@ -20,7 +20,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -36,6 +35,7 @@ import ru.aritmos.model.ServicePoint;
 import ru.aritmos.model.User;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.service.rules.SegmentationRule;
 import ru.aritmos.test.TestLoggingExtension;
 
@@ -45,13 +45,6 @@ import ru.aritmos.test.TestLoggingExtension;
 @ExtendWith(TestLoggingExtension.class)
 class VisitServiceCreateVirtualVisit2Test {
 
-    @BeforeEach
-    void resetVisitEventParameters() {
-        for (VisitEvent event : List.of(VisitEvent.CREATED, VisitEvent.CALLED, VisitEvent.START_SERVING)) {
-            event.getParameters().clear();
-        }
-    }
-
     @DisplayName("Создание виртуального визита формирует запись и запускает обслуживание с сотрудником точки")
     @Test
     void createVirtualVisit2CreatesVisitAndStartsServingWithServicePointStaff() throws SystemException {
@@ -112,32 +105,32 @@ class VisitServiceCreateVirtualVisit2Test {
         assertNotNull(visit.getStartServingDateTime());
         assertEquals(1, queue.getTicketCounter());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService, times(3)).updateVisit(eq(visit), eventCaptor.capture(), eq(service));
-        assertEquals(List.of(VisitEvent.CREATED, VisitEvent.CALLED, VisitEvent.START_SERVING), eventCaptor.getAllValues());
-
-        VisitEvent created = VisitEvent.CREATED;
-        assertEquals("true", created.getParameters().get("isVirtual"));
-        assertEquals("workstation", created.getParameters().get("visitCreator"));
-        assertEquals(primary.getId(), created.getParameters().get("serviceId"));
-        assertEquals(primary.getName(), created.getParameters().get("serviceName"));
-        assertEquals(queue.getId(), created.getParameters().get("queueId"));
-        assertEquals(staff.getId(), created.getParameters().get("staffId"));
-        assertEquals(staff.getName(), created.getParameters().get("staffName"));
-        assertEquals(staff.getCurrentWorkProfileId(), created.getParameters().get("workProfileId"));
-
-        VisitEvent called = VisitEvent.CALLED;
-        assertEquals(queue.getId(), called.getParameters().get("queueId"));
-        assertEquals("virtual", called.getParameters().get("callMethod"));
-        assertEquals(staff.getId(), called.getParameters().get("staffId"));
-        assertEquals(staff.getName(), called.getParameters().get("staffName"));
-
-        VisitEvent startServing = VisitEvent.START_SERVING;
-        assertEquals(queue.getId(), startServing.getParameters().get("queueId"));
-        assertEquals(primary.getId(), startServing.getParameters().get("serviceId"));
-        assertEquals(primary.getName(), startServing.getParameters().get("serviceName"));
-        assertEquals(staff.getId(), startServing.getParameters().get("staffId"));
-        assertEquals(staff.getName(), startServing.getParameters().get("staffName"));
+        assertEquals(List.of(VisitEvent.CREATED, VisitEvent.CALLED, VisitEvent.START_SERVING), eventCaptor.getAllValues().stream().map(VisitTransition::event).toList());
+
+        VisitTransition created = eventCaptor.getAllValues().get(0);
+        assertEquals("true", created.parameters().get("isVirtual"));
+        assertEquals("workstation", created.parameters().get("visitCreator"));
+        assertEquals(primary.getId(), created.parameters().get("serviceId"));
+        assertEquals(primary.getName(), created.parameters().get("serviceName"));
+        assertEquals(queue.getId(), created.parameters().get("queueId"));
+        assertEquals(staff.getId(), created.parameters().get("staffId"));
+        assertEquals(staff.getName(), created.parameters().get("staffName"));
+        assertEquals(staff.getCurrentWorkProfileId(), created.parameters().get("workProfileId"));
+
+        VisitTransition called = eventCaptor.getAllValues().get(1);
+        assertEquals(queue.getId(), called.parameters().get("queueId"));
+        assertEquals("virtual", called.parameters().get("callMethod"));
+        assertEquals(staff.getId(), called.parameters().get("staffId"));
+        assertEquals(staff.getName(), called.parameters().get("staffName"));
+
+        VisitTransition startServing = eventCaptor.getAllValues().get(2);
+        assertEquals(queue.getId(), startServing.parameters().get("queueId"));
+        assertEquals(primary.getId(), startServing.parameters().get("serviceId"));
+        assertEquals(primary.getName(), startServing.parameters().get("serviceName"));
+        assertEquals(staff.getId(), startServing.parameters().get("staffId"));
+        assertEquals(staff.getName(), startServing.parameters().get("staffName"));
     }
 
     @DisplayName("Создание виртуального визита подставляет данные из Keycloak при отсутствии оператора в точке обслуживания")
@@ -196,26 +189,26 @@ class VisitServiceCreateVirtualVisit2Test {
         assertNotNull(visit.getCallDateTime());
         assertNotNull(visit.getStartServingDateTime());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService, times(3)).updateVisit(eq(visit), eventCaptor.capture(), eq(service));
-        assertEquals(List.of(VisitEvent.CREATED, VisitEvent.CALLED, VisitEvent.START_SERVING), eventCaptor.getAllValues());
-
-        VisitEvent created = VisitEvent.CREATED;
-        assertEquals(keycloakUser.getId(), created.getParameters().get("staffId"));
-        assertEquals(keycloakUser.getUsername(), created.getParameters().get("staffName"));
-        assertEquals("", created.getParameters().get("workProfileId"));
-
-        VisitEvent called = VisitEvent.CALLED;
-        assertEquals("", called.getParameters().get("staffId"));
-        assertEquals("", called.getParameters().get("staffName"));
-        assertEquals(queue.getId(), called.getParameters().get("queueId"));
-        assertEquals("virtual", called.getParameters().get("callMethod"));
-
-        VisitEvent startServing = VisitEvent.START_SERVING;
-        assertEquals("", startServing.getParameters().get("staffId"));
-        assertEquals("", startServing.getParameters().get("staffName"));
-        assertEquals(primary.getId(), startServing.getParameters().get("serviceId"));
-        assertEquals(primary.getName(), startServing.getParameters().get("serviceName"));
+        assertEquals(List.of(VisitEvent.CREATED, VisitEvent.CALLED, VisitEvent.START_SERVING), eventCaptor.getAllValues().stream().map(VisitTransition::event).toList());
+
+        VisitTransition created = eventCaptor.getAllValues().get(0);
+        assertEquals(keycloakUser.getId(), created.parameters().get("staffId"));
+        assertEquals(keycloakUser.getUsername(), created.parameters().get("staffName"));
+        assertEquals("", created.parameters().get("workProfileId"));
+
+        VisitTransition called = eventCaptor.getAllValues().get(1);
+        assertEquals("", called.parameters().get("staffId"));
+        assertEquals("", called.parameters().get("staffName"));
+        assertEquals(queue.getId(), called.parameters().get("queueId"));
+        assertEquals("virtual", called.parameters().get("callMethod"));
+
+        VisitTransition startServing = eventCaptor.getAllValues().get(2);
+        assertEquals("", startServing.parameters().get("staffId"));
+        assertEquals("", startServing.parameters().get("staffName"));
+        assertEquals(primary.getId(), startServing.parameters().get("serviceId"));
+        assertEquals(primary.getName(), startServing.parameters().get("serviceName"));
     }
 
     @DisplayName("Создание виртуального визита выбрасывает исключение «не найдено» при отсутствии очереди в отделении")
@@ -260,8 +253,8 @@ class VisitServiceCreateVirtualVisit2Test {
         assertEquals("Queue not found in branch configuration", exception.getMessage());
         assertEquals(3, externalQueue.getTicketCounter());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService, times(2)).updateVisit(any(Visit.class), eventCaptor.capture(), eq(service));
-        assertEquals(List.of(VisitEvent.CREATED, VisitEvent.CALLED), eventCaptor.getAllValues());
+        assertEquals(List.of(VisitEvent.CREATED, VisitEvent.CALLED), eventCaptor.getAllValues().stream().map(VisitTransition::event).toList());
     }
 }
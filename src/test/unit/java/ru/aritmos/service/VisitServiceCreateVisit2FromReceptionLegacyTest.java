@@ -23,6 +23,7 @@ import ru.aritmos.model.Reception;
 import ru.aritmos.model.Service;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.service.rules.SegmentationRule;
 import ru.aritmos.test.TestLoggingExtension;
 
@@ -116,23 +117,23 @@ class VisitServiceCreateVisit2FromReceptionLegacyTest {
         verify(branchService).incrementTicketCounter(branch.getId(), queue);
         verify(keyCloackClient).getUserBySid("sid-1");
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService, times(2)).updateVisit(same(visit), eventCaptor.capture(), same(service));
-        assertEquals(List.of(VisitEvent.CREATED, VisitEvent.PLACED_IN_QUEUE), eventCaptor.getAllValues());
-
-        VisitEvent createdEvent = eventCaptor.getAllValues().get(0);
-        assertEquals("false", createdEvent.getParameters().get("isVirtual"));
-        assertEquals("reception", createdEvent.getParameters().get("visitCreator"));
-        assertEquals("staff-1", createdEvent.getParameters().get("staffId"));
-        assertEquals("i.petrov", createdEvent.getParameters().get("staffName"));
-        assertEquals(primary.getId(), createdEvent.getParameters().get("serviceId"));
-        assertEquals(primary.getName(), createdEvent.getParameters().get("serviceName"));
-        assertEquals("printer-1", createdEvent.getParameters().get("printerId"));
-
-        VisitEvent queueEvent = eventCaptor.getAllValues().get(1);
-        assertEquals(primary.getId(), queueEvent.getParameters().get("serviceId"));
-        assertEquals(primary.getName(), queueEvent.getParameters().get("serviceName"));
-        assertEquals(queue.getId(), queueEvent.getParameters().get("queueId"));
+        assertEquals(List.of(VisitEvent.CREATED, VisitEvent.PLACED_IN_QUEUE), eventCaptor.getAllValues().stream().map(VisitTransition::event).toList());
+
+        VisitTransition createdEvent = eventCaptor.getAllValues().get(0);
+        assertEquals("false", createdEvent.parameters().get("isVirtual"));
+        assertEquals("reception", createdEvent.parameters().get("visitCreator"));
+        assertEquals("staff-1", createdEvent.parameters().get("staffId"));
+        assertEquals("i.petrov", createdEvent.parameters().get("staffName"));
+        assertEquals(primary.getId(), createdEvent.parameters().get("serviceId"));
+        assertEquals(primary.getName(), createdEvent.parameters().get("serviceName"));
+        assertEquals("printer-1", createdEvent.parameters().get("printerId"));
+
+        VisitTransition queueEvent = eventCaptor.getAllValues().get(1);
+        assertEquals(primary.getId(), queueEvent.parameters().get("serviceId"));
+        assertEquals(primary.getName(), queueEvent.parameters().get("serviceName"));
+        assertEquals(queue.getId(), queueEvent.parameters().get("queueId"));
 
         verify(printerService).print("printer-1", visit);
         verifyNoMoreInteractions(printerService);
@@ -204,19 +205,19 @@ class VisitServiceCreateVisit2FromReceptionLegacyTest {
 
         verify(keyCloackClient).getUserBySid("sid-absent");
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService, times(2)).updateVisit(same(visit), eventCaptor.capture(), same(service));
-        assertEquals(List.of(VisitEvent.CREATED, VisitEvent.PLACED_IN_QUEUE), eventCaptor.getAllValues());
+        assertEquals(List.of(VisitEvent.CREATED, VisitEvent.PLACED_IN_QUEUE), eventCaptor.getAllValues().stream().map(VisitTransition::event).toList());
 
-        VisitEvent createdEvent = eventCaptor.getAllValues().get(0);
-        assertEquals("true", createdEvent.getParameters().get("isVirtual"));
-        assertEquals("", createdEvent.getParameters().get("staffId"));
-        assertEquals("", createdEvent.getParameters().get("staffName"));
+        VisitTransition createdEvent = eventCaptor.getAllValues().get(0);
+        assertEquals("true", createdEvent.parameters().get("isVirtual"));
+        assertEquals("", createdEvent.parameters().get("staffId"));
+        assertEquals("", createdEvent.parameters().get("staffName"));
 
-        VisitEvent queueEvent = eventCaptor.getAllValues().get(1);
-        assertEquals(serviceModel.getId(), queueEvent.getParameters().get("serviceId"));
-        assertEquals(serviceModel.getName(), queueEvent.getParameters().get("serviceName"));
-        assertEquals(queue.getId(), queueEvent.getParameters().get("queueId"));
+        VisitTransition queueEvent = eventCaptor.getAllValues().get(1);
+        assertEquals(serviceModel.getId(), queueEvent.parameters().get("serviceId"));
+        assertEquals(serviceModel.getName(), queueEvent.parameters().get("serviceName"));
+        assertEquals(queue.getId(), queueEvent.parameters().get("queueId"));
 
         verify(printerService, never()).print(anyString(), any());
     }
@@ -338,9 +339,9 @@ class VisitServiceCreateVisit2FromReceptionLegacyTest {
 
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService).updateVisit(any(Visit.class), eventCaptor.capture(), same(service));
-        assertEquals(VisitEvent.CREATED, eventCaptor.getValue());
+        assertEquals(VisitEvent.CREATED, eventCaptor.getValue().event());
         verify(branchService).incrementTicketCounter(branch.getId(), returnedQueue);
         verify(printerService, never()).print(anyString(), any());
     }
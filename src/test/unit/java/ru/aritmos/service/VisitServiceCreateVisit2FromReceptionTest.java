@@ -23,6 +23,7 @@ import ru.aritmos.model.Reception;
 import ru.aritmos.model.Service;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.service.rules.SegmentationRule;
 import ru.aritmos.test.TestLoggingExtension;
 
@@ -118,24 +119,24 @@ class VisitServiceCreateVisit2FromReceptionTest {
         verify(branchService).incrementTicketCounter(branch.getId(), queue);
         verify(keyCloackClient).getUserBySid("sid-1");
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService, times(2))
             .updateVisit(same(visit), eventCaptor.capture(), same(service));
-        assertEquals(List.of(VisitEvent.CREATED, VisitEvent.PLACED_IN_QUEUE), eventCaptor.getAllValues());
-
-        VisitEvent createdEvent = eventCaptor.getAllValues().get(0);
-        assertEquals("false", createdEvent.getParameters().get("isVirtual"));
-        assertEquals("reception", createdEvent.getParameters().get("visitCreator"));
-        assertEquals("staff-1", createdEvent.getParameters().get("staffId"));
-        assertEquals("i.petrov", createdEvent.getParameters().get("staffName"));
-        assertEquals(primaryService.getId(), createdEvent.getParameters().get("serviceId"));
-        assertEquals(primaryService.getName(), createdEvent.getParameters().get("serviceName"));
-        assertEquals("printer-1", createdEvent.getParameters().get("printerId"));
-
-        VisitEvent queueEvent = eventCaptor.getAllValues().get(1);
-        assertEquals(primaryService.getId(), queueEvent.getParameters().get("serviceId"));
-        assertEquals(primaryService.getName(), queueEvent.getParameters().get("serviceName"));
-        assertEquals(queue.getId(), queueEvent.getParameters().get("queueId"));
+        assertEquals(List.of(VisitEvent.CREATED, VisitEvent.PLACED_IN_QUEUE), eventCaptor.getAllValues().stream().map(VisitTransition::event).toList());
+
+        VisitTransition createdEvent = eventCaptor.getAllValues().get(0);
+        assertEquals("false", createdEvent.parameters().get("isVirtual"));
+        assertEquals("reception", createdEvent.parameters().get("visitCreator"));
+        assertEquals("staff-1", createdEvent.parameters().get("staffId"));
+        assertEquals("i.petrov", createdEvent.parameters().get("staffName"));
+        assertEquals(primaryService.getId(), createdEvent.parameters().get("serviceId"));
+        assertEquals(primaryService.getName(), createdEvent.parameters().get("serviceName"));
+        assertEquals("printer-1", createdEvent.parameters().get("printerId"));
+
+        VisitTransition queueEvent = eventCaptor.getAllValues().get(1);
+        assertEquals(primaryService.getId(), queueEvent.parameters().get("serviceId"));
+        assertEquals(primaryService.getName(), queueEvent.parameters().get("serviceName"));
+        assertEquals(queue.getId(), queueEvent.parameters().get("queueId"));
 
         verify(printerService).print("printer-1", visit);
         verifyNoMoreInteractions(printerService);
@@ -13,6 +13,12 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -26,6 +32,7 @@ import ru.aritmos.model.Queue;
 import ru.aritmos.model.Service;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.service.rules.SegmentationRule;
 import ru.aritmos.test.TestLoggingExtension;
 
@@ -118,25 +125,25 @@ class VisitServiceCreateVisit2Test {
         assertEquals(Boolean.TRUE, visit.getPrintTicket());
 
         ArgumentCaptor<Visit> visitCaptor = ArgumentCaptor.forClass(Visit.class);
-        verify(segmentationRule, times(2)).getQueue(visitCaptor.capture(), eq(branch));
+        verify(segmentationRule).getQueue(visitCaptor.capture(), eq(branch));
         assertSame(visit, visitCaptor.getAllValues().get(0));
         assertSame(visit, visitCaptor.getAllValues().get(1));
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService, times(2))
-            .updateVisit(same(visit), (VisitEvent) eventCaptor.capture(), same(service));
-        assertEquals(List.of(VisitEvent.CREATED, VisitEvent.PLACED_IN_QUEUE), eventCaptor.getAllValues());
+            .updateVisit(same(visit), eventCaptor.capture(), same(service));
+        assertEquals(List.of(VisitEvent.CREATED, VisitEvent.PLACED_IN_QUEUE), eventCaptor.getAllValues().stream().map(VisitTransition::event).toList());
 
-        VisitEvent createdEvent = eventCaptor.getAllValues().get(0);
-        assertEquals("terminal", createdEvent.getParameters().get("visitCreator"));
-        assertEquals(mainService.getId(), createdEvent.getParameters().get("serviceId"));
-        assertEquals(mainService.getName(), createdEvent.getParameters().get("serviceName"));
-        assertEquals(entryPoint.getPrinter().getId(), createdEvent.getParameters().get("printerId"));
+        VisitTransition createdEvent = eventCaptor.getAllValues().get(0);
+        assertEquals("terminal", createdEvent.parameters().get("visitCreator"));
+        assertEquals(mainService.getId(), createdEvent.parameters().get("serviceId"));
+        assertEquals(mainService.getName(), createdEvent.parameters().get("serviceName"));
+        assertEquals(entryPoint.getPrinter().getId(), createdEvent.parameters().get("printerId"));
 
-        VisitEvent queueEvent = eventCaptor.getAllValues().get(1);
-        assertEquals(mainService.getId(), queueEvent.getParameters().get("serviceId"));
-        assertEquals(mainService.getName(), queueEvent.getParameters().get("serviceName"));
-        assertEquals(queue.getId(), queueEvent.getParameters().get("queueId"));
+        VisitTransition queueEvent = eventCaptor.getAllValues().get(1);
+        assertEquals(mainService.getId(), queueEvent.parameters().get("serviceId"));
+        assertEquals(mainService.getName(), queueEvent.parameters().get("serviceName"));
+        assertEquals(queue.getId(), queueEvent.parameters().get("queueId"));
 
         verify(branchService).incrementTicketCounter(branch.getId(), queue);
         verify(printerService).print(entryPoint.getPrinter().getId(), visit);
@@ -318,7 +325,7 @@ class VisitServiceCreateVisit2Test {
         verifyNoMoreInteractions(eventService);
         verify(branchService, never()).incrementTicketCounter(anyString(), any());
         verify(branchService, never())
-            .updateVisit(any(Visit.class), any(VisitEvent.class), any(VisitService.class));
+            .updateVisit(any(Visit.class), any(VisitTransition.class), any(VisitService.class));
         verify(printerService, never()).print(anyString(), any());
     }
 
@@ -382,19 +389,78 @@ class VisitServiceCreateVisit2Test {
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
 
         ArgumentCaptor<Visit> visitCaptor = ArgumentCaptor.forClass(Visit.class);
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService)
-            .updateVisit(visitCaptor.capture(), (VisitEvent) eventCaptor.capture(), same(service));
+            .updateVisit(visitCaptor.capture(), eventCaptor.capture(), same(service));
         Visit capturedVisit = visitCaptor.getValue();
         assertEquals(externalQueue.getId(), capturedVisit.getQueueId());
         assertEquals("N001", capturedVisit.getTicket());
         assertEquals(parameters, capturedVisit.getParameterMap());
-        assertEquals(VisitEvent.CREATED, eventCaptor.getValue());
+        assertEquals(VisitEvent.CREATED, eventCaptor.getValue().event());
 
         verify(branchService).incrementTicketCounter(branch.getId(), externalQueue);
-        verify(segmentationRule, times(2)).getQueue(any(Visit.class), eq(branch));
+        verify(segmentationRule).getQueue(any(Visit.class), eq(branch));
         verify(printerService, never()).print(anyString(), any());
         verify(eventService).send(eq("*"), eq(false), any());
         verifyNoMoreInteractions(eventService);
     }
+
+    @DisplayName("Параллельное создание визитов выдаёт различные номера талонов")
+    @Test
+    void concurrentCreationIssuesDistinctTickets() throws Exception {
+        VisitService service = new VisitService();
+        Branch branch = new Branch("branch-terminal", "Терминал самообслуживания");
+        Service mainService = new Service("service-main", "Основная услуга", 5, "queue-main");
+        branch.getServices().put(mainService.getId(), mainService);
+        EntryPoint entryPoint = new EntryPoint();
+        entryPoint.setId("entry-terminal");
+        entryPoint.setName("Терминал у входа");
+        branch.getEntryPoints().put(entryPoint.getId(), entryPoint);
+        Queue queue = new Queue("queue-main", "Основная очередь", "T", 60);
+        branch.getQueues().put(queue.getId(), queue);
+
+        TicketSequenceService ticketSequence = new TicketSequenceService();
+        BranchService branchService = mock(BranchService.class);
+        when(branchService.getBranch(branch.getId())).thenReturn(branch);
+        when(branchService.incrementTicketCounter(branch.getId(), queue))
+            .thenAnswer(invocation -> {
+                int number = ticketSequence.next(branch.getId(), queue);
+                // запись счётчика очереди другими потоками не должна влиять на номер талона
+                Thread.yield();
+                queue.setTicketCounter(number - 1);
+                return number;
+            });
+        SegmentationRule segmentationRule = mock(SegmentationRule.class);
+        when(segmentationRule.getQueue(any(Visit.class), eq(branch)))
+            .thenAnswer(invocation -> Optional.of(queue));
+        service.branchService = branchService;
+        service.eventService = mock(EventService.class);
+        service.segmentationRule = segmentationRule;
+        service.printerService = mock(PrinterService.class);
+        service.ticketSequence = ticketSequence;
+
+        Set<String> tickets = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            futures.add(
+                executor.submit(
+                    () ->
+                        tickets.add(
+                            service
+                                .createVisit2(
+                                    branch.getId(),
+                                    entryPoint.getId(),
+                                    new ArrayList<>(List.of(mainService)),
+                                    new HashMap<>(),
+                                    false)
+                                .getTicket())));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(400, tickets.size());
+    }
 }
@@ -21,6 +21,7 @@ import ru.aritmos.model.Queue;
 import ru.aritmos.model.Service;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.service.rules.SegmentationRule;
 import ru.aritmos.test.TestLoggingExtension;
 
@@ -116,20 +117,20 @@ class VisitServiceCreateVisit2WithSegmentationRuleTest {
         verify(segmentationRule).getQueue(visitCaptor.capture(), eq(branch), eq("rule-42"));
         assertSame(visit, visitCaptor.getValue());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService, times(2)).updateVisit(same(visit), eventCaptor.capture(), same(service));
-        assertEquals(List.of(VisitEvent.CREATED, VisitEvent.PLACED_IN_QUEUE), eventCaptor.getAllValues());
-
-        VisitEvent createdEvent = eventCaptor.getAllValues().get(0);
-        assertEquals("terminal", createdEvent.getParameters().get("visitCreator"));
-        assertEquals(primary.getId(), createdEvent.getParameters().get("serviceId"));
-        assertEquals(primary.getName(), createdEvent.getParameters().get("serviceName"));
-        assertEquals(entryPoint.getPrinter().getId(), createdEvent.getParameters().get("printerId"));
-
-        VisitEvent queueEvent = eventCaptor.getAllValues().get(1);
-        assertEquals(primary.getId(), queueEvent.getParameters().get("serviceId"));
-        assertEquals(primary.getName(), queueEvent.getParameters().get("serviceName"));
-        assertEquals(queue.getId(), queueEvent.getParameters().get("queueId"));
+        assertEquals(List.of(VisitEvent.CREATED, VisitEvent.PLACED_IN_QUEUE), eventCaptor.getAllValues().stream().map(VisitTransition::event).toList());
+
+        VisitTransition createdEvent = eventCaptor.getAllValues().get(0);
+        assertEquals("terminal", createdEvent.parameters().get("visitCreator"));
+        assertEquals(primary.getId(), createdEvent.parameters().get("serviceId"));
+        assertEquals(primary.getName(), createdEvent.parameters().get("serviceName"));
+        assertEquals(entryPoint.getPrinter().getId(), createdEvent.parameters().get("printerId"));
+
+        VisitTransition queueEvent = eventCaptor.getAllValues().get(1);
+        assertEquals(primary.getId(), queueEvent.parameters().get("serviceId"));
+        assertEquals(primary.getName(), queueEvent.parameters().get("serviceName"));
+        assertEquals(queue.getId(), queueEvent.parameters().get("queueId"));
 
         verify(branchService).incrementTicketCounter(branch.getId(), queue);
         verify(printerService).print(entryPoint.getPrinter().getId(), visit);
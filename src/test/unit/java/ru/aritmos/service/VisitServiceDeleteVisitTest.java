@@ -7,16 +7,16 @@ import io.micronaut.http.HttpStatus;
 import io.micronaut.http.exceptions.HttpStatusException;
 import java.time.ZonedDateTime;
 import java.util.HashMap;
-import org.junit.jupiter.api.AfterEach;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.aritmos.events.services.EventService;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.test.TestLoggingExtension;
 
 /** Тесты для {@link VisitService#deleteVisit(Visit)} c подробным логированием шагов и проверок. */
@@ -25,16 +25,6 @@ class VisitServiceDeleteVisitTest {
 
   private static final Logger LOG = LoggerFactory.getLogger(VisitServiceDeleteVisitTest.class);
 
-  @BeforeEach
-  void resetVisitEventBefore() {
-    resetVisitEvent();
-  }
-
-  @AfterEach
-  void resetVisitEventAfter() {
-    resetVisitEvent();
-  }
-
   @DisplayName("Удаление визита очищает привязки и уведомляет отделение")
   @Test
   void deleteVisitClearsAssignmentsAndNotifiesBranch() {
@@ -63,9 +53,11 @@ class VisitServiceDeleteVisitTest {
     assertNull(visit.getServicePointId());
 
     LOG.info("Шаг 5: убеждаемся, что branchService получил событие удаления");
-    verify(branchService).updateVisit(same(visit), same(VisitEvent.DELETED), same(service));
-    assertNotNull(VisitEvent.DELETED.dateTime);
-    assertTrue(VisitEvent.DELETED.getParameters().isEmpty());
+    ArgumentCaptor<VisitTransition> transitionCaptor = ArgumentCaptor.forClass(VisitTransition.class);
+    verify(branchService).updateVisit(same(visit), transitionCaptor.capture(), same(service));
+    assertSame(VisitEvent.DELETED, transitionCaptor.getValue().event());
+    assertNotNull(transitionCaptor.getValue().dateTime());
+    assertTrue(transitionCaptor.getValue().parameters().isEmpty());
     verifyNoInteractions(service.eventService);
   }
 
@@ -97,7 +89,7 @@ class VisitServiceDeleteVisitTest {
     assertEquals(HttpStatus.CONFLICT, exception.getStatus());
     verify(eventService).send(eq("*"), eq(false), any());
     verify(branchService, never())
-        .updateVisit(any(Visit.class), any(VisitEvent.class), any(VisitService.class));
+        .updateVisit(any(Visit.class), any(VisitTransition.class), any(VisitService.class));
     assertEquals("queue-1", visit.getQueueId());
     assertEquals("sp-1", visit.getServicePointId());
   }
@@ -131,13 +123,9 @@ class VisitServiceDeleteVisitTest {
     assertEquals(HttpStatus.CONFLICT, exception.getStatus());
     verify(eventService).send(eq("*"), eq(false), any());
     verify(branchService, never())
-        .updateVisit(any(Visit.class), any(VisitEvent.class), any(VisitService.class));
+        .updateVisit(any(Visit.class), any(VisitTransition.class), any(VisitService.class));
     assertEquals("queue-2", visit.getQueueId());
     assertEquals("sp-2", visit.getServicePointId());
   }
 
-  private void resetVisitEvent() {
-    VisitEvent.DELETED.getParameters().clear();
-    VisitEvent.DELETED.dateTime = null;
-  }
 }
@@ -16,7 +16,7 @@ import ru.aritmos.model.Outcome;
 import ru.aritmos.model.Service;
 import ru.aritmos.model.ServicePoint;
 import ru.aritmos.model.visit.Visit;
-import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 
 /**
  * Юнит-тесты для операций с фактическими услугами в {@link VisitService}.
@@ -107,7 +107,7 @@ class VisitServiceDeliveredServicesTest {
         Visit result = service.addDeliveredService("b1", "sp1", "ds1");
         assertEquals(1, result.getCurrentService().getDeliveredServices().size());
         assertTrue(result.getCurrentService().getDeliveredServices().containsKey("ds1"));
-        verify(branchService).updateVisit(eq(visit), any(VisitEvent.class), eq(service));
+        verify(branchService).updateVisit(eq(visit), any(VisitTransition.class), eq(service));
     }
 
     @DisplayName("Удаление фактической услуги удаляет запись из текущей услуги визита")
@@ -138,7 +138,7 @@ class VisitServiceDeliveredServicesTest {
 
         Visit result = service.deleteDeliveredService("b1", "sp1", "ds1");
         assertTrue(result.getCurrentService().getDeliveredServices().isEmpty());
-        verify(branchService).updateVisit(eq(visit), any(VisitEvent.class), eq(service));
+        verify(branchService).updateVisit(eq(visit), any(VisitTransition.class), eq(service));
     }
 
 
@@ -171,7 +171,7 @@ class VisitServiceDeliveredServicesTest {
 
         Visit result = service.addOutcomeOfDeliveredService("b1", "sp1", "ds1", "o1");
         assertEquals("o1", result.getCurrentService().getDeliveredServices().get("ds1").getOutcome().getId());
-        verify(branchService).updateVisit(eq(visit), any(VisitEvent.class), eq(service));
+        verify(branchService).updateVisit(eq(visit), any(VisitTransition.class), eq(service));
     }
 
     @DisplayName("Установка исхода фактической услуги выбрасывает исключение при отсутствии записи")
@@ -231,7 +231,7 @@ class VisitServiceDeliveredServicesTest {
 
         Visit result = service.deleteOutcomeDeliveredService("b1", "sp1", "ds1");
         assertNull(result.getCurrentService().getDeliveredServices().get("ds1").getOutcome());
-        verify(branchService).updateVisit(eq(visit), any(VisitEvent.class), eq(service));
+        verify(branchService).updateVisit(eq(visit), any(VisitTransition.class), eq(service));
     }
 }
 
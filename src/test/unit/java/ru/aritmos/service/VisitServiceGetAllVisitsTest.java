@@ -3,15 +3,18 @@ package ru.aritmos.service;
 import static org.mockito.Mockito.*;
 import static ru.aritmos.test.LoggingAssertions.*;
 
+import io.micronaut.http.exceptions.HttpStatusException;
 import java.time.ZonedDateTime;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import ru.aritmos.events.services.EventService;
 import ru.aritmos.keycloack.service.KeyCloackClient;
 import ru.aritmos.model.Branch;
 import ru.aritmos.model.Queue;
+import ru.aritmos.model.tiny.VisitPage;
 import ru.aritmos.model.visit.Visit;
 
 /**
@@ -92,5 +95,57 @@ class VisitServiceGetAllVisitsTest {
         assertEquals(1, visits.size());
         assertSame(waiting, visits.get("v1"));
     }
-}
 
+
+    @DisplayName("Страница визитов очереди содержит только запрошенные поля и курсор следующей страницы")
+    @Test
+    void getVisitPageProjectsFieldsAndPagesByCursor() {
+        ZonedDateTime now = ZonedDateTime.now();
+        Branch branch = new Branch("b1", "Branch");
+        Queue queue = new Queue("q1", "Q1", "A", 30);
+        queue.getVisits().add(Visit.builder().id("v3").ticket("A003").createDateTime(now).build());
+        queue.getVisits().add(
+                Visit.builder().id("v1").ticket("A001").createDateTime(now.minusMinutes(10)).build());
+        queue.getVisits().add(
+                Visit.builder().id("v2").ticket("A002").createDateTime(now.minusMinutes(5)).build());
+        branch.getQueues().put(queue.getId(), queue);
+        VisitService service = serviceWith(branch);
+
+        VisitPage first = service.getVisitPage("b1", "q1", null, "id,ticket", 2, null);
+        VisitPage second = service.getVisitPage("b1", "q1", null, "id,ticket", 2, first.getNextCursor());
+
+        assertEquals(3, first.getTotal());
+        assertEquals(List.of(Map.of("id", "v1", "ticket", "A001"), Map.of("id", "v2", "ticket", "A002")),
+                first.getItems());
+        assertEquals(List.of("id", "ticket"), List.copyOf(first.getItems().get(0).keySet()));
+        assertNotNull(first.getNextCursor());
+        assertEquals(1, second.getItems().size());
+        assertEquals("v3", second.getItems().get(0).get("id"));
+        assertNull(second.getNextCursor());
+    }
+
+
+    @DisplayName("Страница визитов отклоняет неизвестное поле проекции")
+    @Test
+    void getVisitPageRejectsUnknownField() {
+        VisitService service = serviceWith(new Branch("b1", "Branch"));
+
+        HttpStatusException e = assertThrows(
+                HttpStatusException.class,
+                () -> service.getVisitPage("b1", null, List.of("WAITING"), "id,events", null, null));
+
+        assertEquals(400, e.getStatus().getCode());
+    }
+
+    private static VisitService serviceWith(Branch branch) {
+        BranchService branchService = new BranchService();
+        branchService.eventService = mock(EventService.class);
+        branchService.keyCloackClient = mock(KeyCloackClient.class);
+        branchService.branches.put(branch.getId(), branch);
+
+        VisitService service = new VisitService();
+        service.branchService = branchService;
+        service.eventService = mock(EventService.class);
+        return service;
+    }
+}
@@ -16,7 +16,7 @@ import ru.aritmos.model.Service;
 import ru.aritmos.model.ServicePoint;
 import ru.aritmos.model.User;
 import ru.aritmos.model.visit.Visit;
-import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 
 /**
  * Юнит-тесты для методов {@link VisitService#addMark(String, String, Mark)} и
@@ -57,7 +57,7 @@ class VisitServiceMarkModificationTest {
         assertEquals("text", stored.getValue());
         assertEquals("u1", stored.getAuthor().getId());
         assertNotNull(stored.getMarkDate());
-        verify(branchService).updateVisit(eq(visit), any(VisitEvent.class), eq(serviceBean));
+        verify(branchService).updateVisit(eq(visit), any(VisitTransition.class), eq(serviceBean));
     }
 
     @DisplayName("Удаление отметки убирает её из визита")
@@ -88,7 +88,7 @@ class VisitServiceMarkModificationTest {
 
         Visit result = serviceBean.deleteMark("b1", "sp1", mark);
         assertTrue(result.getVisitMarks().isEmpty());
-        verify(branchService).updateVisit(eq(visit), any(VisitEvent.class), eq(serviceBean));
+        verify(branchService).updateVisit(eq(visit), any(VisitTransition.class), eq(serviceBean));
     }
 
     @DisplayName("Добавление отметки выбрасывает исключение при отсутствии текущей услуги")
@@ -16,7 +16,7 @@ import ru.aritmos.model.Service;
 import ru.aritmos.model.ServicePoint;
 import ru.aritmos.model.User;
 import ru.aritmos.model.visit.Visit;
-import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 
 class VisitServiceNoteTest {
 
@@ -51,7 +51,7 @@ class VisitServiceNoteTest {
     Mark note = result.getVisitNotes().get(0);
     assertEquals("text", note.getValue());
     assertEquals("u1", note.getAuthor().getId());
-    verify(branchService).updateVisit(eq(visit), any(VisitEvent.class), eq(serviceBean));
+    verify(branchService).updateVisit(eq(visit), any(VisitTransition.class), eq(serviceBean));
   }
 
   @DisplayName("Добавление заметки выбрасывает исключение при отсутствии визита")
@@ -13,7 +13,7 @@ import ru.aritmos.model.Outcome;
 import ru.aritmos.model.Service;
 import ru.aritmos.model.ServicePoint;
 import ru.aritmos.model.visit.Visit;
-import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 
 /** Юнит-тесты для операций с итогами услуг в {@link VisitService}. */
 class VisitServiceOutcomeTest {
@@ -46,7 +46,7 @@ class VisitServiceOutcomeTest {
 
     Visit result = service.addOutcomeService("b1", "sp1", "o1");
     assertEquals("o1", result.getCurrentService().getOutcome().getId());
-    verify(branchService).updateVisit(eq(visit), any(VisitEvent.class), eq(service));
+    verify(branchService).updateVisit(eq(visit), any(VisitTransition.class), eq(service));
   }
 
   @DisplayName("Назначение исхода выбрасывает исключение при отсутствии подходящего результата")
@@ -104,6 +104,6 @@ class VisitServiceOutcomeTest {
 
     Visit result = service.deleteOutcomeService("b1", "sp1", "s1");
     assertNull(result.getCurrentService().getOutcome());
-    verify(branchService).updateVisit(eq(visit), any(VisitEvent.class), eq(service));
+    verify(branchService).updateVisit(eq(visit), any(VisitTransition.class), eq(service));
   }
 }
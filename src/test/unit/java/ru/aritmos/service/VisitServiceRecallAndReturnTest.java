@@ -6,12 +6,9 @@ import static ru.aritmos.test.LoggingAssertions.*;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
-import org.junit.jupiter.api.AfterEach;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -26,6 +23,7 @@ import ru.aritmos.model.User;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
 import ru.aritmos.model.visit.VisitEventInformation;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.service.rules.CallRule;
 import ru.aritmos.service.rules.SegmentationRule;
 import ru.aritmos.test.TestLoggingExtension;
@@ -38,23 +36,6 @@ import ru.aritmos.test.TestLoggingExtension;
 @ExtendWith(TestLoggingExtension.class)
 class VisitServiceRecallAndReturnTest {
 
-    private final List<VisitEvent> eventsToReset = List.of(
-            VisitEvent.RECALLED,
-            VisitEvent.NO_SHOW,
-            VisitEvent.BACK_TO_QUEUE,
-            VisitEvent.BACK_TO_USER_POOL,
-            VisitEvent.BACK_TO_SERVICE_POINT_POOL);
-
-    @BeforeEach
-    void resetEventsBefore() {
-        resetVisitEvents();
-    }
-
-    @AfterEach
-    void resetEventsAfter() {
-        resetVisitEvents();
-    }
-
     @DisplayName("Повторный вызов визита обновляет событие данными точки обслуживания")
     @Test
     void visitReCallForConfirmUpdatesEventWithServicePointData() {
@@ -90,19 +71,19 @@ class VisitServiceRecallAndReturnTest {
         assertNotNull(visit.getCallDateTime());
         assertFalse(visit.getParameterMap().containsKey("isTransferredToStart"));
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(service));
-        VisitEvent event = eventCaptor.getValue();
-        assertSame(VisitEvent.RECALLED, event);
-        assertEquals(servicePoint.getId(), event.getParameters().get("servicePointId"));
-        assertEquals(servicePoint.getName(), event.getParameters().get("servicePointName"));
-        assertEquals(branch.getId(), event.getParameters().get("branchId"));
-        assertEquals(visit.getQueueId(), event.getParameters().get("queueId"));
-        assertEquals(operator.getId(), event.getParameters().get("staffId"));
-        assertEquals(operator.getName(), event.getParameters().get("staffName"));
-        assertEquals(operator.getCurrentWorkProfileId(), event.getParameters().get("workProfileId"));
-        assertEquals("cherryPick", event.getParameters().get("callMethod"));
-        assertNotNull(event.dateTime);
+        VisitTransition event = eventCaptor.getValue();
+        assertSame(VisitEvent.RECALLED, event.event());
+        assertEquals(servicePoint.getId(), event.parameters().get("servicePointId"));
+        assertEquals(servicePoint.getName(), event.parameters().get("servicePointName"));
+        assertEquals(branch.getId(), event.parameters().get("branchId"));
+        assertEquals(visit.getQueueId(), event.parameters().get("queueId"));
+        assertEquals(operator.getId(), event.parameters().get("staffId"));
+        assertEquals(operator.getName(), event.parameters().get("staffName"));
+        assertEquals(operator.getCurrentWorkProfileId(), event.parameters().get("workProfileId"));
+        assertEquals("cherryPick", event.parameters().get("callMethod"));
+        assertNotNull(event.dateTime());
     }
 
     @DisplayName("Неявка клиента сбрасывает состояние визита и формирует событие")
@@ -146,15 +127,15 @@ class VisitServiceRecallAndReturnTest {
         assertNull(visit.getServicePointId());
         assertNull(visit.getStartServingDateTime());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(service));
-        VisitEvent event = eventCaptor.getValue();
-        assertSame(VisitEvent.NO_SHOW, event);
-        assertEquals(branch.getId(), event.getParameters().get("branchId"));
-        assertEquals(servicePoint.getId(), event.getParameters().get("servicePointId"));
-        assertEquals(operator.getId(), event.getParameters().get("staffId"));
-        assertEquals(operator.getName(), event.getParameters().get("staffName"));
-        assertEquals(operator.getCurrentWorkProfileId(), event.getParameters().get("workProfileId"));
+        VisitTransition event = eventCaptor.getValue();
+        assertSame(VisitEvent.NO_SHOW, event.event());
+        assertEquals(branch.getId(), event.parameters().get("branchId"));
+        assertEquals(servicePoint.getId(), event.parameters().get("servicePointId"));
+        assertEquals(operator.getId(), event.parameters().get("staffId"));
+        assertEquals(operator.getName(), event.parameters().get("staffName"));
+        assertEquals(operator.getCurrentWorkProfileId(), event.parameters().get("workProfileId"));
     }
 
     @DisplayName("Возврат вызванного визита отправляет его в очередь с данными последней услуги")
@@ -195,14 +176,14 @@ class VisitServiceRecallAndReturnTest {
         assertEquals(45L, visit.getReturnTimeDelay());
         assertNull(visit.getStartServingDateTime());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(service));
-        VisitEvent event = eventCaptor.getValue();
-        assertSame(VisitEvent.BACK_TO_QUEUE, event);
-        assertEquals(branch.getId(), event.getParameters().get("branchId"));
-        assertEquals(servicePoint.getId(), event.getParameters().get("servicePointId"));
-        assertEquals(currentService.getId(), event.getParameters().get("serviceId"));
-        assertEquals(currentService.getName(), event.getParameters().get("serviceName"));
+        VisitTransition event = eventCaptor.getValue();
+        assertSame(VisitEvent.BACK_TO_QUEUE, event.event());
+        assertEquals(branch.getId(), event.parameters().get("branchId"));
+        assertEquals(servicePoint.getId(), event.parameters().get("servicePointId"));
+        assertEquals(currentService.getId(), event.parameters().get("serviceId"));
+        assertEquals(currentService.getName(), event.parameters().get("serviceName"));
     }
 
     @DisplayName("Возврат визита делегируется в пул точки обслуживания при сохранённом предыдущем пуле")
@@ -259,10 +240,4 @@ class VisitServiceRecallAndReturnTest {
         return service;
     }
 
-    private void resetVisitEvents() {
-        eventsToReset.forEach(event -> {
-            event.getParameters().clear();
-            event.dateTime = null;
-        });
-    }
 }
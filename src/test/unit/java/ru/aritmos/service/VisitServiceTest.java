@@ -32,6 +32,7 @@ import ru.aritmos.model.tiny.TinyClass;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
 import ru.aritmos.model.visit.VisitEventInformation;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.service.rules.CallRule;
 
 class VisitServiceTest {
@@ -90,14 +91,14 @@ class VisitServiceTest {
         assertTrue(result.isPresent());
         assertSame(visit, result.get());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService).updateVisit(eq(visit), eventCaptor.capture(), eq(service));
 
-        VisitEvent event = eventCaptor.getValue();
-        assertEquals(VisitEvent.CALLED, event);
-        assertNotNull(event.dateTime);
+        VisitTransition event = eventCaptor.getValue();
+        assertEquals(VisitEvent.CALLED, event.event());
+        assertNotNull(event.dateTime());
 
-        Map<String, String> params = event.getParameters();
+        Map<String, String> params = event.parameters();
         log.info("Параметры события вызова: {}", params);
         assertEquals(servicePoint.getId(), params.get("servicePointId"));
         assertEquals(servicePoint.getName(), params.get("servicePointName"));
@@ -199,25 +200,25 @@ class VisitServiceTest {
         assertTrue(queue.getVisits().contains(visit));
 
         log.info("Проверяем параметры событий обновления визита.");
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService, times(2)).updateVisit(eq(visit), eventCaptor.capture(), eq(service));
-        List<VisitEvent> capturedEvents = eventCaptor.getAllValues();
-        VisitEvent stopEvent = capturedEvents.get(0);
-        assertEquals(VisitEvent.STOP_SERVING, stopEvent);
-        log.info("Параметры STOP_SERVING события: {}", stopEvent.getParameters());
-        assertEquals("false", stopEvent.getParameters().get("isForced"));
-        assertEquals(servicePointId, stopEvent.getParameters().get("servicePointId"));
-        assertEquals(servicePoint.getName(), stopEvent.getParameters().get("servicePointName"));
-        assertEquals(branchId, stopEvent.getParameters().get("branchId"));
-
-        VisitEvent backEvent = capturedEvents.get(1);
-        assertEquals(VisitEvent.BACK_TO_QUEUE, backEvent);
-        assertEquals(branchId, backEvent.getParameters().get("branchId"));
-        assertEquals(queueId, backEvent.getParameters().get("queueId"));
-        assertEquals(servicePointId, backEvent.getParameters().get("servicePointId"));
-        assertEquals(operator.getId(), backEvent.getParameters().get("staffId"));
-        assertEquals(operator.getName(), backEvent.getParameters().get("staffName"));
-        assertNotNull(backEvent.dateTime);
+        List<VisitTransition> capturedEvents = eventCaptor.getAllValues();
+        VisitTransition stopEvent = capturedEvents.get(0);
+        assertEquals(VisitEvent.STOP_SERVING, stopEvent.event());
+        log.info("Параметры STOP_SERVING события: {}", stopEvent.parameters());
+        assertEquals("false", stopEvent.parameters().get("isForced"));
+        assertEquals(servicePointId, stopEvent.parameters().get("servicePointId"));
+        assertEquals(servicePoint.getName(), stopEvent.parameters().get("servicePointName"));
+        assertEquals(branchId, stopEvent.parameters().get("branchId"));
+
+        VisitTransition backEvent = capturedEvents.get(1);
+        assertEquals(VisitEvent.BACK_TO_QUEUE, backEvent.event());
+        assertEquals(branchId, backEvent.parameters().get("branchId"));
+        assertEquals(queueId, backEvent.parameters().get("queueId"));
+        assertEquals(servicePointId, backEvent.parameters().get("servicePointId"));
+        assertEquals(operator.getId(), backEvent.parameters().get("staffId"));
+        assertEquals(operator.getName(), backEvent.parameters().get("staffName"));
+        assertNotNull(backEvent.dateTime());
 
         log.info("Проверяем планирование отложенного события обновления очереди.");
         ArgumentCaptor<Event> delayedEventCaptor = ArgumentCaptor.forClass(Event.class);
@@ -237,10 +238,6 @@ class VisitServiceTest {
         assertEquals("RETURN_TIME_DELAY_FINISHED", body.get("reason"));
         assertEquals(visit.getId(), body.get("visitId"));
         assertEquals(visit.getTicket(), body.get("ticket"));
-        stopEvent.getParameters().clear();
-        stopEvent.dateTime = null;
-        backEvent.getParameters().clear();
-        backEvent.dateTime = null;
     }
 
     @DisplayName("Возврат из обслуживания в очередь завершается ошибкой при отсутствии последней очереди")
@@ -296,20 +293,16 @@ class VisitServiceTest {
         assertEquals(45L, visit.getReturnTimeDelay());
 
         log.info("Убеждаемся, что событие StopServing отправлено до возникновения ошибки.");
-        ArgumentCaptor<VisitEvent> stopEventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> stopEventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService).updateVisit(eq(visit), stopEventCaptor.capture(), eq(service));
-        assertEquals(VisitEvent.STOP_SERVING, stopEventCaptor.getValue());
+        assertEquals(VisitEvent.STOP_SERVING, stopEventCaptor.getValue().event());
         verify(eventService).send(eq("*"), eq(false), any());
         verifyNoInteractions(delayedEvents);
-        stopEventCaptor.getValue().getParameters().clear();
-        stopEventCaptor.getValue().dateTime = null;
     }
 
     @DisplayName("Перенос визита из очереди в пул точки добавляет метаданные внешней услуги")
     @Test
     void visitTransferFromQueueToServicePointPoolAddsExternalServiceMetadata() {
-        log.info("Очищаем параметры события перевода визита в пул точки обслуживания.");
-        VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL.getParameters().clear();
 
         log.info("Готовим отделение с очередью и целевым пулом точки обслуживания.");
         String branchId = "branch-transfer";
@@ -362,19 +355,19 @@ class VisitServiceTest {
         assertEquals(25L, visit.getTransferTimeDelay());
 
         log.info("Проверяем параметры события TRANSFER_TO_SERVICE_POINT_POOL.");
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService)
                 .updateVisit(eq(visit), eventCaptor.capture(), eq(service), eq(Boolean.TRUE));
-        VisitEvent event = eventCaptor.getValue();
-        assertEquals(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL, event);
-        assertEquals(queueId, event.getParameters().get("queueId"));
-        assertEquals(poolServicePointId, event.getParameters().get("poolServicePointId"));
-        assertEquals("kc-1", event.getParameters().get("staffId"));
-        assertEquals("keycloak-user", event.getParameters().get("staffName"));
-        assertEquals("MI", event.getParameters().get("externalSystem"));
-        assertEquals("req-555", event.getParameters().get("requestId"));
-        assertEquals(branchId, event.getParameters().get("branchId"));
-        assertNotNull(event.dateTime);
+        VisitTransition event = eventCaptor.getValue();
+        assertEquals(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL, event.event());
+        assertEquals(queueId, event.parameters().get("queueId"));
+        assertEquals(poolServicePointId, event.parameters().get("poolServicePointId"));
+        assertEquals("kc-1", event.parameters().get("staffId"));
+        assertEquals("keycloak-user", event.parameters().get("staffName"));
+        assertEquals("MI", event.parameters().get("externalSystem"));
+        assertEquals("req-555", event.parameters().get("requestId"));
+        assertEquals(branchId, event.parameters().get("branchId"));
+        assertNotNull(event.dateTime());
 
         log.info("Проверяем создание отложенного события обновления пула точки обслуживания.");
         ArgumentCaptor<Event> delayedEventCaptor = ArgumentCaptor.forClass(Event.class);
@@ -395,8 +388,6 @@ class VisitServiceTest {
         assertEquals(visit.getId(), body.get("visitId"));
         assertEquals(visit.getTicket(), body.get("ticket"));
         assertNull(delayedEvent.getParams());
-        event.getParameters().clear();
-        event.dateTime = null;
         delayedEvent.setBody(null);
         delayedEvent.setParams(null);
     }
@@ -8,8 +8,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
-import org.junit.jupiter.api.AfterEach;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -25,6 +23,7 @@ import ru.aritmos.model.ServicePoint;
 import ru.aritmos.model.User;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.service.rules.CallRule;
 import ru.aritmos.service.rules.SegmentationRule;
 import ru.aritmos.test.TestLoggingExtension;
@@ -36,23 +35,6 @@ import ru.aritmos.test.TestLoggingExtension;
 @ExtendWith(TestLoggingExtension.class)
 class VisitServiceTransferFromQueueTest {
 
-    private final List<VisitEvent> eventsToReset = List.of(
-            VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL,
-            VisitEvent.TRANSFER_TO_QUEUE,
-            VisitEvent.BACK_TO_SERVICE_POINT_POOL,
-            VisitEvent.STOP_SERVING,
-            VisitEvent.TRANSFER_TO_USER_POOL);
-
-    @BeforeEach
-    void clearEventParametersBefore() {
-        resetVisitEvents();
-    }
-
-    @AfterEach
-    void clearEventParametersAfter() {
-        resetVisitEvents();
-    }
-
     @DisplayName("Перенос визита из очереди в пул точки обслуживания размещает визит по заданному индексу")
     @Test
     void visitTransferFromQueueToServicePointPoolPlacesVisitAtExactIndex() {
@@ -98,19 +80,19 @@ class VisitServiceTransferFromQueueTest {
         assertNotNull(visit.getTransferDateTime());
         assertEquals(30L, visit.getTransferTimeDelay());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         ArgumentCaptor<Integer> indexCaptor = ArgumentCaptor.forClass(Integer.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(serviceUnderTest), indexCaptor.capture());
         assertEquals(1, indexCaptor.getValue());
-        VisitEvent transferEvent = eventCaptor.getValue();
-        assertSame(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL, transferEvent);
-        assertEquals("queue-1", transferEvent.getParameters().get("queueId"));
-        assertEquals(poolPoint.getId(), transferEvent.getParameters().get("poolServicePointId"));
-        assertEquals(sourcePoint.getId(), transferEvent.getParameters().get("servicePointId"));
-        assertEquals("b1", transferEvent.getParameters().get("branchId"));
-        assertEquals("user-1", transferEvent.getParameters().get("staffId"));
-        assertEquals("Иван Оператор", transferEvent.getParameters().get("staffName"));
-        assertEquals("wp-1", transferEvent.getParameters().get("workProfileId"));
+        VisitTransition transferEvent = eventCaptor.getValue();
+        assertSame(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL, transferEvent.event());
+        assertEquals("queue-1", transferEvent.parameters().get("queueId"));
+        assertEquals(poolPoint.getId(), transferEvent.parameters().get("poolServicePointId"));
+        assertEquals(sourcePoint.getId(), transferEvent.parameters().get("servicePointId"));
+        assertEquals("b1", transferEvent.parameters().get("branchId"));
+        assertEquals("user-1", transferEvent.parameters().get("staffId"));
+        assertEquals("Иван Оператор", transferEvent.parameters().get("staffName"));
+        assertEquals("wp-1", transferEvent.parameters().get("workProfileId"));
 
         ArgumentCaptor<Event> delayedEventCaptor = ArgumentCaptor.forClass(Event.class);
         verify(delayedEvents).delayedEventService(eq("frontend"), eq(false), delayedEventCaptor.capture(), eq(30L), same(eventService));
@@ -175,19 +157,19 @@ class VisitServiceTransferFromQueueTest {
         assertEquals(45L, visit.getTransferTimeDelay());
         assertNotNull(visit.getTransferDateTime());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         ArgumentCaptor<Boolean> toStartCaptor = ArgumentCaptor.forClass(Boolean.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(serviceUnderTest), toStartCaptor.capture());
         assertTrue(toStartCaptor.getValue());
-        VisitEvent transferEvent = eventCaptor.getValue();
-        assertSame(VisitEvent.TRANSFER_TO_QUEUE, transferEvent);
-        assertEquals(previousQueue.getId(), transferEvent.getParameters().get("oldQueueId"));
-        assertEquals(targetQueue.getId(), transferEvent.getParameters().get("newQueueId"));
-        assertEquals(servicePoint.getId(), transferEvent.getParameters().get("servicePointId"));
-        assertEquals("b1", transferEvent.getParameters().get("branchId"));
-        assertEquals("user-1", transferEvent.getParameters().get("staffId"));
-        assertEquals("Иван Оператор", transferEvent.getParameters().get("staffName"));
-        assertEquals("wp-1", transferEvent.getParameters().get("workProfileId"));
+        VisitTransition transferEvent = eventCaptor.getValue();
+        assertSame(VisitEvent.TRANSFER_TO_QUEUE, transferEvent.event());
+        assertEquals(previousQueue.getId(), transferEvent.parameters().get("oldQueueId"));
+        assertEquals(targetQueue.getId(), transferEvent.parameters().get("newQueueId"));
+        assertEquals(servicePoint.getId(), transferEvent.parameters().get("servicePointId"));
+        assertEquals("b1", transferEvent.parameters().get("branchId"));
+        assertEquals("user-1", transferEvent.parameters().get("staffId"));
+        assertEquals("Иван Оператор", transferEvent.parameters().get("staffName"));
+        assertEquals("wp-1", transferEvent.parameters().get("workProfileId"));
 
         ArgumentCaptor<Event> delayedEventCaptor = ArgumentCaptor.forClass(Event.class);
         verify(delayedEvents).delayedEventService(eq("frontend"), eq(false), delayedEventCaptor.capture(), eq(45L), same(eventService));
@@ -255,18 +237,18 @@ class VisitServiceTransferFromQueueTest {
         assertNotNull(visit.getTransferDateTime());
         assertNotNull(visit.getReturnDateTime());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         ArgumentCaptor<Boolean> appendCaptor = ArgumentCaptor.forClass(Boolean.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(serviceUnderTest), appendCaptor.capture());
         assertTrue(appendCaptor.getValue());
-        VisitEvent transferEvent = eventCaptor.getValue();
-        assertSame(VisitEvent.TRANSFER_TO_QUEUE, transferEvent);
-        assertEquals(previousQueue.getId(), transferEvent.getParameters().get("oldQueueId"));
-        assertEquals(targetQueue.getId(), transferEvent.getParameters().get("newQueueId"));
-        assertEquals("b1", transferEvent.getParameters().get("branchId"));
-        assertEquals("kc-user", transferEvent.getParameters().get("staffId"));
-        assertEquals("receptionist", transferEvent.getParameters().get("staffName"));
-        assertEquals("reception", transferEvent.getParameters().get("externalSystem"));
+        VisitTransition transferEvent = eventCaptor.getValue();
+        assertSame(VisitEvent.TRANSFER_TO_QUEUE, transferEvent.event());
+        assertEquals(previousQueue.getId(), transferEvent.parameters().get("oldQueueId"));
+        assertEquals(targetQueue.getId(), transferEvent.parameters().get("newQueueId"));
+        assertEquals("b1", transferEvent.parameters().get("branchId"));
+        assertEquals("kc-user", transferEvent.parameters().get("staffId"));
+        assertEquals("receptionist", transferEvent.parameters().get("staffName"));
+        assertEquals("reception", transferEvent.parameters().get("externalSystem"));
 
         ArgumentCaptor<Event> delayedEventCaptor = ArgumentCaptor.forClass(Event.class);
         verify(delayedEvents).delayedEventService(eq("frontend"), eq(false), delayedEventCaptor.capture(), eq(20L), same(eventService));
@@ -326,19 +308,19 @@ class VisitServiceTransferFromQueueTest {
         assertEquals(15L, visit.getTransferTimeDelay());
         assertNotNull(visit.getTransferDateTime());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         ArgumentCaptor<Boolean> appendCaptor = ArgumentCaptor.forClass(Boolean.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(serviceUnderTest), appendCaptor.capture());
         assertTrue(appendCaptor.getValue());
-        VisitEvent transferEvent = eventCaptor.getValue();
-        assertSame(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL, transferEvent);
-        assertEquals("queue-legacy", transferEvent.getParameters().get("queueId"));
-        assertEquals(poolPoint.getId(), transferEvent.getParameters().get("poolServicePointId"));
-        assertEquals(sourcePoint.getId(), transferEvent.getParameters().get("servicePointId"));
-        assertEquals("b1", transferEvent.getParameters().get("branchId"));
-        assertEquals("user-1", transferEvent.getParameters().get("staffId"));
-        assertEquals("Иван Оператор", transferEvent.getParameters().get("staffName"));
-        assertEquals("wp-1", transferEvent.getParameters().get("workProfileId"));
+        VisitTransition transferEvent = eventCaptor.getValue();
+        assertSame(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL, transferEvent.event());
+        assertEquals("queue-legacy", transferEvent.parameters().get("queueId"));
+        assertEquals(poolPoint.getId(), transferEvent.parameters().get("poolServicePointId"));
+        assertEquals(sourcePoint.getId(), transferEvent.parameters().get("servicePointId"));
+        assertEquals("b1", transferEvent.parameters().get("branchId"));
+        assertEquals("user-1", transferEvent.parameters().get("staffId"));
+        assertEquals("Иван Оператор", transferEvent.parameters().get("staffName"));
+        assertEquals("wp-1", transferEvent.parameters().get("workProfileId"));
 
         ArgumentCaptor<Event> delayedEventCaptor = ArgumentCaptor.forClass(Event.class);
         verify(delayedEvents).delayedEventService(eq("frontend"), eq(false), delayedEventCaptor.capture(), eq(15L), same(eventService));
@@ -398,26 +380,26 @@ class VisitServiceTransferFromQueueTest {
         assertNull(visit.getStartServingDateTime());
         assertFalse(visit.getParameterMap().containsKey("LastPoolServicePointId"));
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService, times(2)).updateVisit(same(visit), eventCaptor.capture(), same(serviceUnderTest));
-        List<VisitEvent> capturedEvents = eventCaptor.getAllValues();
+        List<VisitTransition> capturedEvents = eventCaptor.getAllValues();
         assertEquals(2, capturedEvents.size());
-        VisitEvent stopServing = capturedEvents.get(0);
-        assertSame(VisitEvent.STOP_SERVING, stopServing);
-        assertEquals("false", stopServing.getParameters().get("isForced"));
-        assertEquals("b1", stopServing.getParameters().get("branchId"));
-        assertEquals(poolPoint.getId(), stopServing.getParameters().get("poolServicePointId"));
-        assertEquals(servicePoint.getId(), stopServing.getParameters().get("servicePointId"));
-        assertEquals("user-1", stopServing.getParameters().get("staffId"));
-        assertEquals("Иван Оператор", stopServing.getParameters().get("staffName"));
-
-        VisitEvent backEvent = capturedEvents.get(1);
-        assertSame(VisitEvent.BACK_TO_SERVICE_POINT_POOL, backEvent);
-        assertEquals("b1", backEvent.getParameters().get("branchId"));
-        assertEquals(poolPoint.getId(), backEvent.getParameters().get("poolServicePointId"));
-        assertEquals(servicePoint.getId(), backEvent.getParameters().get("servicePointId"));
-        assertEquals("user-1", backEvent.getParameters().get("staffId"));
-        assertEquals("Иван Оператор", backEvent.getParameters().get("staffName"));
+        VisitTransition stopServing = capturedEvents.get(0);
+        assertSame(VisitEvent.STOP_SERVING, stopServing.event());
+        assertEquals("false", stopServing.parameters().get("isForced"));
+        assertEquals("b1", stopServing.parameters().get("branchId"));
+        assertEquals(poolPoint.getId(), stopServing.parameters().get("poolServicePointId"));
+        assertEquals(servicePoint.getId(), stopServing.parameters().get("servicePointId"));
+        assertEquals("user-1", stopServing.parameters().get("staffId"));
+        assertEquals("Иван Оператор", stopServing.parameters().get("staffName"));
+
+        VisitTransition backEvent = capturedEvents.get(1);
+        assertSame(VisitEvent.BACK_TO_SERVICE_POINT_POOL, backEvent.event());
+        assertEquals("b1", backEvent.parameters().get("branchId"));
+        assertEquals(poolPoint.getId(), backEvent.parameters().get("poolServicePointId"));
+        assertEquals(servicePoint.getId(), backEvent.parameters().get("servicePointId"));
+        assertEquals("user-1", backEvent.parameters().get("staffId"));
+        assertEquals("Иван Оператор", backEvent.parameters().get("staffName"));
     }
 
     private VisitService createVisitService(
@@ -437,10 +419,4 @@ class VisitServiceTransferFromQueueTest {
         return serviceUnderTest;
     }
 
-    private void resetVisitEvents() {
-        eventsToReset.forEach(event -> {
-            event.getParameters().clear();
-            event.dateTime = null;
-        });
-    }
 }
@@ -12,7 +12,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -26,6 +25,7 @@ import ru.aritmos.model.User;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
 import ru.aritmos.model.visit.VisitEventInformation;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.test.TestLoggingExtension;
 
 /**
@@ -34,12 +34,6 @@ import ru.aritmos.test.TestLoggingExtension;
 @ExtendWith(TestLoggingExtension.class)
 class VisitServiceTransferToServicePointPoolSimpleTest {
 
-    @BeforeEach
-    void resetVisitEventParameters() {
-        VisitEvent.STOP_SERVING.getParameters().clear();
-        VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL.getParameters().clear();
-    }
-
     @DisplayName("Перенос визита в пул точки обслуживания перемещает визит и планирует обновление очередей")
     @Test
     void visitTransferToServicePointPoolMovesVisitAndSchedulesRefresh() {
@@ -101,15 +95,15 @@ class VisitServiceTransferToServicePointPoolSimpleTest {
         assertFalse(result.getParameterMap().containsKey("LastPoolServicePointId"));
         assertEquals("queue-latest", result.getParameterMap().get("LastQueueId"));
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService, times(2)).updateVisit(same(visit), eventCaptor.capture(), same(service));
 
-        List<VisitEvent> capturedEvents = eventCaptor.getAllValues();
+        List<VisitTransition> capturedEvents = eventCaptor.getAllValues();
         assertEquals(2, capturedEvents.size());
 
-        VisitEvent stopEvent = capturedEvents.get(0);
-        assertSame(VisitEvent.STOP_SERVING, stopEvent);
-        Map<String, String> stopParams = new HashMap<>(stopEvent.getParameters());
+        VisitTransition stopEvent = capturedEvents.get(0);
+        assertSame(VisitEvent.STOP_SERVING, stopEvent.event());
+        Map<String, String> stopParams = new HashMap<>(stopEvent.parameters());
         assertEquals("false", stopParams.get("isForced"));
         assertEquals("b1", stopParams.get("branchId"));
         assertEquals(poolPoint.getId(), stopParams.get("poolServicePointId"));
@@ -120,9 +114,9 @@ class VisitServiceTransferToServicePointPoolSimpleTest {
         assertEquals(operator.getCurrentWorkProfileId(), stopParams.get("workProfileId"));
         assertFalse(stopParams.containsKey("externalServiceId"));
 
-        VisitEvent transferEvent = capturedEvents.get(1);
-        assertSame(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL, transferEvent);
-        Map<String, String> transferParams = new HashMap<>(transferEvent.getParameters());
+        VisitTransition transferEvent = capturedEvents.get(1);
+        assertSame(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL, transferEvent.event());
+        Map<String, String> transferParams = new HashMap<>(transferEvent.parameters());
         assertEquals("b1", transferParams.get("branchId"));
         assertEquals(poolPoint.getId(), transferParams.get("poolServicePointId"));
         assertEquals(sourcePoint.getId(), transferParams.get("servicePointId"));
@@ -199,11 +193,11 @@ class VisitServiceTransferToServicePointPoolSimpleTest {
         assertNull(result.getStartServingDateTime());
         assertFalse(result.getParameterMap().containsKey("LastPoolServicePointId"));
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService, times(2)).updateVisit(same(visit), eventCaptor.capture(), same(service));
 
-        VisitEvent transferEvent = eventCaptor.getAllValues().get(1);
-        Map<String, String> transferParams = new HashMap<>(transferEvent.getParameters());
+        VisitTransition transferEvent = eventCaptor.getAllValues().get(1);
+        Map<String, String> transferParams = new HashMap<>(transferEvent.parameters());
         assertFalse(transferParams.containsKey("queueId"));
 
         verify(delayedEvents)
@@ -229,7 +223,7 @@ class VisitServiceTransferToServicePointPoolSimpleTest {
         assertEquals("Service point sp-main does not exist", exception.getMessage());
 
         verify(eventService).send(eq("*"), eq(false), any(Event.class));
-        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitEvent.class), same(service));
+        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitTransition.class), same(service));
         verifyNoInteractions(service.delayedEvents);
     }
 
@@ -255,7 +249,7 @@ class VisitServiceTransferToServicePointPoolSimpleTest {
         assertEquals("Visit in service point sp-main does not exist", exception.getMessage());
 
         verify(eventService).send(eq("*"), eq(false), any(Event.class));
-        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitEvent.class), same(service));
+        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitTransition.class), same(service));
         verifyNoInteractions(service.delayedEvents);
     }
 
@@ -288,7 +282,7 @@ class VisitServiceTransferToServicePointPoolSimpleTest {
         assertEquals("Service point not found in branch configuration", exception.getMessage());
 
         verify(eventService).send(eq("*"), eq(false), any(Event.class));
-        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitEvent.class), same(service));
+        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitTransition.class), same(service));
         verifyNoInteractions(service.delayedEvents);
     }
 }
@@ -11,7 +11,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -24,6 +23,7 @@ import ru.aritmos.model.User;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
 import ru.aritmos.model.visit.VisitEventInformation;
+import ru.aritmos.model.visit.VisitTransition;
 
 /**
  * Набор тестов для {@link VisitService#visitTransferToServicePointPool(String, String, String,
@@ -31,12 +31,6 @@ import ru.aritmos.model.visit.VisitEventInformation;
  */
 class VisitServiceTransferToServicePointPoolTest {
 
-    @BeforeEach
-    void resetVisitEventParameters() {
-        VisitEvent.STOP_SERVING.getParameters().clear();
-        VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL.getParameters().clear();
-    }
-
     @DisplayName("Перенос визита в пул точки обслуживания перемещает визит и публикует события")
     @Test
     void visitTransferToServicePointPoolMovesVisitAndPublishesEvents() {
@@ -101,34 +95,34 @@ class VisitServiceTransferToServicePointPoolTest {
         assertFalse(result.getParameterMap().containsKey("LastPoolServicePointId"));
         assertEquals("queue-last", result.getParameterMap().get("LastQueueId"));
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService, times(2)).updateVisit(eq(visit), eventCaptor.capture(), eq(service));
 
-        List<VisitEvent> capturedEvents = eventCaptor.getAllValues();
-        VisitEvent stopEvent = capturedEvents.get(0);
-        assertEquals(VisitEvent.STOP_SERVING, stopEvent);
-        assertEquals("false", stopEvent.getParameters().get("isForced"));
-        assertEquals("b1", stopEvent.getParameters().get("branchId"));
-        assertEquals(poolPoint.getId(), stopEvent.getParameters().get("poolServicePointId"));
-        assertEquals(sourcePoint.getId(), stopEvent.getParameters().get("servicePointId"));
-        assertEquals(sourcePoint.getName(), stopEvent.getParameters().get("servicePointName"));
-        assertEquals(operator.getId(), stopEvent.getParameters().get("staffId"));
-        assertEquals(operator.getName(), stopEvent.getParameters().get("staffName"));
-        assertEquals(operator.getCurrentWorkProfileId(), stopEvent.getParameters().get("workProfileId"));
-        assertEquals("srv-77", stopEvent.getParameters().get("externalServiceId"));
-        assertEquals("crm", stopEvent.getParameters().get("externalSystem"));
-
-        VisitEvent transferEvent = capturedEvents.get(1);
-        assertEquals(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL, transferEvent);
-        assertEquals("b1", transferEvent.getParameters().get("branchId"));
-        assertEquals(poolPoint.getId(), transferEvent.getParameters().get("poolServicePointId"));
-        assertEquals(sourcePoint.getId(), transferEvent.getParameters().get("servicePointId"));
-        assertEquals(operator.getId(), transferEvent.getParameters().get("staffId"));
-        assertEquals(operator.getName(), transferEvent.getParameters().get("staffName"));
-        assertEquals(operator.getCurrentWorkProfileId(), transferEvent.getParameters().get("workProfileId"));
-        assertEquals("queue-history", transferEvent.getParameters().get("queueId"));
-        assertEquals("srv-77", transferEvent.getParameters().get("externalServiceId"));
-        assertEquals("crm", transferEvent.getParameters().get("externalSystem"));
+        List<VisitTransition> capturedEvents = eventCaptor.getAllValues();
+        VisitTransition stopEvent = capturedEvents.get(0);
+        assertEquals(VisitEvent.STOP_SERVING, stopEvent.event());
+        assertEquals("false", stopEvent.parameters().get("isForced"));
+        assertEquals("b1", stopEvent.parameters().get("branchId"));
+        assertEquals(poolPoint.getId(), stopEvent.parameters().get("poolServicePointId"));
+        assertEquals(sourcePoint.getId(), stopEvent.parameters().get("servicePointId"));
+        assertEquals(sourcePoint.getName(), stopEvent.parameters().get("servicePointName"));
+        assertEquals(operator.getId(), stopEvent.parameters().get("staffId"));
+        assertEquals(operator.getName(), stopEvent.parameters().get("staffName"));
+        assertEquals(operator.getCurrentWorkProfileId(), stopEvent.parameters().get("workProfileId"));
+        assertEquals("srv-77", stopEvent.parameters().get("externalServiceId"));
+        assertEquals("crm", stopEvent.parameters().get("externalSystem"));
+
+        VisitTransition transferEvent = capturedEvents.get(1);
+        assertEquals(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL, transferEvent.event());
+        assertEquals("b1", transferEvent.parameters().get("branchId"));
+        assertEquals(poolPoint.getId(), transferEvent.parameters().get("poolServicePointId"));
+        assertEquals(sourcePoint.getId(), transferEvent.parameters().get("servicePointId"));
+        assertEquals(operator.getId(), transferEvent.parameters().get("staffId"));
+        assertEquals(operator.getName(), transferEvent.parameters().get("staffName"));
+        assertEquals(operator.getCurrentWorkProfileId(), transferEvent.parameters().get("workProfileId"));
+        assertEquals("queue-history", transferEvent.parameters().get("queueId"));
+        assertEquals("srv-77", transferEvent.parameters().get("externalServiceId"));
+        assertEquals("crm", transferEvent.parameters().get("externalSystem"));
 
         ArgumentCaptor<Event> delayedEventCaptor = ArgumentCaptor.forClass(Event.class);
         verify(delayedEvents)
@@ -164,7 +158,7 @@ class VisitServiceTransferToServicePointPoolTest {
                 service.visitTransferToServicePointPool("b1", "sp-main", "sp-pool", new HashMap<>(), 5L));
         assertEquals("Service point sp-main does not exist", exception.getMessage());
         verify(eventService).send(eq("*"), eq(false), any(Event.class));
-        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitEvent.class), eq(service));
+        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitTransition.class), eq(service));
         verifyNoInteractions(service.delayedEvents);
     }
 
@@ -188,7 +182,7 @@ class VisitServiceTransferToServicePointPoolTest {
                 service.visitTransferToServicePointPool("b1", servicePoint.getId(), "sp-pool", new HashMap<>(), 5L));
         assertEquals("Visit in service point sp-main does not exist", exception.getMessage());
         verify(eventService).send(eq("*"), eq(false), any(Event.class));
-        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitEvent.class), eq(service));
+        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitTransition.class), eq(service));
         verifyNoInteractions(service.delayedEvents);
     }
 
@@ -219,7 +213,7 @@ class VisitServiceTransferToServicePointPoolTest {
                 service.visitTransferToServicePointPool("b1", sourcePoint.getId(), "sp-pool", new HashMap<>(), 5L));
         assertEquals("Service point not found in branch configuration", exception.getMessage());
         verify(eventService).send(eq("*"), eq(false), any(Event.class));
-        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitEvent.class), eq(service));
+        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitTransition.class), eq(service));
         verifyNoInteractions(service.delayedEvents);
     }
 }
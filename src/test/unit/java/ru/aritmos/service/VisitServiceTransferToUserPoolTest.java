@@ -12,7 +12,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,6 +27,7 @@ import ru.aritmos.model.User;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
 import ru.aritmos.model.visit.VisitEventInformation;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.test.TestLoggingExtension;
 
 /**
@@ -38,13 +38,6 @@ class VisitServiceTransferToUserPoolTest {
 
     private static final Logger LOG = LoggerFactory.getLogger(VisitServiceTransferToUserPoolTest.class);
 
-    @BeforeEach
-    void resetEventParameters() {
-        LOG.info("Подготовка: очищаем параметры событий");
-        VisitEvent.STOP_SERVING.getParameters().clear();
-        VisitEvent.TRANSFER_TO_USER_POOL.getParameters().clear();
-    }
-
 
     @DisplayName("Перевод визита в пользовательский пул публикует уведомления")
     @Test
@@ -109,30 +102,30 @@ class VisitServiceTransferToUserPoolTest {
         assertEquals("queue-last", result.getParameterMap().get("LastQueueId"));
 
         LOG.info("Шаг 6: анализируем отправленные события обновления визита");
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService, times(2)).updateVisit(eq(visit), eventCaptor.capture(), eq(service));
-        List<VisitEvent> capturedEvents = eventCaptor.getAllValues();
+        List<VisitTransition> capturedEvents = eventCaptor.getAllValues();
         assertEquals(2, capturedEvents.size());
 
-        VisitEvent stopEvent = capturedEvents.get(0);
-        assertSame(VisitEvent.STOP_SERVING, stopEvent);
-        assertEquals("false", stopEvent.getParameters().get("isForced"));
-        assertEquals(branch.getId(), stopEvent.getParameters().get("branchId"));
-        assertEquals(servicePoint.getId(), stopEvent.getParameters().get("servicePointId"));
-        assertEquals(servicePoint.getName(), stopEvent.getParameters().get("servicePointName"));
-        assertEquals(operator.getId(), stopEvent.getParameters().get("staffId"));
-        assertEquals(operator.getName(), stopEvent.getParameters().get("staffName"));
-        assertEquals(operator.getCurrentWorkProfileId(), stopEvent.getParameters().get("workProfileId"));
-
-        VisitEvent transferEvent = capturedEvents.get(1);
-        assertSame(VisitEvent.TRANSFER_TO_USER_POOL, transferEvent);
-        assertEquals(branch.getId(), transferEvent.getParameters().get("branchId"));
-        assertEquals(operator.getId(), transferEvent.getParameters().get("userId"));
-        assertEquals(operator.getId(), transferEvent.getParameters().get("staffId"));
-        assertEquals(operator.getName(), transferEvent.getParameters().get("staffName"));
-        assertEquals(operator.getCurrentWorkProfileId(), transferEvent.getParameters().get("workProfileId"));
-        assertEquals(servicePoint.getId(), transferEvent.getParameters().get("servicePointId"));
-        assertEquals("queue-history", transferEvent.getParameters().get("queueId"));
+        VisitTransition stopEvent = capturedEvents.get(0);
+        assertSame(VisitEvent.STOP_SERVING, stopEvent.event());
+        assertEquals("false", stopEvent.parameters().get("isForced"));
+        assertEquals(branch.getId(), stopEvent.parameters().get("branchId"));
+        assertEquals(servicePoint.getId(), stopEvent.parameters().get("servicePointId"));
+        assertEquals(servicePoint.getName(), stopEvent.parameters().get("servicePointName"));
+        assertEquals(operator.getId(), stopEvent.parameters().get("staffId"));
+        assertEquals(operator.getName(), stopEvent.parameters().get("staffName"));
+        assertEquals(operator.getCurrentWorkProfileId(), stopEvent.parameters().get("workProfileId"));
+
+        VisitTransition transferEvent = capturedEvents.get(1);
+        assertSame(VisitEvent.TRANSFER_TO_USER_POOL, transferEvent.event());
+        assertEquals(branch.getId(), transferEvent.parameters().get("branchId"));
+        assertEquals(operator.getId(), transferEvent.parameters().get("userId"));
+        assertEquals(operator.getId(), transferEvent.parameters().get("staffId"));
+        assertEquals(operator.getName(), transferEvent.parameters().get("staffName"));
+        assertEquals(operator.getCurrentWorkProfileId(), transferEvent.parameters().get("workProfileId"));
+        assertEquals(servicePoint.getId(), transferEvent.parameters().get("servicePointId"));
+        assertEquals("queue-history", transferEvent.parameters().get("queueId"));
 
         LOG.info("Шаг 7: проверяем публикацию отложенного события для фронтенда");
         ArgumentCaptor<Event> delayedEventCaptor = ArgumentCaptor.forClass(Event.class);
@@ -174,7 +167,7 @@ class VisitServiceTransferToUserPoolTest {
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
         assertEquals("Service point missing-sp does not exist", exception.getMessage());
         verify(eventService).send(eq("*"), eq(false), any(Event.class));
-        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitEvent.class), eq(service));
+        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitTransition.class), eq(service));
         verifyNoInteractions(delayedEvents);
     }
 
@@ -205,7 +198,7 @@ class VisitServiceTransferToUserPoolTest {
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
         assertEquals("Visit in service point sp-empty does not exist", exception.getMessage());
         verify(eventService).send(eq("*"), eq(false), any(Event.class));
-        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitEvent.class), eq(service));
+        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitTransition.class), eq(service));
         verifyNoInteractions(delayedEvents);
     }
 
@@ -245,7 +238,7 @@ class VisitServiceTransferToUserPoolTest {
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
         assertEquals("User not found in branch configuration", exception.getMessage());
         verify(eventService).send(eq("*"), eq(false), any(Event.class));
-        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitEvent.class), eq(service));
+        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitTransition.class), eq(service));
         verifyNoInteractions(delayedEvents);
     }
 }
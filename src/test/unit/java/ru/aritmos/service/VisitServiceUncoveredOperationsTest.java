@@ -11,8 +11,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
-import org.junit.jupiter.api.AfterEach;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -29,6 +27,7 @@ import ru.aritmos.model.User;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
 import ru.aritmos.model.visit.VisitEventInformation;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.service.rules.CallRule;
 import ru.aritmos.service.rules.SegmentationRule;
 import ru.aritmos.test.TestLoggingExtension;
@@ -40,24 +39,6 @@ import ru.aritmos.test.TestLoggingExtension;
 @ExtendWith(TestLoggingExtension.class)
 class VisitServiceUncoveredOperationsTest {
 
-    private final List<VisitEvent> eventsToReset = List.of(
-            VisitEvent.TRANSFER_TO_QUEUE,
-            VisitEvent.TRANSFER_TO_USER_POOL,
-            VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL,
-            VisitEvent.BACK_TO_USER_POOL,
-            VisitEvent.STOP_SERVING,
-            VisitEvent.CALLED);
-
-    @BeforeEach
-    void resetEventsBefore() {
-        resetVisitEvents();
-    }
-
-    @AfterEach
-    void resetEventsAfter() {
-        resetVisitEvents();
-    }
-
     @DisplayName("Перенос визита переводит клиента в очередь с установленной задержкой")
     @Test
     void visitTransferMovesVisitToQueueWithDelay() {
@@ -114,18 +95,18 @@ class VisitServiceUncoveredOperationsTest {
         assertEquals("true", visit.getParameterMap().get("isTransferredToStart"));
         log.info("Наполнение очереди выполняет branchService, в локальной модели список визитов пока пуст");
         log.info("Проверяем параметры события обновления и отложенного уведомления");
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         ArgumentCaptor<Boolean> toStartCaptor = ArgumentCaptor.forClass(Boolean.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(serviceUnderTest), toStartCaptor.capture());
         assertTrue(toStartCaptor.getValue());
-        VisitEvent transferEvent = eventCaptor.getValue();
-        assertSame(VisitEvent.TRANSFER_TO_QUEUE, transferEvent);
-        assertEquals(previousQueue.getId(), transferEvent.getParameters().get("oldQueueId"));
-        assertEquals(targetQueue.getId(), transferEvent.getParameters().get("newQueueId"));
-        assertEquals(servicePoint.getId(), transferEvent.getParameters().get("servicePointId"));
-        assertEquals(branch.getId(), transferEvent.getParameters().get("branchId"));
-        assertEquals(operator.getId(), transferEvent.getParameters().get("staffId"));
-        assertEquals(operator.getName(), transferEvent.getParameters().get("staffName"));
+        VisitTransition transferEvent = eventCaptor.getValue();
+        assertSame(VisitEvent.TRANSFER_TO_QUEUE, transferEvent.event());
+        assertEquals(previousQueue.getId(), transferEvent.parameters().get("oldQueueId"));
+        assertEquals(targetQueue.getId(), transferEvent.parameters().get("newQueueId"));
+        assertEquals(servicePoint.getId(), transferEvent.parameters().get("servicePointId"));
+        assertEquals(branch.getId(), transferEvent.parameters().get("branchId"));
+        assertEquals(operator.getId(), transferEvent.parameters().get("staffId"));
+        assertEquals(operator.getName(), transferEvent.parameters().get("staffName"));
 
         ArgumentCaptor<Event> delayedEventCaptor = ArgumentCaptor.forClass(Event.class);
         verify(delayedEvents).delayedEventService(eq("frontend"), eq(false), delayedEventCaptor.capture(), eq(40L), same(eventService));
@@ -185,17 +166,17 @@ class VisitServiceUncoveredOperationsTest {
         assertEquals(25L, visit.getTransferTimeDelay());
 
         log.info("Анализируем событие обновления и отложенное оповещение пула");
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         ArgumentCaptor<Boolean> appendCaptor = ArgumentCaptor.forClass(Boolean.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(serviceUnderTest), appendCaptor.capture());
         assertTrue(appendCaptor.getValue());
-        VisitEvent transferEvent = eventCaptor.getValue();
-        assertSame(VisitEvent.TRANSFER_TO_USER_POOL, transferEvent);
-        assertEquals("queue-initial", transferEvent.getParameters().get("queueId"));
-        assertEquals(poolUser.getId(), transferEvent.getParameters().get("userId"));
-        assertEquals(branch.getId(), transferEvent.getParameters().get("branchId"));
-        assertEquals("kc-1", transferEvent.getParameters().get("staffId"));
-        assertEquals("receptionist", transferEvent.getParameters().get("staffName"));
+        VisitTransition transferEvent = eventCaptor.getValue();
+        assertSame(VisitEvent.TRANSFER_TO_USER_POOL, transferEvent.event());
+        assertEquals("queue-initial", transferEvent.parameters().get("queueId"));
+        assertEquals(poolUser.getId(), transferEvent.parameters().get("userId"));
+        assertEquals(branch.getId(), transferEvent.parameters().get("branchId"));
+        assertEquals("kc-1", transferEvent.parameters().get("staffId"));
+        assertEquals("receptionist", transferEvent.parameters().get("staffName"));
 
         ArgumentCaptor<Event> delayedEventCaptor = ArgumentCaptor.forClass(Event.class);
         verify(delayedEvents).delayedEventService(eq("frontend"), eq(false), delayedEventCaptor.capture(), eq(25L), same(eventService));
@@ -266,29 +247,29 @@ class VisitServiceUncoveredOperationsTest {
         assertFalse(visit.getParameterMap().containsKey("LastPoolUserId"));
 
         log.info("Проверяем последовательность событий остановки и возврата");
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService, times(2)).updateVisit(same(visit), eventCaptor.capture(), same(serviceUnderTest));
-        List<VisitEvent> events = eventCaptor.getAllValues();
+        List<VisitTransition> events = eventCaptor.getAllValues();
         assertEquals(2, events.size());
-        VisitEvent stopEvent = events.get(0);
-        assertSame(VisitEvent.STOP_SERVING, stopEvent);
-        assertEquals("false", stopEvent.getParameters().get("isForced"));
-        assertEquals(branch.getId(), stopEvent.getParameters().get("branchId"));
-        assertEquals(activePoint.getId(), stopEvent.getParameters().get("servicePointId"));
-        assertEquals(activePoint.getName(), stopEvent.getParameters().get("servicePointName"));
-        assertEquals(activeStaff.getId(), stopEvent.getParameters().get("staffId"));
-        assertEquals(activeStaff.getName(), stopEvent.getParameters().get("staffName"));
-        assertEquals(activeStaff.getCurrentWorkProfileId(), stopEvent.getParameters().get("workProfileId"));
-
-        VisitEvent backEvent = events.get(1);
-        assertSame(VisitEvent.BACK_TO_USER_POOL, backEvent);
-        assertEquals(branch.getId(), backEvent.getParameters().get("branchId"));
-        assertEquals(activeStaff.getId(), backEvent.getParameters().get("staffId"));
-        assertEquals(activeStaff.getName(), backEvent.getParameters().get("staffName"));
-        assertEquals(activeStaff.getCurrentWorkProfileId(), backEvent.getParameters().get("workProfileId"));
-        assertEquals(poolUser.getId(), backEvent.getParameters().get("userId"));
-        assertEquals(poolUser.getName(), backEvent.getParameters().get("userName"));
-        assertEquals(activePoint.getId(), backEvent.getParameters().get("servicePointId"));
+        VisitTransition stopEvent = events.get(0);
+        assertSame(VisitEvent.STOP_SERVING, stopEvent.event());
+        assertEquals("false", stopEvent.parameters().get("isForced"));
+        assertEquals(branch.getId(), stopEvent.parameters().get("branchId"));
+        assertEquals(activePoint.getId(), stopEvent.parameters().get("servicePointId"));
+        assertEquals(activePoint.getName(), stopEvent.parameters().get("servicePointName"));
+        assertEquals(activeStaff.getId(), stopEvent.parameters().get("staffId"));
+        assertEquals(activeStaff.getName(), stopEvent.parameters().get("staffName"));
+        assertEquals(activeStaff.getCurrentWorkProfileId(), stopEvent.parameters().get("workProfileId"));
+
+        VisitTransition backEvent = events.get(1);
+        assertSame(VisitEvent.BACK_TO_USER_POOL, backEvent.event());
+        assertEquals(branch.getId(), backEvent.parameters().get("branchId"));
+        assertEquals(activeStaff.getId(), backEvent.parameters().get("staffId"));
+        assertEquals(activeStaff.getName(), backEvent.parameters().get("staffName"));
+        assertEquals(activeStaff.getCurrentWorkProfileId(), backEvent.parameters().get("workProfileId"));
+        assertEquals(poolUser.getId(), backEvent.parameters().get("userId"));
+        assertEquals(poolUser.getName(), backEvent.parameters().get("userName"));
+        assertEquals(activePoint.getId(), backEvent.parameters().get("servicePointId"));
     }
 
     @DisplayName("Перенос визита по переданной сущности помещает запись в начало очереди по запросу")
@@ -341,19 +322,19 @@ class VisitServiceUncoveredOperationsTest {
         assertNotNull(visit.getParameterMap().get("isTransferredToStart"));
 
         log.info("Проверяем событие обновления очереди и параметры уведомления");
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         ArgumentCaptor<Boolean> startCaptor = ArgumentCaptor.forClass(Boolean.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(serviceUnderTest), startCaptor.capture());
         assertTrue(startCaptor.getValue());
-        VisitEvent transferEvent = eventCaptor.getValue();
-        assertSame(VisitEvent.TRANSFER_TO_QUEUE, transferEvent);
-        assertEquals(previousQueue.getId(), transferEvent.getParameters().get("oldQueueId"));
-        assertEquals(targetQueue.getId(), transferEvent.getParameters().get("newQueueId"));
-        assertEquals(servicePoint.getId(), transferEvent.getParameters().get("servicePointId"));
-        assertEquals(branch.getId(), transferEvent.getParameters().get("branchId"));
-        assertEquals(operator.getId(), transferEvent.getParameters().get("staffId"));
-        assertEquals(operator.getName(), transferEvent.getParameters().get("staffName"));
-        assertEquals(operator.getCurrentWorkProfileId(), transferEvent.getParameters().get("workProfileId"));
+        VisitTransition transferEvent = eventCaptor.getValue();
+        assertSame(VisitEvent.TRANSFER_TO_QUEUE, transferEvent.event());
+        assertEquals(previousQueue.getId(), transferEvent.parameters().get("oldQueueId"));
+        assertEquals(targetQueue.getId(), transferEvent.parameters().get("newQueueId"));
+        assertEquals(servicePoint.getId(), transferEvent.parameters().get("servicePointId"));
+        assertEquals(branch.getId(), transferEvent.parameters().get("branchId"));
+        assertEquals(operator.getId(), transferEvent.parameters().get("staffId"));
+        assertEquals(operator.getName(), transferEvent.parameters().get("staffName"));
+        assertEquals(operator.getCurrentWorkProfileId(), transferEvent.parameters().get("workProfileId"));
 
         ArgumentCaptor<Event> delayedEventCaptor = ArgumentCaptor.forClass(Event.class);
         verify(delayedEvents).delayedEventService(eq("frontend"), eq(false), delayedEventCaptor.capture(), eq(35L), same(eventService));
@@ -415,18 +396,18 @@ class VisitServiceUncoveredOperationsTest {
         assertEquals(55L, visit.getTransferTimeDelay());
         assertNotNull(visit.getTransferDateTime());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         ArgumentCaptor<Boolean> appendCaptor = ArgumentCaptor.forClass(Boolean.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(serviceUnderTest), appendCaptor.capture());
         assertTrue(appendCaptor.getValue());
-        VisitEvent transferEvent = eventCaptor.getValue();
-        assertSame(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL, transferEvent);
-        assertEquals("queue-legacy", transferEvent.getParameters().get("queueId"));
-        assertEquals(poolPoint.getId(), transferEvent.getParameters().get("poolServicePointId"));
-        assertEquals("kc-ext", transferEvent.getParameters().get("staffId"));
-        assertEquals("external-user", transferEvent.getParameters().get("staffName"));
-        assertEquals(branch.getId(), transferEvent.getParameters().get("branchId"));
-        assertEquals("reception", transferEvent.getParameters().get("externalSystem"));
+        VisitTransition transferEvent = eventCaptor.getValue();
+        assertSame(VisitEvent.TRANSFER_TO_SERVICE_POINT_POOL, transferEvent.event());
+        assertEquals("queue-legacy", transferEvent.parameters().get("queueId"));
+        assertEquals(poolPoint.getId(), transferEvent.parameters().get("poolServicePointId"));
+        assertEquals("kc-ext", transferEvent.parameters().get("staffId"));
+        assertEquals("external-user", transferEvent.parameters().get("staffName"));
+        assertEquals(branch.getId(), transferEvent.parameters().get("branchId"));
+        assertEquals("reception", transferEvent.parameters().get("externalSystem"));
 
         ArgumentCaptor<Event> delayedEventCaptor = ArgumentCaptor.forClass(Event.class);
         verify(delayedEvents).delayedEventService(eq("frontend"), eq(false), delayedEventCaptor.capture(), eq(55L), same(eventService));
@@ -493,19 +474,19 @@ class VisitServiceUncoveredOperationsTest {
         log.info("Наполнение очереди выполняет branchService, локальный список визитов остаётся пуст");
         assertNull(visit.getParameterMap().get("isTransferredToStart"));
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         ArgumentCaptor<Integer> indexCaptor = ArgumentCaptor.forClass(Integer.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(serviceUnderTest), indexCaptor.capture());
         assertEquals(1, indexCaptor.getValue());
-        VisitEvent transferEvent = eventCaptor.getValue();
-        assertSame(VisitEvent.TRANSFER_TO_QUEUE, transferEvent);
-        assertEquals(previousQueue.getId(), transferEvent.getParameters().get("oldQueueId"));
-        assertEquals(targetQueue.getId(), transferEvent.getParameters().get("newQueueId"));
-        assertEquals(servicePoint.getId(), transferEvent.getParameters().get("servicePointId"));
-        assertEquals(branch.getId(), transferEvent.getParameters().get("branchId"));
-        assertEquals(operator.getId(), transferEvent.getParameters().get("staffId"));
-        assertEquals(operator.getName(), transferEvent.getParameters().get("staffName"));
-        assertEquals(operator.getCurrentWorkProfileId(), transferEvent.getParameters().get("workProfileId"));
+        VisitTransition transferEvent = eventCaptor.getValue();
+        assertSame(VisitEvent.TRANSFER_TO_QUEUE, transferEvent.event());
+        assertEquals(previousQueue.getId(), transferEvent.parameters().get("oldQueueId"));
+        assertEquals(targetQueue.getId(), transferEvent.parameters().get("newQueueId"));
+        assertEquals(servicePoint.getId(), transferEvent.parameters().get("servicePointId"));
+        assertEquals(branch.getId(), transferEvent.parameters().get("branchId"));
+        assertEquals(operator.getId(), transferEvent.parameters().get("staffId"));
+        assertEquals(operator.getName(), transferEvent.parameters().get("staffName"));
+        assertEquals(operator.getCurrentWorkProfileId(), transferEvent.parameters().get("workProfileId"));
 
         ArgumentCaptor<Event> delayedEventCaptor = ArgumentCaptor.forClass(Event.class);
         verify(delayedEvents).delayedEventService(eq("frontend"), eq(false), delayedEventCaptor.capture(), eq(60L), same(eventService));
@@ -568,19 +549,19 @@ class VisitServiceUncoveredOperationsTest {
         assertEquals(poolUser.getId(), visit.getPoolUserId());
         assertEquals(45L, visit.getTransferTimeDelay());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         ArgumentCaptor<Boolean> appendCaptor = ArgumentCaptor.forClass(Boolean.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(serviceUnderTest), appendCaptor.capture());
         assertTrue(appendCaptor.getValue());
-        VisitEvent transferEvent = eventCaptor.getValue();
-        assertSame(VisitEvent.TRANSFER_TO_USER_POOL, transferEvent);
-        assertEquals("queue-source", transferEvent.getParameters().get("queueId"));
-        assertEquals(poolUser.getId(), transferEvent.getParameters().get("userId"));
-        assertEquals(branch.getId(), transferEvent.getParameters().get("branchId"));
-        assertEquals("kc-ext-user", transferEvent.getParameters().get("staffId"));
-        assertEquals("ext-operator", transferEvent.getParameters().get("staffName"));
-        assertEquals("reception", transferEvent.getParameters().get("externalSystem"));
-        assertEquals("mobile-app", transferEvent.getParameters().get("channel"));
+        VisitTransition transferEvent = eventCaptor.getValue();
+        assertSame(VisitEvent.TRANSFER_TO_USER_POOL, transferEvent.event());
+        assertEquals("queue-source", transferEvent.parameters().get("queueId"));
+        assertEquals(poolUser.getId(), transferEvent.parameters().get("userId"));
+        assertEquals(branch.getId(), transferEvent.parameters().get("branchId"));
+        assertEquals("kc-ext-user", transferEvent.parameters().get("staffId"));
+        assertEquals("ext-operator", transferEvent.parameters().get("staffName"));
+        assertEquals("reception", transferEvent.parameters().get("externalSystem"));
+        assertEquals("mobile-app", transferEvent.parameters().get("channel"));
 
         ArgumentCaptor<Event> delayedEventCaptor = ArgumentCaptor.forClass(Event.class);
         verify(delayedEvents).delayedEventService(eq("frontend"), eq(false), delayedEventCaptor.capture(), eq(45L), same(eventService));
@@ -644,17 +625,17 @@ class VisitServiceUncoveredOperationsTest {
         assertEquals(poolUser.getId(), visit.getPoolUserId());
         assertEquals(30L, visit.getTransferTimeDelay());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         ArgumentCaptor<Integer> indexCaptor = ArgumentCaptor.forClass(Integer.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(serviceUnderTest), indexCaptor.capture());
         assertEquals(2, indexCaptor.getValue());
-        VisitEvent transferEvent = eventCaptor.getValue();
-        assertSame(VisitEvent.TRANSFER_TO_USER_POOL, transferEvent);
-        assertEquals("queue-from", transferEvent.getParameters().get("queueId"));
-        assertEquals(poolUser.getId(), transferEvent.getParameters().get("userId"));
-        assertEquals(branch.getId(), transferEvent.getParameters().get("branchId"));
-        assertEquals("kc-user-index", transferEvent.getParameters().get("staffId"));
-        assertEquals("index-operator", transferEvent.getParameters().get("staffName"));
+        VisitTransition transferEvent = eventCaptor.getValue();
+        assertSame(VisitEvent.TRANSFER_TO_USER_POOL, transferEvent.event());
+        assertEquals("queue-from", transferEvent.parameters().get("queueId"));
+        assertEquals(poolUser.getId(), transferEvent.parameters().get("userId"));
+        assertEquals(branch.getId(), transferEvent.parameters().get("branchId"));
+        assertEquals("kc-user-index", transferEvent.parameters().get("staffId"));
+        assertEquals("index-operator", transferEvent.parameters().get("staffName"));
 
         ArgumentCaptor<Event> delayedEventCaptor = ArgumentCaptor.forClass(Event.class);
         verify(delayedEvents).delayedEventService(eq("frontend"), eq(false), delayedEventCaptor.capture(), eq(30L), same(eventService));
@@ -711,19 +692,19 @@ class VisitServiceUncoveredOperationsTest {
         assertSame(visit, result.get());
         verify(waitingRule).call(branch, servicePoint);
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(serviceUnderTest));
-        VisitEvent calledEvent = eventCaptor.getValue();
-        assertSame(VisitEvent.CALLED, calledEvent);
-        assertEquals(servicePoint.getId(), calledEvent.getParameters().get("servicePointId"));
-        assertEquals(servicePoint.getName(), calledEvent.getParameters().get("servicePointName"));
-        assertEquals(branch.getId(), calledEvent.getParameters().get("branchId"));
+        VisitTransition calledEvent = eventCaptor.getValue();
+        assertSame(VisitEvent.CALLED, calledEvent.event());
+        assertEquals(servicePoint.getId(), calledEvent.parameters().get("servicePointId"));
+        assertEquals(servicePoint.getName(), calledEvent.parameters().get("servicePointName"));
+        assertEquals(branch.getId(), calledEvent.parameters().get("branchId"));
         log.info("Убеждаемся, что реализация не заполняет идентификатор очереди в событии вызова");
-        assertFalse(calledEvent.getParameters().containsKey("queueId"));
-        assertEquals(operator.getId(), calledEvent.getParameters().get("staffId"));
-        assertEquals(operator.getName(), calledEvent.getParameters().get("staffName"));
-        assertEquals(operator.getCurrentWorkProfileId(), calledEvent.getParameters().get("workProfileId"));
-        assertEquals("callNext", calledEvent.getParameters().get("callMethod"));
+        assertFalse(calledEvent.parameters().containsKey("queueId"));
+        assertEquals(operator.getId(), calledEvent.parameters().get("staffId"));
+        assertEquals(operator.getName(), calledEvent.parameters().get("staffName"));
+        assertEquals(operator.getCurrentWorkProfileId(), calledEvent.parameters().get("workProfileId"));
+        assertEquals("callNext", calledEvent.parameters().get("callMethod"));
     }
 
     @DisplayName("Вызов визита по максимальному времени ожидания включает автоматический вызов при пустой очереди")
@@ -800,17 +781,17 @@ class VisitServiceUncoveredOperationsTest {
         assertTrue(result.isPresent());
         assertSame(visit, result.get());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(serviceUnderTest));
-        VisitEvent calledEvent = eventCaptor.getValue();
-        assertSame(VisitEvent.CALLED, calledEvent);
-        assertEquals(servicePoint.getId(), calledEvent.getParameters().get("servicePointId"));
-        assertEquals(servicePoint.getName(), calledEvent.getParameters().get("servicePointName"));
-        assertEquals(branch.getId(), calledEvent.getParameters().get("branchId"));
-        assertEquals(operator.getId(), calledEvent.getParameters().get("staffId"));
-        assertEquals(operator.getName(), calledEvent.getParameters().get("staffName"));
-        assertEquals(operator.getCurrentWorkProfileId(), calledEvent.getParameters().get("workProfileId"));
-        assertEquals("callNext", calledEvent.getParameters().get("callMethod"));
+        VisitTransition calledEvent = eventCaptor.getValue();
+        assertSame(VisitEvent.CALLED, calledEvent.event());
+        assertEquals(servicePoint.getId(), calledEvent.parameters().get("servicePointId"));
+        assertEquals(servicePoint.getName(), calledEvent.parameters().get("servicePointName"));
+        assertEquals(branch.getId(), calledEvent.parameters().get("branchId"));
+        assertEquals(operator.getId(), calledEvent.parameters().get("staffId"));
+        assertEquals(operator.getName(), calledEvent.parameters().get("staffName"));
+        assertEquals(operator.getCurrentWorkProfileId(), calledEvent.parameters().get("workProfileId"));
+        assertEquals("callNext", calledEvent.parameters().get("callMethod"));
     }
 
     @DisplayName("Вызов визита по максимальному времени ожидания с фильтром очередей включает режим автоматического вызова")
@@ -870,10 +851,4 @@ class VisitServiceUncoveredOperationsTest {
         return (Map<String, String>) body;
     }
 
-    private void resetVisitEvents() {
-        eventsToReset.forEach(event -> {
-            event.getParameters().clear();
-            event.dateTime = null;
-        });
-    }
 }
@@ -9,8 +9,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import org.junit.jupiter.api.AfterEach;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,6 +20,7 @@ import ru.aritmos.model.Queue;
 import ru.aritmos.model.ServicePoint;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.test.TestLoggingExtension;
 
 /**
@@ -31,21 +30,6 @@ import ru.aritmos.test.TestLoggingExtension;
 @ExtendWith(TestLoggingExtension.class)
 class VisitServiceVisitCallTest {
 
-    @BeforeEach
-    void clearVisitEventParametersBeforeTest() {
-        clearVisitEventParameters();
-    }
-
-    @AfterEach
-    void clearVisitEventParametersAfterTest() {
-        clearVisitEventParameters();
-    }
-
-    private void clearVisitEventParameters() {
-        VisitEvent.CALLED.getParameters().clear();
-        VisitEvent.START_SERVING.getParameters().clear();
-    }
-
     @DisplayName("Вызов визита переносит клиента из очереди и публикует события")
     @Test
     void visitCallMovesVisitFromQueueAndPublishesEvents() {
@@ -88,14 +72,14 @@ class VisitServiceVisitCallTest {
         assertTrue(queue.getVisits().isEmpty());
         assertNotNull(visit.getStartServingDateTime());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService, times(2)).updateVisit(same(visit), eventCaptor.capture(), same(service));
-        List<VisitEvent> capturedEvents = eventCaptor.getAllValues();
+        List<VisitTransition> capturedEvents = eventCaptor.getAllValues();
         assertEquals(2, capturedEvents.size());
 
-        VisitEvent calledEvent = capturedEvents.get(0);
-        assertSame(VisitEvent.CALLED, calledEvent);
-        Map<String, String> calledParams = new HashMap<>(calledEvent.getParameters());
+        VisitTransition calledEvent = capturedEvents.get(0);
+        assertSame(VisitEvent.CALLED, calledEvent.event());
+        Map<String, String> calledParams = new HashMap<>(calledEvent.parameters());
         assertEquals("sp1", calledParams.get("servicePointId"));
         assertEquals("Окно 1", calledParams.get("servicePointName"));
         assertEquals("b1", calledParams.get("branchId"));
@@ -104,8 +88,8 @@ class VisitServiceVisitCallTest {
         assertEquals("", calledParams.get("staffName"));
         assertEquals("", calledParams.get("workProfileId"));
 
-        VisitEvent startServingEvent = capturedEvents.get(1);
-        assertSame(VisitEvent.START_SERVING, startServingEvent);
+        VisitTransition startServingEvent = capturedEvents.get(1);
+        assertSame(VisitEvent.START_SERVING, startServingEvent.event());
     }
 
     @DisplayName("Вызов визита завершается ошибкой, если окно занято")
@@ -130,7 +114,7 @@ class VisitServiceVisitCallTest {
                 HttpStatusException.class, () -> service.visitCall("b1", "sp1", visit, "auto"));
         assertEquals(HttpStatus.CONFLICT, exception.getStatus());
         verify(eventService).send(eq("*"), eq(false), any(Event.class));
-        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitEvent.class), same(service));
+        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitTransition.class), same(service));
     }
 
     @DisplayName("Вызов визита завершается ошибкой, если окно не найдено")
@@ -151,7 +135,7 @@ class VisitServiceVisitCallTest {
                 HttpStatusException.class, () -> service.visitCall("b1", "missing", visit, "auto"));
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
         verify(eventService).send(eq("*"), eq(false), any(Event.class));
-        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitEvent.class), same(service));
+        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitTransition.class), same(service));
     }
 
     @DisplayName("Вызов визита переносит данные пула в параметры визита")
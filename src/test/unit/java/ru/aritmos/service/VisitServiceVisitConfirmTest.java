@@ -9,8 +9,6 @@ import java.time.ZonedDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
-import org.junit.jupiter.api.AfterEach;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -23,6 +21,7 @@ import ru.aritmos.model.ServicePoint;
 import ru.aritmos.model.User;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.test.TestLoggingExtension;
 
 /**
@@ -32,16 +31,6 @@ import ru.aritmos.test.TestLoggingExtension;
 @ExtendWith(TestLoggingExtension.class)
 class VisitServiceVisitConfirmTest {
 
-    @BeforeEach
-    void clearEventParametersBefore() {
-        VisitEvent.START_SERVING.getParameters().clear();
-    }
-
-    @AfterEach
-    void clearEventParametersAfter() {
-        VisitEvent.START_SERVING.getParameters().clear();
-    }
-
     @DisplayName("Подтверждение визита переводит клиента к точке обслуживания и публикует событие START_SERVING о начале обслуживания")
     @Test
     void visitConfirmMovesVisitToServicePointAndPublishesStartServingEvent() {
@@ -101,14 +90,14 @@ class VisitServiceVisitConfirmTest {
         assertEquals("user-1", visit.getUserId());
         assertEquals("Иван Оператор", visit.getUserName());
 
-        ArgumentCaptor<VisitEvent> eventCaptor = ArgumentCaptor.forClass(VisitEvent.class);
+        ArgumentCaptor<VisitTransition> eventCaptor = ArgumentCaptor.forClass(VisitTransition.class);
         verify(branchService).updateVisit(same(visit), eventCaptor.capture(), same(serviceUnderTest));
-        VisitEvent startServingEvent = eventCaptor.getValue();
-        assertSame(VisitEvent.START_SERVING, startServingEvent);
-        assertNotNull(startServingEvent.dateTime);
+        VisitTransition startServingEvent = eventCaptor.getValue();
+        assertSame(VisitEvent.START_SERVING, startServingEvent.event());
+        assertNotNull(startServingEvent.dateTime());
 
         log.info("Сравниваем параметры события START_SERVING");
-        Map<String, String> params = new HashMap<>(startServingEvent.getParameters());
+        Map<String, String> params = new HashMap<>(startServingEvent.parameters());
         assertEquals("sp1", params.get("servicePointId"));
         assertEquals("b1", params.get("branchId"));
         assertEquals("srv-1", params.get("serviceId"));
@@ -142,7 +131,7 @@ class VisitServiceVisitConfirmTest {
                 HttpStatusException.class, () -> serviceUnderTest.visitConfirm("b1", "sp1", visit));
         assertEquals(HttpStatus.CONFLICT, exception.getStatus());
         verify(eventService).send(eq("*"), eq(false), any(Event.class));
-        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitEvent.class), same(serviceUnderTest));
+        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitTransition.class), same(serviceUnderTest));
     }
 
     @DisplayName("Подтверждение визита завершается ошибкой 404, если точка обслуживания отсутствует")
@@ -166,6 +155,6 @@ class VisitServiceVisitConfirmTest {
                 HttpStatusException.class, () -> serviceUnderTest.visitConfirm("b1", "missing", visit));
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
         verify(eventService).send(eq("*"), eq(false), any(Event.class));
-        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitEvent.class), same(serviceUnderTest));
+        verify(branchService, never()).updateVisit(any(Visit.class), any(VisitTransition.class), same(serviceUnderTest));
     }
 }
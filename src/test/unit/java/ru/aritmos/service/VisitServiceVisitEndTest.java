@@ -6,6 +6,7 @@ import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.same;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -24,11 +25,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import org.junit.jupiter.api.AfterEach;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import ru.aritmos.events.model.Event;
 import ru.aritmos.events.services.EventService;
 import ru.aritmos.model.Branch;
@@ -38,6 +38,7 @@ import ru.aritmos.model.User;
 import ru.aritmos.model.visit.Visit;
 import ru.aritmos.model.visit.VisitEvent;
 import ru.aritmos.model.visit.VisitEventInformation;
+import ru.aritmos.model.visit.VisitTransition;
 import ru.aritmos.test.TestLoggingExtension;
 
 /**
@@ -46,22 +47,6 @@ import ru.aritmos.test.TestLoggingExtension;
 @ExtendWith(TestLoggingExtension.class)
 class VisitServiceVisitEndTest {
 
-    @BeforeEach
-    void clearVisitEventParametersBeforeTest() {
-        clearVisitEventParameters();
-    }
-
-    @AfterEach
-    void clearVisitEventParametersAfterTest() {
-        clearVisitEventParameters();
-    }
-
-    private void clearVisitEventParameters() {
-        VisitEvent.STOP_SERVING.getParameters().clear();
-        VisitEvent.BACK_TO_QUEUE.getParameters().clear();
-        VisitEvent.END.getParameters().clear();
-    }
-
     @DisplayName("Завершение визита возвращает клиента в очередь при наличии следующей услуги")
     @Test
     void visitEndReturnsVisitToQueueWhenNextServiceAvailable() {
@@ -111,7 +96,12 @@ class VisitServiceVisitEndTest {
         assertNull(visit.getStartServingDateTime());
         assertNull(visit.getServicePointId());
 
-        Map<String, String> stopServingParameters = new HashMap<>(VisitEvent.STOP_SERVING.getParameters());
+        ArgumentCaptor<VisitTransition> transitionCaptor = ArgumentCaptor.forClass(VisitTransition.class);
+        verify(branchService, times(2))
+                .updateVisit(same(visit), transitionCaptor.capture(), same(service), eq(Boolean.TRUE));
+        VisitTransition stopServing = transitionCaptor.getAllValues().get(0);
+        assertSame(VisitEvent.STOP_SERVING, stopServing.event());
+        Map<String, String> stopServingParameters = stopServing.parameters();
         assertEquals("false", stopServingParameters.get("isForced"));
         assertEquals("Клиент вернётся позже", stopServingParameters.get("reason"));
         assertEquals(servicePoint.getId(), stopServingParameters.get("servicePointId"));
@@ -121,7 +111,9 @@ class VisitServiceVisitEndTest {
         assertEquals(operator.getName(), stopServingParameters.get("staffName"));
         assertEquals(operator.getCurrentWorkProfileId(), stopServingParameters.get("workProfileId"));
 
-        Map<String, String> backToQueueParameters = new HashMap<>(VisitEvent.BACK_TO_QUEUE.getParameters());
+        VisitTransition backToQueue = transitionCaptor.getAllValues().get(1);
+        assertSame(VisitEvent.BACK_TO_QUEUE, backToQueue.event());
+        Map<String, String> backToQueueParameters = backToQueue.parameters();
         assertEquals(branch.getId(), backToQueueParameters.get("branchId"));
         assertEquals("queue-follow", backToQueueParameters.get("queueId"));
         assertEquals(servicePoint.getId(), backToQueueParameters.get("servicePointId"));
@@ -130,10 +122,6 @@ class VisitServiceVisitEndTest {
         assertEquals(operator.getCurrentWorkProfileId(), backToQueueParameters.get("workProfileId"));
 
         verify(branchService).getBranch(branch.getId());
-        verify(branchService)
-                .updateVisit(same(visit), same(VisitEvent.STOP_SERVING), same(service), eq(Boolean.TRUE));
-        verify(branchService)
-                .updateVisit(same(visit), same(VisitEvent.BACK_TO_QUEUE), same(service), eq(Boolean.TRUE));
         verifyNoMoreInteractions(branchService);
         verifyNoInteractions(eventService);
     }
@@ -186,7 +174,12 @@ class VisitServiceVisitEndTest {
         assertNull(visit.getReturnDateTime());
         assertNull(visit.getServicePointId());
 
-        Map<String, String> stopServingParameters = new HashMap<>(VisitEvent.STOP_SERVING.getParameters());
+        ArgumentCaptor<VisitTransition> transitionCaptor = ArgumentCaptor.forClass(VisitTransition.class);
+        verify(branchService, times(2))
+                .updateVisit(same(visit), transitionCaptor.capture(), same(service), eq(Boolean.TRUE));
+        VisitTransition stopServing = transitionCaptor.getAllValues().get(0);
+        assertSame(VisitEvent.STOP_SERVING, stopServing.event());
+        Map<String, String> stopServingParameters = stopServing.parameters();
         assertEquals("true", stopServingParameters.get("isForced"));
         assertEquals("Обслуживание завершено", stopServingParameters.get("reason"));
         assertEquals(servicePoint.getId(), stopServingParameters.get("servicePointId"));
@@ -196,14 +189,11 @@ class VisitServiceVisitEndTest {
         assertEquals("Архивный оператор", stopServingParameters.get("staffName"));
         assertEquals("legacy-profile", stopServingParameters.get("workProfileId"));
 
-        assertTrue(VisitEvent.BACK_TO_QUEUE.getParameters().isEmpty());
-        assertTrue(VisitEvent.END.getParameters().isEmpty());
+        VisitTransition end = transitionCaptor.getAllValues().get(1);
+        assertSame(VisitEvent.END, end.event());
+        assertTrue(end.parameters().isEmpty());
 
         verify(branchService).getBranch(branch.getId());
-        verify(branchService)
-                .updateVisit(same(visit), same(VisitEvent.STOP_SERVING), same(service), eq(Boolean.TRUE));
-        verify(branchService)
-                .updateVisit(same(visit), same(VisitEvent.END), same(service), eq(Boolean.TRUE));
         verifyNoMoreInteractions(branchService);
         verifyNoInteractions(eventService);
     }
@@ -230,7 +220,7 @@ class VisitServiceVisitEndTest {
         verify(branchService).getBranch(branch.getId());
         verify(eventService).send(eq("*"), eq(false), any(Event.class));
         verify(branchService, never())
-                .updateVisit(any(Visit.class), any(VisitEvent.class), any(VisitService.class), anyBoolean());
+                .updateVisit(any(Visit.class), any(VisitTransition.class), any(VisitService.class), anyBoolean());
     }
 
     @DisplayName("Завершение визита возвращает 404, если на точке нет активного визита")
@@ -260,6 +250,6 @@ class VisitServiceVisitEndTest {
         verify(branchService).getBranch(branch.getId());
         verify(eventService).send(eq("*"), eq(false), any(Event.class));
         verify(branchService, never())
-                .updateVisit(any(Visit.class), any(VisitEvent.class), any(VisitService.class), anyBoolean());
+                .updateVisit(any(Visit.class), any(VisitTransition.class), any(VisitService.class), anyBoolean());
     }
 }
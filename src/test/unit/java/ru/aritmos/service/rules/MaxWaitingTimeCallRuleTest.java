@@ -2,9 +2,9 @@ package ru.aritmos.service.rules;
 
 import static ru.aritmos.test.LoggingAssertions.*;
 
-import java.lang.reflect.Method;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -24,12 +24,12 @@ class MaxWaitingTimeCallRuleTest {
     @DisplayName("Метод преобразования строки в дату возвращает корректный результат")
     @Test
     void parseDateFromString() {
-        MaxWaitingTimeCallRule rule = new MaxWaitingTimeCallRule();
         ZonedDateTime expected = ZonedDateTime.parse("2024-01-01T10:15:30+03:00[Europe/Moscow]");
         String formatted = expected.format(java.time.format.DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss zzz", java.util.Locale.US));
 
-        ZonedDateTime actual = rule.getDateNyString(formatted);
+        ZonedDateTime actual = WaitingOrder.parseTransferredToStart(formatted);
         assertEquals(expected, actual);
+        assertNull(WaitingOrder.parseTransferredToStart("true"));
     }
 
     /**
@@ -161,10 +161,8 @@ class MaxWaitingTimeCallRuleTest {
     /** Проверяем работу компаратора перенесённых визитов. */
     @DisplayName("Сравнение визитов учитывает флаги переноса")
     @Test
-    void visitComparerHandlesTransferFlags() throws Exception {
-        MaxWaitingTimeCallRule rule = new MaxWaitingTimeCallRule();
-        Method comparer = MaxWaitingTimeCallRule.class.getDeclaredMethod("visitComparer", Visit.class, Visit.class);
-        comparer.setAccessible(true);
+    void visitComparerHandlesTransferFlags() {
+        Comparator<Visit> comparer = WaitingOrder.MAX_WAITING_TIME.comparator();
 
         Visit transferred = Visit.builder()
                 .parameterMap(new HashMap<>(Map.of("isTransferredToStart", "Mon, 01 Jan 2024 10:00:00 GMT")))
@@ -172,14 +170,14 @@ class MaxWaitingTimeCallRuleTest {
                 .build();
         Visit regular = Visit.builder()
                 .parameterMap(new HashMap<>())
-                .waitingTime(10L)
+                .createDateTime(ZonedDateTime.now().minusMinutes(10))
                 .build();
 
-        int result1 = (int) comparer.invoke(rule, transferred, regular);
-        int result2 = (int) comparer.invoke(rule, regular, transferred);
+        int result1 = comparer.compare(transferred, regular);
+        int result2 = comparer.compare(regular, transferred);
 
-        assertTrue(result1 > 0);
-        assertTrue(result2 < 0);
+        assertTrue(result1 < 0);
+        assertTrue(result2 > 0);
     }
 
     /** Проверяем выбор визита с максимальным временем ожидания без списка очередей. */
@@ -284,10 +282,8 @@ class MaxWaitingTimeCallRuleTest {
     /** Проверяем, что компаратор учитывает порядок по датам переноса. */
     @DisplayName("Сравнение визитов отдаёт приоритет более раннему переносу")
     @Test
-    void visitComparerPrefersEarlierTransferDates() throws Exception {
-        MaxWaitingTimeCallRule rule = new MaxWaitingTimeCallRule();
-        Method comparer = MaxWaitingTimeCallRule.class.getDeclaredMethod("visitComparer", Visit.class, Visit.class);
-        comparer.setAccessible(true);
+    void visitComparerPrefersEarlierTransferDates() {
+        Comparator<Visit> comparer = WaitingOrder.MAX_WAITING_TIME.comparator();
 
         Visit earlier = Visit.builder()
                 .parameterMap(new HashMap<>(Map.of("isTransferredToStart", "Mon, 01 Jan 2024 10:00:00 GMT")))
@@ -298,11 +294,11 @@ class MaxWaitingTimeCallRuleTest {
                 .waitingTime(100L)
                 .build();
 
-        int compareForward = (int) comparer.invoke(rule, earlier, later);
-        int compareBackward = (int) comparer.invoke(rule, later, earlier);
+        int compareForward = comparer.compare(earlier, later);
+        int compareBackward = comparer.compare(later, earlier);
 
-        assertTrue(compareForward > 0);
-        assertTrue(compareBackward < 0);
+        assertTrue(compareForward < 0);
+        assertTrue(compareBackward > 0);
     }
 
     /** Проверяем, что визиты без статуса WAITING игнорируются. */